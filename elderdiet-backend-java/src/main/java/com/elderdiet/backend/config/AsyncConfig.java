@@ -0,0 +1,76 @@
+package com.elderdiet.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.stereotype.Component;
+
+/**
+ * 后台异步任务配置类
+ */
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * 后台异步任务配置属性
+     */
+    @Data
+    @Component
+    @ConfigurationProperties(prefix = "async")
+    public static class AsyncProperties {
+
+        /**
+         * 是否使用虚拟线程执行后台任务（需要JDK 21及以上，低版本自动回退到平台线程池）
+         */
+        private boolean virtualThreads = false;
+
+        /**
+         * 推送通知线程池
+         */
+        private Pool push = new Pool(2, 8, 500);
+
+        /**
+         * AI营养师评论线程池
+         */
+        private Pool aiComment = new Pool(1, 4, 100);
+
+        /**
+         * 领域事件异步监听器线程池
+         */
+        private Pool domainEvent = new Pool(2, 4, 1000);
+
+        /**
+         * 图片压缩和上传线程池（CPU密集，默认线程数等于CPU核数，不使用虚拟线程）
+         */
+        private Pool image = new Pool(Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().availableProcessors(), 64);
+
+        @Data
+        public static class Pool {
+            /**
+             * 核心线程数
+             */
+            private int coreSize;
+
+            /**
+             * 最大线程数
+             */
+            private int maxSize;
+
+            /**
+             * 等待队列容量，队列满且线程数达到上限时拒绝新任务
+             * 虚拟线程模式下 maxSize + queueCapacity 为同时执行的任务数上限
+             */
+            private int queueCapacity;
+
+            public Pool() {
+            }
+
+            public Pool(int coreSize, int maxSize, int queueCapacity) {
+                this.coreSize = coreSize;
+                this.maxSize = maxSize;
+                this.queueCapacity = queueCapacity;
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.elderdiet.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.stereotype.Component;
+
+/**
+ * 分享墙配置类
+ */
+@Configuration
+public class FeedConfig {
+
+    /**
+     * 分享墙配置属性
+     */
+    @Data
+    @Component
+    @ConfigurationProperties(prefix = "feed")
+    public static class FeedProperties {
+
+        /**
+         * 时间线（写扩散收件箱）配置
+         */
+        private Timeline timeline = new Timeline();
+
+        /**
+         * 家庭簇（并查集计算的家庭连通分量）配置
+         */
+        private Cluster cluster = new Cluster();
+
+        /**
+         * 分页分享墙的读取方式（未开启时间线读取时生效）
+         */
+        private ReadStrategy readStrategy = ReadStrategy.HYDRATE;
+
+        /**
+         * 分享墙响应缓存配置
+         */
+        private Cache cache = new Cache();
+
+        /**
+         * 分享墙每条记录附带的最新评论条数，完整评论通过评论接口分页获取
+         */
+        private int commentPreviewSize = 3;
+
+        /**
+         * 缓存点赞记录集合的用户数上限，超出后淘汰最久未访问的用户
+         */
+        private int likedCacheMaxUsers = 10000;
+
+        /**
+         * 点赞记录集合的有效期（分钟），过期后重新加载，修正其他实例上的点赞切换
+         */
+        private int likedCacheTtlMinutes = 10;
+
+        /**
+         * 实时事件（SSE）配置
+         */
+        private Events events = new Events();
+
+        /**
+         * 启动时是否为没有发布者快照的历史记录补写快照
+         */
+        private boolean publisherSnapshotBackfillOnStartup = true;
+
+        /**
+         * 分享墙读取方式
+         */
+        public enum ReadStrategy {
+            HYDRATE, // 先查询一页记录，再按集合批量查询点赞、评论和发布者
+            AGGREGATION // 一次聚合查询，通过 $facet 和 $lookup 返回整页数据
+        }
+
+        @Data
+        public static class Timeline {
+            /**
+             * 是否从时间线集合读取分享墙（需先完成回填）
+             */
+            private boolean readEnabled = false;
+
+            /**
+             * 启动时是否根据现有膳食记录和家庭关系重建所有时间线
+             */
+            private boolean backfillOnStartup = false;
+
+            /**
+             * 重建单个用户时间线时核对的最近记录条数，更早的条目只在发布者不再是家庭成员时删除
+             */
+            private int rebuildWindowSize = 500;
+        }
+
+        @Data
+        public static class Cluster {
+            /**
+             * 查询分享墙时是否先按记录上的家庭簇ID过滤（需先完成校准）
+             */
+            private boolean readEnabled = false;
+
+            /**
+             * 启动时是否校准所有记录的家庭簇ID
+             */
+            private boolean reconcileOnStartup = true;
+        }
+
+        @Data
+        public static class Events {
+            /**
+             * 每个连接最多缓冲的未发送事件数，超出后关闭连接，由客户端重连并全量刷新
+             */
+            private int bufferSize = 64;
+
+            /**
+             * 每个用户最多同时保持的连接数，超出后关闭最早的连接
+             */
+            private int maxConnectionsPerUser = 3;
+
+            /**
+             * 心跳间隔（秒），避免代理因空闲断开连接
+             */
+            private int heartbeatSeconds = 25;
+
+            /**
+             * 单个连接的最长保持时间（分钟），到期后由客户端重连
+             */
+            private int connectionTtlMinutes = 30;
+        }
+
+        @Data
+        public static class Cache {
+            /**
+             * 是否缓存渲染好的分享墙分页并返回ETag
+             */
+            private boolean enabled = true;
+
+            /**
+             * 缓存的分页数量上限，超出后淘汰最久未访问的分页
+             */
+            private int maxEntries = 2000;
+
+            /**
+             * 缓存分页的有效期（秒），其他实例上的变化最迟在过期后可见
+             */
+            private int ttlSeconds = 30;
+        }
+    }
+}
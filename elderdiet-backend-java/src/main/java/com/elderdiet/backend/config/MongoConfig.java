@@ -0,0 +1,28 @@
+package com.elderdiet.backend.config;
+
+import com.elderdiet.backend.util.MongoQueryCounter;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * MongoDB客户端配置类
+ */
+@Configuration
+public class MongoConfig {
+
+    /**
+     * 注册命令监听器，为 MongoQueryCounter 提供每个请求的查询次数统计
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer queryCounterCustomizer() {
+        return builder -> builder.addCommandListener(new CommandListener() {
+            @Override
+            public void commandStarted(CommandStartedEvent event) {
+                MongoQueryCounter.increment();
+            }
+        });
+    }
+}
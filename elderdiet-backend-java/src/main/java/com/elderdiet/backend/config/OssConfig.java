@@ -35,5 +35,76 @@ public class OssConfig {
         private String bucketName;
         private String baseUrl;
         private String uploadPath;
+
+        /**
+         * 上传图片的压缩配置
+         */
+        private Image image = new Image();
+
+        /**
+         * 客户端直传配置
+         */
+        private DirectUpload directUpload = new DirectUpload();
+
+        @Data
+        public static class Image {
+            /**
+             * 压缩后图片的最长边（像素），解码时按此尺寸采样，单张图片解码占用的堆内存约为 maxDimension² × 4 字节
+             */
+            private int maxDimension = 2048;
+
+            /**
+             * 分享墙展示图的最长边（像素）
+             */
+            private int feedDimension = 1080;
+
+            /**
+             * 缩略图的最长边（像素）
+             */
+            private int thumbnailDimension = 240;
+
+            /**
+             * 编码缓冲区池保留的缓冲区数量
+             */
+            private int bufferPoolSize = 8;
+
+            /**
+             * 缓冲区的初始容量（字节）
+             */
+            private int bufferInitialBytes = 512 * 1024;
+
+            /**
+             * 超过此容量的缓冲区用完后不放回池中（字节）
+             */
+            private int bufferMaxRetainedBytes = 4 * 1024 * 1024;
+
+            /**
+             * 一次上传多张图片时等待全部完成的最长时间（毫秒）
+             */
+            private long uploadTimeoutMs = 30000;
+
+            /**
+             * 是否按内容哈希去重：相同内容的图片只压缩上传一次，删除时按引用计数保留仍被引用的对象
+             */
+            private boolean dedupEnabled = true;
+        }
+
+        @Data
+        public static class DirectUpload {
+            /**
+             * 是否允许客户端通过预签名URL直接上传到OSS
+             */
+            private boolean enabled = true;
+
+            /**
+             * 预签名上传URL的有效期（秒）
+             */
+            private int expirySeconds = 300;
+
+            /**
+             * 直传图片的最大大小（字节），预签名PUT无法限制大小，完成上传时校验，超过的删除
+             */
+            private long maxBytes = 10 * 1024 * 1024;
+        }
     }
 }
\ No newline at end of file
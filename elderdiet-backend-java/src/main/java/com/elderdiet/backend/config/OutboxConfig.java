@@ -0,0 +1,57 @@
+package com.elderdiet.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.stereotype.Component;
+
+/**
+ * 待执行副作用（Outbox）配置类
+ */
+@Configuration
+public class OutboxConfig {
+
+    /**
+     * Outbox 配置属性
+     */
+    @Data
+    @Component
+    @ConfigurationProperties(prefix = "outbox")
+    public static class OutboxProperties {
+
+        /**
+         * 是否在本实例上执行 Outbox 事件（多实例部署时可只在部分实例开启）
+         */
+        private boolean workerEnabled = true;
+
+        /**
+         * 每轮拉取最多领取的浇水、推送事件数
+         */
+        private int batchSize = 20;
+
+        /**
+         * 每轮拉取最多领取的营养师评论事件数，同一批在一个AI任务中依次执行
+         */
+        private int aiBatchSize = 3;
+
+        /**
+         * 租约时长（秒），执行者在此时间内未完成时事件可被其他实例重新领取
+         */
+        private int leaseSeconds = 300;
+
+        /**
+         * 最大执行次数，超过后标记为失败
+         */
+        private int maxAttempts = 8;
+
+        /**
+         * 首次重试的等待时间（秒），之后每次翻倍
+         */
+        private int initialBackoffSeconds = 5;
+
+        /**
+         * 重试等待时间上限（秒）
+         */
+        private int maxBackoffSeconds = 1800;
+    }
+}
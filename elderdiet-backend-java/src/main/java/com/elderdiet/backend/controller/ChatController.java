@@ -6,13 +6,18 @@ import com.elderdiet.backend.dto.ChatResponse;
 import com.elderdiet.backend.entity.ChatMessage;
 import com.elderdiet.backend.service.ChatService;
 import com.elderdiet.backend.util.JwtUtil;
+import com.elderdiet.backend.util.StreamingApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.time.Instant;
 import java.util.List;
 
 /**
@@ -26,6 +31,7 @@ public class ChatController {
 
         private final ChatService chatService;
         private final JwtUtil jwtUtil;
+        private final ObjectMapper objectMapper;
 
         /**
          * 发送聊天消息
@@ -169,6 +175,31 @@ public class ChatController {
                 }
         }
 
+        /**
+         * 流式获取聊天历史记录（传入 stream=true 时生效）
+         * 响应结构与普通接口相同，消息边从数据库读取边写出，内存占用与历史长度无关
+         */
+        @GetMapping(value = "/history", params = "stream=true")
+        public ResponseEntity<?> streamChatHistory(
+                        @RequestParam(value = "since_timestamp", required = false) Long sinceTimestamp,
+                        HttpServletRequest httpRequest) {
+
+                String token = extractTokenFromRequest(httpRequest);
+                if (token == null || !jwtUtil.validateToken(token)) {
+                        return ResponseEntity.status(401)
+                                        .body(ApiResponse.<List<ChatMessage>>builder()
+                                                        .success(false)
+                                                        .message(token == null ? "未提供认证token" : "无效的认证token")
+                                                        .build());
+                }
+
+                String userId = jwtUtil.getUidFromToken(token);
+                Instant since = sinceTimestamp != null ? Instant.ofEpochMilli(sinceTimestamp) : null;
+                StreamingResponseBody body = StreamingApiResponse.success(objectMapper, "获取聊天历史成功",
+                                () -> chatService.streamChatMessages(userId, since));
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+
         /**
          * 清空聊天历史记录
          */
@@ -1,7 +1,12 @@
 package com.elderdiet.backend.controller;
 
 import com.elderdiet.backend.dto.ApiResponse;
+import com.elderdiet.backend.dto.DirectUploadCompleteRequest;
+import com.elderdiet.backend.dto.PresignedUploadRequest;
+import com.elderdiet.backend.dto.PresignedUploadResponse;
+import com.elderdiet.backend.entity.ImageVariants;
 import com.elderdiet.backend.service.OssService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -33,7 +38,8 @@ public class ImageController {
                     file.getOriginalFilename(), file.getSize());
 
             // 上传文件到OSS
-            String imageUrl = ossService.uploadFile(file);
+            String userId = (String) authentication.getPrincipal();
+            String imageUrl = ossService.uploadFile(file, userId);
 
             log.info("图片上传成功: {}", imageUrl);
 
@@ -46,7 +52,72 @@ public class ImageController {
     }
 
     /**
-     * 删除图片
+     * 上传图片，返回原图、分享墙展示图和缩略图的URL
+     */
+    @PostMapping("/upload/variants")
+    public ResponseEntity<ApiResponse<ImageVariants>> uploadImageVariants(
+            @RequestParam("file") MultipartFile file,
+            Authentication authentication) {
+
+        try {
+            log.info("开始上传图片（多尺寸）: {}, 大小: {} bytes",
+                    file.getOriginalFilename(), file.getSize());
+
+            String userId = (String) authentication.getPrincipal();
+            ImageVariants variants = ossService.uploadImage(file, userId);
+
+            log.info("图片上传成功: {}", variants.getOriginal());
+
+            return ResponseEntity.ok(ApiResponse.success("图片上传成功", variants));
+
+        } catch (Exception e) {
+            log.error("图片上传失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * 申请图片直传URL
+     * 客户端用返回的预签名URL直接 PUT 到OSS，图片数据不经过应用服务器，上传后调用 /direct/complete
+     */
+    @PostMapping("/direct/presign")
+    public ResponseEntity<ApiResponse<PresignedUploadResponse>> presignUpload(
+            @Valid @RequestBody PresignedUploadRequest request,
+            Authentication authentication) {
+
+        try {
+            String userId = (String) authentication.getPrincipal();
+            PresignedUploadResponse response = ossService.presignUpload(userId, request.getContentType());
+            return ResponseEntity.ok(ApiResponse.success("获取上传地址成功", response));
+
+        } catch (Exception e) {
+            log.error("申请图片直传URL失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * 完成图片直传，返回的各版本都是原图URL
+     * 直传图片的多尺寸版本在随膳食记录提交（uploadedObjectKeys）后异步生成并写回记录
+     */
+    @PostMapping("/direct/complete")
+    public ResponseEntity<ApiResponse<ImageVariants>> completeDirectUpload(
+            @Valid @RequestBody DirectUploadCompleteRequest request,
+            Authentication authentication) {
+
+        try {
+            String userId = (String) authentication.getPrincipal();
+            ImageVariants variants = ossService.completeDirectUpload(userId, request.getObjectKey());
+            return ResponseEntity.ok(ApiResponse.success("图片上传成功", variants));
+
+        } catch (Exception e) {
+            log.error("完成图片直传失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * 删除图片（只能删除自己上传的图片）
      */
     @DeleteMapping("/delete")
     public ResponseEntity<ApiResponse<Void>> deleteImage(
@@ -56,8 +127,9 @@ public class ImageController {
         try {
             log.info("开始删除图片: {}", imageUrl);
 
-            // 删除文件
-            ossService.deleteFile(imageUrl);
+            // 删除文件（校验当前用户持有该图片）
+            String userId = (String) authentication.getPrincipal();
+            ossService.deleteFile(imageUrl, userId);
 
             log.info("图片删除成功: {}", imageUrl);
 
@@ -6,12 +6,16 @@ import com.elderdiet.backend.dto.MealPlanRequest;
 import com.elderdiet.backend.dto.MealPlanResponse;
 import com.elderdiet.backend.dto.MealPlanLikeRequest;
 import com.elderdiet.backend.service.MealPlanService;
+import com.elderdiet.backend.util.StreamingApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.time.LocalDate;
@@ -28,6 +32,7 @@ import java.util.Map;
 public class MealPlanController {
 
     private final MealPlanService mealPlanService;
+    private final ObjectMapper objectMapper;
 
     /**
      * 生成膳食计划
@@ -124,6 +129,21 @@ public class MealPlanController {
         }
     }
 
+    /**
+     * 流式获取膳食计划历史（传入 stream=true 时生效）
+     * 响应结构与普通接口相同，计划边从数据库读取边写出，内存占用与历史长度无关
+     */
+    @GetMapping(value = "/history", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamMealPlanHistory(Authentication authentication) {
+
+        log.info("用户 {} 请求流式获取膳食计划历史", authentication.getName());
+
+        String userId = authentication.getName();
+        StreamingResponseBody body = StreamingApiResponse.success(objectMapper, "膳食计划历史获取成功",
+                () -> mealPlanService.streamMealPlanHistory(userId));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
     /**
      * 获取指定日期范围的膳食计划
      */
@@ -1,23 +1,39 @@
 package com.elderdiet.backend.controller;
 
 import com.elderdiet.backend.dto.ApiResponse;
+import com.elderdiet.backend.dto.CommentPageResponse;
 import com.elderdiet.backend.dto.CommentRequest;
+import com.elderdiet.backend.dto.FeedChangesResponse;
+import com.elderdiet.backend.dto.FeedEvent;
 import com.elderdiet.backend.dto.MealRecordRequest;
 import com.elderdiet.backend.dto.MealRecordResponse;
+import com.elderdiet.backend.dto.RecordInteractionResponse;
+import com.elderdiet.backend.dto.RecordInteractionsRequest;
 import com.elderdiet.backend.dto.VisibilityUpdateRequest;
 import com.elderdiet.backend.entity.MealRecord;
 import com.elderdiet.backend.entity.RecordComment;
 import com.elderdiet.backend.entity.User;
 import com.elderdiet.backend.security.JwtAuthenticationToken;
+import com.elderdiet.backend.service.FeedCacheService;
+import com.elderdiet.backend.service.FeedEventBroadcaster;
 import com.elderdiet.backend.service.MealRecordService;
 import com.elderdiet.backend.service.UserService;
+import com.elderdiet.backend.util.StreamingApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -33,6 +49,9 @@ public class MealRecordController {
 
     private final MealRecordService mealRecordService;
     private final UserService userService;
+    private final FeedCacheService feedCacheService;
+    private final FeedEventBroadcaster feedEventBroadcaster;
+    private final ObjectMapper objectMapper;
 
     /**
      * 创建膳食记录（老人和子女都可以调用）
@@ -71,20 +90,86 @@ public class MealRecordController {
 
     /**
      * 获取当前用户的分享墙时间线
+     * 传入 cursor 参数（第一页传空字符串）时使用游标分页，返回 next_cursor；
+     * 否则按页码分页（兼容旧版客户端）
+     * 响应带ETag（分页内容的摘要），客户端携带 If-None-Match 且分页内容未变化时返回304
      */
     @GetMapping("/feed")
     public ResponseEntity<ApiResponse<MealRecordService.FeedResponse>> getFeed(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
             Authentication authentication) {
         try {
-            // 获取当前用户
-            User currentUser = getCurrentUser(authentication);
+            if (!feedCacheService.isEnabled()) {
+                return ResponseEntity.ok(ApiResponse.success("获取分享墙时间线成功", loadFeed(page, limit, cursor,
+                        authentication)));
+            }
+
+            // 缓存命中时不查询数据库，ETag由分页内容生成，各实例对同样的内容给出同样的ETag
+            String userId = ((JwtAuthenticationToken) authentication).getUserId();
+            String pageKey = cursor != null
+                    ? FeedCacheService.cursorKey(cursor, limit)
+                    : FeedCacheService.pageKey(page, limit);
+            long version = feedCacheService.getVersion(userId);
+
+            MealRecordService.FeedResponse feed = feedCacheService.get(userId, pageKey, version);
+            if (feed != null) {
+                feed = feed.withQueryCount(0);
+            } else {
+                feed = loadFeed(page, limit, cursor, authentication);
+                feedCacheService.put(userId, pageKey, version, feed);
+            }
+
+            String etag = feedCacheService.buildETag(userId, pageKey, feed);
+            if (feedCacheService.isNotModified(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .build();
+            }
+
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(ApiResponse.success("获取分享墙时间线成功", feed));
 
-            // 获取分享墙时间线
-            MealRecordService.FeedResponse feed = mealRecordService.getFeedForUser(currentUser, page, limit);
+        } catch (Exception e) {
+            log.error("获取分享墙时间线失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
 
-            return ResponseEntity.ok(ApiResponse.success("获取分享墙时间线成功", feed));
+    /**
+     * 流式获取分享墙时间线（页码分页，传入 stream=true 时生效）
+     * 响应结构与普通分页相同，记录边从数据库读取边写出，适合一次加载较多记录；不使用响应缓存和ETag
+     */
+    @GetMapping(value = "/feed", params = "stream=true")
+    public ResponseEntity<?> streamFeed(
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication authentication) {
+        try {
+            User currentUser = getCurrentUser(authentication);
+            int pageNumber = Math.max(page, 1);
+            int pageSize = Math.max(limit, 1);
+            long totalRecords = mealRecordService.countFeedRecords(currentUser);
+            int totalPages = (int) ((totalRecords + pageSize - 1) / pageSize);
+
+            StreamingResponseBody body = StreamingApiResponse.success(objectMapper, "获取分享墙时间线成功",
+                    generator -> {
+                        generator.writeStartObject();
+                        generator.writeFieldName("records");
+                        StreamingApiResponse.writeArray(generator,
+                                () -> mealRecordService.streamFeedPage(currentUser, pageNumber, pageSize));
+                        generator.writeNumberField("current_page", pageNumber);
+                        generator.writeNumberField("total_pages", totalPages);
+                        generator.writeNumberField("total_records", totalRecords);
+                        generator.writeBooleanField("has_more", pageNumber < totalPages);
+                        generator.writeEndObject();
+                    });
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
 
         } catch (Exception e) {
             log.error("获取分享墙时间线失败: {}", e.getMessage());
@@ -92,6 +177,70 @@ public class MealRecordController {
         }
     }
 
+    /**
+     * 获取分享墙自上次同步以来的变化
+     * 返回新增或有变化的记录（点赞、评论、营养师评论、可见性）和不再可见的记录ID，
+     * 客户端按ID合并到本地列表；resyncRequired 为 true 时重新加载第一页
+     */
+    @GetMapping("/feed/changes")
+    public ResponseEntity<ApiResponse<FeedChangesResponse>> getFeedChanges(
+            @RequestParam(required = false) String since,
+            Authentication authentication) {
+
+        try {
+            User currentUser = getCurrentUser(authentication);
+            FeedChangesResponse changes = mealRecordService.getFeedChanges(currentUser, since);
+            return ResponseEntity.ok(ApiResponse.success("获取分享墙变化成功", changes));
+        } catch (Exception e) {
+            log.error("获取分享墙变化失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * 订阅分享墙实时事件（SSE）
+     * 推送新记录、点赞/评论数变化、可见性变化和营养师评论等增量事件，客户端据此只刷新变化的部分
+     */
+    @GetMapping(value = "/feed/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<FeedEvent>> streamFeedEvents(Authentication authentication) {
+        String userId = ((JwtAuthenticationToken) authentication).getUserId();
+        log.info("用户 {} 订阅分享墙实时事件", userId);
+        return feedEventBroadcaster.subscribe(userId);
+    }
+
+    /**
+     * 加载分享墙时间线
+     * 传入 cursor 时使用游标分页，否则按页码分页
+     */
+    private MealRecordService.FeedResponse loadFeed(int page, int limit, String cursor,
+            Authentication authentication) {
+        // 获取当前用户
+        User currentUser = getCurrentUser(authentication);
+
+        return cursor != null
+                ? mealRecordService.getFeedForUserByCursor(currentUser, cursor, limit)
+                : mealRecordService.getFeedForUser(currentUser, page, limit);
+    }
+
+    /**
+     * 批量获取膳食记录的点赞状态和点赞/评论数（最多100条）
+     */
+    @PostMapping("/interactions")
+    public ResponseEntity<ApiResponse<List<RecordInteractionResponse>>> getRecordInteractions(
+            @Valid @RequestBody RecordInteractionsRequest request,
+            Authentication authentication) {
+
+        try {
+            User currentUser = getCurrentUser(authentication);
+            List<RecordInteractionResponse> interactions = mealRecordService.getRecordInteractions(currentUser,
+                    request.getRecordIds());
+            return ResponseEntity.ok(ApiResponse.success("获取点赞和评论数成功", interactions));
+        } catch (Exception e) {
+            log.error("批量获取点赞和评论数失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     /**
      * 点赞/取消点赞膳食记录
      */
@@ -159,6 +308,27 @@ public class MealRecordController {
         }
     }
 
+    /**
+     * 游标分页获取指定记录的评论（传入 cursor 参数时生效，第一页传空字符串）
+     */
+    @GetMapping(value = "/{recordId}/comments", params = "cursor")
+    public ResponseEntity<ApiResponse<CommentPageResponse>> getCommentsByCursor(
+            @PathVariable String recordId,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+
+        try {
+            CommentPageResponse comments = mealRecordService.getCommentsByCursor(recordId, cursor, limit);
+
+            return ResponseEntity.ok(ApiResponse.success("获取评论成功", comments));
+
+        } catch (Exception e) {
+            log.error("获取评论失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     /**
      * 更新膳食记录可见性（只有记录创建者可以调用）
      */
@@ -3,6 +3,7 @@ package com.elderdiet.backend.controller;
 import com.elderdiet.backend.dto.ApiResponse;
 import com.elderdiet.backend.dto.ProfileDTO;
 import com.elderdiet.backend.dto.ChronicConditionOptionDTO;
+import com.elderdiet.backend.entity.ImageVariants;
 import com.elderdiet.backend.entity.User;
 import com.elderdiet.backend.security.JwtAuthenticationToken;
 import com.elderdiet.backend.service.GamificationService;
@@ -288,11 +289,11 @@ public class ProfileController {
 
             log.info("用户 {} 上传头像", userId);
 
-            // 上传文件到OSS
-            String avatarUrl = ossService.uploadFile(file);
+            // 上传文件到OSS（同时生成缩略图等多尺寸版本）
+            ImageVariants avatar = ossService.uploadImage(file, userId);
 
             // 更新用户档案中的头像URL
-            ProfileDTO updatedProfile = profileService.updateUserAvatar(userId, avatarUrl);
+            ProfileDTO updatedProfile = profileService.updateUserAvatar(userId, avatar);
 
             return ResponseEntity.ok(ApiResponse.success("头像上传成功", updatedProfile));
 
@@ -0,0 +1,22 @@
+package com.elderdiet.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 评论分页响应DTO（游标分页）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CommentPageResponse {
+
+    private List<MealRecordResponse.CommentInfo> comments; // 按创建时间升序
+    private String nextCursor; // 下一页的游标，没有更多评论时为null
+    private boolean hasMore;
+}
@@ -0,0 +1,19 @@
+package com.elderdiet.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * 图片直传完成请求DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DirectUploadCompleteRequest {
+
+    @NotBlank(message = "对象键不能为空")
+    private String objectKey; // 申请直传URL时返回的对象键
+}
@@ -0,0 +1,33 @@
+package com.elderdiet.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分享墙增量同步响应DTO
+ * resyncRequired 为 true 时 records 和 removedRecordIds 为空，客户端应重新加载第一页，
+ * 并在之后使用本次返回的 syncToken 继续增量同步。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FeedChangesResponse {
+
+    @Builder.Default
+    private List<MealRecordResponse> records = new ArrayList<>(); // 新增或有变化的记录，按更新时间升序
+
+    @Builder.Default
+    private List<String> removedRecordIds = new ArrayList<>(); // 不再可见的记录ID
+
+    private boolean resyncRequired; // 无法给出增量，需要全量刷新
+
+    private String syncToken; // 下次同步时传回的令牌
+
+    private int queryCount; // 本次请求发出的Mongo查询次数
+}
@@ -0,0 +1,41 @@
+package com.elderdiet.backend.dto;
+
+import com.elderdiet.backend.entity.RecordVisibility;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 分享墙实时事件DTO（通过SSE推送给客户端，只包含变化的部分，客户端据此按需刷新）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FeedEvent {
+
+    /**
+     * 事件类型
+     */
+    public enum Type {
+        RECORD_CREATED, // 新的膳食记录
+        LIKES_CHANGED, // 点赞数变化
+        COMMENT_ADDED, // 新评论
+        VISIBILITY_CHANGED, // 可见性变化
+        NUTRITIONIST_COMMENT // 营养师评论生成
+    }
+
+    private Type type;
+    private String recordId;
+    private String publisherId;
+    private Integer likesDelta; // 点赞数变化量
+    private Integer commentsDelta; // 评论数变化量
+    private String commentId;
+    private RecordVisibility visibility;
+    private LocalDateTime occurredAt;
+}
@@ -7,6 +7,8 @@ import lombok.AllArgsConstructor;
 
 import jakarta.validation.constraints.NotNull;
 
+import java.util.List;
+
 /**
  * 膳食记录请求DTO
  */
@@ -21,4 +23,6 @@ public class MealRecordRequest {
     private RecordVisibility visibility; // 可见性
 
     private Boolean shareWithNutritionist; // 是否分享给营养师，可为空，默认false
+
+    private List<String> uploadedObjectKeys; // 已通过直传URL上传的图片对象键，排在 images 之后，创建记录时完成上传，无需再调用完成接口
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.elderdiet.backend.dto;
 
+import com.elderdiet.backend.entity.ImageVariants;
 import com.elderdiet.backend.entity.RecordVisibility;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -21,6 +22,7 @@ public class MealRecordResponse {
     private String id;
     private String userId;
     private List<String> imageUrls;
+    private List<ImageVariants> imageVariants; // 与 imageUrls 一一对应的多尺寸图片，早期记录为空
     private String caption;
     private RecordVisibility visibility;
     private int likesCount;
@@ -36,7 +38,7 @@ public class MealRecordResponse {
     // 聚合信息
     private UserInfo userInfo; // 发布者信息
     private boolean likedByCurrentUser; // 当前用户是否点赞
-    private List<CommentInfo> comments; // 评论列表
+    private List<CommentInfo> comments; // 最新评论预览（完整评论通过评论接口分页获取）
 
     /**
      * 用户信息
@@ -0,0 +1,19 @@
+package com.elderdiet.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * 申请图片直传URL请求DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadRequest {
+
+    @NotBlank(message = "图片类型不能为空")
+    private String contentType; // 图片类型（image/jpeg、image/png等），上传时必须使用相同的 Content-Type
+}
@@ -0,0 +1,29 @@
+package com.elderdiet.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+/**
+ * 图片直传URL响应DTO
+ * 客户端用 PUT 把图片上传到 uploadUrl（Content-Type 与申请时一致），再用 objectKey 调用完成上传接口
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PresignedUploadResponse {
+
+    private String uploadUrl; // 预签名的PUT上传URL
+
+    private String objectKey; // 对象键，完成上传时提交
+
+    private String contentType; // 上传时必须使用的 Content-Type
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime expiresAt; // 上传URL的过期时间
+}
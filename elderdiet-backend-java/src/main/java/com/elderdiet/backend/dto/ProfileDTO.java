@@ -1,5 +1,6 @@
 package com.elderdiet.backend.dto;
 
+import com.elderdiet.backend.entity.ImageVariants;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -69,6 +70,9 @@ public class ProfileDTO {
     // 头像URL
     private String avatarUrl;
 
+    // 头像的多尺寸版本（只读）
+    private ImageVariants avatarVariants;
+
     // 小树成长游戏化字段
     @Builder.Default
     private Integer treeStage = 0; // 树的阶段，0-6
@@ -0,0 +1,21 @@
+package com.elderdiet.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 膳食记录点赞状态和计数响应DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecordInteractionResponse {
+
+    private String recordId;
+    private boolean likedByCurrentUser;
+    private int likesCount;
+    private int commentsCount;
+}
@@ -0,0 +1,23 @@
+package com.elderdiet.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * 批量查询膳食记录点赞状态和计数的请求DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecordInteractionsRequest {
+
+    @NotEmpty(message = "记录ID列表不能为空")
+    @Size(max = 100, message = "一次最多查询100条记录")
+    private List<String> recordIds;
+}
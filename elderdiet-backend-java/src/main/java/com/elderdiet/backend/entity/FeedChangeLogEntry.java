@@ -0,0 +1,49 @@
+package com.elderdiet.backend.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+
+import java.time.LocalDateTime;
+
+/**
+ * 分享墙变更日志实体类
+ * 记录无法通过膳食记录的 updatedAt 查询到的变化：记录对某个用户不再可见（改为私密），
+ * 或者家庭关系变化后需要客户端全量刷新。增量同步接口按 (ownerId, occurredAt) 读取。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "feed_change_log")
+@CompoundIndex(name = "owner_occurred_idx", def = "{'ownerId': 1, 'occurredAt': 1}")
+public class FeedChangeLogEntry {
+
+    @Id
+    private String id;
+
+    private String ownerId; // 受影响的分享墙所属用户ID
+
+    @Field(targetType = FieldType.STRING)
+    private Type type; // 变更类型
+
+    private String recordId; // 被移除的膳食记录ID（RESYNC时为空）
+
+    @Indexed(expireAfter = "7d")
+    private LocalDateTime occurredAt; // 发生时间，7天后自动删除
+
+    /**
+     * 变更类型
+     */
+    public enum Type {
+        REMOVED, // 记录从该用户的分享墙中移除
+        RESYNC // 分享墙的范围发生变化，需要全量刷新
+    }
+}
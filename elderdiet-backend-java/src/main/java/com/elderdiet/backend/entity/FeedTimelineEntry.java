@@ -0,0 +1,63 @@
+package com.elderdiet.backend.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分享墙时间线条目实体类（写扩散的收件箱）
+ * 每条记录表示 ownerId 的分享墙中可以看到 recordId 这条膳食记录。
+ * relations 记录发布者相对 owner 的家庭关系，读取时按 owner 当前角色过滤，
+ * 因此切换角色不需要重建时间线。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "feed_timelines")
+@CompoundIndexes({
+        @CompoundIndex(name = "owner_created_idx", def = "{'ownerId': 1, 'recordCreatedAt': -1, 'recordId': -1}"),
+        @CompoundIndex(name = "owner_record_unique_idx", def = "{'ownerId': 1, 'recordId': 1}", unique = true)
+})
+public class FeedTimelineEntry {
+
+    @Id
+    private String id;
+
+    private String ownerId; // 时间线所属用户ID
+
+    @Indexed
+    private String recordId; // 膳食记录ID
+
+    @Indexed
+    private String publisherId; // 记录发布者用户ID
+
+    @Builder.Default
+    private List<Relation> relations = new ArrayList<>(); // 发布者相对owner的关系
+
+    private LocalDateTime recordCreatedAt; // 记录创建时间（排序键）
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+
+    /**
+     * 发布者相对时间线所属用户的关系
+     */
+    public enum Relation {
+        SELF, // 自己发布的记录（包括私密记录）
+        CHILD, // 发布者是owner的子女
+        PARENT, // 发布者是owner的老人
+        CO_PARENT // 发布者与owner共享至少一个子女（关联老人）
+    }
+}
@@ -0,0 +1,31 @@
+package com.elderdiet.backend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 同一张图片的多尺寸版本（内嵌在膳食记录和健康档案中）
+ * 上传时一次解码生成，客户端和AI识图按展示尺寸选用最小的可用版本；
+ * 原图本身不超过对应尺寸时，较小的版本直接使用原图URL。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImageVariants {
+
+    private String thumbnail; // 缩略图，最长边240像素
+
+    private String feed; // 分享墙展示图，最长边1080像素
+
+    private String original; // 压缩后的原图
+
+    /**
+     * 所有版本都使用同一个URL（无法生成多尺寸版本的图片）
+     */
+    public static ImageVariants single(String url) {
+        return new ImageVariants(url, url, url);
+    }
+}
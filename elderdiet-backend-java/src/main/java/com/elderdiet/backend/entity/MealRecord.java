@@ -10,6 +10,8 @@ import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import org.springframework.data.mongodb.core.mapping.FieldType;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 
 import java.time.LocalDateTime;
@@ -23,16 +25,40 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @Document(collection = "meal_records")
+@CompoundIndexes({
+        @CompoundIndex(name = "user_created_idx", def = "{'userId': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "user_updated_idx", def = "{'userId': 1, 'updatedAt': 1}"),
+        @CompoundIndex(name = MealRecord.CLUSTER_CREATED_INDEX,
+                def = "{'familyClusterId': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = MealRecord.COUNTERS_INDEX,
+                def = "{'_id': 1, 'userId': 1, 'visibility': 1, 'likesCount': 1, 'commentsCount': 1}")
+})
 public class MealRecord {
 
+    /**
+     * 覆盖批量计数查询的索引：按ID查找，投影发布者、可见性和计数字段时不需要读取文档
+     */
+    public static final String COUNTERS_INDEX = "record_counters_idx";
+
+    /**
+     * 按家庭簇读取分享墙的索引
+     */
+    public static final String CLUSTER_CREATED_INDEX = "cluster_created_idx";
+
     @Id
     private String id;
 
     @Indexed
     private String userId; // 发布者用户ID
 
+    private String familyClusterId; // 发布者所在家庭簇的ID（由家庭关系图计算）
+
+    private PublisherSnapshot publisher; // 发布者信息快照
+
     private List<String> imageUrls; // 图片URLs列表，支持多张图片
 
+    private List<ImageVariants> imageVariants; // 与 imageUrls 一一对应的多尺寸图片，早期记录为空
+
     @Builder.Default
     private String caption = ""; // 文字描述，可为空
 
@@ -53,6 +79,8 @@ public class MealRecord {
 
     private LocalDateTime nutritionistCommentAt; // 营养师评论时间
 
+    private LocalDateTime treeWateredAt; // 发布该记录后给小树浇水的时间，用于浇水事件去重
+
     @CreatedDate
     private LocalDateTime createdAt;
 
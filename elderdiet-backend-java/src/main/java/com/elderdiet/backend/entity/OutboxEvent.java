@@ -0,0 +1,93 @@
+package com.elderdiet.backend.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待执行副作用（Outbox）实体类
+ * 膳食记录保存后需要执行的后续工作（浇水、推送、营养师评论、直传图片的多尺寸版本）先持久化到这里，
+ * 由 OutboxWorker 通过租约领取并执行，服务重启后未完成的工作会被重新领取。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "outbox_events")
+@CompoundIndex(name = "status_type_next_idx", def = "{'status': 1, 'type': 1, 'nextAttemptAt': 1}")
+public class OutboxEvent {
+
+    @Id
+    private String id;
+
+    @Field(targetType = FieldType.STRING)
+    private EventType type; // 事件类型
+
+    @Field(targetType = FieldType.STRING)
+    private Status status; // 执行状态
+
+    private String recordId; // 关联的膳食记录ID
+
+    private String userId; // 触发事件的用户ID
+
+    private Integer attempts; // 已领取执行的次数
+
+    private LocalDateTime nextAttemptAt; // 最早可执行时间（失败重试时按指数退避推迟）
+
+    private String leaseOwner; // 当前持有租约的工作节点
+
+    private LocalDateTime leaseExpiresAt; // 租约到期时间，到期未完成的事件可被重新领取
+
+    private String lastError; // 最近一次失败原因
+
+    private LocalDateTime createdAt;
+
+    @Indexed(expireAfter = "7d")
+    private LocalDateTime completedAt; // 完成时间，完成7天后自动删除
+
+    /**
+     * 事件类型枚举
+     */
+    public enum EventType {
+        WATER_TREE, // 发布记录后给小树浇水
+        FAMILY_PUSH, // 推送新记录通知给子女
+        NUTRITIONIST_COMMENT, // 生成AI营养师评论
+        PUBLISHER_SNAPSHOT, // 档案姓名或头像变化后改写该用户记录和评论中的快照
+        IMAGE_VARIANTS // 生成记录中直传图片的多尺寸版本并写回记录
+    }
+
+    /**
+     * 执行状态枚举
+     */
+    public enum Status {
+        PENDING, // 等待执行
+        PROCESSING, // 已被领取，执行中
+        DONE, // 执行成功
+        FAILED // 超过最大重试次数
+    }
+
+    /**
+     * 创建待执行事件
+     */
+    public static OutboxEvent create(EventType type, String recordId, String userId) {
+        LocalDateTime now = LocalDateTime.now();
+        return OutboxEvent.builder()
+                .type(type)
+                .status(Status.PENDING)
+                .recordId(recordId)
+                .userId(userId)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build();
+    }
+}
@@ -77,6 +77,9 @@ public class Profile {
     // 头像URL
     private String avatarUrl;
 
+    // 头像的多尺寸版本，头像不是通过上传接口设置时为空
+    private ImageVariants avatarVariants;
+
     // 聊天记录清空时间戳，用于实现"清空"功能而不删除数据
     private Instant chatClearedAt;
 
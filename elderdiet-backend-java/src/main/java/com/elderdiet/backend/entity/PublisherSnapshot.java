@@ -0,0 +1,26 @@
+package com.elderdiet.backend.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+/**
+ * 发布者信息快照（内嵌在膳食记录中）
+ * 分享墙直接使用快照展示发布者，无需再查询用户和档案；
+ * 档案姓名或头像变化后由 PublisherSnapshotService 异步批量改写。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PublisherSnapshot {
+
+    private String username; // 显示名称（档案姓名，未设置时为手机号）
+
+    private String avatar; // 头像URL
+
+    private String nickname; // 昵称（手机号）
+
+    private Long version; // 快照对应的档案版本（档案更新时间的毫秒数），只允许用更新的版本覆盖
+}
@@ -7,6 +7,7 @@ import lombok.Builder;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 
 import java.time.LocalDateTime;
@@ -19,6 +20,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Document(collection = "record_comments")
+@CompoundIndex(name = "record_created_idx", def = "{'recordId': 1, 'createdAt': 1, '_id': 1}")
 public class RecordComment {
 
     @Id
@@ -34,6 +36,8 @@ public class RecordComment {
 
     private String userAvatar; // 评论用户头像
 
+    private Long userSnapshotVersion; // 用户名和头像快照对应的档案版本
+
     private String text; // 评论内容
 
     @CreatedDate
@@ -0,0 +1,44 @@
+package com.elderdiet.backend.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 上传图片索引实体类
+ * 按原文件内容的SHA-256记录已上传的图片，相同内容再次上传时直接复用已有对象；
+ * refCount 记录引用次数，降到0时才删除OSS中的对象；references 按上传者记录各自持有的引用，
+ * 用户只能释放自己持有的引用。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "uploaded_images")
+@CompoundIndex(name = "original_url_idx", def = "{'variants.original': 1}")
+public class UploadedImage {
+
+    @Id
+    private String id; // 原文件内容的SHA-256（十六进制）
+
+    private ImageVariants variants; // 已上传的各尺寸版本
+
+    private Integer refCount; // 引用次数（每次上传计一次，删除减一次）
+
+    private Map<String, Integer> references; // 上传者用户ID -> 该用户持有的引用次数
+
+    private Long size; // 原文件大小（字节）
+
+    private String contentType;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime lastReferencedAt; // 最近一次被上传复用的时间
+}
@@ -0,0 +1,19 @@
+package com.elderdiet.backend.event;
+
+import com.elderdiet.backend.entity.UserDevice;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 用户注册或更新了推送设备
+ */
+@Getter
+@AllArgsConstructor
+public class DeviceRegisteredEvent implements DomainEvent {
+
+    private final String userId;
+
+    private final String deviceId;
+
+    private final UserDevice.DevicePlatform platform;
+}
@@ -0,0 +1,8 @@
+package com.elderdiet.backend.event;
+
+/**
+ * 领域事件
+ * 业务数据变化后通过 DomainEventBus 发布，缓存、时间线等派生数据订阅后自行更新。
+ */
+public interface DomainEvent {
+}
@@ -0,0 +1,155 @@
+package com.elderdiet.backend.event;
+
+import com.elderdiet.backend.service.BackgroundTaskService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 进程内领域事件总线
+ * 业务服务在数据变化后发布领域事件，缓存、时间线、实时推送等派生数据按事件类型订阅（也可以订阅接口，如 MealRecordEvent）。
+ * 同步监听器在发布线程中按订阅顺序执行，适合缓存失效这类必须在请求返回前完成的更新；
+ * 异步监听器提交到有界的 domain-event 线程池，队列满时丢弃并计数，适合可以延迟或可由校准任务修复的更新。
+ * 监听器的异常只记录日志和计数，不影响发布方的业务操作。每个监听器按事件类型记录执行耗时。
+ */
+@Slf4j
+@Service
+public class DomainEventBus {
+
+    private final BackgroundTaskService backgroundTaskService;
+    private final MeterRegistry meterRegistry;
+
+    private final List<Subscription<?>> subscriptions = new CopyOnWriteArrayList<>();
+    // 事件类型 -> 匹配的订阅（按订阅顺序），新增订阅时清空
+    private final Map<Class<?>, List<Subscription<?>>> routes = new ConcurrentHashMap<>();
+    // 事件类型 -> 发布计数器
+    private final Map<Class<?>, Counter> publishedCounters = new ConcurrentHashMap<>();
+
+    public DomainEventBus(BackgroundTaskService backgroundTaskService, MeterRegistry meterRegistry) {
+        this.backgroundTaskService = backgroundTaskService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 订阅事件，监听器在发布线程中同步执行
+     *
+     * @param listenerName 监听器名称，用于日志和指标
+     */
+    public <E extends DomainEvent> void subscribe(Class<E> eventType, String listenerName,
+            Consumer<? super E> listener) {
+        addSubscription(new Subscription<>(eventType, listenerName, false, listener));
+    }
+
+    /**
+     * 订阅事件，监听器在 domain-event 线程池中异步执行
+     *
+     * @param listenerName 监听器名称，用于日志和指标
+     */
+    public <E extends DomainEvent> void subscribeAsync(Class<E> eventType, String listenerName,
+            Consumer<? super E> listener) {
+        addSubscription(new Subscription<>(eventType, listenerName, true, listener));
+    }
+
+    /**
+     * 发布事件
+     */
+    public void publish(DomainEvent event) {
+        String eventName = event.getClass().getSimpleName();
+        publishedCounters.computeIfAbsent(event.getClass(), eventClass -> Counter.builder("domain.events.published")
+                .description("发布的领域事件数")
+                .tag("event", eventName)
+                .register(meterRegistry))
+                .increment();
+
+        for (Subscription<?> subscription : routes.computeIfAbsent(event.getClass(), this::resolve)) {
+            if (!subscription.async) {
+                subscription.deliver(event);
+                continue;
+            }
+            String taskName = subscription.name + ":" + eventName;
+            if (!backgroundTaskService.submitDomainEvent(taskName, () -> subscription.deliver(event))) {
+                subscription.rejectedCounter.increment();
+                log.warn("领域事件异步监听器队列已满，丢弃事件: {}", taskName);
+            }
+        }
+    }
+
+    private void addSubscription(Subscription<?> subscription) {
+        subscriptions.add(subscription);
+        routes.clear();
+        log.info("领域事件监听器已注册: {} -> {}（{}）", subscription.eventType.getSimpleName(), subscription.name,
+                subscription.async ? "异步" : "同步");
+    }
+
+    private List<Subscription<?>> resolve(Class<?> eventClass) {
+        List<Subscription<?>> matched = new ArrayList<>();
+        for (Subscription<?> subscription : subscriptions) {
+            if (subscription.eventType.isAssignableFrom(eventClass)) {
+                matched.add(subscription);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 一个监听器对一种事件类型的订阅
+     */
+    private class Subscription<E extends DomainEvent> {
+
+        private final Class<E> eventType;
+        private final String name;
+        private final boolean async;
+        private final Consumer<? super E> listener;
+        private final Timer latencyTimer;
+        private final Counter failedCounter;
+        private final Counter rejectedCounter;
+
+        Subscription(Class<E> eventType, String name, boolean async, Consumer<? super E> listener) {
+            this.eventType = eventType;
+            this.name = name;
+            this.async = async;
+            this.listener = listener;
+            String mode = async ? "async" : "sync";
+            this.latencyTimer = Timer.builder("domain.events.listener.latency")
+                    .description("领域事件监听器执行耗时")
+                    .tag("listener", name)
+                    .tag("event", eventType.getSimpleName())
+                    .tag("mode", mode)
+                    .register(meterRegistry);
+            this.failedCounter = Counter.builder("domain.events.listener.errors")
+                    .description("领域事件监听器执行失败或被丢弃的次数")
+                    .tag("listener", name)
+                    .tag("event", eventType.getSimpleName())
+                    .tag("reason", "failed")
+                    .register(meterRegistry);
+            this.rejectedCounter = Counter.builder("domain.events.listener.errors")
+                    .description("领域事件监听器执行失败或被丢弃的次数")
+                    .tag("listener", name)
+                    .tag("event", eventType.getSimpleName())
+                    .tag("reason", "rejected")
+                    .register(meterRegistry);
+        }
+
+        void deliver(DomainEvent event) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                listener.accept(eventType.cast(event));
+            } catch (Exception e) {
+                failedCounter.increment();
+                log.error("领域事件监听器 {} 处理 {} 失败: {}", name, event.getClass().getSimpleName(),
+                        e.getMessage(), e);
+            } finally {
+                sample.stop(latencyTimer);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.elderdiet.backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 家庭关系已建立或解除（家庭关系图已经更新后发布）
+ */
+@Getter
+@AllArgsConstructor
+public class FamilyLinkChangedEvent implements DomainEvent {
+
+    private final String parentId;
+
+    private final String childId;
+
+    private final boolean linked; // true: 建立；false: 解除
+}
@@ -0,0 +1,132 @@
+package com.elderdiet.backend.event;
+
+import com.elderdiet.backend.dto.FeedEvent;
+import com.elderdiet.backend.entity.MealRecord;
+import com.elderdiet.backend.entity.RecordVisibility;
+import com.elderdiet.backend.service.FamilyClusterService;
+import com.elderdiet.backend.service.FeedCacheService;
+import com.elderdiet.backend.service.FeedChangeService;
+import com.elderdiet.backend.service.FeedEventBroadcaster;
+import com.elderdiet.backend.service.FeedTimelineService;
+import com.elderdiet.backend.service.LikedRecordCacheService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 分享墙派生数据的领域事件监听器
+ * 同步：增量同步日志 -> 时间线 -> 家庭簇改写 -> 分享墙缓存 -> 点赞缓存
+ * （缓存在时间线和家庭簇修正之后失效，避免按旧的簇ID查询并缓存不完整的分享墙）；
+ * 异步：SSE实时事件推送。
+ */
+@Component
+@RequiredArgsConstructor
+public class FeedProjectionListeners {
+
+    private final DomainEventBus domainEventBus;
+    private final FeedChangeService feedChangeService;
+    private final FeedTimelineService feedTimelineService;
+    private final FeedCacheService feedCacheService;
+    private final LikedRecordCacheService likedRecordCacheService;
+    private final FeedEventBroadcaster feedEventBroadcaster;
+    private final FamilyClusterService familyClusterService;
+
+    @PostConstruct
+    public void subscribe() {
+        // 增量同步日志
+        domainEventBus.subscribe(RecordVisibilityChangedEvent.class, "feed-change-log", event -> {
+            if (event.getPreviousVisibility() == RecordVisibility.FAMILY
+                    && event.getRecord().getVisibility() == RecordVisibility.PRIVATE) {
+                feedChangeService.recordHidden(event.getRecord().getId(), event.getRecord().getUserId());
+            }
+        });
+        domainEventBus.subscribe(FamilyLinkChangedEvent.class, "feed-change-log",
+                event -> feedChangeService.requireResyncForFamilyLink(event.getParentId(), event.getChildId()));
+        // 切换角色后可见的分享墙范围改变，已同步的记录不再可靠
+        domainEventBus.subscribe(UserRoleChangedEvent.class, "feed-change-log",
+                event -> feedChangeService.requireResync(List.of(event.getUserId())));
+        // 能看到注销用户记录的家庭成员需要全量刷新
+        domainEventBus.subscribe(UserRemovedEvent.class, "feed-change-log",
+                event -> feedChangeService.requireResync(event.getFormerFamilyMemberIds()));
+
+        // 分享墙时间线（失败时可通过回填任务修复）
+        domainEventBus.subscribe(MealRecordCreatedEvent.class, "feed-timeline",
+                event -> feedTimelineService.fanOut(event.getRecord()));
+        domainEventBus.subscribe(RecordVisibilityChangedEvent.class, "feed-timeline",
+                event -> feedTimelineService.onVisibilityChanged(event.getRecord()));
+        domainEventBus.subscribe(FamilyLinkChangedEvent.class, "feed-timeline",
+                event -> feedTimelineService.onFamilyLinkChanged(event.getParentId(), event.getChildId()));
+        domainEventBus.subscribe(UserRemovedEvent.class, "feed-timeline",
+                event -> feedTimelineService.onUserDeleted(event.getUserId(), event.getFormerFamilyIds()));
+
+        // 家庭簇：合并时两侧成员都在新簇中，分裂时分裂出的部分分别从链接两端可达（失败时由定时校准任务修复）
+        domainEventBus.subscribe(FamilyLinkChangedEvent.class, "family-cluster",
+                event -> familyClusterService.restampClustersOf(List.of(event.getParentId(), event.getChildId())));
+        domainEventBus.subscribe(UserRemovedEvent.class, "family-cluster",
+                event -> familyClusterService.restampClustersOf(event.getFormerFamilyIds()));
+
+        // 分享墙缓存
+        domainEventBus.subscribe(MealRecordEvent.class, "feed-cache",
+                event -> feedCacheService.invalidatePublisher(event.getRecord().getUserId()));
+        domainEventBus.subscribe(FamilyLinkChangedEvent.class, "feed-cache",
+                event -> feedCacheService.invalidateFamilyLink(event.getParentId(), event.getChildId()));
+        domainEventBus.subscribe(ProfileUpdatedEvent.class, "feed-cache",
+                event -> feedCacheService.invalidatePublisher(event.getUserId()));
+        domainEventBus.subscribe(UserRoleChangedEvent.class, "feed-cache",
+                event -> feedCacheService.invalidateUsers(Collections.singletonList(event.getUserId())));
+        // 关系图已更新，按事件中注销前的家庭成员失效
+        domainEventBus.subscribe(UserRemovedEvent.class, "feed-cache", event -> {
+            Set<String> userIds = new LinkedHashSet<>();
+            userIds.add(event.getUserId());
+            userIds.addAll(event.getFormerFamilyMemberIds());
+            feedCacheService.invalidateUsers(userIds);
+        });
+
+        // 点赞状态缓存
+        domainEventBus.subscribe(RecordLikeToggledEvent.class, "liked-record-cache",
+                event -> likedRecordCacheService.onLikeChanged(event.getUserId(), event.getRecord().getId(),
+                        event.isLiked()));
+
+        // SSE实时事件
+        domainEventBus.subscribeAsync(MealRecordEvent.class, "feed-sse", this::broadcast);
+    }
+
+    private void broadcast(MealRecordEvent event) {
+        MealRecord record = event.getRecord();
+        FeedEvent.FeedEventBuilder feedEvent = FeedEvent.builder()
+                .recordId(record.getId())
+                .publisherId(record.getUserId());
+        if (event instanceof MealRecordCreatedEvent) {
+            feedEventBroadcaster.publishForRecord(record, feedEvent
+                    .type(FeedEvent.Type.RECORD_CREATED)
+                    .visibility(record.getVisibility())
+                    .build());
+        } else if (event instanceof RecordLikeToggledEvent liked) {
+            feedEventBroadcaster.publishForRecord(record, feedEvent
+                    .type(FeedEvent.Type.LIKES_CHANGED)
+                    .likesDelta(liked.isLiked() ? 1 : -1)
+                    .build());
+        } else if (event instanceof RecordCommentAddedEvent commented) {
+            feedEventBroadcaster.publishForRecord(record, feedEvent
+                    .type(FeedEvent.Type.COMMENT_ADDED)
+                    .commentsDelta(1)
+                    .commentId(commented.getComment().getId())
+                    .build());
+        } else if (event instanceof NutritionistCommentAddedEvent) {
+            feedEventBroadcaster.publishForRecord(record, feedEvent
+                    .type(FeedEvent.Type.NUTRITIONIST_COMMENT)
+                    .build());
+        } else if (event instanceof RecordVisibilityChangedEvent) {
+            // 改为仅自己可见时家庭成员也需要收到通知，因此按发布者的家庭推送
+            feedEventBroadcaster.publishToFamily(record.getUserId(), feedEvent
+                    .type(FeedEvent.Type.VISIBILITY_CHANGED)
+                    .visibility(record.getVisibility())
+                    .build());
+        }
+    }
+}
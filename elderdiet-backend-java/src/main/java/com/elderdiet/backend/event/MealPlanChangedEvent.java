@@ -0,0 +1,26 @@
+package com.elderdiet.backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 膳食计划已变化
+ */
+@Getter
+@AllArgsConstructor
+public class MealPlanChangedEvent implements DomainEvent {
+
+    public enum Type {
+        GENERATED, // 生成新计划
+        DISH_REPLACED, // 替换菜品
+        LIKE_CHANGED, // 收藏状态变化
+        ARCHIVED, // 归档
+        DELETED // 删除
+    }
+
+    private final String userId;
+
+    private final String mealPlanId;
+
+    private final Type type;
+}
@@ -0,0 +1,15 @@
+package com.elderdiet.backend.event;
+
+import com.elderdiet.backend.entity.MealRecord;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 膳食记录已创建
+ */
+@Getter
+@AllArgsConstructor
+public class MealRecordCreatedEvent implements MealRecordEvent {
+
+    private final MealRecord record;
+}
@@ -0,0 +1,11 @@
+package com.elderdiet.backend.event;
+
+import com.elderdiet.backend.entity.MealRecord;
+
+/**
+ * 与某条膳食记录相关的领域事件，订阅此类型可以收到所有膳食记录事件
+ */
+public interface MealRecordEvent extends DomainEvent {
+
+    MealRecord getRecord();
+}
@@ -0,0 +1,15 @@
+package com.elderdiet.backend.event;
+
+import com.elderdiet.backend.entity.MealRecord;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 膳食记录的AI营养师评论已生成
+ */
+@Getter
+@AllArgsConstructor
+public class NutritionistCommentAddedEvent implements MealRecordEvent {
+
+    private final MealRecord record;
+}
@@ -0,0 +1,16 @@
+package com.elderdiet.backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 用户的健康档案（含姓名、头像）已更新
+ */
+@Getter
+@AllArgsConstructor
+public class ProfileUpdatedEvent implements DomainEvent {
+
+    private final String userId;
+
+    private final boolean publisherInfoChanged; // 姓名或头像是否变化
+}
@@ -0,0 +1,18 @@
+package com.elderdiet.backend.event;
+
+import com.elderdiet.backend.entity.MealRecord;
+import com.elderdiet.backend.entity.RecordComment;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 膳食记录新增了评论
+ */
+@Getter
+@AllArgsConstructor
+public class RecordCommentAddedEvent implements MealRecordEvent {
+
+    private final MealRecord record;
+
+    private final RecordComment comment;
+}
@@ -0,0 +1,15 @@
+package com.elderdiet.backend.event;
+
+import com.elderdiet.backend.entity.MealRecord;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 膳食记录中直传图片的多尺寸版本已生成并写回记录
+ */
+@Getter
+@AllArgsConstructor
+public class RecordImagesUpdatedEvent implements MealRecordEvent {
+
+    private final MealRecord record;
+}
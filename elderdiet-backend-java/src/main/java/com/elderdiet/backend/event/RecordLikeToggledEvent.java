@@ -0,0 +1,19 @@
+package com.elderdiet.backend.event;
+
+import com.elderdiet.backend.entity.MealRecord;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 用户点赞或取消点赞了膳食记录（只在点赞状态实际变化时发布）
+ */
+@Getter
+@AllArgsConstructor
+public class RecordLikeToggledEvent implements MealRecordEvent {
+
+    private final MealRecord record;
+
+    private final String userId;
+
+    private final boolean liked; // true: 点赞；false: 取消点赞
+}
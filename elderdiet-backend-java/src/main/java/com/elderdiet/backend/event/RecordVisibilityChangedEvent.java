@@ -0,0 +1,18 @@
+package com.elderdiet.backend.event;
+
+import com.elderdiet.backend.entity.MealRecord;
+import com.elderdiet.backend.entity.RecordVisibility;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 膳食记录的可见性已修改
+ */
+@Getter
+@AllArgsConstructor
+public class RecordVisibilityChangedEvent implements MealRecordEvent {
+
+    private final MealRecord record; // 修改后的记录
+
+    private final RecordVisibility previousVisibility;
+}
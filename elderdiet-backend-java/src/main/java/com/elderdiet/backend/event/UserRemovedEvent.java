@@ -0,0 +1,20 @@
+package com.elderdiet.backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * 用户已注销（记录和家庭关系已删除，家庭关系图已经更新后发布）
+ */
+@Getter
+@AllArgsConstructor
+public class UserRemovedEvent implements DomainEvent {
+
+    private final String userId;
+
+    private final Set<String> formerFamilyIds; // 注销前与该用户直接关联的用户ID
+
+    private final Set<String> formerFamilyMemberIds; // 注销前能看到该用户记录的家庭成员（含子女的其他老人）
+}
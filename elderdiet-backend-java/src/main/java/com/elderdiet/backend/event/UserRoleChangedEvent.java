@@ -0,0 +1,19 @@
+package com.elderdiet.backend.event;
+
+import com.elderdiet.backend.entity.UserRole;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 用户已切换角色
+ */
+@Getter
+@AllArgsConstructor
+public class UserRoleChangedEvent implements DomainEvent {
+
+    private final String userId;
+
+    private final UserRole previousRole;
+
+    private final UserRole newRole;
+}
@@ -1,10 +1,12 @@
 package com.elderdiet.backend.repository;
 
 import com.elderdiet.backend.entity.ChatMessage;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * 聊天消息数据访问层
@@ -28,6 +30,26 @@ public interface ChatMessageRepository extends MongoRepository<ChatMessage, Stri
      */
     List<ChatMessage> findByUserIdOrderByTimestampAsc(String userId);
 
+    /**
+     * 流式读取用户的所有消息记录（按时间正序，游标按批读取，调用方必须关闭）
+     *
+     * @param userId 用户ID
+     * @return 消息流
+     */
+    @Meta(cursorBatchSize = 100)
+    Stream<ChatMessage> streamByUserIdOrderByTimestampAsc(String userId);
+
+    /**
+     * 流式读取用户在指定时间之后的消息记录（按时间正序，游标按批读取，调用方必须关闭）
+     *
+     * @param userId    用户ID
+     * @param timestamp 时间戳，查询这个时间之后的消息
+     * @return 消息流
+     */
+    @Meta(cursorBatchSize = 100)
+    Stream<ChatMessage> streamByUserIdAndTimestampAfterOrderByTimestampAsc(String userId,
+            java.time.Instant timestamp);
+
     /**
      * 根据用户ID和角色查询消息记录
      * 
@@ -0,0 +1,40 @@
+package com.elderdiet.backend.repository;
+
+import com.elderdiet.backend.entity.MealRecord;
+import com.elderdiet.backend.entity.Profile;
+import com.elderdiet.backend.entity.RecordComment;
+import com.elderdiet.backend.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 分享墙聚合查询结果：一页记录及其关联数据，以及符合条件的记录总数
+ */
+@Data
+@AllArgsConstructor
+public class FeedAggregationResult {
+
+    private List<Item> items;
+
+    private long total;
+
+    /**
+     * 单条记录及其通过 $lookup 关联的数据
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Item {
+
+        private MealRecord record;
+
+        private boolean likedByViewer; // 当前用户是否点赞
+
+        private List<RecordComment> latestComments; // 最新的若干条评论，按 (createdAt, _id) 倒序
+
+        private Profile publisherProfile; // 发布者档案，记录已有发布者快照时为null
+
+        private User publisher; // 发布者用户，记录已有发布者快照时为null
+    }
+}
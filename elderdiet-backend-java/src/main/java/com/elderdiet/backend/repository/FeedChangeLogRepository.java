@@ -0,0 +1,20 @@
+package com.elderdiet.backend.repository;
+
+import com.elderdiet.backend.entity.FeedChangeLogEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 分享墙变更日志仓库接口
+ */
+@Repository
+public interface FeedChangeLogRepository extends MongoRepository<FeedChangeLogEntry, String> {
+
+    /**
+     * 查询用户在指定时间之后的变更
+     */
+    List<FeedChangeLogEntry> findByOwnerIdAndOccurredAtAfter(String ownerId, LocalDateTime occurredAt);
+}
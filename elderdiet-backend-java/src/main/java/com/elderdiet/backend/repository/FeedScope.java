@@ -0,0 +1,47 @@
+package com.elderdiet.backend.repository;
+
+import com.elderdiet.backend.entity.RecordVisibility;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.Collection;
+
+/**
+ * 分享墙的查询范围：用户自己的所有记录 + 家庭成员的FAMILY可见记录
+ * 指定家庭簇ID时，家庭成员的记录先按 familyClusterId 等值过滤（命中 cluster_created_idx），
+ * 再在簇内按发布者和可见性精确筛选；
+ * 自己的记录始终只按 userId 查询（命中 user_created_idx），簇ID尚未改写时也不会从自己的分享墙中消失。
+ */
+@Getter
+@AllArgsConstructor
+public class FeedScope {
+
+    private final String userId;
+
+    private final Collection<String> familyUserIds;
+
+    private final String familyClusterId; // 为null时不使用家庭簇过滤
+
+    /**
+     * 不使用家庭簇过滤的查询范围
+     */
+    public static FeedScope of(String userId, Collection<String> familyUserIds) {
+        return new FeedScope(userId, familyUserIds, null);
+    }
+
+    /**
+     * 查询条件：$or 的两个分支分别走各自的索引，按时间排序时由 MongoDB 合并，因此不指定索引提示
+     */
+    Criteria toCriteria() {
+        Criteria own = Criteria.where("userId").is(userId);
+        if (familyUserIds.isEmpty()) {
+            return own;
+        }
+        Criteria family = familyClusterId == null
+                ? Criteria.where("userId").in(familyUserIds).and("visibility").is(RecordVisibility.FAMILY)
+                : Criteria.where("familyClusterId").is(familyClusterId)
+                        .and("userId").in(familyUserIds).and("visibility").is(RecordVisibility.FAMILY);
+        return new Criteria().orOperator(own, family);
+    }
+}
@@ -0,0 +1,66 @@
+package com.elderdiet.backend.repository;
+
+import com.elderdiet.backend.entity.FeedTimelineEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 分享墙时间线仓库接口
+ */
+@Repository
+public interface FeedTimelineRepository
+        extends MongoRepository<FeedTimelineEntry, String>, FeedTimelineRepositoryCustom {
+
+    /**
+     * 分页查询用户时间线中指定关系的条目（排序由Pageable指定），多取一条判断是否有下一页，不执行count查询
+     */
+    Slice<FeedTimelineEntry> findByOwnerIdAndRelationsIn(String ownerId,
+            Collection<FeedTimelineEntry.Relation> relations, Pageable pageable);
+
+    /**
+     * 查询用户时间线中记录创建时间不早于 since 的条目（重建时间线时核对使用）
+     */
+    List<FeedTimelineEntry> findByOwnerIdAndRecordCreatedAtGreaterThanEqual(String ownerId, LocalDateTime since);
+
+    /**
+     * 查询用户的整个时间线
+     */
+    List<FeedTimelineEntry> findByOwnerId(String ownerId);
+
+    /**
+     * 删除用户时间线中发布者不在给定集合内的条目（发布者不再是家庭成员）
+     */
+    void deleteByOwnerIdAndPublisherIdNotIn(String ownerId, Collection<String> publisherIds);
+
+    /**
+     * 查询用户时间线中最近的30条指定关系的条目
+     */
+    List<FeedTimelineEntry> findTop30ByOwnerIdAndRelationsInOrderByRecordCreatedAtDesc(String ownerId,
+            Collection<FeedTimelineEntry.Relation> relations);
+
+    /**
+     * 删除用户的整个时间线
+     */
+    void deleteByOwnerId(String ownerId);
+
+    /**
+     * 删除某个发布者在所有时间线中的条目
+     */
+    void deleteByPublisherId(String publisherId);
+
+    /**
+     * 删除某条记录在所有时间线中的条目
+     */
+    void deleteByRecordId(String recordId);
+
+    /**
+     * 删除某条记录在除指定用户外的所有时间线中的条目（记录改为私密时使用）
+     */
+    void deleteByRecordIdAndOwnerIdNot(String recordId, String ownerId);
+}
@@ -0,0 +1,21 @@
+package com.elderdiet.backend.repository;
+
+import com.elderdiet.backend.entity.FeedTimelineEntry;
+import com.elderdiet.backend.util.FeedCursor;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 分享墙时间线仓库自定义查询接口（基于MongoTemplate实现）
+ */
+public interface FeedTimelineRepositoryCustom {
+
+    /**
+     * 键集分页查询用户时间线，按 (recordCreatedAt, recordId) 倒序，从游标之后开始取 limit 条
+     *
+     * @param cursor 上一页最后一条记录的位置，null表示第一页
+     */
+    List<FeedTimelineEntry> findSlice(String ownerId, Collection<FeedTimelineEntry.Relation> relations,
+            FeedCursor cursor, int limit);
+}
@@ -0,0 +1,39 @@
+package com.elderdiet.backend.repository;
+
+import com.elderdiet.backend.entity.FeedTimelineEntry;
+import com.elderdiet.backend.util.FeedCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 分享墙时间线仓库自定义查询实现
+ */
+@RequiredArgsConstructor
+public class FeedTimelineRepositoryImpl implements FeedTimelineRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<FeedTimelineEntry> findSlice(String ownerId, Collection<FeedTimelineEntry.Relation> relations,
+            FeedCursor cursor, int limit) {
+        Criteria criteria = Criteria.where("ownerId").is(ownerId).and("relations").in(relations);
+
+        if (cursor != null) {
+            criteria = criteria.orOperator(
+                    Criteria.where("recordCreatedAt").lt(cursor.getCreatedAt()),
+                    Criteria.where("recordCreatedAt").is(cursor.getCreatedAt())
+                            .and("recordId").lt(cursor.getId()));
+        }
+
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "recordCreatedAt", "recordId"))
+                .limit(limit);
+        return mongoTemplate.find(query, FeedTimelineEntry.class);
+    }
+}
@@ -1,10 +1,13 @@
 package com.elderdiet.backend.repository;
 
 import com.elderdiet.backend.entity.LikeNotificationHistory;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 点赞通知历史记录Repository
@@ -22,6 +25,13 @@ public interface LikeNotificationHistoryRepository extends MongoRepository<LikeN
      */
     boolean existsByRecordIdAndLikerId(String recordId, String likerId);
 
+    /**
+     * 流式读取所有通知历史的 (recordId, likerId, recordOwnerId)，用于重建去重过滤器（调用方必须关闭）
+     */
+    @Query(value = "{}", fields = "{ 'recordId': 1, 'likerId': 1, 'recordOwnerId': 1 }")
+    @Meta(cursorBatchSize = 1000)
+    Stream<LikeNotificationHistory> streamAllKeys();
+
     /**
      * 删除指定记录的所有通知历史
      */
@@ -1,6 +1,7 @@
 package com.elderdiet.backend.repository;
 
 import com.elderdiet.backend.entity.MealPlan;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -8,6 +9,7 @@ import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 膳食计划Repository接口
@@ -20,6 +22,12 @@ public interface MealPlanRepository extends MongoRepository<MealPlan, String> {
      */
     List<MealPlan> findByUserIdOrderByCreatedAtDesc(String userId);
 
+    /**
+     * 流式读取用户的所有膳食计划，按创建时间倒序（游标按批读取，调用方必须关闭）
+     */
+    @Meta(cursorBatchSize = 50)
+    Stream<MealPlan> streamByUserIdOrderByCreatedAtDesc(String userId);
+
     /**
      * 根据用户ID和计划日期查找膳食计划，按创建时间倒序
      */
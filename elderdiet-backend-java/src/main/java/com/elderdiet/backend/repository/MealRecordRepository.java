@@ -14,7 +14,7 @@ import java.util.List;
  * 膳食记录仓库接口
  */
 @Repository
-public interface MealRecordRepository extends MongoRepository<MealRecord, String> {
+public interface MealRecordRepository extends MongoRepository<MealRecord, String>, MealRecordRepositoryCustom {
 
         /**
          * 根据用户ID查找膳食记录
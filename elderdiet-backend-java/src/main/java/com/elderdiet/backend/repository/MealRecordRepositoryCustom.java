@@ -0,0 +1,133 @@
+package com.elderdiet.backend.repository;
+
+import com.elderdiet.backend.entity.ImageVariants;
+import com.elderdiet.backend.entity.MealRecord;
+import com.elderdiet.backend.entity.PublisherSnapshot;
+import com.elderdiet.backend.entity.RecordVisibility;
+import com.elderdiet.backend.util.FeedCursor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 膳食记录仓库自定义查询接口（基于MongoTemplate实现）
+ */
+public interface MealRecordRepositoryCustom {
+
+    /**
+     * 键集分页查询分享墙记录：用户自己的所有记录 + 家庭成员的FAMILY可见记录
+     * 按 (createdAt, _id) 倒序，从游标之后开始取 limit 条，不做count查询
+     *
+     * @param cursor 上一页最后一条记录的位置，null表示第一页
+     */
+    List<MealRecord> findFeedSlice(FeedScope scope, FeedCursor cursor, int limit);
+
+    /**
+     * 分页查询分享墙记录（与 findFeedSlice 相同的筛选条件），按 (createdAt, _id) 倒序，附带总数
+     */
+    Page<MealRecord> findFeedPage(FeedScope scope, Pageable pageable);
+
+    /**
+     * 流式读取分享墙的一页记录（与 findFeedPage 相同的筛选和排序），通过游标按批读取，调用方必须关闭返回的Stream
+     */
+    Stream<MealRecord> streamFeedPage(FeedScope scope, long skip, int limit);
+
+    /**
+     * 统计分享墙记录总数（与 findFeedPage 相同的筛选条件）
+     */
+    long countFeed(FeedScope scope);
+
+    /**
+     * 查询分享墙中更新时间晚于 since 的记录（与 findFeedSlice 相同的筛选条件），按 (updatedAt, _id) 升序取 limit 条
+     */
+    List<MealRecord> findFeedChanges(FeedScope scope, LocalDateTime since, int limit);
+
+    /**
+     * 一次聚合查询分享墙的一页记录：$facet 同时返回当前页和总数，
+     * 当前页通过 $lookup 关联当前用户的点赞、最新的 commentPreviewSize 条评论，
+     * 以及没有发布者快照的记录的发布者档案和用户
+     */
+    FeedAggregationResult aggregateFeedPage(FeedScope scope, long skip, int limit, int commentPreviewSize);
+
+    /**
+     * 批量读取记录的发布者、可见性和点赞/评论数，只投影 record_counters_idx 中的字段，查询由索引直接返回
+     */
+    List<MealRecord> findCounters(Collection<String> recordIds);
+
+    /**
+     * 原子地增减点赞数（$inc），减少时不会低于0
+     */
+    void incrementLikesCount(String recordId, int delta);
+
+    /**
+     * 原子地增减评论数（$inc），减少时不会低于0
+     */
+    void incrementCommentsCount(String recordId, int delta);
+
+    /**
+     * 只修改可见性和更新时间（$set），不回写计数、发布者快照等可能被并发修改的字段
+     *
+     * @return 修改后的记录，记录不存在时返回null
+     */
+    MealRecord updateVisibility(String recordId, RecordVisibility visibility);
+
+    /**
+     * 写入营养师评论（$set 评论、评论时间和更新时间），已有评论的记录不修改
+     *
+     * @return 是否写入
+     */
+    boolean setNutritionistComment(String recordId, String comment, LocalDateTime commentAt);
+
+    /**
+     * 标记该记录已给小树浇水（$set treeWateredAt），已标记过的记录不修改；不改变更新时间
+     *
+     * @return 是否由本次调用标记
+     */
+    boolean markTreeWatered(String recordId, LocalDateTime wateredAt);
+
+    /**
+     * 替换第 index 张图片的多尺寸版本（$set 该元素和更新时间），该位置的原图已不是 originalUrl 时不修改
+     *
+     * @return 修改后的记录，未修改时返回null
+     */
+    MealRecord setImageVariants(String recordId, int index, String originalUrl, ImageVariants variants);
+
+    /**
+     * 按实际点赞/评论数校准所有记录的计数字段，只更新不一致的记录
+     *
+     * @param likeCounts    recordId -> 实际点赞数
+     * @param commentCounts recordId -> 实际评论数
+     * @return 被修正的记录数
+     */
+    int reconcileCounters(Map<String, Integer> likeCounts, Map<String, Integer> commentCounts);
+
+    /**
+     * 批量改写用户所有记录的发布者快照，只覆盖没有快照或快照版本更旧的记录
+     *
+     * @return 被改写的记录数
+     */
+    long updatePublisherSnapshot(String userId, PublisherSnapshot snapshot);
+
+    /**
+     * 查询存在未写入发布者快照的记录的用户ID（快照回填使用）
+     */
+    List<String> findUserIdsWithoutPublisherSnapshot();
+
+    /**
+     * 把每个用户所有记录的 familyClusterId 改写为给定的簇ID，只更新不一致的记录
+     *
+     * @param clusterIdByUserId 发布者用户ID -> 家庭簇ID
+     * @return 被改写的记录数
+     */
+    long stampFamilyClusters(Map<String, String> clusterIdByUserId);
+
+    /**
+     * 查询所有发布过记录的用户ID（家庭簇校准使用）
+     */
+    List<String> findDistinctUserIds();
+}
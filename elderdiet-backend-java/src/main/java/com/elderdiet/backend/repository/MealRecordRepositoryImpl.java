@@ -0,0 +1,335 @@
+package com.elderdiet.backend.repository;
+
+import com.elderdiet.backend.entity.ImageVariants;
+import com.elderdiet.backend.entity.MealRecord;
+import com.elderdiet.backend.entity.Profile;
+import com.elderdiet.backend.entity.RecordComment;
+import com.elderdiet.backend.entity.RecordVisibility;
+import com.elderdiet.backend.entity.PublisherSnapshot;
+import com.elderdiet.backend.entity.User;
+import com.elderdiet.backend.util.FeedCursor;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 膳食记录仓库自定义查询实现
+ */
+@RequiredArgsConstructor
+public class MealRecordRepositoryImpl implements MealRecordRepositoryCustom {
+
+    private static final int RECONCILE_BATCH_SIZE = 500;
+    private static final int STREAM_BATCH_SIZE = 50;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<MealRecord> findFeedSlice(FeedScope scope, FeedCursor cursor, int limit) {
+        Criteria criteria = scope.toCriteria();
+
+        if (cursor != null) {
+            Criteria keyset = new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(cursor.getCreatedAt()),
+                    Criteria.where("createdAt").is(cursor.getCreatedAt())
+                            .and("id").lt(new ObjectId(cursor.getId())));
+            criteria = new Criteria().andOperator(criteria, keyset);
+        }
+
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+                .limit(limit);
+        return mongoTemplate.find(query, MealRecord.class);
+    }
+
+    @Override
+    public Page<MealRecord> findFeedPage(FeedScope scope, Pageable pageable) {
+        Criteria criteria = scope.toCriteria();
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+                .with(pageable);
+        List<MealRecord> records = mongoTemplate.find(query, MealRecord.class);
+        long total = mongoTemplate.count(new Query(criteria), MealRecord.class);
+        return new PageImpl<>(records, pageable, total);
+    }
+
+    @Override
+    public Stream<MealRecord> streamFeedPage(FeedScope scope, long skip, int limit) {
+        Query query = new Query(scope.toCriteria())
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+                .skip(skip)
+                .limit(limit)
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        return mongoTemplate.stream(query, MealRecord.class);
+    }
+
+    @Override
+    public long countFeed(FeedScope scope) {
+        return mongoTemplate.count(new Query(scope.toCriteria()), MealRecord.class);
+    }
+
+    @Override
+    public List<MealRecord> findFeedChanges(FeedScope scope, LocalDateTime since, int limit) {
+        Criteria criteria = new Criteria().andOperator(scope.toCriteria(),
+                Criteria.where("updatedAt").gt(since));
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "updatedAt", "id"))
+                .limit(limit);
+        return mongoTemplate.find(query, MealRecord.class);
+    }
+
+    @Override
+    public FeedAggregationResult aggregateFeedPage(FeedScope scope, long skip, int limit, int commentPreviewSize) {
+        String viewerId = scope.getUserId();
+        Document recordIdVar = new Document("rid", new Document("$toString", "$_id"));
+
+        List<Document> pageStages = new ArrayList<>();
+        pageStages.add(new Document("$skip", skip));
+        pageStages.add(new Document("$limit", limit));
+        // 当前用户对该记录的点赞，命中 (recordId, userId) 唯一索引
+        pageStages.add(lookup("record_likes", recordIdVar, Arrays.asList(
+                new Document("$match", new Document("userId", viewerId)
+                        .append("$expr", new Document("$eq", Arrays.asList("$recordId", "$$rid")))),
+                new Document("$limit", 1),
+                new Document("$project", new Document("_id", 1))), "viewerLikes"));
+        // 最新的几条评论，命中 (recordId, createdAt, _id) 索引
+        pageStages.add(lookup("record_comments", recordIdVar, Arrays.asList(
+                new Document("$match", new Document("$expr", new Document("$eq", Arrays.asList("$recordId", "$$rid")))),
+                new Document("$sort", new Document("createdAt", -1).append("_id", -1)),
+                new Document("$limit", commentPreviewSize)), "latestComments"));
+        // 只有没有发布者快照的历史记录才关联发布者档案和用户
+        Document publisherVars = new Document("uid", "$userId")
+                .append("hasSnapshot", new Document("$gt", Arrays.asList("$publisher", null)));
+        pageStages.add(lookup("profiles", publisherVars, Arrays.asList(
+                new Document("$match", new Document("$expr", new Document("$and", Arrays.asList(
+                        new Document("$not", Arrays.asList("$$hasSnapshot")),
+                        new Document("$eq", Arrays.asList("$userId", "$$uid")))))),
+                new Document("$project", new Document("userId", 1).append("name", 1).append("avatarUrl", 1)
+                        .append("updatedAt", 1))), "publisherProfile"));
+        pageStages.add(lookup("users", publisherVars, Arrays.asList(
+                new Document("$match", new Document("$expr", new Document("$and", Arrays.asList(
+                        new Document("$not", Arrays.asList("$$hasSnapshot")),
+                        new Document("$eq", Arrays.asList("$_id", new Document("$toObjectId", "$$uid"))))))),
+                new Document("$project", new Document("phone", 1))), "publisherUser"));
+
+        Document facet = new Document("$facet", new Document("page", pageStages)
+                .append("total", List.of(new Document("$count", "count"))));
+        AggregationOperation facetStage = context -> facet;
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(scope.toCriteria()),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "createdAt", "_id")),
+                facetStage);
+        Document result = mongoTemplate.aggregate(aggregation, MealRecord.class, Document.class)
+                .getUniqueMappedResult();
+        if (result == null) {
+            return new FeedAggregationResult(new ArrayList<>(), 0);
+        }
+
+        MongoConverter converter = mongoTemplate.getConverter();
+        List<FeedAggregationResult.Item> items = new ArrayList<>();
+        for (Document doc : result.getList("page", Document.class)) {
+            List<RecordComment> comments = new ArrayList<>();
+            for (Document comment : doc.getList("latestComments", Document.class)) {
+                comments.add(converter.read(RecordComment.class, comment));
+            }
+            List<Document> profiles = doc.getList("publisherProfile", Document.class);
+            List<Document> users = doc.getList("publisherUser", Document.class);
+            items.add(new FeedAggregationResult.Item(
+                    converter.read(MealRecord.class, doc),
+                    !doc.getList("viewerLikes", Document.class).isEmpty(),
+                    comments,
+                    profiles.isEmpty() ? null : converter.read(Profile.class, profiles.get(0)),
+                    users.isEmpty() ? null : converter.read(User.class, users.get(0))));
+        }
+        List<Document> total = result.getList("total", Document.class);
+        long count = total.isEmpty() ? 0 : ((Number) total.get(0).get("count")).longValue();
+        return new FeedAggregationResult(items, count);
+    }
+
+    private static Document lookup(String from, Document let, List<Document> pipeline, String as) {
+        return new Document("$lookup", new Document("from", from)
+                .append("let", let)
+                .append("pipeline", pipeline)
+                .append("as", as));
+    }
+
+    @Override
+    public List<MealRecord> findCounters(Collection<String> recordIds) {
+        Query query = new Query(Criteria.where("id").in(recordIds)).withHint(MealRecord.COUNTERS_INDEX);
+        query.fields().include("userId", "visibility", "likesCount", "commentsCount");
+        return mongoTemplate.find(query, MealRecord.class);
+    }
+
+    @Override
+    public void incrementLikesCount(String recordId, int delta) {
+        incrementCounter(recordId, "likesCount", delta);
+    }
+
+    @Override
+    public void incrementCommentsCount(String recordId, int delta) {
+        incrementCounter(recordId, "commentsCount", delta);
+    }
+
+    /**
+     * 只更新计数字段和更新时间，避免整文档回写覆盖并发修改
+     */
+    private void incrementCounter(String recordId, String field, int delta) {
+        Criteria criteria = Criteria.where("id").is(recordId);
+        if (delta < 0) {
+            criteria = criteria.and(field).gte(-delta);
+        }
+        Update update = new Update()
+                .inc(field, delta)
+                .set("updatedAt", LocalDateTime.now());
+        mongoTemplate.updateFirst(new Query(criteria), update, MealRecord.class);
+    }
+
+    @Override
+    public MealRecord updateVisibility(String recordId, RecordVisibility visibility) {
+        Update update = new Update()
+                .set("visibility", visibility)
+                .set("updatedAt", LocalDateTime.now());
+        return mongoTemplate.findAndModify(new Query(Criteria.where("id").is(recordId)), update,
+                FindAndModifyOptions.options().returnNew(true), MealRecord.class);
+    }
+
+    @Override
+    public boolean setNutritionistComment(String recordId, String comment, LocalDateTime commentAt) {
+        Query query = new Query(Criteria.where("id").is(recordId).and("nutritionistComment").is(null));
+        Update update = new Update()
+                .set("nutritionistComment", comment)
+                .set("nutritionistCommentAt", commentAt)
+                .set("updatedAt", LocalDateTime.now());
+        return mongoTemplate.updateFirst(query, update, MealRecord.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public boolean markTreeWatered(String recordId, LocalDateTime wateredAt) {
+        Query query = new Query(Criteria.where("id").is(recordId).and("treeWateredAt").is(null));
+        Update update = new Update().set("treeWateredAt", wateredAt);
+        return mongoTemplate.updateFirst(query, update, MealRecord.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public MealRecord setImageVariants(String recordId, int index, String originalUrl, ImageVariants variants) {
+        Query query = new Query(Criteria.where("id").is(recordId)
+                .and("imageVariants." + index + ".original").is(originalUrl));
+        Update update = new Update()
+                .set("imageVariants." + index, variants)
+                .set("updatedAt", LocalDateTime.now());
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+                MealRecord.class);
+    }
+
+    @Override
+    public int reconcileCounters(Map<String, Integer> likeCounts, Map<String, Integer> commentCounts) {
+        Query query = new Query();
+        query.fields().include("likesCount", "commentsCount");
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MealRecord.class);
+        int pending = 0;
+        int fixed = 0;
+
+        try (Stream<MealRecord> records = mongoTemplate.stream(query, MealRecord.class)) {
+            Iterator<MealRecord> iterator = records.iterator();
+            while (iterator.hasNext()) {
+                MealRecord record = iterator.next();
+                int likes = likeCounts.getOrDefault(record.getId(), 0);
+                int comments = commentCounts.getOrDefault(record.getId(), 0);
+                if (record.getLikesCount() == likes && record.getCommentsCount() == comments) {
+                    continue;
+                }
+
+                // 以读到的旧值为条件，避免覆盖校准期间并发的 $inc；计数校准不修改 updatedAt
+                bulk.updateOne(new Query(Criteria.where("id").is(record.getId())
+                        .and("likesCount").is(record.getLikesCount())
+                        .and("commentsCount").is(record.getCommentsCount())),
+                        new Update().set("likesCount", likes).set("commentsCount", comments));
+                pending++;
+                fixed++;
+                if (pending >= RECONCILE_BATCH_SIZE) {
+                    bulk.execute();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MealRecord.class);
+                    pending = 0;
+                }
+            }
+        }
+
+        if (pending > 0) {
+            bulk.execute();
+        }
+        return fixed;
+    }
+
+    @Override
+    public long updatePublisherSnapshot(String userId, PublisherSnapshot snapshot) {
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("userId").is(userId),
+                new Criteria().orOperator(
+                        Criteria.where("publisher.version").exists(false),
+                        Criteria.where("publisher.version").lt(snapshot.getVersion()))));
+        // 同时更新 updatedAt，让增量同步的客户端拿到新的发布者信息
+        Update update = new Update()
+                .set("publisher", snapshot)
+                .set("updatedAt", LocalDateTime.now());
+        return mongoTemplate.updateMulti(query, update, MealRecord.class).getModifiedCount();
+    }
+
+    @Override
+    public List<String> findUserIdsWithoutPublisherSnapshot() {
+        return mongoTemplate.findDistinct(new Query(Criteria.where("publisher").exists(false)),
+                "userId", MealRecord.class, String.class);
+    }
+
+    @Override
+    public long stampFamilyClusters(Map<String, String> clusterIdByUserId) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MealRecord.class);
+        int pending = 0;
+        long modified = 0;
+
+        for (Map.Entry<String, String> entry : clusterIdByUserId.entrySet()) {
+            // 只改写簇ID不一致的记录；簇ID不是用户可见的变化，不修改 updatedAt
+            bulk.updateMulti(new Query(Criteria.where("userId").is(entry.getKey())
+                    .and("familyClusterId").ne(entry.getValue())),
+                    new Update().set("familyClusterId", entry.getValue()));
+            pending++;
+            if (pending >= RECONCILE_BATCH_SIZE) {
+                modified += bulk.execute().getModifiedCount();
+                bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MealRecord.class);
+                pending = 0;
+            }
+        }
+
+        if (pending > 0) {
+            modified += bulk.execute().getModifiedCount();
+        }
+        return modified;
+    }
+
+    @Override
+    public List<String> findDistinctUserIds() {
+        return mongoTemplate.findDistinct(new Query(), "userId", MealRecord.class, String.class);
+    }
+}
@@ -0,0 +1,12 @@
+package com.elderdiet.backend.repository;
+
+import com.elderdiet.backend.entity.OutboxEvent;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 待执行副作用（Outbox）数据访问层
+ */
+@Repository
+public interface OutboxEventRepository extends MongoRepository<OutboxEvent, String>, OutboxEventRepositoryCustom {
+}
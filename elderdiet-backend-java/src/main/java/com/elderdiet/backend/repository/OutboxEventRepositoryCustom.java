@@ -0,0 +1,42 @@
+package com.elderdiet.backend.repository;
+
+import com.elderdiet.backend.entity.OutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 待执行副作用（Outbox）仓库自定义查询接口（基于MongoTemplate实现）
+ */
+public interface OutboxEventRepositoryCustom {
+
+    /**
+     * 领取到期的事件：等待执行且已到重试时间，或租约已过期（上一个执行者崩溃）。
+     * 每条事件通过 findAndModify 原子领取，多个实例同时拉取也不会重复执行。
+     *
+     * @return 领取到的事件，attempts 已加1
+     */
+    List<OutboxEvent> claim(Collection<OutboxEvent.EventType> types, String owner, LocalDateTime leaseExpiresAt,
+            int limit);
+
+    /**
+     * 标记事件执行成功，租约已被其他节点接管时不做修改
+     */
+    boolean markDone(String id, String owner);
+
+    /**
+     * 标记事件执行失败，在 nextAttemptAt 之后重试
+     */
+    boolean markRetry(String id, String owner, LocalDateTime nextAttemptAt, String error);
+
+    /**
+     * 标记事件最终失败，不再重试
+     */
+    boolean markFailed(String id, String owner, String error);
+
+    /**
+     * 放弃已领取但未能执行的事件（例如执行队列已满），不计入重试次数
+     */
+    boolean release(String id, String owner);
+}
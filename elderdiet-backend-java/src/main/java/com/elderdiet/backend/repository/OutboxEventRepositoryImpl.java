@@ -0,0 +1,101 @@
+package com.elderdiet.backend.repository;
+
+import com.elderdiet.backend.entity.OutboxEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 待执行副作用（Outbox）仓库自定义查询实现
+ */
+@RequiredArgsConstructor
+public class OutboxEventRepositoryImpl implements OutboxEventRepositoryCustom {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<OutboxEvent> claim(Collection<OutboxEvent.EventType> types, String owner,
+            LocalDateTime leaseExpiresAt, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("type").in(types),
+                new Criteria().orOperator(
+                        Criteria.where("status").is(OutboxEvent.Status.PENDING).and("nextAttemptAt").lte(now),
+                        Criteria.where("status").is(OutboxEvent.Status.PROCESSING).and("leaseExpiresAt").lte(now))))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+        Update update = new Update()
+                .set("status", OutboxEvent.Status.PROCESSING)
+                .set("leaseOwner", owner)
+                .set("leaseExpiresAt", leaseExpiresAt)
+                .inc("attempts", 1);
+
+        List<OutboxEvent> claimed = new ArrayList<>();
+        while (claimed.size() < limit) {
+            OutboxEvent event = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(true), OutboxEvent.class);
+            if (event == null) {
+                break;
+            }
+            claimed.add(event);
+        }
+        return claimed;
+    }
+
+    @Override
+    public boolean markDone(String id, String owner) {
+        return finish(id, owner, new Update()
+                .set("status", OutboxEvent.Status.DONE)
+                .set("completedAt", LocalDateTime.now()));
+    }
+
+    @Override
+    public boolean markRetry(String id, String owner, LocalDateTime nextAttemptAt, String error) {
+        return finish(id, owner, new Update()
+                .set("status", OutboxEvent.Status.PENDING)
+                .set("nextAttemptAt", nextAttemptAt)
+                .set("lastError", truncate(error)));
+    }
+
+    @Override
+    public boolean markFailed(String id, String owner, String error) {
+        return finish(id, owner, new Update()
+                .set("status", OutboxEvent.Status.FAILED)
+                .set("lastError", truncate(error)));
+    }
+
+    @Override
+    public boolean release(String id, String owner) {
+        return finish(id, owner, new Update()
+                .set("status", OutboxEvent.Status.PENDING)
+                .inc("attempts", -1));
+    }
+
+    /**
+     * 只有仍持有租约的节点才能修改事件状态，避免租约过期后被接管的事件被旧节点覆盖
+     */
+    private boolean finish(String id, String owner, Update update) {
+        Query query = new Query(Criteria.where("_id").is(id)
+                .and("status").is(OutboxEvent.Status.PROCESSING)
+                .and("leaseOwner").is(owner));
+        update.unset("leaseOwner").unset("leaseExpiresAt");
+        return mongoTemplate.updateFirst(query, update, OutboxEvent.class).getModifiedCount() > 0;
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
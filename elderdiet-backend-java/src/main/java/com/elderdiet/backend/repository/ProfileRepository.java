@@ -4,6 +4,7 @@ import com.elderdiet.backend.entity.Profile;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -18,6 +19,11 @@ public interface ProfileRepository extends MongoRepository<Profile, String> {
      */
     Optional<Profile> findByUserId(String userId);
     
+    /**
+     * 根据用户ID列表批量查找健康档案
+     */
+    List<Profile> findByUserIdIn(Collection<String> userIds);
+    
     /**
      * 根据用户ID删除健康档案
      */
@@ -10,7 +10,7 @@ import java.util.List;
  * 膳食记录评论仓库接口
  */
 @Repository
-public interface RecordCommentRepository extends MongoRepository<RecordComment, String> {
+public interface RecordCommentRepository extends MongoRepository<RecordComment, String>, RecordCommentRepositoryCustom {
 
     /**
      * 根据记录ID查找所有评论（按创建时间排序）
@@ -0,0 +1,40 @@
+package com.elderdiet.backend.repository;
+
+import com.elderdiet.backend.entity.PublisherSnapshot;
+import com.elderdiet.backend.entity.RecordComment;
+import com.elderdiet.backend.util.FeedCursor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 膳食记录评论仓库自定义查询接口（基于MongoTemplate实现）
+ */
+public interface RecordCommentRepositoryCustom {
+
+    /**
+     * 批量查询一组记录各自最新的 perRecord 条评论（分享墙评论预览使用）
+     * 一次聚合完成，结果按记录分组、组内按 (createdAt, _id) 倒序（使用 $firstN，需要 MongoDB 5.2 及以上）
+     */
+    List<RecordComment> findLatestByRecordIds(Collection<String> recordIds, int perRecord);
+
+    /**
+     * 键集分页查询记录的评论，按 (createdAt, _id) 正序，从游标之后开始取 limit 条
+     *
+     * @param cursor 上一页最后一条评论的位置，null表示第一页
+     */
+    List<RecordComment> findCommentSlice(String recordId, FeedCursor cursor, int limit);
+
+    /**
+     * 统计每条记录的评论数（计数校准任务使用）
+     */
+    Map<String, Integer> countGroupByRecordId();
+
+    /**
+     * 批量改写用户所有评论的用户名和头像快照，只覆盖没有版本或版本更旧的评论
+     *
+     * @return 被改写的评论数
+     */
+    long updateUserSnapshot(String userId, PublisherSnapshot snapshot);
+}
@@ -0,0 +1,91 @@
+package com.elderdiet.backend.repository;
+
+import com.elderdiet.backend.entity.PublisherSnapshot;
+import com.elderdiet.backend.entity.RecordComment;
+import com.elderdiet.backend.util.FeedCursor;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 膳食记录评论仓库自定义查询实现
+ */
+@RequiredArgsConstructor
+public class RecordCommentRepositoryImpl implements RecordCommentRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<RecordComment> findLatestByRecordIds(Collection<String> recordIds, int perRecord) {
+        if (recordIds.isEmpty() || perRecord <= 0) {
+            return Collections.emptyList();
+        }
+
+        // 三个字段都倒序，按 (recordId, createdAt, _id) 索引反向扫描，不在内存中排序；
+        // $firstN 在分组时每条记录只保留最新的 perRecord 条，分组结果的大小与评论总数无关
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("recordId").in(recordIds)),
+                Aggregation.sort(Sort.by(Sort.Order.desc("recordId"), Sort.Order.desc("createdAt"),
+                        Sort.Order.desc("_id"))),
+                Aggregation.stage(new Document("$group", new Document("_id", "$recordId")
+                        .append("comments", new Document("$firstN",
+                                new Document("n", perRecord).append("input", "$$ROOT"))))),
+                Aggregation.stage(new Document("$unwind", "$comments")),
+                Aggregation.stage(new Document("$replaceRoot", new Document("newRoot", "$comments"))));
+
+        return mongoTemplate.aggregate(aggregation, RecordComment.class, RecordComment.class).getMappedResults();
+    }
+
+    @Override
+    public List<RecordComment> findCommentSlice(String recordId, FeedCursor cursor, int limit) {
+        Criteria criteria = Criteria.where("recordId").is(recordId);
+
+        if (cursor != null) {
+            Criteria keyset = new Criteria().orOperator(
+                    Criteria.where("createdAt").gt(cursor.getCreatedAt()),
+                    Criteria.where("createdAt").is(cursor.getCreatedAt())
+                            .and("id").gt(new ObjectId(cursor.getId())));
+            criteria = new Criteria().andOperator(criteria, keyset);
+        }
+
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "createdAt", "id"))
+                .limit(limit);
+        return mongoTemplate.find(query, RecordComment.class);
+    }
+
+    @Override
+    public Map<String, Integer> countGroupByRecordId() {
+        Aggregation aggregation = Aggregation.newAggregation(Aggregation.group("recordId").count().as("count"));
+        Map<String, Integer> counts = new HashMap<>();
+        mongoTemplate.aggregate(aggregation, RecordComment.class, Document.class)
+                .forEach(doc -> counts.put(doc.getString("_id"), ((Number) doc.get("count")).intValue()));
+        return counts;
+    }
+
+    @Override
+    public long updateUserSnapshot(String userId, PublisherSnapshot snapshot) {
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("userId").is(userId),
+                new Criteria().orOperator(
+                        Criteria.where("userSnapshotVersion").exists(false),
+                        Criteria.where("userSnapshotVersion").lt(snapshot.getVersion()))));
+        Update update = new Update()
+                .set("username", snapshot.getUsername())
+                .set("userAvatar", snapshot.getAvatar())
+                .set("userSnapshotVersion", snapshot.getVersion());
+        return mongoTemplate.updateMulti(query, update, RecordComment.class).getModifiedCount();
+    }
+}
@@ -2,8 +2,10 @@ package com.elderdiet.backend.repository;
 
 import com.elderdiet.backend.entity.RecordLike;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,7 +13,7 @@ import java.util.Optional;
  * 膳食记录点赞仓库接口
  */
 @Repository
-public interface RecordLikeRepository extends MongoRepository<RecordLike, String> {
+public interface RecordLikeRepository extends MongoRepository<RecordLike, String>, RecordLikeRepositoryCustom {
 
     /**
      * 根据记录ID和用户ID查找点赞记录
@@ -23,6 +25,17 @@ public interface RecordLikeRepository extends MongoRepository<RecordLike, String
      */
     boolean existsByRecordIdAndUserId(String recordId, String userId);
 
+    /**
+     * 批量查询用户对一组记录的点赞（分享墙批量加载使用）
+     */
+    List<RecordLike> findByUserIdAndRecordIdIn(String userId, Collection<String> recordIds);
+
+    /**
+     * 查询用户点赞过的所有记录ID（只返回recordId字段）
+     */
+    @Query(value = "{ 'userId': ?0 }", fields = "{ 'recordId': 1 }")
+    List<RecordLike> findRecordIdsByUserId(String userId);
+
     /**
      * 根据记录ID查找所有点赞记录
      */
@@ -0,0 +1,35 @@
+package com.elderdiet.backend.repository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 膳食记录点赞仓库自定义查询接口（基于MongoTemplate实现）
+ */
+public interface RecordLikeRepositoryCustom {
+
+    /**
+     * 点赞：不存在时插入，依赖 (recordId, userId) 唯一索引保证并发下只插入一条
+     *
+     * @return 是否新插入了点赞记录
+     */
+    boolean insertIfAbsent(String recordId, String userId);
+
+    /**
+     * 取消点赞
+     *
+     * @return 是否删除了点赞记录
+     */
+    boolean deleteIfPresent(String recordId, String userId);
+
+    /**
+     * 返回 recordIds 中用户点赞过的记录ID，一次 $in 查询，只投影 recordId 由 (recordId, userId) 索引直接返回
+     */
+    Set<String> findLikedRecordIds(String userId, Collection<String> recordIds);
+
+    /**
+     * 统计每条记录的点赞数（计数校准任务使用）
+     */
+    Map<String, Integer> countGroupByRecordId();
+}
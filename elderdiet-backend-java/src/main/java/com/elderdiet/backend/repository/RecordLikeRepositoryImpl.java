@@ -0,0 +1,68 @@
+package com.elderdiet.backend.repository;
+
+import com.elderdiet.backend.entity.RecordLike;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 膳食记录点赞仓库自定义查询实现
+ */
+@RequiredArgsConstructor
+public class RecordLikeRepositoryImpl implements RecordLikeRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean insertIfAbsent(String recordId, String userId) {
+        // upsert 不经过审计回调，需要手动设置创建时间
+        Update update = new Update().setOnInsert("createdAt", LocalDateTime.now());
+        try {
+            return mongoTemplate.upsert(byRecordAndUser(recordId, userId), update, RecordLike.class)
+                    .getUpsertedId() != null;
+        } catch (DuplicateKeyException e) {
+            // 并发的另一次点赞已经插入
+            return false;
+        }
+    }
+
+    @Override
+    public boolean deleteIfPresent(String recordId, String userId) {
+        return mongoTemplate.remove(byRecordAndUser(recordId, userId), RecordLike.class).getDeletedCount() > 0;
+    }
+
+    @Override
+    public Set<String> findLikedRecordIds(String userId, Collection<String> recordIds) {
+        Query query = new Query(Criteria.where("recordId").in(recordIds).and("userId").is(userId))
+                .withHint(new Document("recordId", 1).append("userId", 1));
+        query.fields().include("recordId").exclude("id");
+        return mongoTemplate.find(query, RecordLike.class).stream()
+                .map(RecordLike::getRecordId)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public Map<String, Integer> countGroupByRecordId() {
+        Aggregation aggregation = Aggregation.newAggregation(Aggregation.group("recordId").count().as("count"));
+        Map<String, Integer> counts = new HashMap<>();
+        mongoTemplate.aggregate(aggregation, RecordLike.class, Document.class)
+                .forEach(doc -> counts.put(doc.getString("_id"), ((Number) doc.get("count")).intValue()));
+        return counts;
+    }
+
+    private static Query byRecordAndUser(String recordId, String userId) {
+        return new Query(Criteria.where("recordId").is(recordId).and("userId").is(userId));
+    }
+}
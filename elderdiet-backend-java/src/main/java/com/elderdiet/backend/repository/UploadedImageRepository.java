@@ -0,0 +1,18 @@
+package com.elderdiet.backend.repository;
+
+import com.elderdiet.backend.entity.UploadedImage;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 上传图片索引数据访问层
+ */
+@Repository
+public interface UploadedImageRepository extends MongoRepository<UploadedImage, String>,
+        UploadedImageRepositoryCustom {
+
+    /**
+     * 原图URL是否在索引中
+     */
+    boolean existsByVariantsOriginal(String originalUrl);
+}
@@ -0,0 +1,31 @@
+package com.elderdiet.backend.repository;
+
+import com.elderdiet.backend.entity.UploadedImage;
+
+/**
+ * 上传图片索引仓库自定义查询接口（基于MongoTemplate实现）
+ * 引用计数通过 findAndModify 原子增减；计数为0的索引不能再被引用，只能被删除。
+ */
+public interface UploadedImageRepositoryCustom {
+
+    /**
+     * 用户引用已上传的图片，总引用次数和该用户的引用次数各加1
+     *
+     * @return 更新后的索引，不存在或正在删除（引用次数为0）时返回null
+     */
+    UploadedImage acquire(String hash, String userId);
+
+    /**
+     * 按原图URL释放该用户持有的一次引用，总引用次数和该用户的引用次数各减1
+     *
+     * @return 更新后的索引，URL不在索引中或该用户没有持有引用时返回null
+     */
+    UploadedImage releaseByOriginalUrl(String originalUrl, String userId);
+
+    /**
+     * 删除引用次数为0的索引
+     *
+     * @return 是否删除了索引
+     */
+    boolean removeIfUnreferenced(String hash);
+}
@@ -0,0 +1,49 @@
+package com.elderdiet.backend.repository;
+
+import com.elderdiet.backend.entity.UploadedImage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+
+/**
+ * 上传图片索引仓库自定义查询实现
+ */
+@RequiredArgsConstructor
+public class UploadedImageRepositoryImpl implements UploadedImageRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public UploadedImage acquire(String hash, String userId) {
+        Query query = new Query(Criteria.where("_id").is(hash).and("refCount").gt(0));
+        Update update = new Update()
+                .inc("refCount", 1)
+                .inc("references." + userId, 1)
+                .set("lastReferencedAt", LocalDateTime.now());
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+                UploadedImage.class);
+    }
+
+    @Override
+    public UploadedImage releaseByOriginalUrl(String originalUrl, String userId) {
+        Query query = new Query(Criteria.where("variants.original").is(originalUrl)
+                .and("refCount").gt(0)
+                .and("references." + userId).gt(0));
+        Update update = new Update()
+                .inc("refCount", -1)
+                .inc("references." + userId, -1);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+                UploadedImage.class);
+    }
+
+    @Override
+    public boolean removeIfUnreferenced(String hash) {
+        Query query = new Query(Criteria.where("_id").is(hash).and("refCount").lte(0));
+        return mongoTemplate.remove(query, UploadedImage.class).getDeletedCount() > 0;
+    }
+}
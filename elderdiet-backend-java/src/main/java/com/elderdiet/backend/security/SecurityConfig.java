@@ -2,6 +2,7 @@ package com.elderdiet.backend.security;
 
 import com.elderdiet.backend.service.UserService;
 import com.elderdiet.backend.util.PasswordUtil;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -51,6 +52,9 @@ public class SecurityConfig {
 
                 // 配置授权规则
                 .authorizeHttpRequests(authz -> authz
+                        // 异步分派（SSE等流式响应结束时）沿用原始请求的鉴权结果
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // 公开端点
                         .requestMatchers(
                                 "/api/v1/auth/**",
@@ -0,0 +1,74 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.FeedConfig;
+import com.elderdiet.backend.dto.MealRecordResponse;
+import com.elderdiet.backend.dto.ProfileDTO;
+import com.elderdiet.backend.entity.MealRecord;
+import com.elderdiet.backend.entity.Profile;
+import com.elderdiet.backend.entity.PublisherSnapshot;
+import com.elderdiet.backend.entity.RecordComment;
+import com.elderdiet.backend.entity.User;
+import com.elderdiet.backend.repository.FeedAggregationResult;
+import com.elderdiet.backend.repository.FeedScope;
+import com.elderdiet.backend.repository.MealRecordRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单次聚合读取分享墙：$facet 同时返回当前页和总数，当前页的点赞状态、评论预览和发布者信息
+ * 都通过 $lookup 在同一次往返中取回
+ */
+@Service
+@RequiredArgsConstructor
+public class AggregationFeedReadStrategy implements FeedReadStrategy {
+
+    private final MealRecordRepository mealRecordRepository;
+    private final FeedConfig.FeedProperties feedProperties;
+
+    @Override
+    public FeedConfig.FeedProperties.ReadStrategy getType() {
+        return FeedConfig.FeedProperties.ReadStrategy.AGGREGATION;
+    }
+
+    @Override
+    public MealRecordService.FeedResponse loadPage(User viewer, FeedScope scope, int page, int limit) {
+        FeedAggregationResult result = mealRecordRepository.aggregateFeedPage(scope, (long) (page - 1) * limit, limit, feedProperties.getCommentPreviewSize());
+
+        List<MealRecordResponse> records = new ArrayList<>();
+        for (FeedAggregationResult.Item item : result.getItems()) {
+            // 评论按创建时间倒序返回，这里转为升序
+            List<MealRecordResponse.CommentInfo> comments = new ArrayList<>();
+            for (RecordComment comment : item.getLatestComments()) {
+                comments.add(0, FeedHydrationService.toCommentInfo(comment));
+            }
+            records.add(FeedHydrationService.toResponse(item.getRecord(), buildUserInfo(item),
+                    item.isLikedByViewer(), comments));
+        }
+
+        long total = result.getTotal();
+        int totalPages = (int) ((total + limit - 1) / limit);
+        return new MealRecordService.FeedResponse(records, page, totalPages, total, (long) page * limit < total);
+    }
+
+    private static MealRecordResponse.UserInfo buildUserInfo(FeedAggregationResult.Item item) {
+        MealRecord record = item.getRecord();
+        if (record.getPublisher() != null) {
+            return FeedHydrationService.buildUserInfo(record.getUserId(), record.getPublisher());
+        }
+        User publisher = item.getPublisher();
+        if (publisher == null) {
+            return null;
+        }
+        Profile profile = item.getPublisherProfile();
+        ProfileDTO profileDTO = profile == null ? null : ProfileDTO.builder()
+                .name(profile.getName())
+                .avatarUrl(profile.getAvatarUrl())
+                .updatedAt(profile.getUpdatedAt())
+                .build();
+        PublisherSnapshot snapshot = PublisherSnapshotService.snapshotOf(publisher, profileDTO);
+        return FeedHydrationService.buildUserInfo(record.getUserId(), snapshot);
+    }
+}
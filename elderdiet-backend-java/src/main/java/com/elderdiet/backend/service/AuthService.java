@@ -12,6 +12,8 @@ import com.elderdiet.backend.dto.VerifyRelationshipResponse;
 import com.elderdiet.backend.entity.FamilyLink;
 import com.elderdiet.backend.entity.User;
 import com.elderdiet.backend.entity.UserRole;
+import com.elderdiet.backend.event.DomainEventBus;
+import com.elderdiet.backend.event.UserRemovedEvent;
 import com.elderdiet.backend.repository.FamilyLinkRepository;
 import com.elderdiet.backend.repository.MealRecordRepository;
 import com.elderdiet.backend.repository.MealPlanRepository;
@@ -24,6 +26,9 @@ import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * 认证服务类
  */
@@ -39,6 +44,8 @@ public class AuthService {
         private final MealPlanRepository mealPlanRepository;
         private final UserDeviceRepository userDeviceRepository;
         private final ChatMessageRepository chatMessageRepository;
+        private final FamilyGraphService familyGraphService;
+        private final DomainEventBus domainEventBus;
         private final JwtUtil jwtUtil;
 
         /**
@@ -288,8 +295,19 @@ public class AuthService {
 
                         // 5. 删除家庭关联关系
                         log.info("删除用户家庭关联关系: {}", userId);
+                        Set<String> formerFamilyIds = new HashSet<>();
+                        familyLinkRepository.findByParentId(userId)
+                                        .forEach(link -> formerFamilyIds.add(link.getChildId()));
+                        familyLinkRepository.findByChildId(userId)
+                                        .forEach(link -> formerFamilyIds.add(link.getParentId()));
                         familyLinkRepository.deleteByParentId(userId); // 作为父母的关系
                         familyLinkRepository.deleteByChildId(userId); // 作为子女的关系
+                        // 在关系图更新前记下能看到该用户记录的家庭成员（含关联老人）
+                        Set<String> formerFamilyMemberIds = familyGraphService.getFamilyMemberIds(userId);
+                        familyGraphService.onUserRemoved(userId);
+
+                        // 分享墙缓存、增量同步、家庭簇和时间线由事件监听器更新
+                        domainEventBus.publish(new UserRemovedEvent(userId, formerFamilyIds, formerFamilyMemberIds));
 
                         // 6. 删除健康档案
                         log.info("删除用户健康档案: {}", userId);
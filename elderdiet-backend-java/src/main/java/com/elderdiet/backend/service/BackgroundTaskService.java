@@ -0,0 +1,179 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.AsyncConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 后台任务执行服务
+ * 推送通知、AI营养师评论、领域事件异步监听器等耗时的后台任务按类型进入各自的有界线程池，
+ * 队列满时直接拒绝并计数，避免突发流量下无限创建线程拖垮服务。
+ * 开启虚拟线程模式（JDK 21+）时每个任务使用一个虚拟线程，用信号量限制同时执行的任务数。
+ */
+@Slf4j
+@Service
+public class BackgroundTaskService {
+
+    private final Pool pushPool;
+    private final Pool aiCommentPool;
+    private final Pool domainEventPool;
+
+    public BackgroundTaskService(AsyncConfig.AsyncProperties asyncProperties, MeterRegistry meterRegistry) {
+        boolean virtualThreads = asyncProperties.isVirtualThreads();
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            log.warn("当前JDK版本 {} 不支持虚拟线程，后台任务使用平台线程池", Runtime.version().feature());
+            virtualThreads = false;
+        }
+        this.pushPool = new Pool("push", asyncProperties.getPush(), virtualThreads, meterRegistry);
+        this.aiCommentPool = new Pool("ai-comment", asyncProperties.getAiComment(), virtualThreads, meterRegistry);
+        this.domainEventPool = new Pool("domain-event", asyncProperties.getDomainEvent(), virtualThreads,
+                meterRegistry);
+        log.info("后台任务执行器已初始化，虚拟线程模式: {}", virtualThreads);
+    }
+
+    /**
+     * 提交推送通知任务
+     *
+     * @return 任务是否被接受，队列已满时返回false
+     */
+    public boolean submitPush(String taskName, Runnable task) {
+        return pushPool.submit(taskName, task);
+    }
+
+    /**
+     * 提交AI营养师评论任务
+     *
+     * @return 任务是否被接受，队列已满时返回false
+     */
+    public boolean submitAiComment(String taskName, Runnable task) {
+        return aiCommentPool.submit(taskName, task);
+    }
+
+    /**
+     * 提交领域事件异步监听器任务
+     *
+     * @return 任务是否被接受，队列已满时返回false
+     */
+    public boolean submitDomainEvent(String taskName, Runnable task) {
+        return domainEventPool.submit(taskName, task);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pushPool.shutdown();
+        aiCommentPool.shutdown();
+        domainEventPool.shutdown();
+    }
+
+    /**
+     * 单个工作负载的执行器
+     */
+    private static class Pool {
+
+        private final String name;
+        private final Executor executor;
+        private final ThreadPoolExecutor threadPool;
+        private final Semaphore permits;
+        private final Counter rejectedCounter;
+        private final Counter failedCounter;
+
+        Pool(String name, AsyncConfig.AsyncProperties.Pool config, boolean virtualThreads,
+                MeterRegistry meterRegistry) {
+            this.name = name;
+            if (virtualThreads) {
+                int limit = config.getMaxSize() + config.getQueueCapacity();
+                this.threadPool = null;
+                this.permits = new Semaphore(limit);
+                this.executor = new VirtualThreadTaskExecutor(name + "-");
+                Gauge.builder("background.tasks.in_flight", permits, p -> limit - p.availablePermits())
+                        .description("正在执行的后台任务数")
+                        .tag("pool", name)
+                        .register(meterRegistry);
+            } else {
+                this.permits = null;
+                this.threadPool = new ThreadPoolExecutor(config.getCoreSize(), config.getMaxSize(),
+                        60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                        new CustomizableThreadFactory(name + "-"), new ThreadPoolExecutor.AbortPolicy());
+                this.threadPool.allowCoreThreadTimeOut(true);
+                this.executor = threadPool;
+                new ExecutorServiceMetrics(threadPool, name, Tags.empty()).bindTo(meterRegistry);
+            }
+            this.rejectedCounter = Counter.builder("background.tasks")
+                    .description("后台任务执行结果")
+                    .tag("pool", name)
+                    .tag("result", "rejected")
+                    .register(meterRegistry);
+            this.failedCounter = Counter.builder("background.tasks")
+                    .description("后台任务执行结果")
+                    .tag("pool", name)
+                    .tag("result", "failed")
+                    .register(meterRegistry);
+        }
+
+        boolean submit(String taskName, Runnable task) {
+            if (permits != null && !permits.tryAcquire()) {
+                reject(taskName);
+                return false;
+            }
+            try {
+                executor.execute(() -> run(taskName, task));
+                return true;
+            } catch (RejectedExecutionException e) {
+                if (permits != null) {
+                    permits.release();
+                }
+                reject(taskName);
+                return false;
+            }
+        }
+
+        private void run(String taskName, Runnable task) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                failedCounter.increment();
+                log.error("后台任务 {} 执行失败: {}", taskName, e.getMessage(), e);
+            } finally {
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+        }
+
+        private void reject(String taskName) {
+            rejectedCounter.increment();
+            log.warn("后台任务队列 {} 已满，丢弃任务: {}", name, taskName);
+        }
+
+        void shutdown() {
+            if (threadPool == null) {
+                return;
+            }
+            threadPool.shutdown();
+            try {
+                if (!threadPool.awaitTermination(10, TimeUnit.SECONDS)) {
+                    log.warn("后台任务队列 {} 未能在10秒内执行完毕，剩余 {} 个任务被丢弃",
+                            name, threadPool.shutdownNow().size());
+                }
+            } catch (InterruptedException e) {
+                threadPool.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.web.client.RestTemplate;
 import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * 聊天服务
@@ -415,13 +416,7 @@ public class ChatService {
      * 获取用户聊天记录（带时间戳过滤）
      */
     public List<ChatMessage> getChatMessages(String userId, Instant sinceTimestamp) {
-        if (sinceTimestamp == null) {
-            // 检查用户是否设置了聊天清空时间戳
-            Profile profile = profileRepository.findByUserId(userId).orElse(null);
-            if (profile != null && profile.getChatClearedAt() != null) {
-                sinceTimestamp = profile.getChatClearedAt();
-            }
-        }
+        sinceTimestamp = resolveSinceTimestamp(userId, sinceTimestamp);
 
         if (sinceTimestamp == null) {
             return chatMessageRepository.findByUserIdOrderByTimestampAsc(userId);
@@ -429,4 +424,31 @@ public class ChatService {
             return chatMessageRepository.findByUserIdAndTimestampAfterOrderByTimestampAsc(userId, sinceTimestamp);
         }
     }
+
+    /**
+     * 流式获取用户聊天记录（过滤规则与 getChatMessages 相同），调用方必须关闭返回的Stream
+     */
+    public Stream<ChatMessage> streamChatMessages(String userId, Instant sinceTimestamp) {
+        sinceTimestamp = resolveSinceTimestamp(userId, sinceTimestamp);
+
+        if (sinceTimestamp == null) {
+            return chatMessageRepository.streamByUserIdOrderByTimestampAsc(userId);
+        } else {
+            return chatMessageRepository.streamByUserIdAndTimestampAfterOrderByTimestampAsc(userId, sinceTimestamp);
+        }
+    }
+
+    /**
+     * 未指定起始时间时，使用用户设置的聊天清空时间戳
+     */
+    private Instant resolveSinceTimestamp(String userId, Instant sinceTimestamp) {
+        if (sinceTimestamp == null) {
+            // 检查用户是否设置了聊天清空时间戳
+            Profile profile = profileRepository.findByUserId(userId).orElse(null);
+            if (profile != null && profile.getChatClearedAt() != null) {
+                return profile.getChatClearedAt();
+            }
+        }
+        return sinceTimestamp;
+    }
 }
\ No newline at end of file
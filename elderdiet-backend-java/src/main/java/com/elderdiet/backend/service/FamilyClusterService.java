@@ -0,0 +1,59 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.repository.MealRecordRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 家庭簇打标服务
+ * 把家庭关系图（并查集）计算出的家庭簇ID写到膳食记录上，分享墙可以先按 familyClusterId 等值过滤，
+ * 不必每次都用 $in 列表组合 $or 查询。家庭关系变化时增量改写受影响簇的记录，并由定时任务全量校准。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FamilyClusterService {
+
+    private final FamilyGraphService familyGraphService;
+    private final MealRecordRepository mealRecordRepository;
+
+    /**
+     * 家庭关系变化后（家庭关系图已更新），改写这些用户当前所在簇的所有成员的记录
+     * 簇合并时两侧成员都在合并后的簇中；簇分裂时分裂出的部分分别从链接两端可达
+     */
+    public long restampClustersOf(Collection<String> userIds) {
+        Map<String, String> clusterIdByUserId = new LinkedHashMap<>();
+        for (String userId : userIds) {
+            if (clusterIdByUserId.containsKey(userId)) {
+                continue;
+            }
+            String clusterId = familyGraphService.getClusterId(userId);
+            for (String memberId : familyGraphService.getClusterMemberIds(userId)) {
+                clusterIdByUserId.put(memberId, clusterId);
+            }
+        }
+        long modified = mealRecordRepository.stampFamilyClusters(clusterIdByUserId);
+        log.info("家庭簇改写完成，涉及用户数: {}, 改写记录数: {}", clusterIdByUserId.size(), modified);
+        return modified;
+    }
+
+    /**
+     * 按当前家庭关系图校准所有记录的家庭簇ID
+     *
+     * @return 被改写的记录数
+     */
+    public long reconcileAll() {
+        List<String> userIds = mealRecordRepository.findDistinctUserIds();
+        Map<String, String> clusterIdByUserId = new LinkedHashMap<>();
+        for (String userId : userIds) {
+            clusterIdByUserId.put(userId, familyGraphService.getClusterId(userId));
+        }
+        return mealRecordRepository.stampFamilyClusters(clusterIdByUserId);
+    }
+}
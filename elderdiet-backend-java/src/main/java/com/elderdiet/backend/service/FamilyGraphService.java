@@ -0,0 +1,584 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.entity.FamilyLink;
+import com.elderdiet.backend.repository.FamilyLinkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 家庭关系图服务
+ * 启动时从 family_links 加载整个家庭关系图到内存，用紧凑的int编号表示用户，
+ * 维护 老人->子女、子女->老人 的邻接表以及预先计算好的"关联老人"（共享子女的其他老人）。
+ * 同时用并查集维护家庭簇（通过家庭链接连通的用户），簇ID取簇内最小的用户ID。
+ * 建立/解除家庭关系和注销账号时增量更新，并定期全量重建以修正偏差。
+ * 全量重建期间发生的增量更新会被记录下来，在替换新图之前重放到新图上，不会因为重建而丢失。
+ */
+@Slf4j
+@Service
+public class FamilyGraphService {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final FamilyLinkRepository familyLinkRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock rebuildLock = new ReentrantLock(); // 同一时间只有一个全量重建
+    private Graph graph = new Graph();
+    private List<Consumer<Graph>> pendingDeltas; // 重建期间的增量更新，不在重建时为null
+    private volatile boolean loaded = false;
+
+    private final Counter lazyLoadCounter;
+    private final Counter rebuildCounter;
+    private final Timer rebuildTimer;
+
+    public FamilyGraphService(FamilyLinkRepository familyLinkRepository, MeterRegistry meterRegistry) {
+        this.familyLinkRepository = familyLinkRepository;
+        this.lazyLoadCounter = Counter.builder("family.graph.lazy.loads")
+                .description("启动时未能加载、由查询触发的家庭关系图加载次数")
+                .register(meterRegistry);
+        this.rebuildCounter = Counter.builder("family.graph.rebuilds")
+                .description("家庭关系图全量重建次数")
+                .register(meterRegistry);
+        this.rebuildTimer = Timer.builder("family.graph.rebuild.duration")
+                .description("家庭关系图全量重建耗时")
+                .register(meterRegistry);
+        Gauge.builder("family.graph.users", this, FamilyGraphService::getUserCount)
+                .description("家庭关系图中的用户数")
+                .register(meterRegistry);
+        Gauge.builder("family.graph.links", this, FamilyGraphService::getLinkCount)
+                .description("家庭关系图中的家庭链接数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 启动时加载家庭关系图，加载失败时在第一次查询时重试
+     */
+    @PostConstruct
+    public void init() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("加载家庭关系图失败，将在首次查询时重试: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 定期全量重建，修正多实例部署或直接修改数据库导致的偏差
+     */
+    @Scheduled(fixedDelayString = "${family.graph.rebuild-interval-ms:600000}",
+            initialDelayString = "${family.graph.rebuild-interval-ms:600000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("定期重建家庭关系图失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 从 family_links 全量重建家庭关系图
+     * 读取链接前开始记录增量更新，替换前把这些更新重放到新图上（增量更新是幂等的，
+     * 已包含在读取结果中的更新重放后不变），因此重建期间建立或解除的家庭关系不会丢失。
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            Timer.Sample sample = Timer.start();
+            lock.writeLock().lock();
+            try {
+                pendingDeltas = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Graph rebuilt = new Graph();
+            try {
+                for (FamilyLink link : familyLinkRepository.findAll()) {
+                    rebuilt.addLink(link.getParentId(), link.getChildId());
+                }
+                rebuilt.recomputeAllRelatedElders();
+                rebuilt.recomputeAllClusters();
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pendingDeltas = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            int replayed;
+            lock.writeLock().lock();
+            try {
+                replayed = pendingDeltas.size();
+                pendingDeltas.forEach(delta -> delta.accept(rebuilt));
+                pendingDeltas = null;
+                graph = rebuilt;
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            rebuildCounter.increment();
+            long nanos = sample.stop(rebuildTimer);
+            log.info("家庭关系图重建完成，用户数: {}, 链接数: {}, 重放增量更新: {}, 耗时: {} ms",
+                    rebuilt.userCount(), rebuilt.linkCount(), replayed, nanos / 1_000_000);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * 获取老人的所有子女ID
+     */
+    public List<String> getChildIds(String parentId) {
+        return lookup(parentId, Graph.CHILDREN);
+    }
+
+    /**
+     * 获取子女的所有老人ID
+     */
+    public List<String> getParentIds(String childId) {
+        return lookup(childId, Graph.PARENTS);
+    }
+
+    /**
+     * 获取老人通过共享子女关联的其他老人ID（不包括自己）
+     */
+    public List<String> getRelatedElderIds(String elderId) {
+        return lookup(elderId, Graph.RELATED_ELDERS);
+    }
+
+    /**
+     * 获取用户的所有家庭成员ID：老人、子女以及关联老人（即能看到该用户FAMILY可见记录的用户）
+     */
+    public Set<String> getFamilyMemberIds(String userId) {
+        Set<String> memberIds = new LinkedHashSet<>();
+        memberIds.addAll(getParentIds(userId));
+        memberIds.addAll(getChildIds(userId));
+        memberIds.addAll(getRelatedElderIds(userId));
+        memberIds.remove(userId);
+        return memberIds;
+    }
+
+    /**
+     * 获取用户所在家庭簇的ID，没有任何家庭链接的用户自成一簇，簇ID为自己的用户ID
+     */
+    public String getClusterId(String userId) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return graph.clusterIdOf(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取用户所在家庭簇的所有成员ID（包括自己）
+     */
+    public Set<String> getClusterMemberIds(String userId) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return graph.componentOf(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 新建家庭链接后增量更新
+     */
+    public void onLinkAdded(String parentId, String childId) {
+        applyDelta(graph -> graph.linkAdded(parentId, childId));
+    }
+
+    /**
+     * 删除家庭链接后增量更新
+     */
+    public void onLinkRemoved(String parentId, String childId) {
+        applyDelta(graph -> graph.linkRemoved(parentId, childId));
+    }
+
+    /**
+     * 用户注销后移除其所有家庭链接
+     */
+    public void onUserRemoved(String userId) {
+        applyDelta(graph -> graph.userRemoved(userId));
+    }
+
+    /**
+     * 把增量更新应用到当前图上；正在全量重建时同时记录下来，替换前重放到新图上
+     */
+    private void applyDelta(Consumer<Graph> delta) {
+        lock.writeLock().lock();
+        try {
+            delta.accept(graph);
+            if (pendingDeltas != null) {
+                pendingDeltas.add(delta);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<String> lookup(String userId, int relation) {
+        ensureLoaded();
+
+        lock.readLock().lock();
+        try {
+            return graph.get(userId, relation);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 启动加载失败时由第一次查询加载，并发的首次查询只有一个执行加载，其余等待加载完成
+     */
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        rebuildLock.lock();
+        try {
+            if (!loaded) {
+                lazyLoadCounter.increment();
+                rebuild();
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private double getUserCount() {
+        lock.readLock().lock();
+        try {
+            return graph.userCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double getLinkCount() {
+        lock.readLock().lock();
+        try {
+            return graph.linkCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 紧凑的家庭关系图：用户ID映射为int编号，邻接表为有序int数组
+     * 非线程安全，由外层读写锁保护
+     */
+    private static class Graph {
+
+        static final int CHILDREN = 0;
+        static final int PARENTS = 1;
+        static final int RELATED_ELDERS = 2;
+
+        private final Map<String, Integer> indexById = new HashMap<>();
+        private final List<String> idByIndex = new ArrayList<>();
+        private final List<int[][]> adjacency = new ArrayList<>(); // [CHILDREN, PARENTS, RELATED_ELDERS]
+        private int[] clusterParent = new int[16]; // 并查集的父节点
+        private final Map<Integer, String> clusterIdByRoot = new HashMap<>(); // 簇根节点 -> 簇内最小的用户ID
+        private int linkCount = 0;
+
+        int indexOf(String userId) {
+            Integer index = indexById.get(userId);
+            if (index != null) {
+                return index;
+            }
+            int newIndex = idByIndex.size();
+            indexById.put(userId, newIndex);
+            idByIndex.add(userId);
+            adjacency.add(new int[][] { EMPTY, EMPTY, EMPTY });
+            if (newIndex == clusterParent.length) {
+                clusterParent = Arrays.copyOf(clusterParent, newIndex * 2);
+            }
+            clusterParent[newIndex] = newIndex;
+            clusterIdByRoot.put(newIndex, userId);
+            return newIndex;
+        }
+
+        List<String> get(String userId, int relation) {
+            Integer index = indexById.get(userId);
+            if (index == null) {
+                return Collections.emptyList();
+            }
+            int[] neighbours = adjacency.get(index)[relation];
+            List<String> ids = new ArrayList<>(neighbours.length);
+            for (int neighbour : neighbours) {
+                ids.add(idByIndex.get(neighbour));
+            }
+            return ids;
+        }
+
+        void addLink(String parentId, String childId) {
+            int parent = indexOf(parentId);
+            int child = indexOf(childId);
+            int[][] parentNode = adjacency.get(parent);
+            int before = parentNode[CHILDREN].length;
+            parentNode[CHILDREN] = insert(parentNode[CHILDREN], child);
+            adjacency.get(child)[PARENTS] = insert(adjacency.get(child)[PARENTS], parent);
+            if (parentNode[CHILDREN].length > before) {
+                linkCount++;
+            }
+        }
+
+        void linkAdded(String parentId, String childId) {
+            addLink(parentId, childId);
+            union(parentId, childId);
+            recomputeRelatedEldersOfChild(childId);
+        }
+
+        void linkRemoved(String parentId, String childId) {
+            removeLink(parentId, childId);
+            recomputeRelatedEldersOfChild(childId);
+            recomputeRelatedElders(parentId);
+            splitClusters(parentId, childId);
+        }
+
+        void userRemoved(String userId) {
+            List<String> formerNeighbours = new ArrayList<>(get(userId, CHILDREN));
+            formerNeighbours.addAll(get(userId, PARENTS));
+            for (String childId : get(userId, CHILDREN)) {
+                removeLink(userId, childId);
+                recomputeRelatedEldersOfChild(childId);
+            }
+            for (String parentId : get(userId, PARENTS)) {
+                removeLink(parentId, userId);
+                recomputeRelatedElders(parentId);
+            }
+            recomputeRelatedElders(userId);
+            formerNeighbours.add(userId);
+            splitClusters(formerNeighbours.toArray(new String[0]));
+        }
+
+        void removeLink(String parentId, String childId) {
+            Integer parent = indexById.get(parentId);
+            Integer child = indexById.get(childId);
+            if (parent == null || child == null) {
+                return;
+            }
+            int[][] parentNode = adjacency.get(parent);
+            int before = parentNode[CHILDREN].length;
+            parentNode[CHILDREN] = delete(parentNode[CHILDREN], child);
+            adjacency.get(child)[PARENTS] = delete(adjacency.get(child)[PARENTS], parent);
+            if (parentNode[CHILDREN].length < before) {
+                linkCount--;
+            }
+        }
+
+        void recomputeAllRelatedElders() {
+            for (int i = 0; i < adjacency.size(); i++) {
+                recomputeRelatedElders(i);
+            }
+        }
+
+        /**
+         * 子女的老人集合变化后，重新计算该子女所有老人的关联老人
+         */
+        void recomputeRelatedEldersOfChild(String childId) {
+            Integer child = indexById.get(childId);
+            if (child == null) {
+                return;
+            }
+            for (int parent : adjacency.get(child)[PARENTS]) {
+                recomputeRelatedElders(parent);
+            }
+        }
+
+        void recomputeRelatedElders(String elderId) {
+            Integer elder = indexById.get(elderId);
+            if (elder != null) {
+                recomputeRelatedElders(elder);
+            }
+        }
+
+        private void recomputeRelatedElders(int elder) {
+            Set<Integer> related = new LinkedHashSet<>();
+            for (int child : adjacency.get(elder)[CHILDREN]) {
+                for (int parent : adjacency.get(child)[PARENTS]) {
+                    if (parent != elder) {
+                        related.add(parent);
+                    }
+                }
+            }
+            int[] sorted = related.stream().mapToInt(Integer::intValue).sorted().toArray();
+            adjacency.get(elder)[RELATED_ELDERS] = sorted.length == 0 ? EMPTY : sorted;
+        }
+
+        String clusterIdOf(String userId) {
+            Integer index = indexById.get(userId);
+            return index == null ? userId : clusterIdByRoot.get(find(index));
+        }
+
+        Set<String> componentOf(String userId) {
+            Integer index = indexById.get(userId);
+            if (index == null) {
+                return Collections.singleton(userId);
+            }
+            Set<String> members = new LinkedHashSet<>();
+            for (int member : traverse(index)) {
+                members.add(idByIndex.get(member));
+            }
+            return members;
+        }
+
+        /**
+         * 合并两个用户所在的簇，把编号较大的根挂到编号较小的根上
+         */
+        void union(String firstId, String secondId) {
+            int first = find(indexOf(firstId));
+            int second = find(indexOf(secondId));
+            if (first == second) {
+                return;
+            }
+            int root = Math.min(first, second);
+            int other = Math.max(first, second);
+            clusterParent[other] = root;
+            String otherClusterId = clusterIdByRoot.remove(other);
+            String rootClusterId = clusterIdByRoot.get(root);
+            clusterIdByRoot.put(root, otherClusterId.compareTo(rootClusterId) < 0 ? otherClusterId : rootClusterId);
+        }
+
+        /**
+         * 删除链接后簇可能分裂：并查集不支持删除，从受影响的用户出发遍历邻接表，重新划分这些用户所在的簇
+         */
+        void splitClusters(String... userIds) {
+            Set<Integer> visited = new HashSet<>();
+            for (String userId : userIds) {
+                Integer start = indexById.get(userId);
+                if (start == null || visited.contains(start)) {
+                    continue;
+                }
+                List<Integer> component = traverse(start);
+                visited.addAll(component);
+                assignCluster(component);
+            }
+        }
+
+        void recomputeAllClusters() {
+            for (int i = 0; i < idByIndex.size(); i++) {
+                clusterParent[i] = i;
+            }
+            clusterIdByRoot.clear();
+            for (int i = 0; i < idByIndex.size(); i++) {
+                clusterIdByRoot.put(i, idByIndex.get(i));
+            }
+            for (int parent = 0; parent < adjacency.size(); parent++) {
+                for (int child : adjacency.get(parent)[CHILDREN]) {
+                    union(idByIndex.get(parent), idByIndex.get(child));
+                }
+            }
+        }
+
+        private void assignCluster(List<Integer> component) {
+            int root = component.stream().mapToInt(Integer::intValue).min().orElseThrow();
+            String clusterId = null;
+            for (int member : component) {
+                clusterIdByRoot.remove(member);
+                clusterParent[member] = root;
+                String memberId = idByIndex.get(member);
+                if (clusterId == null || memberId.compareTo(clusterId) < 0) {
+                    clusterId = memberId;
+                }
+            }
+            clusterIdByRoot.put(root, clusterId);
+        }
+
+        /**
+         * 广度优先遍历用户所在的连通分量（沿子女和老人两个方向）
+         */
+        private List<Integer> traverse(int start) {
+            List<Integer> component = new ArrayList<>();
+            Set<Integer> seen = new HashSet<>();
+            component.add(start);
+            seen.add(start);
+            for (int i = 0; i < component.size(); i++) {
+                int[][] node = adjacency.get(component.get(i));
+                for (int[] neighbours : new int[][] { node[CHILDREN], node[PARENTS] }) {
+                    for (int neighbour : neighbours) {
+                        if (seen.add(neighbour)) {
+                            component.add(neighbour);
+                        }
+                    }
+                }
+            }
+            return component;
+        }
+
+        private int find(int index) {
+            int root = index;
+            while (clusterParent[root] != root) {
+                root = clusterParent[root];
+            }
+            // 路径压缩
+            while (clusterParent[index] != root) {
+                int next = clusterParent[index];
+                clusterParent[index] = root;
+                index = next;
+            }
+            return root;
+        }
+
+        int userCount() {
+            return idByIndex.size();
+        }
+
+        int linkCount() {
+            return linkCount;
+        }
+
+        private static int[] insert(int[] values, int value) {
+            int position = Arrays.binarySearch(values, value);
+            if (position >= 0) {
+                return values;
+            }
+            int insertAt = -position - 1;
+            int[] result = new int[values.length + 1];
+            System.arraycopy(values, 0, result, 0, insertAt);
+            result[insertAt] = value;
+            System.arraycopy(values, insertAt, result, insertAt + 1, values.length - insertAt);
+            return result;
+        }
+
+        private static int[] delete(int[] values, int value) {
+            int position = Arrays.binarySearch(values, value);
+            if (position < 0) {
+                return values;
+            }
+            if (values.length == 1) {
+                return EMPTY;
+            }
+            int[] result = new int[values.length - 1];
+            System.arraycopy(values, 0, result, 0, position);
+            System.arraycopy(values, position + 1, result, position, values.length - position - 1);
+            return result;
+        }
+    }
+}
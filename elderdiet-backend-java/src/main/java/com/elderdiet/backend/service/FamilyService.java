@@ -5,6 +5,8 @@ import com.elderdiet.backend.dto.ProfileDTO;
 import com.elderdiet.backend.entity.FamilyLink;
 import com.elderdiet.backend.entity.User;
 import com.elderdiet.backend.entity.UserRole;
+import com.elderdiet.backend.event.DomainEventBus;
+import com.elderdiet.backend.event.FamilyLinkChangedEvent;
 import com.elderdiet.backend.repository.FamilyLinkRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,9 +14,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Map;
 
 /**
  * 家庭服务类
@@ -27,6 +27,8 @@ public class FamilyService {
     private final FamilyLinkRepository familyLinkRepository;
     private final UserService userService;
     private final ProfileService profileService;
+    private final FamilyGraphService familyGraphService;
+    private final DomainEventBus domainEventBus;
 
     /**
      * 智能链接家庭成员 - 根据目标用户的角色自动建立正确的关系
@@ -76,6 +78,9 @@ public class FamilyService {
         FamilyLink savedLink = familyLinkRepository.save(familyLink);
         log.info("成功创建家庭链接: {}", relationshipDesc);
 
+        familyGraphService.onLinkAdded(parentId, childId);
+        publishLinkChanged(parentId, childId, true);
+
         return savedLink;
     }
 
@@ -128,7 +133,11 @@ public class FamilyService {
      */
     public void unlinkChild(String parentId, String childId) {
         familyLinkRepository.findByParentIdAndChildId(parentId, childId)
-                .ifPresent(familyLinkRepository::delete);
+                .ifPresent(link -> {
+                    familyLinkRepository.delete(link);
+                    familyGraphService.onLinkRemoved(parentId, childId);
+                    publishLinkChanged(parentId, childId, false);
+                });
         log.info("删除家庭链接: 老人 {} -> 子女 {}", parentId, childId);
     }
 
@@ -144,6 +153,8 @@ public class FamilyService {
         if (link.isPresent()) {
             familyLinkRepository.delete(link.get());
             log.info("删除家庭链接: 老人 {} -> 子女 {}", currentUserId, targetUserId);
+            familyGraphService.onLinkRemoved(currentUserId, targetUserId);
+            publishLinkChanged(currentUserId, targetUserId, false);
             return;
         }
 
@@ -152,79 +163,68 @@ public class FamilyService {
         if (link.isPresent()) {
             familyLinkRepository.delete(link.get());
             log.info("删除家庭链接: 老人 {} -> 子女 {}", targetUserId, currentUserId);
+            familyGraphService.onLinkRemoved(targetUserId, currentUserId);
+            publishLinkChanged(targetUserId, currentUserId, false);
             return;
         }
 
         throw new RuntimeException("未找到家庭关系链接，无法删除");
     }
 
+    /**
+     * 家庭关系图更新后发布事件，由监听器使分享墙缓存失效，修正时间线和记录的家庭簇ID
+     * （监听器失败不影响家庭关系操作本身，可通过回填和校准任务修复）
+     */
+    private void publishLinkChanged(String parentId, String childId, boolean linked) {
+        domainEventBus.publish(new FamilyLinkChangedEvent(parentId, childId, linked));
+    }
+
     /**
      * 获取当前用户的所有家庭成员信息
+     * 成员ID取自家庭关系图，用户和健康档案各用一次$in查询批量读取，查询次数不随家庭规模增长
      */
     public List<FamilyMemberDTO> getFamilyMembers(User currentUser) {
         log.info("获取用户 {} 的家庭成员信息", currentUser.getPhone());
 
-        List<FamilyMemberDTO> familyMembers = new ArrayList<>();
-
-        // 根据用户角色获取相应的家庭成员
+        // 根据用户角色确定家庭成员ID及关系类型（按返回顺序）
+        List<String> memberIds = new ArrayList<>();
+        List<String> relationshipTypes = new ArrayList<>();
         if (currentUser.getRole() == UserRole.ELDER) {
-            // 老人用户：获取所有子女
-            List<FamilyLink> childrenLinks = getChildrenLinks(currentUser.getId());
-
-            for (FamilyLink link : childrenLinks) {
-                User child = userService.findById(link.getChildId())
-                        .orElse(null);
-
-                if (child != null) {
-                    FamilyMemberDTO member = buildFamilyMemberDTO(child, "child");
-                    if (member != null) {
-                        familyMembers.add(member);
-                    }
-                }
-            }
-
-            // 新增：通过子女获取所有关联的其他老人
-            // 收集所有子女ID
-            List<String> childIds = childrenLinks.stream()
-                    .map(FamilyLink::getChildId)
-                    .collect(Collectors.toList());
-
-            // 获取所有子女关联的老人
-            Set<String> relatedElderIds = new HashSet<>();
-            for (String childId : childIds) {
-                List<FamilyLink> parentLinks = getParentsLinks(childId);
-                // 只添加不是当前用户的老人
-                parentLinks.stream()
-                        .map(FamilyLink::getParentId)
-                        .filter(id -> !id.equals(currentUser.getId())) // 排除自己
-                        .forEach(relatedElderIds::add); // 使用Set自动去重
+            // 老人用户：所有子女
+            for (String childId : familyGraphService.getChildIds(currentUser.getId())) {
+                memberIds.add(childId);
+                relationshipTypes.add("child");
             }
 
+            // 通过子女关联的其他老人（家庭关系图中已预先计算并去重，不包括自己）
+            List<String> relatedElderIds = familyGraphService.getRelatedElderIds(currentUser.getId());
             log.info("老人用户 {} 通过子女关联找到 {} 个其他老人", currentUser.getPhone(), relatedElderIds.size());
-
-            // 添加关联老人到家庭成员列表
             for (String elderId : relatedElderIds) {
-                User elder = userService.findById(elderId).orElse(null);
-                if (elder != null) {
-                    FamilyMemberDTO member = buildFamilyMemberDTO(elder, "related_elder");
-                    if (member != null) {
-                        familyMembers.add(member);
-                    }
-                }
+                memberIds.add(elderId);
+                relationshipTypes.add("related_elder");
             }
         } else if (currentUser.getRole() == UserRole.CHILD) {
-            // 子女用户：获取所有老人（父母）
-            List<FamilyLink> parentsLinks = getParentsLinks(currentUser.getId());
-
-            for (FamilyLink link : parentsLinks) {
-                User parent = userService.findById(link.getParentId())
-                        .orElse(null);
-
-                if (parent != null) {
-                    FamilyMemberDTO member = buildFamilyMemberDTO(parent, "parent");
-                    if (member != null) {
-                        familyMembers.add(member);
-                    }
+            // 子女用户：所有老人（父母）
+            for (String parentId : familyGraphService.getParentIds(currentUser.getId())) {
+                memberIds.add(parentId);
+                relationshipTypes.add("parent");
+            }
+        }
+
+        List<FamilyMemberDTO> familyMembers = new ArrayList<>();
+        if (!memberIds.isEmpty()) {
+            Map<String, User> users = userService.findByIds(memberIds);
+            // 档案读取绕过权限检查，只查询仍然存在的用户
+            Map<String, ProfileDTO> profiles = profileService.getProfilesByUserIds(users.keySet());
+            for (int i = 0; i < memberIds.size(); i++) {
+                User member = users.get(memberIds.get(i));
+                if (member == null) {
+                    continue;
+                }
+                FamilyMemberDTO dto = buildFamilyMemberDTO(member, relationshipTypes.get(i),
+                        profiles.get(member.getId()));
+                if (dto != null) {
+                    familyMembers.add(dto);
                 }
             }
         }
@@ -235,12 +235,11 @@ public class FamilyService {
 
     /**
      * 构建家庭成员DTO
+     *
+     * @param profile 用户的健康档案，没有档案时为null
      */
-    private FamilyMemberDTO buildFamilyMemberDTO(User user, String relationshipType) {
+    private FamilyMemberDTO buildFamilyMemberDTO(User user, String relationshipType, ProfileDTO profile) {
         try {
-            // 获取用户的档案信息（绕过权限检查）
-            ProfileDTO profile = profileService.getProfileByUserIdInternal(user.getId());
-
             return FamilyMemberDTO.builder()
                     .userId(user.getId())
                     .phone(user.getPhone())
@@ -0,0 +1,235 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.FeedConfig;
+import com.elderdiet.backend.dto.MealRecordResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分享墙响应缓存服务
+ * 按 用户 + 分页参数 缓存渲染好的 FeedResponse（LRU淘汰，容量有上限，超过 ttlSeconds 后过期），
+ * 每个用户维护一个版本号，相关记录或家庭关系变化时递增版本号使本实例的缓存失效；
+ * 版本号只在本实例内有效，其他实例上的变化由缓存过期兜底。
+ * ETag 由分页内容（记录ID、更新时间和互动计数）的摘要生成，与实例无关，内容不变时返回304。
+ */
+@Slf4j
+@Service
+public class FeedCacheService {
+
+    private final FamilyGraphService familyGraphService;
+    private final FeedConfig.FeedProperties feedProperties;
+
+    // 版本号以启动时间为起点，服务重启后旧的ETag全部失效
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+    private final long bootVersion = clock.get();
+    private final LinkedHashMap<String, Long> versions;
+    // 被淘汰的版本号中的最大值，没有版本号记录的用户以它为准，淘汰后旧的缓存分页不会重新生效
+    private long evictedVersion = bootVersion;
+    private final LinkedHashMap<String, CachedPage> pages;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter notModifiedCounter;
+
+    public FeedCacheService(FamilyGraphService familyGraphService, FeedConfig.FeedProperties feedProperties,
+            MeterRegistry meterRegistry) {
+        this.familyGraphService = familyGraphService;
+        this.feedProperties = feedProperties;
+        this.versions = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                if (size() > feedProperties.getCache().getMaxEntries()) {
+                    evictedVersion = Math.max(evictedVersion, eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.pages = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPage> eldest) {
+                return size() > feedProperties.getCache().getMaxEntries();
+            }
+        };
+        this.hitCounter = Counter.builder("feed.cache.requests")
+                .description("分享墙缓存请求次数")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("feed.cache.requests")
+                .description("分享墙缓存请求次数")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.notModifiedCounter = Counter.builder("feed.cache.requests")
+                .description("分享墙缓存请求次数")
+                .tag("result", "not_modified")
+                .register(meterRegistry);
+        Gauge.builder("feed.cache.size", this, FeedCacheService::size)
+                .description("分享墙缓存的分页数量")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return feedProperties.getCache().isEnabled();
+    }
+
+    /**
+     * 分页模式的缓存键
+     */
+    public static String pageKey(int page, int limit) {
+        return "p:" + page + ":" + limit;
+    }
+
+    /**
+     * 游标模式的缓存键
+     */
+    public static String cursorKey(String cursor, int limit) {
+        return "c:" + cursor + ":" + limit;
+    }
+
+    /**
+     * 获取用户分享墙当前的版本号
+     */
+    public long getVersion(String userId) {
+        synchronized (versions) {
+            return versions.getOrDefault(userId, evictedVersion);
+        }
+    }
+
+    /**
+     * 根据分页参数和分页内容生成ETag：任一记录的ID、更新时间、互动计数或翻页信息变化时ETag随之变化
+     */
+    public String buildETag(String userId, String pageKey, MealRecordService.FeedResponse feed) {
+        StringBuilder content = new StringBuilder(userId).append('|').append(pageKey)
+                .append('|').append(feed.getTotalRecords())
+                .append('|').append(feed.isHasMore())
+                .append('|').append(feed.getNextCursor());
+        for (MealRecordResponse record : feed.getRecords()) {
+            content.append('|').append(record.getId())
+                    .append(',').append(record.getUpdatedAt())
+                    .append(',').append(record.getLikesCount())
+                    .append(',').append(record.getCommentsCount())
+                    .append(',').append(record.isLikedByCurrentUser());
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("不支持SHA-256", e);
+        }
+        byte[] hash = digest.digest(content.toString().getBytes(StandardCharsets.UTF_8));
+        return "\"" + HexFormat.of().formatHex(hash, 0, 12) + "\"";
+    }
+
+    /**
+     * 判断 If-None-Match 是否与当前ETag匹配（支持多个值和弱校验前缀）
+     */
+    public boolean isNotModified(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag) || value.equals("*")) {
+                notModifiedCounter.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取缓存的分页，版本号不一致或已过期时视为未命中
+     */
+    public MealRecordService.FeedResponse get(String userId, String pageKey, long version) {
+        CachedPage cached;
+        synchronized (pages) {
+            cached = pages.get(userId + "|" + pageKey);
+        }
+        long ttlMillis = feedProperties.getCache().getTtlSeconds() * 1000L;
+        if (cached == null || cached.version != version
+                || System.currentTimeMillis() - cached.cachedAt >= ttlMillis) {
+            missCounter.increment();
+            return null;
+        }
+        hitCounter.increment();
+        return cached.response;
+    }
+
+    /**
+     * 缓存渲染好的分页
+     *
+     * @param version 开始加载分页前读取的版本号，加载期间发生变化时缓存会在下次读取时失效
+     */
+    public void put(String userId, String pageKey, long version, MealRecordService.FeedResponse response) {
+        synchronized (pages) {
+            pages.put(userId + "|" + pageKey, new CachedPage(version, response));
+        }
+    }
+
+    /**
+     * 使指定用户的分享墙缓存失效
+     */
+    public void invalidateUsers(Collection<String> userIds) {
+        synchronized (versions) {
+            for (String userId : userIds) {
+                versions.put(userId, clock.incrementAndGet());
+            }
+        }
+        log.debug("分享墙缓存失效: {}", userIds);
+    }
+
+    /**
+     * 使能看到该发布者记录的所有用户（发布者本人及其家庭成员）的分享墙缓存失效
+     */
+    public void invalidatePublisher(String publisherId) {
+        Set<String> userIds = new LinkedHashSet<>();
+        userIds.add(publisherId);
+        userIds.addAll(familyGraphService.getFamilyMemberIds(publisherId));
+        invalidateUsers(userIds);
+    }
+
+    /**
+     * 家庭关系建立或解除后使受影响用户的缓存失效：老人、子女以及该子女的其他老人
+     */
+    public void invalidateFamilyLink(String parentId, String childId) {
+        Set<String> userIds = new LinkedHashSet<>();
+        userIds.add(parentId);
+        userIds.add(childId);
+        userIds.addAll(familyGraphService.getParentIds(childId));
+        invalidateUsers(userIds);
+    }
+
+    private double size() {
+        synchronized (pages) {
+            return pages.size();
+        }
+    }
+
+    private static class CachedPage {
+        private final long version;
+        private final MealRecordService.FeedResponse response;
+        private final long cachedAt = System.currentTimeMillis();
+
+        CachedPage(long version, MealRecordService.FeedResponse response) {
+            this.version = version;
+            this.response = response;
+        }
+    }
+}
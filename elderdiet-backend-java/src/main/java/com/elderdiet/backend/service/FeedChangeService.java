@@ -0,0 +1,150 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.dto.FeedChangesResponse;
+import com.elderdiet.backend.entity.FeedChangeLogEntry;
+import com.elderdiet.backend.entity.MealRecord;
+import com.elderdiet.backend.entity.User;
+import com.elderdiet.backend.repository.FeedChangeLogRepository;
+import com.elderdiet.backend.repository.FeedScope;
+import com.elderdiet.backend.repository.MealRecordRepository;
+import com.elderdiet.backend.util.FeedSyncToken;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 分享墙增量同步服务
+ * 新增记录以及点赞、评论、营养师评论、可见性变化都会更新膳食记录的 updatedAt，按 updatedAt 查询即可得到；
+ * 记录改为私密后家庭成员按筛选条件已查不到它，因此写入变更日志；家庭关系变化会改变整个分享墙的范围，
+ * 只记录一条 RESYNC，让客户端全量刷新。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FeedChangeService {
+
+    /**
+     * 一次增量同步最多返回的记录数，超出时要求客户端全量刷新
+     */
+    static final int MAX_CHANGED_RECORDS = 100;
+
+    /**
+     * 变更日志的保留时间，与 FeedChangeLogEntry.occurredAt 的TTL一致，更早的令牌无法保证完整
+     */
+    static final Duration RETENTION = Duration.ofDays(7);
+
+    /**
+     * 下发令牌时往前回退的时间，覆盖 updatedAt 已生成但尚未写入的并发更新（客户端按ID覆盖，重复无害）
+     */
+    static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+
+    private final FeedChangeLogRepository feedChangeLogRepository;
+    private final MealRecordRepository mealRecordRepository;
+    private final FeedHydrationService feedHydrationService;
+    private final FamilyGraphService familyGraphService;
+
+    /**
+     * 记录对发布者的家庭成员不再可见（改为私密）
+     */
+    public void recordHidden(String recordId, String publisherId) {
+        LocalDateTime now = LocalDateTime.now();
+        List<FeedChangeLogEntry> entries = familyGraphService.getFamilyMemberIds(publisherId).stream()
+                .map(ownerId -> FeedChangeLogEntry.builder()
+                        .ownerId(ownerId)
+                        .type(FeedChangeLogEntry.Type.REMOVED)
+                        .recordId(recordId)
+                        .occurredAt(now)
+                        .build())
+                .collect(Collectors.toList());
+        if (!entries.isEmpty()) {
+            feedChangeLogRepository.saveAll(entries);
+        }
+    }
+
+    /**
+     * 家庭关系建立或解除后，要求受影响用户全量刷新：老人、子女以及该子女的其他老人
+     */
+    public void requireResyncForFamilyLink(String parentId, String childId) {
+        Set<String> userIds = new LinkedHashSet<>();
+        userIds.add(parentId);
+        userIds.add(childId);
+        userIds.addAll(familyGraphService.getParentIds(childId));
+        requireResync(userIds);
+    }
+
+    /**
+     * 要求指定用户在下次增量同步时全量刷新
+     */
+    public void requireResync(Collection<String> userIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<FeedChangeLogEntry> entries = userIds.stream()
+                .map(ownerId -> FeedChangeLogEntry.builder()
+                        .ownerId(ownerId)
+                        .type(FeedChangeLogEntry.Type.RESYNC)
+                        .occurredAt(now)
+                        .build())
+                .collect(Collectors.toList());
+        if (!entries.isEmpty()) {
+            feedChangeLogRepository.saveAll(entries);
+        }
+    }
+
+    /**
+     * 查询用户分享墙自上次同步以来的变化
+     *
+     * @param scope 分享墙的查询范围
+     * @param since 上次返回的同步令牌，为空表示还没有同步过
+     */
+    public FeedChangesResponse getChanges(User viewer, FeedScope scope, String since) {
+        LocalDateTime syncedAt = FeedSyncToken.decode(since);
+        LocalDateTime now = LocalDateTime.now();
+        String nextToken = FeedSyncToken.encode(now.minus(SYNC_OVERLAP));
+
+        if (syncedAt == null || syncedAt.isBefore(now.minus(RETENTION))) {
+            return resync(nextToken);
+        }
+
+        List<FeedChangeLogEntry> logEntries = feedChangeLogRepository
+                .findByOwnerIdAndOccurredAtAfter(viewer.getId(), syncedAt);
+        if (logEntries.stream().anyMatch(entry -> entry.getType() == FeedChangeLogEntry.Type.RESYNC)) {
+            return resync(nextToken);
+        }
+
+        List<MealRecord> changed = mealRecordRepository.findFeedChanges(scope, syncedAt,
+                MAX_CHANGED_RECORDS + 1);
+        if (changed.size() > MAX_CHANGED_RECORDS) {
+            log.info("用户 {} 的分享墙变化超过 {} 条，要求全量刷新", viewer.getId(), MAX_CHANGED_RECORDS);
+            return resync(nextToken);
+        }
+
+        // 先隐藏后又公开的记录以当前状态为准，不再作为移除返回
+        Set<String> changedIds = changed.stream().map(MealRecord::getId).collect(Collectors.toSet());
+        List<String> removedIds = logEntries.stream()
+                .map(FeedChangeLogEntry::getRecordId)
+                .filter(recordId -> recordId != null && !changedIds.contains(recordId))
+                .distinct()
+                .collect(Collectors.toList());
+
+        return FeedChangesResponse.builder()
+                .records(changed.isEmpty() ? new ArrayList<>() : feedHydrationService.hydrate(changed, viewer))
+                .removedRecordIds(removedIds)
+                .syncToken(nextToken)
+                .build();
+    }
+
+    private static FeedChangesResponse resync(String syncToken) {
+        return FeedChangesResponse.builder()
+                .resyncRequired(true)
+                .syncToken(syncToken)
+                .build();
+    }
+}
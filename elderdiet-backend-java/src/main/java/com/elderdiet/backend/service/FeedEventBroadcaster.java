@@ -0,0 +1,200 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.FeedConfig;
+import com.elderdiet.backend.dto.FeedEvent;
+import com.elderdiet.backend.entity.MealRecord;
+import com.elderdiet.backend.entity.RecordVisibility;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分享墙实时事件广播服务
+ * 每个SSE连接对应一个有界缓冲的 Sink，事件按记录的可见范围投递给在线用户。
+ * 客户端消费过慢导致缓冲区满时关闭该连接，由客户端重连并全量刷新，不影响其他连接。
+ */
+@Slf4j
+@Service
+public class FeedEventBroadcaster {
+
+    private final FamilyGraphService familyGraphService;
+    private final FeedConfig.FeedProperties feedProperties;
+
+    private final Map<String, List<Connection>> connections = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    private final Counter deliveredCounter;
+    private final Counter overflowCounter;
+
+    public FeedEventBroadcaster(FamilyGraphService familyGraphService, FeedConfig.FeedProperties feedProperties,
+            MeterRegistry meterRegistry) {
+        this.familyGraphService = familyGraphService;
+        this.feedProperties = feedProperties;
+        this.deliveredCounter = Counter.builder("feed.events.delivered")
+                .description("投递到SSE连接的分享墙事件数")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("feed.events.overflow")
+                .description("因缓冲区满而关闭的SSE连接数")
+                .register(meterRegistry);
+        Gauge.builder("feed.events.connections", connectionCount, AtomicInteger::get)
+                .description("当前SSE连接数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 订阅用户的分享墙事件流
+     */
+    public Flux<ServerSentEvent<FeedEvent>> subscribe(String userId) {
+        return Flux.defer(() -> {
+            FeedConfig.FeedProperties.Events config = feedProperties.getEvents();
+            Connection connection = new Connection(userId, config.getBufferSize());
+            register(connection, config.getMaxConnectionsPerUser());
+
+            Flux<ServerSentEvent<FeedEvent>> events = connection.events.asFlux()
+                    .map(event -> ServerSentEvent.builder(event)
+                            .event(event.getType().name().toLowerCase())
+                            .build());
+            Flux<ServerSentEvent<FeedEvent>> heartbeats = Flux
+                    .interval(Duration.ofSeconds(config.getHeartbeatSeconds()))
+                    .map(tick -> ServerSentEvent.<FeedEvent>builder().comment("ping").build());
+
+            return events.mergeWith(heartbeats)
+                    .startWith(ServerSentEvent.<FeedEvent>builder().comment("connected").build())
+                    .takeUntilOther(connection.closed.asMono())
+                    .take(Duration.ofMinutes(config.getConnectionTtlMinutes()))
+                    .doFinally(signal -> unregister(connection));
+        });
+    }
+
+    /**
+     * 向能看到该记录的在线用户投递事件：发布者本人，FAMILY可见时还包括其家庭成员
+     */
+    public void publishForRecord(MealRecord record, FeedEvent event) {
+        Set<String> userIds = new LinkedHashSet<>();
+        userIds.add(record.getUserId());
+        if (record.getVisibility() == RecordVisibility.FAMILY) {
+            userIds.addAll(familyGraphService.getFamilyMemberIds(record.getUserId()));
+        }
+        publish(userIds, event);
+    }
+
+    /**
+     * 向发布者及其所有家庭成员投递事件（用于可见性变化，家庭成员需要得知记录被隐藏）
+     */
+    public void publishToFamily(String publisherId, FeedEvent event) {
+        Set<String> userIds = new LinkedHashSet<>();
+        userIds.add(publisherId);
+        userIds.addAll(familyGraphService.getFamilyMemberIds(publisherId));
+        publish(userIds, event);
+    }
+
+    /**
+     * 向指定用户的所有在线连接投递事件
+     */
+    public void publish(Collection<String> userIds, FeedEvent event) {
+        if (connectionCount.get() == 0) {
+            return;
+        }
+        if (event.getOccurredAt() == null) {
+            event.setOccurredAt(LocalDateTime.now());
+        }
+
+        for (String userId : userIds) {
+            List<Connection> userConnections = connections.get(userId);
+            if (userConnections == null) {
+                continue;
+            }
+            for (Connection connection : userConnections) {
+                Sinks.EmitResult result = connection.emit(event);
+                if (result.isSuccess()) {
+                    deliveredCounter.increment();
+                } else if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                    overflowCounter.increment();
+                    log.warn("用户 {} 的SSE连接缓冲区已满，关闭连接", userId);
+                    connection.close();
+                }
+            }
+        }
+    }
+
+    private void register(Connection connection, int maxConnectionsPerUser) {
+        List<Connection> evicted = new ArrayList<>();
+        connections.compute(connection.userId, (userId, existing) -> {
+            List<Connection> userConnections = existing != null ? existing : new CopyOnWriteArrayList<>();
+            userConnections.add(connection);
+            while (userConnections.size() > maxConnectionsPerUser) {
+                evicted.add(userConnections.remove(0));
+            }
+            return userConnections;
+        });
+        connectionCount.incrementAndGet();
+        evicted.forEach(Connection::close);
+        log.debug("用户 {} 建立SSE连接", connection.userId);
+    }
+
+    private void unregister(Connection connection) {
+        connections.computeIfPresent(connection.userId, (userId, userConnections) -> {
+            userConnections.remove(connection);
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+        if (connection.markUnregistered()) {
+            connectionCount.decrementAndGet();
+        }
+        log.debug("用户 {} 的SSE连接已断开", connection.userId);
+    }
+
+    /**
+     * 单个SSE连接
+     */
+    private static class Connection {
+
+        private final String userId;
+        private final Sinks.Many<FeedEvent> events;
+        private final Sinks.Empty<Void> closed = Sinks.empty();
+        private boolean unregistered = false;
+
+        Connection(String userId, int bufferSize) {
+            this.userId = userId;
+            this.events = Sinks.many().unicast()
+                    .onBackpressureBuffer(Queues.<FeedEvent>get(bufferSize).get());
+        }
+
+        /**
+         * 多个业务线程可能同时投递，需要串行化 tryEmitNext
+         */
+        synchronized Sinks.EmitResult emit(FeedEvent event) {
+            return events.tryEmitNext(event);
+        }
+
+        synchronized void close() {
+            events.tryEmitComplete();
+            closed.tryEmitEmpty();
+        }
+
+        synchronized boolean markUnregistered() {
+            if (unregistered) {
+                return false;
+            }
+            unregistered = true;
+            return true;
+        }
+    }
+}
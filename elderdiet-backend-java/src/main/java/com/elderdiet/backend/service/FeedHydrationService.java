@@ -0,0 +1,147 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.FeedConfig;
+import com.elderdiet.backend.dto.MealRecordResponse;
+import com.elderdiet.backend.dto.ProfileDTO;
+import com.elderdiet.backend.entity.MealRecord;
+import com.elderdiet.backend.entity.PublisherSnapshot;
+import com.elderdiet.backend.entity.RecordComment;
+import com.elderdiet.backend.entity.User;
+import com.elderdiet.backend.repository.RecordCommentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 分享墙批量加载服务
+ * 收集一页记录的记录ID和发布者ID，每个集合只发一次$in查询，
+ * 替代逐条记录查询用户、档案、点赞状态和评论的N+1查询方式。
+ * 发布者信息直接使用记录中的快照，只有尚未回填快照的历史记录才查询用户和档案。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FeedHydrationService {
+
+    private final UserService userService;
+    private final ProfileService profileService;
+    private final LikedRecordCacheService likedRecordCacheService;
+    private final RecordCommentRepository recordCommentRepository;
+    private final FeedConfig.FeedProperties feedProperties;
+
+    /**
+     * 批量将一页MealRecord转换为MealRecordResponse，保持原有顺序
+     */
+    public List<MealRecordResponse> hydrate(List<MealRecord> records, User currentUser) {
+        if (records == null || records.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> recordIds = records.stream()
+                .map(MealRecord::getId)
+                .collect(Collectors.toList());
+        Set<String> publisherIds = records.stream()
+                .filter(record -> record.getPublisher() == null)
+                .map(MealRecord::getUserId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        // 没有快照的记录才查询发布者及其档案
+        Map<String, User> publishers = publisherIds.isEmpty()
+                ? Collections.emptyMap()
+                : userService.findByIds(publisherIds);
+        Map<String, ProfileDTO> profiles = publishers.isEmpty()
+                ? Collections.emptyMap()
+                : profileService.getProfilesByUserIds(publishers.keySet());
+
+        // 当前用户的点赞状态（从用户点赞记录缓存中判断）
+        Set<String> likedRecordIds = likedRecordCacheService.findLikedAmong(currentUser.getId(), recordIds);
+
+        // 评论预览：每条记录只取最新的几条（按记录分组，组内按创建时间倒序返回，这里转为升序）
+        Map<String, List<MealRecordResponse.CommentInfo>> commentsByRecord = new HashMap<>();
+        for (RecordComment comment : recordCommentRepository.findLatestByRecordIds(recordIds,
+                feedProperties.getCommentPreviewSize())) {
+            commentsByRecord.computeIfAbsent(comment.getRecordId(), k -> new ArrayList<>())
+                    .add(0, toCommentInfo(comment));
+        }
+
+        return records.stream()
+                .map(record -> toResponse(record,
+                        record.getPublisher() != null
+                                ? buildUserInfo(record.getUserId(), record.getPublisher())
+                                : buildUserInfo(publishers.get(record.getUserId()), profiles),
+                        likedRecordIds.contains(record.getId()),
+                        commentsByRecord.getOrDefault(record.getId(), new ArrayList<>())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 根据记录中的快照构建发布者信息
+     */
+    static MealRecordResponse.UserInfo buildUserInfo(String userId, PublisherSnapshot snapshot) {
+        return MealRecordResponse.UserInfo.builder()
+                .userId(userId)
+                .username(snapshot.getUsername())
+                .avatar(snapshot.getAvatar())
+                .nickname(snapshot.getNickname()) // 仍然使用手机号作为昵称，暂时没用
+                .build();
+    }
+
+    /**
+     * 查询发布者和档案构建发布者信息（没有快照的历史记录使用，规则与快照一致）
+     */
+    private MealRecordResponse.UserInfo buildUserInfo(User publisher, Map<String, ProfileDTO> profiles) {
+        if (publisher == null) {
+            return null;
+        }
+        return buildUserInfo(publisher.getId(),
+                PublisherSnapshotService.snapshotOf(publisher, profiles.get(publisher.getId())));
+    }
+
+    /**
+     * 转换评论实体为评论信息
+     */
+    static MealRecordResponse.CommentInfo toCommentInfo(RecordComment comment) {
+        return MealRecordResponse.CommentInfo.builder()
+                .id(comment.getId())
+                .userId(comment.getUserId())
+                .username(comment.getUsername())
+                .userAvatar(comment.getUserAvatar())
+                .text(comment.getText())
+                .createdAt(comment.getCreatedAt())
+                .build();
+    }
+
+    /**
+     * 组装响应DTO
+     */
+    static MealRecordResponse toResponse(MealRecord record, MealRecordResponse.UserInfo userInfo,
+            boolean likedByCurrentUser, List<MealRecordResponse.CommentInfo> comments) {
+        return MealRecordResponse.builder()
+                .id(record.getId())
+                .userId(record.getUserId())
+                .imageUrls(record.getImageUrls())
+                .imageVariants(record.getImageVariants())
+                .caption(record.getCaption())
+                .visibility(record.getVisibility())
+                .likesCount(record.getLikesCount())
+                .commentsCount(record.getCommentsCount())
+                .createdAt(record.getCreatedAt())
+                .updatedAt(record.getUpdatedAt())
+                .shareWithNutritionist(record.getShareWithNutritionist())
+                .nutritionistComment(record.getNutritionistComment())
+                .nutritionistCommentAt(record.getNutritionistCommentAt())
+                .userInfo(userInfo)
+                .likedByCurrentUser(likedByCurrentUser)
+                .comments(comments)
+                .build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.FeedConfig;
+import com.elderdiet.backend.entity.User;
+import com.elderdiet.backend.repository.FeedScope;
+
+/**
+ * 分页分享墙读取策略
+ * 通过 feed.read-strategy 切换，不同实现返回的数据完全一致，只是查询方式不同。
+ */
+public interface FeedReadStrategy {
+
+    /**
+     * 该实现对应的读取方式
+     */
+    FeedConfig.FeedProperties.ReadStrategy getType();
+
+    /**
+     * 查询用户分享墙的一页：用户自己的所有记录 + 家庭成员的FAMILY可见记录，按创建时间倒序
+     *
+     * @param scope 查询范围：用户自己、可以看到其FAMILY可见记录的家庭成员和可选的家庭簇ID
+     * @param page  页码，从1开始
+     */
+    MealRecordService.FeedResponse loadPage(User viewer, FeedScope scope, int page, int limit);
+}
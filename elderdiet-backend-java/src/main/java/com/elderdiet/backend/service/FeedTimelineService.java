@@ -0,0 +1,314 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.FeedConfig;
+import com.elderdiet.backend.entity.FeedTimelineEntry;
+import com.elderdiet.backend.entity.FeedTimelineEntry.Relation;
+import com.elderdiet.backend.entity.MealRecord;
+import com.elderdiet.backend.entity.RecordVisibility;
+import com.elderdiet.backend.entity.User;
+import com.elderdiet.backend.entity.UserRole;
+import com.elderdiet.backend.repository.FeedScope;
+import com.elderdiet.backend.repository.FeedTimelineRepository;
+import com.elderdiet.backend.repository.MealRecordRepository;
+import com.elderdiet.backend.repository.UserRepository;
+import com.elderdiet.backend.util.FeedCursor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 分享墙时间线服务（写扩散）
+ * 发布FAMILY可见的记录时把记录写入每个家庭成员的时间线，
+ * 读取分享墙时对 (ownerId, recordCreatedAt) 做一次索引范围扫描得到记录ID，再按 _id 批量加载记录。
+ * 家庭关系变化时按差异修正时间线（只写入缺少的、删除多余的条目），不会先清空整个时间线。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FeedTimelineService {
+
+    private static final List<Relation> ELDER_RELATIONS = Arrays.asList(Relation.SELF, Relation.CHILD,
+            Relation.CO_PARENT);
+    private static final List<Relation> CHILD_RELATIONS = Arrays.asList(Relation.SELF, Relation.PARENT);
+
+    private final FeedTimelineRepository feedTimelineRepository;
+    private final MealRecordRepository mealRecordRepository;
+    private final FamilyGraphService familyGraphService;
+    private final UserRepository userRepository;
+    private final FeedConfig.FeedProperties feedProperties;
+
+    /**
+     * 获取指定角色在分享墙上可以看到的关系类型
+     */
+    public static List<Relation> visibleRelations(UserRole role) {
+        return role == UserRole.ELDER ? ELDER_RELATIONS : CHILD_RELATIONS;
+    }
+
+    /**
+     * 分页读取用户的时间线记录（保持时间线顺序），不统计总数
+     */
+    public Slice<MealRecord> findTimelinePage(User user, Pageable pageable) {
+        Slice<FeedTimelineEntry> entries = feedTimelineRepository.findByOwnerIdAndRelationsIn(
+                user.getId(), visibleRelations(user.getRole()), pageable);
+        return new SliceImpl<>(loadRecords(entries.getContent()), pageable, entries.hasNext());
+    }
+
+    /**
+     * 读取用户时间线中最近的30条记录
+     */
+    public List<MealRecord> findLatestTimelineRecords(User user) {
+        return loadRecords(feedTimelineRepository.findTop30ByOwnerIdAndRelationsInOrderByRecordCreatedAtDesc(
+                user.getId(), visibleRelations(user.getRole())));
+    }
+
+    /**
+     * 键集分页读取用户时间线条目（按 recordCreatedAt, recordId 倒序）
+     */
+    public List<FeedTimelineEntry> findTimelineSlice(User user, FeedCursor cursor, int limit) {
+        return feedTimelineRepository.findSlice(user.getId(), visibleRelations(user.getRole()), cursor, limit);
+    }
+
+    /**
+     * 新记录写扩散：写入发布者自己的时间线，FAMILY可见时写入所有家庭成员的时间线
+     */
+    public void fanOut(MealRecord record) {
+        List<FeedTimelineEntry> entries = new ArrayList<>();
+        entries.add(buildEntry(record.getUserId(), record, EnumSet.of(Relation.SELF)));
+
+        if (record.getVisibility() == RecordVisibility.FAMILY) {
+            getAudience(record.getUserId()).forEach(
+                    (ownerId, relations) -> entries.add(buildEntry(ownerId, record, relations)));
+        }
+
+        insertEntries(entries);
+        log.info("膳食记录 {} 已写入 {} 条时间线", record.getId(), entries.size());
+    }
+
+    /**
+     * 记录可见性变化后修正时间线
+     */
+    public void onVisibilityChanged(MealRecord record) {
+        // 先移除其他成员时间线中的条目，再按新的可见性重新写扩散，保证操作幂等
+        feedTimelineRepository.deleteByRecordIdAndOwnerIdNot(record.getId(), record.getUserId());
+
+        if (record.getVisibility() == RecordVisibility.FAMILY) {
+            List<FeedTimelineEntry> entries = new ArrayList<>();
+            getAudience(record.getUserId()).forEach(
+                    (ownerId, relations) -> entries.add(buildEntry(ownerId, record, relations)));
+            insertEntries(entries);
+        }
+        log.info("膳食记录 {} 的可见性变为 {}，时间线已修正", record.getId(), record.getVisibility());
+    }
+
+    /**
+     * 家庭关系建立或解除后修正受影响用户的时间线
+     * 受影响的用户是老人、子女以及该子女的其他老人（关联老人关系会变化）
+     */
+    public void onFamilyLinkChanged(String parentId, String childId) {
+        Set<String> affectedUserIds = new LinkedHashSet<>();
+        affectedUserIds.add(parentId);
+        affectedUserIds.add(childId);
+        affectedUserIds.addAll(familyGraphService.getParentIds(childId));
+
+        affectedUserIds.forEach(this::rebuildTimeline);
+        log.info("家庭关系 {} -> {} 变化，已重建 {} 个用户的时间线", parentId, childId, affectedUserIds.size());
+    }
+
+    /**
+     * 用户注销后清理时间线，并重建其原家庭成员的时间线
+     *
+     * @param formerFamilyIds 注销前与该用户直接关联的用户ID（家庭关系已删除）
+     */
+    public void onUserDeleted(String userId, Collection<String> formerFamilyIds) {
+        feedTimelineRepository.deleteByOwnerId(userId);
+        feedTimelineRepository.deleteByPublisherId(userId);
+        formerFamilyIds.forEach(this::rebuildTimeline);
+    }
+
+    /**
+     * 根据现有膳食记录和家庭关系修正单个用户的时间线
+     * 1. 删除发布者已不是家庭成员的条目（不限时间范围）；
+     * 2. 核对最近 rebuildWindowSize 条应可见的记录：写入缺少的条目、修正关系、删除不再可见的条目。
+     * 只写差异，读取方不会看到空的时间线；按条目自身的写入时间判断，本次查询之后才写入的条目
+     * （并发的写扩散，记录本身可能更早）不会被删除。
+     */
+    public void rebuildTimeline(String ownerId) {
+        Map<String, Set<Relation>> relationsByPublisher = getFamilyRelations(ownerId);
+        Set<String> publisherIds = new HashSet<>(relationsByPublisher.keySet());
+        publisherIds.add(ownerId);
+        feedTimelineRepository.deleteByOwnerIdAndPublisherIdNotIn(ownerId, publisherIds);
+
+        int windowSize = feedProperties.getTimeline().getRebuildWindowSize();
+        LocalDateTime queriedAt = LocalDateTime.now();
+        List<MealRecord> records = mealRecordRepository.findFeedSlice(
+                FeedScope.of(ownerId, relationsByPublisher.keySet()), null, windowSize);
+
+        Map<String, FeedTimelineEntry> target = new LinkedHashMap<>();
+        for (MealRecord record : records) {
+            Set<Relation> relations = record.getUserId().equals(ownerId)
+                    ? EnumSet.of(Relation.SELF)
+                    : relationsByPublisher.getOrDefault(record.getUserId(), Collections.emptySet());
+            if (!relations.isEmpty()) {
+                target.put(record.getId(), buildEntry(ownerId, record, relations));
+            }
+        }
+
+        // 窗口未满时目标集合就是全部应可见的记录，否则只核对窗口内（不早于最旧一条）的条目
+        List<FeedTimelineEntry> existing = records.size() < windowSize
+                ? feedTimelineRepository.findByOwnerId(ownerId)
+                : feedTimelineRepository.findByOwnerIdAndRecordCreatedAtGreaterThanEqual(ownerId,
+                        records.get(records.size() - 1).getCreatedAt());
+
+        List<FeedTimelineEntry> stale = new ArrayList<>();
+        List<FeedTimelineEntry> changed = new ArrayList<>();
+        for (FeedTimelineEntry entry : existing) {
+            FeedTimelineEntry expected = target.remove(entry.getRecordId());
+            if (expected == null) {
+                if (entry.getCreatedAt() == null || entry.getCreatedAt().isBefore(queriedAt)) {
+                    stale.add(entry);
+                }
+            } else if (!EnumSet.copyOf(expected.getRelations()).equals(relationSet(entry))) {
+                entry.setRelations(expected.getRelations());
+                changed.add(entry);
+            }
+        }
+
+        feedTimelineRepository.deleteAll(stale);
+        feedTimelineRepository.saveAll(changed);
+        insertEntries(new ArrayList<>(target.values()));
+        log.debug("用户 {} 的时间线已修正：新增 {} 条，删除 {} 条，修改 {} 条", ownerId, target.size(), stale.size(),
+                changed.size());
+    }
+
+    private static Set<Relation> relationSet(FeedTimelineEntry entry) {
+        return entry.getRelations() == null || entry.getRelations().isEmpty()
+                ? EnumSet.noneOf(Relation.class)
+                : EnumSet.copyOf(entry.getRelations());
+    }
+
+    /**
+     * 回填任务：根据现有的 meal_records 和 family_links 重建所有用户的时间线
+     */
+    public int rebuildAllTimelines() {
+        log.info("开始回填所有用户的分享墙时间线...");
+        List<User> users = userRepository.findAll();
+        int rebuilt = 0;
+        for (User user : users) {
+            try {
+                rebuildTimeline(user.getId());
+                rebuilt++;
+            } catch (Exception e) {
+                log.error("重建用户 {} 的时间线失败: {}", user.getId(), e.getMessage(), e);
+            }
+        }
+        log.info("分享墙时间线回填完成，成功重建 {}/{} 个用户", rebuilt, users.size());
+        return rebuilt;
+    }
+
+    /**
+     * 获取发布者FAMILY可见记录的受众：ownerId -> 发布者相对owner的关系
+     */
+    private Map<String, Set<Relation>> getAudience(String publisherId) {
+        Map<String, Set<Relation>> audience = new LinkedHashMap<>();
+
+        // 发布者的老人：发布者是他们的子女
+        familyGraphService.getParentIds(publisherId).forEach(id -> addRelation(audience, id, Relation.CHILD));
+
+        // 发布者的子女：发布者是他们的老人
+        familyGraphService.getChildIds(publisherId).forEach(id -> addRelation(audience, id, Relation.PARENT));
+
+        // 与发布者共享子女的其他老人：发布者是他们的关联老人
+        familyGraphService.getRelatedElderIds(publisherId)
+                .forEach(id -> addRelation(audience, id, Relation.CO_PARENT));
+
+        audience.remove(publisherId);
+        return audience;
+    }
+
+    /**
+     * 获取owner的家庭成员：发布者ID -> 发布者相对owner的关系
+     * 与受众计算方向相反（owner的老人对owner而言是PARENT）
+     */
+    private Map<String, Set<Relation>> getFamilyRelations(String ownerId) {
+        Map<String, Set<Relation>> relations = new LinkedHashMap<>();
+        familyGraphService.getParentIds(ownerId).forEach(id -> addRelation(relations, id, Relation.PARENT));
+        familyGraphService.getChildIds(ownerId).forEach(id -> addRelation(relations, id, Relation.CHILD));
+        familyGraphService.getRelatedElderIds(ownerId)
+                .forEach(id -> addRelation(relations, id, Relation.CO_PARENT));
+        relations.remove(ownerId);
+        return relations;
+    }
+
+    private static void addRelation(Map<String, Set<Relation>> relations, String userId, Relation relation) {
+        relations.computeIfAbsent(userId, k -> EnumSet.noneOf(Relation.class)).add(relation);
+    }
+
+    private FeedTimelineEntry buildEntry(String ownerId, MealRecord record, Set<Relation> relations) {
+        return FeedTimelineEntry.builder()
+                .ownerId(ownerId)
+                .recordId(record.getId())
+                .publisherId(record.getUserId())
+                .relations(new ArrayList<>(relations))
+                .recordCreatedAt(record.getCreatedAt())
+                .build();
+    }
+
+    /**
+     * 批量写入时间线条目；与并发的写扩散冲突时逐条写入并忽略已存在的条目
+     */
+    private void insertEntries(List<FeedTimelineEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        try {
+            feedTimelineRepository.saveAll(entries);
+        } catch (DuplicateKeyException e) {
+            log.debug("时间线批量写入遇到重复条目，改为逐条写入");
+            for (FeedTimelineEntry entry : entries) {
+                try {
+                    entry.setId(null);
+                    feedTimelineRepository.save(entry);
+                } catch (DuplicateKeyException ignored) {
+                    // 条目已存在，无需处理
+                }
+            }
+        }
+    }
+
+    /**
+     * 按时间线顺序加载记录，跳过已被删除的记录
+     */
+    public List<MealRecord> loadRecords(List<FeedTimelineEntry> entries) {
+        if (entries.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> recordIds = entries.stream()
+                .map(FeedTimelineEntry::getRecordId)
+                .collect(Collectors.toList());
+        Map<String, MealRecord> recordsById = mealRecordRepository.findAllById(recordIds).stream()
+                .collect(Collectors.toMap(MealRecord::getId, Function.identity()));
+        return recordIds.stream()
+                .map(recordsById::get)
+                .filter(record -> record != null)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,34 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.FeedConfig;
+import com.elderdiet.backend.entity.MealRecord;
+import com.elderdiet.backend.entity.User;
+import com.elderdiet.backend.repository.FeedScope;
+import com.elderdiet.backend.repository.MealRecordRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+/**
+ * 分步读取分享墙：先查询一页记录和总数，再由 FeedHydrationService 按集合批量补全点赞、评论和发布者
+ */
+@Service
+@RequiredArgsConstructor
+public class HydratingFeedReadStrategy implements FeedReadStrategy {
+
+    private final MealRecordRepository mealRecordRepository;
+    private final FeedHydrationService feedHydrationService;
+
+    @Override
+    public FeedConfig.FeedProperties.ReadStrategy getType() {
+        return FeedConfig.FeedProperties.ReadStrategy.HYDRATE;
+    }
+
+    @Override
+    public MealRecordService.FeedResponse loadPage(User viewer, FeedScope scope, int page, int limit) {
+        Page<MealRecord> recordPage = mealRecordRepository.findFeedPage(scope, PageRequest.of(page - 1, limit));
+        return new MealRecordService.FeedResponse(feedHydrationService.hydrate(recordPage.getContent(), viewer),
+                page, recordPage.getTotalPages(), recordPage.getTotalElements(), recordPage.hasNext());
+    }
+}
@@ -0,0 +1,358 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.OssConfig;
+import com.elderdiet.backend.util.ImageBufferPool;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * 图片压缩服务
+ * 先只读取图片头部得到尺寸，按目标最长边计算采样步长，解码时直接跳过多余的像素（ImageReadParam 源采样），
+ * 不再先解码出全分辨率图片；压缩结果直接编码到池化缓冲区。单张图片解码占用的堆内存不超过 maxDimension² × 4 字节，
+ * 实际占用记录在 image.decode.bytes 指标中，解码、缩放和编码耗时记录在 image.stage.duration 指标中。
+ * 多尺寸版本（分享墙展示图、缩略图）由同一次解码的结果逐级缩小得到，不重复解码。
+ */
+@Slf4j
+@Service
+public class ImageProcessingService {
+
+    // 图片压缩质量 (0.0-1.0)
+    private static final float IMAGE_QUALITY = 0.7f;
+
+    private final OssConfig.OssProperties ossProperties;
+    private final ImageBufferPool bufferPool;
+    private final DistributionSummary decodedBytesSummary;
+    private final DistributionSummary encodedBytesSummary;
+    private final Counter passthroughCounter;
+    private final Timer decodeTimer;
+    private final Timer encodeTimer;
+    private final Timer resizeTimer;
+
+    public ImageProcessingService(OssConfig.OssProperties ossProperties, MeterRegistry meterRegistry) {
+        this.ossProperties = ossProperties;
+        OssConfig.OssProperties.Image image = ossProperties.getImage();
+        this.bufferPool = new ImageBufferPool(image.getBufferPoolSize(), image.getBufferInitialBytes(),
+                image.getBufferMaxRetainedBytes());
+        this.decodedBytesSummary = DistributionSummary.builder("image.decode.bytes")
+                .description("单张图片解码后占用的堆内存")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.encodedBytesSummary = DistributionSummary.builder("image.encode.bytes")
+                .description("压缩后的图片大小")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.passthroughCounter = Counter.builder("image.compress.passthrough")
+                .description("无法解码或编码、直接上传原文件的图片数")
+                .register(meterRegistry);
+        this.decodeTimer = stageTimer("decode", meterRegistry);
+        this.encodeTimer = stageTimer("encode", meterRegistry);
+        this.resizeTimer = stageTimer("resize", meterRegistry);
+        Gauge.builder("image.buffer.pool.idle", bufferPool, ImageBufferPool::idleCount)
+                .description("编码缓冲区池中空闲的缓冲区数量")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 压缩图片
+     *
+     * @param source     原图片数据（由调用方关闭）
+     * @param formatName 输出格式（jpg、png、gif、webp）
+     * @return 压缩结果，用完必须关闭以归还缓冲区；无法解码或没有对应格式的编码器时返回null，由调用方上传原文件
+     */
+    public CompressedImage compress(InputStream source, String formatName) throws IOException {
+        BufferedImage image = decode(source, formatName);
+        return image != null ? encode(image, formatName) : null;
+    }
+
+    /**
+     * 压缩图片并生成多尺寸版本（一次解码）
+     * 原图不超过某个版本的尺寸时不生成该版本，对应字段为null，由调用方直接使用原图
+     *
+     * @param source     原图片数据（由调用方关闭）
+     * @param formatName 输出格式（jpg、png、gif、webp）
+     * @return 压缩结果，用完必须关闭以归还缓冲区；无法解码或没有对应格式的编码器时返回null，由调用方上传原文件
+     */
+    public CompressedVariants compressVariants(InputStream source, String formatName) throws IOException {
+        return compressVariants(source, formatName, true);
+    }
+
+    /**
+     * 压缩图片并生成多尺寸版本（一次解码）
+     *
+     * @param encodeOriginal 是否编码原图；为false时 getOriginal() 返回null（原图已在存储中，只需要生成其他版本）
+     */
+    public CompressedVariants compressVariants(InputStream source, String formatName, boolean encodeOriginal)
+            throws IOException {
+        BufferedImage image = decode(source, formatName);
+        if (image == null) {
+            return null;
+        }
+
+        OssConfig.OssProperties.Image config = ossProperties.getImage();
+        BufferedImage feedImage = resize(image, config.getFeedDimension());
+        BufferedImage thumbnailImage = resize(feedImage != null ? feedImage : image, config.getThumbnailDimension());
+
+        CompressedVariants variants = new CompressedVariants();
+        try {
+            variants.original = encodeOriginal ? encode(image, formatName) : null;
+            variants.feed = feedImage != null ? encode(feedImage, formatName) : null;
+            variants.thumbnail = thumbnailImage != null ? encode(thumbnailImage, formatName) : null;
+            return variants;
+        } catch (IOException | RuntimeException e) {
+            variants.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 采样解码，无法解码或没有对应格式的编码器时返回null
+     */
+    private BufferedImage decode(InputStream source, String formatName) throws IOException {
+        if (!ImageIO.getImageWritersByFormatName(formatName).hasNext()) {
+            passthroughCounter.increment();
+            return null;
+        }
+
+        Timer.Sample decodeSample = Timer.start();
+        BufferedImage image = decodeSubsampled(source, ossProperties.getImage().getMaxDimension());
+        decodeSample.stop(decodeTimer);
+        if (image == null) {
+            passthroughCounter.increment();
+        }
+        return image;
+    }
+
+    /**
+     * 编码到池化缓冲区
+     */
+    private CompressedImage encode(BufferedImage image, String formatName) throws IOException {
+        Timer.Sample encodeSample = Timer.start();
+        ImageBufferPool.Buffer buffer = bufferPool.acquire();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(formatName).next();
+        try (ImageOutputStream output = new MemoryCacheImageOutputStream(buffer)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+
+            // 对JPEG格式的图片进行压缩
+            if (param.canWriteCompressed() && "jpg".equals(formatName)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(IMAGE_QUALITY);
+            }
+
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException | RuntimeException e) {
+            buffer.release();
+            throw e;
+        } finally {
+            writer.dispose();
+        }
+
+        encodeSample.stop(encodeTimer);
+        encodedBytesSummary.record(buffer.size());
+        return new CompressedImage(buffer, image.getWidth(), image.getHeight());
+    }
+
+    /**
+     * 缩小到最长边不超过 maxDimension，每次最多缩小一半（双线性插值），避免一次缩小太多产生锯齿
+     *
+     * @return 缩小后的图片，原图不超过目标尺寸时返回null
+     */
+    BufferedImage resize(BufferedImage image, int maxDimension) {
+        int longest = Math.max(image.getWidth(), image.getHeight());
+        if (maxDimension <= 0 || longest <= maxDimension) {
+            return null;
+        }
+
+        Timer.Sample resizeSample = Timer.start();
+        double scale = (double) maxDimension / longest;
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = image;
+        do {
+            int width = Math.max(targetWidth, current.getWidth() / 2);
+            int height = Math.max(targetHeight, current.getHeight() / 2);
+            BufferedImage scaled = new BufferedImage(width, height, type);
+            Graphics2D graphics = scaled.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                        RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = scaled;
+        } while (current.getWidth() != targetWidth || current.getHeight() != targetHeight);
+
+        resizeSample.stop(resizeTimer);
+        return current;
+    }
+
+    /**
+     * 按最长边不超过 maxDimension 采样解码第一帧
+     *
+     * @return 解码后的图片，不是可识别的图片格式时返回null
+     */
+    BufferedImage decodeSubsampled(InputStream source, int maxDimension) throws IOException {
+        // 内存缓存只保留读取位置之后的数据，不像默认的文件缓存那样写临时文件
+        try (ImageInputStream input = new MemoryCacheImageInputStream(source)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int step = subsamplingStep(width, height, maxDimension);
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage image = reader.read(0, param);
+
+                long decodedBytes = rasterBytes(image);
+                decodedBytesSummary.record(decodedBytes);
+                log.debug("图片解码完成: {}x{} -> {}x{}，采样步长 {}，占用内存 {} 字节",
+                        width, height, image.getWidth(), image.getHeight(), step, decodedBytes);
+                return image;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 图片处理各阶段（decode、encode、put）的耗时
+     */
+    static Timer stageTimer(String stage, MeterRegistry meterRegistry) {
+        return Timer.builder("image.stage.duration")
+                .description("图片处理各阶段的耗时")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 使采样后最长边不超过 maxDimension 的最小采样步长
+     */
+    static int subsamplingStep(int width, int height, int maxDimension) {
+        int longest = Math.max(width, height);
+        if (maxDimension <= 0 || longest <= maxDimension) {
+            return 1;
+        }
+        return (longest + maxDimension - 1) / maxDimension;
+    }
+
+    /**
+     * 图片像素数据占用的字节数
+     */
+    static long rasterBytes(BufferedImage image) {
+        DataBuffer data = image.getRaster().getDataBuffer();
+        return (long) data.getSize() * data.getNumBanks() * DataBuffer.getDataTypeSize(data.getDataType()) / 8;
+    }
+
+    /**
+     * 压缩后的图片，关闭时把缓冲区归还到池中
+     */
+    public static class CompressedImage implements AutoCloseable {
+
+        private final ImageBufferPool.Buffer buffer;
+        private final int width;
+        private final int height;
+
+        CompressedImage(ImageBufferPool.Buffer buffer, int width, int height) {
+            this.buffer = buffer;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * 读取压缩后数据的输入流（不复制缓冲区，关闭前有效）
+         */
+        public InputStream getInputStream() {
+            return buffer.toInputStream();
+        }
+
+        public long getSize() {
+            return buffer.size();
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public void close() {
+            buffer.release();
+        }
+    }
+
+    /**
+     * 压缩后的原图和多尺寸版本，关闭时归还所有缓冲区
+     */
+    public static class CompressedVariants implements AutoCloseable {
+
+        private CompressedImage original;
+        private CompressedImage feed;
+        private CompressedImage thumbnail;
+
+        /**
+         * 压缩后的原图，不编码原图时为null
+         */
+        public CompressedImage getOriginal() {
+            return original;
+        }
+
+        /**
+         * 分享墙展示图，原图不超过展示尺寸时为null
+         */
+        public CompressedImage getFeed() {
+            return feed;
+        }
+
+        /**
+         * 缩略图，原图不超过缩略图尺寸时为null
+         */
+        public CompressedImage getThumbnail() {
+            return thumbnail;
+        }
+
+        @Override
+        public void close() {
+            for (CompressedImage image : new CompressedImage[] { original, feed, thumbnail }) {
+                if (image != null) {
+                    image.close();
+                }
+            }
+        }
+    }
+}
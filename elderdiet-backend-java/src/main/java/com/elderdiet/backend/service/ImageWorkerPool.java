@@ -0,0 +1,125 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.AsyncConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 图片处理线程池
+ * 图片解码、编码和上传在按CPU核数设置的有界线程池中并行执行，调用方等待整批任务完成（有截止时间）。
+ * 队列满时任务在调用线程中执行，退化为原来的串行处理而不是让请求失败。
+ * 不需要等待结果的任务（Outbox 中直传图片的多尺寸版本生成）通过 submit 提交，队列满时由调用方释放租约稍后重试。
+ * 队列长度、活跃线程数等通过 executor.* 指标（name=image）查看，拒绝次数见 image.worker.rejected。
+ */
+@Slf4j
+@Service
+public class ImageWorkerPool {
+
+    private final ThreadPoolExecutor executor;
+    private final Counter rejectedCounter;
+
+    public ImageWorkerPool(AsyncConfig.AsyncProperties asyncProperties, MeterRegistry meterRegistry) {
+        AsyncConfig.AsyncProperties.Pool config = asyncProperties.getImage();
+        this.executor = new ThreadPoolExecutor(config.getCoreSize(), config.getMaxSize(),
+                60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                new CustomizableThreadFactory("image-"), new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        new ExecutorServiceMetrics(executor, "image", Tags.empty()).bindTo(meterRegistry);
+        this.rejectedCounter = Counter.builder("image.worker.rejected")
+                .description("图片处理线程池队列已满、改在调用线程执行或未提交的任务数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 并行执行一批任务，按提交顺序返回结果
+     * 任一任务失败或超过截止时间时取消尚未开始的任务并抛出异常；已开始的任务不中断，继续执行完成
+     * （中途中断可能留下已写入外部存储、调用方无法得知的结果，由任务自己判断是否需要清理）
+     *
+     * @param timeoutMs 等待整批任务完成的最长时间（毫秒）
+     */
+    public <T> List<T> invokeAll(List<Callable<T>> tasks, long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            try {
+                futures.add(executor.submit(task));
+            } catch (RejectedExecutionException e) {
+                rejectedCounter.increment();
+                log.warn("图片处理线程池队列已满，在调用线程中执行");
+                FutureTask<T> inline = new FutureTask<>(task);
+                inline.run();
+                futures.add(inline);
+            }
+        }
+
+        try {
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+            return results;
+        } catch (TimeoutException e) {
+            cancelAll(futures);
+            throw new RuntimeException("图片处理超时，请稍后重试");
+        } catch (ExecutionException e) {
+            cancelAll(futures);
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("图片处理失败: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelAll(futures);
+            throw new RuntimeException("图片处理被中断");
+        }
+    }
+
+    /**
+     * 提交不需要等待结果的任务，异常只记录日志
+     *
+     * @return 队列已满、任务未提交时返回false
+     */
+    public boolean submit(String taskName, Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("图片处理任务 {} 失败: {}", taskName, e.getMessage(), e);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("图片处理线程池队列已满，任务未提交: {}", taskName);
+            return false;
+        }
+    }
+
+    private static void cancelAll(List<? extends Future<?>> futures) {
+        futures.forEach(future -> future.cancel(false));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
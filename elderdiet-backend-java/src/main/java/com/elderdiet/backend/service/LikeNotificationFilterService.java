@@ -0,0 +1,192 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.entity.LikeNotificationHistory;
+import com.elderdiet.backend.repository.LikeNotificationHistoryRepository;
+import com.elderdiet.backend.util.ScalableBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 点赞通知去重过滤器服务
+ * 为每个记录发布者维护一个可扩展布隆过滤器，保存已经发送过点赞通知的 (recordId, likerId)。
+ * 过滤器判断"一定没有通知过"时不再查询 like_notification_histories；判断"可能通知过"时仍查询数据库确认。
+ * (recordId, likerId) 唯一索引仍是最终依据，过滤器落后于数据库（多实例部署、重建期间的写入）时
+ * 由插入时的唯一键冲突兜底。应用启动完成后从通知历史加载（不阻塞启动，加载完成前直接查询数据库），
+ * 并定期全量重建。
+ */
+@Slf4j
+@Service
+public class LikeNotificationFilterService {
+
+    /**
+     * 每个发布者过滤器第一级的容量
+     */
+    static final int INITIAL_CAPACITY = 32;
+
+    /**
+     * 每个发布者过滤器的误判率上限
+     */
+    static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final LikeNotificationHistoryRepository likeNotificationHistoryRepository;
+
+    private volatile Map<String, ScalableBloomFilter> filters = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+
+    // 自上次重建以来的判断结果，用于计算实际误判率
+    private final AtomicLong negatives = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    private final Counter negativeCounter;
+    private final Counter truePositiveCounter;
+    private final Counter falsePositiveCounter;
+    private final Counter bypassCounter;
+    private final Timer rebuildTimer;
+
+    public LikeNotificationFilterService(LikeNotificationHistoryRepository likeNotificationHistoryRepository,
+            MeterRegistry meterRegistry) {
+        this.likeNotificationHistoryRepository = likeNotificationHistoryRepository;
+        this.negativeCounter = Counter.builder("like.notification.filter.checks")
+                .description("点赞通知去重过滤器判断次数")
+                .tag("result", "negative")
+                .register(meterRegistry);
+        this.truePositiveCounter = Counter.builder("like.notification.filter.checks")
+                .description("点赞通知去重过滤器判断次数")
+                .tag("result", "true_positive")
+                .register(meterRegistry);
+        this.falsePositiveCounter = Counter.builder("like.notification.filter.checks")
+                .description("点赞通知去重过滤器判断次数")
+                .tag("result", "false_positive")
+                .register(meterRegistry);
+        this.bypassCounter = Counter.builder("like.notification.filter.checks")
+                .description("点赞通知去重过滤器判断次数")
+                .tag("result", "not_loaded")
+                .register(meterRegistry);
+        this.rebuildTimer = Timer.builder("like.notification.filter.rebuild.duration")
+                .description("点赞通知去重过滤器全量重建耗时")
+                .register(meterRegistry);
+        Gauge.builder("like.notification.filter.false_positive_rate", this,
+                LikeNotificationFilterService::getObservedFalsePositiveRate)
+                .description("自上次重建以来点赞通知去重过滤器的实际误判率")
+                .register(meterRegistry);
+        Gauge.builder("like.notification.filter.owners", this, service -> service.filters.size())
+                .description("点赞通知去重过滤器覆盖的发布者数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 应用启动完成后加载过滤器，加载完成前或加载失败时（直到定期重建）全部查询数据库
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("加载点赞通知去重过滤器失败，重建前将直接查询数据库: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 定期全量重建，清除已删除的通知历史并补上其他实例写入的记录
+     */
+    @Scheduled(fixedDelayString = "${notification.like-filter.rebuild-interval-ms:3600000}",
+            initialDelayString = "${notification.like-filter.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("定期重建点赞通知去重过滤器失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 从 like_notification_histories 全量重建所有发布者的过滤器
+     */
+    public void rebuild() {
+        Timer.Sample sample = Timer.start();
+        Map<String, ScalableBloomFilter> rebuilt = new ConcurrentHashMap<>();
+        long entries = 0;
+        try (Stream<LikeNotificationHistory> histories = likeNotificationHistoryRepository.streamAllKeys()) {
+            for (LikeNotificationHistory history : (Iterable<LikeNotificationHistory>) histories::iterator) {
+                if (history.getRecordOwnerId() == null) {
+                    continue; // 缺少发布者的历史数据由唯一索引兜底
+                }
+                rebuilt.computeIfAbsent(history.getRecordOwnerId(), ownerId -> newFilter())
+                        .add(key(history.getRecordId(), history.getLikerId()));
+                entries++;
+            }
+        }
+
+        filters = rebuilt;
+        loaded = true;
+        negatives.set(0);
+        falsePositives.set(0);
+
+        long nanos = sample.stop(rebuildTimer);
+        log.info("点赞通知去重过滤器重建完成，发布者数: {}, 通知历史数: {}, 耗时: {} ms",
+                rebuilt.size(), entries, nanos / 1_000_000);
+    }
+
+    /**
+     * 判断是否已经发送过点赞通知
+     * 过滤器判断一定没有通知过时直接返回 false；否则查询数据库确认，并统计过滤器是否误判
+     */
+    public boolean hasNotified(String recordOwnerId, String recordId, String likerId) {
+        if (!loaded) {
+            bypassCounter.increment();
+            return likeNotificationHistoryRepository.existsByRecordIdAndLikerId(recordId, likerId);
+        }
+
+        ScalableBloomFilter filter = filters.get(recordOwnerId);
+        if (filter == null || !filter.mightContain(key(recordId, likerId))) {
+            negatives.incrementAndGet();
+            negativeCounter.increment();
+            return false;
+        }
+
+        boolean notified = likeNotificationHistoryRepository.existsByRecordIdAndLikerId(recordId, likerId);
+        if (notified) {
+            truePositiveCounter.increment();
+        } else {
+            falsePositives.incrementAndGet();
+            falsePositiveCounter.increment();
+        }
+        return notified;
+    }
+
+    /**
+     * 写入通知历史后加入过滤器
+     */
+    public void recordNotified(String recordOwnerId, String recordId, String likerId) {
+        filters.computeIfAbsent(recordOwnerId, ownerId -> newFilter()).add(key(recordId, likerId));
+    }
+
+    /**
+     * 实际误判率：误判次数 / (误判次数 + 判断为一定不存在的次数)
+     */
+    double getObservedFalsePositiveRate() {
+        long fp = falsePositives.get();
+        long total = fp + negatives.get();
+        return total == 0 ? 0.0 : (double) fp / total;
+    }
+
+    private static ScalableBloomFilter newFilter() {
+        return new ScalableBloomFilter(INITIAL_CAPACITY, FALSE_POSITIVE_RATE);
+    }
+
+    private static String key(String recordId, String likerId) {
+        return recordId + ":" + likerId;
+    }
+}
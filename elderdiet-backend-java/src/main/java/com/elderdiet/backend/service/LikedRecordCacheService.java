@@ -0,0 +1,185 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.FeedConfig;
+import com.elderdiet.backend.entity.RecordLike;
+import com.elderdiet.backend.repository.RecordLikeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 用户点赞记录缓存服务
+ * 为每个用户缓存其点赞过的记录ID集合，首次访问时用一次查询加载，之后由点赞切换增量维护，
+ * 分享墙判断"当前用户是否点赞"时不再查询数据库。按用户数设置上限，淘汰最久未访问的用户；
+ * 集合加载超过 likedCacheTtlMinutes 后重新加载，其他实例上的点赞切换最迟在过期后可见。
+ */
+@Slf4j
+@Service
+public class LikedRecordCacheService {
+
+    private final RecordLikeRepository recordLikeRepository;
+    private final FeedConfig.FeedProperties feedProperties;
+    private final LinkedHashMap<String, LikedSet> entries;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter loadingCounter;
+
+    public LikedRecordCacheService(RecordLikeRepository recordLikeRepository,
+            FeedConfig.FeedProperties feedProperties, MeterRegistry meterRegistry) {
+        this.recordLikeRepository = recordLikeRepository;
+        this.feedProperties = feedProperties;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LikedSet> eldest) {
+                return size() > feedProperties.getLikedCacheMaxUsers();
+            }
+        };
+        this.hitCounter = Counter.builder("feed.liked.cache.requests")
+                .description("点赞记录缓存请求次数")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("feed.liked.cache.requests")
+                .description("点赞记录缓存请求次数")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.loadingCounter = Counter.builder("feed.liked.cache.requests")
+                .description("点赞记录缓存请求次数")
+                .tag("result", "loading")
+                .register(meterRegistry);
+        Gauge.builder("feed.liked.cache.users", this, LikedRecordCacheService::size)
+                .description("缓存了点赞记录集合的用户数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 返回 recordIds 中用户点赞过的记录ID，集合已过期时重新加载
+     */
+    public Set<String> findLikedAmong(String userId, Collection<String> recordIds) {
+        long ttlMillis = feedProperties.getLikedCacheTtlMinutes() * 60_000L;
+        LikedSet likedSet;
+        boolean loader = false;
+        synchronized (entries) {
+            likedSet = entries.get(userId);
+            if (likedSet == null || likedSet.isExpired(ttlMillis)) {
+                likedSet = new LikedSet();
+                entries.put(userId, likedSet);
+                loader = true;
+            }
+        }
+
+        if (loader) {
+            missCounter.increment();
+            try {
+                likedSet.complete(recordLikeRepository.findRecordIdsByUserId(userId).stream()
+                        .map(RecordLike::getRecordId)
+                        .collect(Collectors.toList()));
+            } catch (RuntimeException e) {
+                evict(userId);
+                throw e;
+            }
+        } else if (!likedSet.isLoaded()) {
+            // 其他请求正在加载该用户的集合，本次直接按记录ID批量查询
+            loadingCounter.increment();
+            return recordLikeRepository.findByUserIdAndRecordIdIn(userId, recordIds).stream()
+                    .map(RecordLike::getRecordId)
+                    .collect(Collectors.toSet());
+        } else {
+            hitCounter.increment();
+        }
+
+        return likedSet.retain(recordIds);
+    }
+
+    /**
+     * 点赞状态切换后更新缓存（在数据库写入成功后调用）
+     */
+    public void onLikeChanged(String userId, String recordId, boolean liked) {
+        LikedSet likedSet;
+        synchronized (entries) {
+            likedSet = entries.get(userId);
+        }
+        if (likedSet != null) {
+            likedSet.apply(recordId, liked);
+        }
+    }
+
+    /**
+     * 移除用户的缓存
+     */
+    public void evict(String userId) {
+        synchronized (entries) {
+            entries.remove(userId);
+        }
+    }
+
+    private double size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * 单个用户的点赞记录集合
+     * 加载期间发生的点赞切换先记录下来，加载完成后按顺序重放到查询结果上，
+     * 避免查询开始后发生的切换被旧的查询结果覆盖
+     */
+    private static class LikedSet {
+
+        private final Set<String> recordIds = new HashSet<>();
+        private Map<String, Boolean> pending = new LinkedHashMap<>(); // 加载完成后为null
+        private long loadedAt;
+
+        synchronized boolean isLoaded() {
+            return pending == null;
+        }
+
+        synchronized boolean isExpired(long ttlMillis) {
+            return pending == null && System.currentTimeMillis() - loadedAt >= ttlMillis;
+        }
+
+        synchronized void complete(List<String> loadedRecordIds) {
+            recordIds.addAll(loadedRecordIds);
+            pending.forEach(this::applyLoaded);
+            pending = null;
+            loadedAt = System.currentTimeMillis();
+        }
+
+        synchronized void apply(String recordId, boolean liked) {
+            if (pending != null) {
+                pending.remove(recordId);
+                pending.put(recordId, liked);
+            } else {
+                applyLoaded(recordId, liked);
+            }
+        }
+
+        synchronized Set<String> retain(Collection<String> candidates) {
+            Set<String> liked = new HashSet<>();
+            for (String recordId : candidates) {
+                if (recordIds.contains(recordId)) {
+                    liked.add(recordId);
+                }
+            }
+            return liked;
+        }
+
+        private void applyLoaded(String recordId, boolean liked) {
+            if (liked) {
+                recordIds.add(recordId);
+            } else {
+                recordIds.remove(recordId);
+            }
+        }
+    }
+}
@@ -8,6 +8,8 @@ import com.elderdiet.backend.entity.MealPlan;
 import com.elderdiet.backend.entity.Profile;
 import com.elderdiet.backend.entity.Meal;
 import com.elderdiet.backend.entity.Dish;
+import com.elderdiet.backend.event.DomainEventBus;
+import com.elderdiet.backend.event.MealPlanChangedEvent;
 import com.elderdiet.backend.repository.MealPlanRepository;
 import com.elderdiet.backend.repository.ProfileRepository;
 import lombok.RequiredArgsConstructor;
@@ -20,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 膳食计划服务
@@ -32,6 +35,7 @@ public class MealPlanService {
     private final MealPlanRepository mealPlanRepository;
     private final ProfileRepository profileRepository;
     private final MealRecommendationService mealRecommendationService;
+    private final DomainEventBus domainEventBus;
 
     public MealPlan getMealPlan(String userId, LocalDate date) {
         log.info("获取用户 {} 的膳食计划，日期: {}", userId, date);
@@ -64,6 +68,7 @@ public class MealPlanService {
 
             // 4. 保存到数据库
             MealPlan savedPlan = mealPlanRepository.save(generatedPlan);
+            publishChanged(savedPlan, MealPlanChangedEvent.Type.GENERATED);
 
             log.info("膳食计划生成成功，ID: {}", savedPlan.getId());
             return MealPlanResponse.fromEntity(savedPlan);
@@ -122,6 +127,7 @@ public class MealPlanService {
 
             // 11. 保存更新
             MealPlan savedPlan = mealPlanRepository.save(mealPlan);
+            publishChanged(savedPlan, MealPlanChangedEvent.Type.DISH_REPLACED);
 
             log.info("菜品替换成功，原菜品: {}, 新菜品: {}", originalDish.getName(), newDish.getName());
             return MealPlanResponse.fromEntity(savedPlan);
@@ -171,6 +177,15 @@ public class MealPlanService {
                 .toList();
     }
 
+    /**
+     * 流式获取用户的膳食计划历史，逐条转换为响应DTO，调用方必须关闭返回的Stream
+     */
+    public Stream<MealPlanResponse> streamMealPlanHistory(String userId) {
+        log.info("流式获取用户 {} 的膳食计划历史", userId);
+        return mealPlanRepository.streamByUserIdOrderByCreatedAtDesc(userId)
+                .map(MealPlanResponse::fromEntity);
+    }
+
     /**
      * 获取用户指定日期范围内的膳食计划
      */
@@ -200,6 +215,7 @@ public class MealPlanService {
         }
 
         mealPlanRepository.deleteById(mealPlanId);
+        publishChanged(mealPlan, MealPlanChangedEvent.Type.DELETED);
         log.info("膳食计划删除成功: {}", mealPlanId);
     }
 
@@ -220,6 +236,7 @@ public class MealPlanService {
 
         mealPlan.setStatus("archived");
         MealPlan savedPlan = mealPlanRepository.save(mealPlan);
+        publishChanged(savedPlan, MealPlanChangedEvent.Type.ARCHIVED);
 
         log.info("膳食计划归档成功: {}", mealPlanId);
         return MealPlanResponse.fromEntity(savedPlan);
@@ -242,6 +259,7 @@ public class MealPlanService {
 
         mealPlan.setLiked(request.getLiked());
         MealPlan savedPlan = mealPlanRepository.save(mealPlan);
+        publishChanged(savedPlan, MealPlanChangedEvent.Type.LIKE_CHANGED);
 
         log.info("膳食计划喜欢状态更新成功: {}", request.getMealPlanId());
         return MealPlanResponse.fromEntity(savedPlan);
@@ -264,6 +282,7 @@ public class MealPlanService {
 
         mealPlan.toggleLike();
         MealPlan savedPlan = mealPlanRepository.save(mealPlan);
+        publishChanged(savedPlan, MealPlanChangedEvent.Type.LIKE_CHANGED);
 
         log.info("膳食计划喜欢状态切换成功: {}，新状态: {}", mealPlanId, savedPlan.isLiked());
         return MealPlanResponse.fromEntity(savedPlan);
@@ -333,4 +352,11 @@ public class MealPlanService {
             log.info("用户 {} 的饮食偏好已更新", userProfile.getUserId());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 发布膳食计划变化事件
+     */
+    private void publishChanged(MealPlan mealPlan, MealPlanChangedEvent.Type type) {
+        domainEventBus.publish(new MealPlanChangedEvent(mealPlan.getUserId(), mealPlan.getId(), type));
+    }
+}
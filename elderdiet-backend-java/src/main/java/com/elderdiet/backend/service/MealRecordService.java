@@ -1,25 +1,44 @@
 package com.elderdiet.backend.service;
 
+import com.elderdiet.backend.config.FeedConfig;
+import com.elderdiet.backend.dto.CommentPageResponse;
+import com.elderdiet.backend.dto.FeedChangesResponse;
 import com.elderdiet.backend.dto.MealRecordRequest;
 import com.elderdiet.backend.dto.MealRecordResponse;
 import com.elderdiet.backend.dto.ProfileDTO;
+import com.elderdiet.backend.dto.RecordInteractionResponse;
 import com.elderdiet.backend.dto.VisibilityUpdateRequest;
 import com.elderdiet.backend.entity.*;
+import com.elderdiet.backend.event.DomainEventBus;
+import com.elderdiet.backend.event.MealRecordCreatedEvent;
+import com.elderdiet.backend.event.RecordCommentAddedEvent;
+import com.elderdiet.backend.event.RecordImagesUpdatedEvent;
+import com.elderdiet.backend.event.RecordLikeToggledEvent;
+import com.elderdiet.backend.event.RecordVisibilityChangedEvent;
 import com.elderdiet.backend.repository.*;
+import com.elderdiet.backend.util.FeedCursor;
+import com.elderdiet.backend.util.MongoQueryCounter;
+import com.elderdiet.backend.util.StreamingApiResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * 膳食记录服务类
@@ -38,6 +57,8 @@ public class MealRecordService {
         private int totalPages;
         private long totalRecords;
         private boolean hasMore;
+        private int queryCount; // 本次请求发出的Mongo查询次数
+        private String nextCursor; // 游标模式下一页的游标，没有更多数据时为null
 
         public FeedResponse(List<MealRecordResponse> records, int currentPage, int totalPages, long totalRecords,
                 boolean hasMore) {
@@ -48,6 +69,25 @@ public class MealRecordService {
             this.hasMore = hasMore;
         }
 
+        /**
+         * 游标模式的响应：不统计总数，totalPages 和 totalRecords 固定为0
+         */
+        public static FeedResponse ofCursor(List<MealRecordResponse> records, String nextCursor, boolean hasMore) {
+            FeedResponse response = new FeedResponse(records, 0, 0, 0, hasMore);
+            response.nextCursor = nextCursor;
+            return response;
+        }
+
+        /**
+         * 复制一份响应并替换查询次数（缓存命中时返回，不修改缓存中的共享对象）
+         */
+        public FeedResponse withQueryCount(int queryCount) {
+            FeedResponse copy = new FeedResponse(records, currentPage, totalPages, totalRecords, hasMore);
+            copy.nextCursor = nextCursor;
+            copy.queryCount = queryCount;
+            return copy;
+        }
+
         // Getters
         public List<MealRecordResponse> getRecords() {
             return records;
@@ -68,20 +108,59 @@ public class MealRecordService {
         public boolean isHasMore() {
             return hasMore;
         }
+
+        public int getQueryCount() {
+            return queryCount;
+        }
+
+        public void setQueryCount(int queryCount) {
+            this.queryCount = queryCount;
+        }
+
+        public String getNextCursor() {
+            return nextCursor;
+        }
     }
 
+    /**
+     * 游标模式每页最多返回的记录数
+     */
+    private static final int MAX_CURSOR_PAGE_SIZE = 50;
+
+    /**
+     * 评论分页每页最多返回的评论数
+     */
+    private static final int MAX_COMMENT_PAGE_SIZE = 50;
+
+    /**
+     * 批量查询点赞状态和计数时每次最多的记录数
+     */
+    private static final int MAX_INTERACTION_BATCH_SIZE = 100;
+
+    /**
+     * 流式输出分享墙时每批补充点赞、评论和发布者信息的记录数
+     */
+    private static final int FEED_STREAM_HYDRATE_BATCH_SIZE = 20;
+
     private final MealRecordRepository mealRecordRepository;
     private final OssService ossService;
-    private final FamilyLinkRepository familyLinkRepository;
-    private final UserService userService;
+    private final FamilyGraphService familyGraphService;
     private final ProfileService profileService;
     private final RecordLikeRepository recordLikeRepository;
     private final RecordCommentRepository recordCommentRepository;
-    private final GamificationService gamificationService;
-    private final NutritionistCommentService nutritionistCommentService;
     private final JPushService jPushService;
-    private final FamilyService familyService;
     private final LikeNotificationHistoryRepository likeNotificationHistoryRepository;
+    private final LikeNotificationFilterService likeNotificationFilterService;
+    private final FeedHydrationService feedHydrationService;
+    private final FeedTimelineService feedTimelineService;
+    private final FeedConfig.FeedProperties feedProperties;
+    private final BackgroundTaskService backgroundTaskService;
+    private final OutboxEventRepository outboxEventRepository;
+    private final UserService userService;
+    private final PublisherSnapshotService publisherSnapshotService;
+    private final List<FeedReadStrategy> feedReadStrategies;
+    private final FeedChangeService feedChangeService;
+    private final DomainEventBus domainEventBus;
 
     /**
      * 创建膳食记录
@@ -94,21 +173,33 @@ public class MealRecordService {
             throw new RuntimeException("只有老人和子女用户可以创建膳食记录");
         }
 
-        // 上传图片
-        List<String> imageUrls = new ArrayList<>();
-        if (images != null && !images.isEmpty()) {
-            for (MultipartFile image : images) {
-                if (!image.isEmpty()) {
-                    String imageUrl = ossService.uploadFile(image);
-                    imageUrls.add(imageUrl);
+        // 并行上传图片，全部完成后再保存记录
+        List<ImageVariants> imageVariants = images != null ? ossService.uploadFiles(images, user.getId()) : new ArrayList<>();
+        boolean hasDirectUploads = request.getUploadedObjectKeys() != null
+                && !request.getUploadedObjectKeys().isEmpty();
+        if (hasDirectUploads) {
+            // 客户端直传的图片：校验后先使用原图，多尺寸版本由Outbox事件生成后写回记录
+            List<String> uploadedUrls = imageVariants.stream().map(ImageVariants::getOriginal)
+                    .collect(Collectors.toList());
+            try {
+                for (String objectKey : request.getUploadedObjectKeys()) {
+                    imageVariants.add(ossService.completeDirectUpload(user.getId(), objectKey));
                 }
+            } catch (RuntimeException e) {
+                // 与 uploadFiles 相同：失败时删除本次已上传的图片
+                ossService.deleteFilesQuietly(uploadedUrls, user.getId());
+                throw e;
             }
         }
+        List<String> imageUrls = imageVariants.stream().map(ImageVariants::getOriginal).collect(Collectors.toList());
 
         // 创建膳食记录
         MealRecord mealRecord = MealRecord.builder()
                 .userId(user.getId())
+                .familyClusterId(familyGraphService.getClusterId(user.getId()))
+                .publisher(publisherSnapshotService.snapshotOf(user))
                 .imageUrls(imageUrls)
+                .imageVariants(imageVariants)
                 .caption(request.getCaption() != null ? request.getCaption() : "")
                 .visibility(request.getVisibility())
                 .shareWithNutritionist(
@@ -117,34 +208,24 @@ public class MealRecordService {
 
         MealRecord savedRecord = mealRecordRepository.save(mealRecord);
 
-        // 触发小树浇水逻辑
-        gamificationService.waterTree(user);
-
-        // 如果可见性为FAMILY，触发推送通知给子女用户
-        if (request.getVisibility() == RecordVisibility.FAMILY) {
-            log.info("膳食记录设置为家庭可见，开始推送通知给子女用户");
-            // 异步执行推送，避免阻塞用户操作
-            new Thread(() -> {
-                try {
-                    sendMealRecordNotificationToChildren(user, savedRecord);
-                } catch (Exception e) {
-                    log.error("发送膳食记录推送通知失败: {}", e.getMessage(), e);
-                }
-            }).start();
+        // 浇水、推送和营养师评论写入Outbox，由 OutboxWorker 异步执行，重启后也不会丢失
+        List<OutboxEvent> sideEffects = new ArrayList<>();
+        sideEffects.add(OutboxEvent.create(OutboxEvent.EventType.WATER_TREE, savedRecord.getId(), user.getId()));
+        if (savedRecord.getVisibility() == RecordVisibility.FAMILY) {
+            sideEffects.add(OutboxEvent.create(OutboxEvent.EventType.FAMILY_PUSH, savedRecord.getId(), user.getId()));
         }
-
-        // 如果用户选择分享给营养师，异步生成营养师评论
         if (savedRecord.getShareWithNutritionist()) {
-            log.info("用户选择分享给营养师，开始生成营养师评论");
-            // 异步执行，避免阻塞用户操作
-            new Thread(() -> {
-                try {
-                    nutritionistCommentService.generateNutritionistComment(savedRecord.getId(), user.getId());
-                } catch (Exception e) {
-                    log.error("异步生成营养师评论失败: {}", e.getMessage(), e);
-                }
-            }).start();
+            sideEffects.add(OutboxEvent.create(OutboxEvent.EventType.NUTRITIONIST_COMMENT,
+                    savedRecord.getId(), user.getId()));
+        }
+        if (hasDirectUploads) {
+            sideEffects.add(OutboxEvent.create(OutboxEvent.EventType.IMAGE_VARIANTS,
+                    savedRecord.getId(), user.getId()));
         }
+        outboxEventRepository.saveAll(sideEffects);
+
+        // 时间线写扩散、缓存失效和实时推送由事件监听器完成
+        domainEventBus.publish(new MealRecordCreatedEvent(savedRecord));
 
         log.info("膳食记录创建成功: {}", savedRecord.getId());
         return savedRecord;
@@ -156,6 +237,26 @@ public class MealRecordService {
     public List<MealRecordResponse> getFeedForUser(User user) {
         log.info("获取用户 {} 的分享墙时间线", user.getPhone());
 
+        boolean counterOwner = MongoQueryCounter.start();
+        try {
+            List<MealRecordResponse> responses = feedHydrationService.hydrate(loadLatestFeedRecords(user), user);
+            log.info("用户 {} 的分享墙时间线加载完成，共 {} 条记录，Mongo查询 {} 次",
+                    user.getPhone(), responses.size(), MongoQueryCounter.current());
+            return responses;
+        } finally {
+            MongoQueryCounter.stop(counterOwner);
+        }
+    }
+
+    /**
+     * 查询用户分享墙最近的30条记录
+     */
+    private List<MealRecord> loadLatestFeedRecords(User user) {
+        if (feedProperties.getTimeline().isReadEnabled()
+                && (user.getRole() == UserRole.ELDER || user.getRole() == UserRole.CHILD)) {
+            return feedTimelineService.findLatestTimelineRecords(user);
+        }
+
         List<MealRecord> records = new ArrayList<>();
 
         switch (user.getRole()) {
@@ -187,11 +288,8 @@ public class MealRecordService {
 
             case CHILD:
                 // 子女用户：查询自己的所有记录 + 绑定的老人发布的FAMILY可见记录
-                List<FamilyLink> familyLinks = familyLinkRepository.findByChildId(user.getId());
-                if (!familyLinks.isEmpty()) {
-                    List<String> parentIds = familyLinks.stream()
-                            .map(FamilyLink::getParentId)
-                            .collect(Collectors.toList());
+                List<String> parentIds = familyGraphService.getParentIds(user.getId());
+                if (!parentIds.isEmpty()) {
                     // 使用组合查询：查询自己的所有记录 + 绑定老人的FAMILY可见记录
                     List<MealRecord> allRecords = mealRecordRepository
                             .findOwnAndFamilyVisibleRecordsOrderByCreatedAtDesc(user.getId(), parentIds);
@@ -210,10 +308,7 @@ public class MealRecordService {
                 return Collections.emptyList();
         }
 
-        // 转换为响应DTO
-        return records.stream()
-                .map(record -> convertToResponse(record, user))
-                .collect(Collectors.toList());
+        return records;
     }
 
     /**
@@ -222,76 +317,188 @@ public class MealRecordService {
     public FeedResponse getFeedForUser(User user, int page, int limit) {
         log.info("获取用户 {} 的分享墙时间线，页码: {}, 每页数量: {}", user.getPhone(), page, limit);
 
-        // 创建分页对象（页码从0开始），并添加按创建时间倒序的排序
-        Pageable pageable = PageRequest.of(page - 1, limit, Sort.by(Sort.Direction.DESC, "createdAt"));
+        boolean counterOwner = MongoQueryCounter.start();
+        try {
+            FeedResponse feed = loadFeedPage(user, page, limit);
+            feed.setQueryCount(MongoQueryCounter.current());
+            log.info("用户 {} 的分享墙第 {} 页加载完成，Mongo查询 {} 次", user.getPhone(), page, feed.getQueryCount());
+            return feed;
+        } finally {
+            MongoQueryCounter.stop(counterOwner);
+        }
+    }
 
-        Page<MealRecord> recordPage;
-        long totalRecords = 0;
+    /**
+     * 分页查询用户分享墙记录并批量转换为响应DTO
+     */
+    private FeedResponse loadFeedPage(User user, int page, int limit) {
+        if (feedProperties.getTimeline().isReadEnabled()
+                && (user.getRole() == UserRole.ELDER || user.getRole() == UserRole.CHILD)) {
+            // 时间线读取：对 (ownerId, recordCreatedAt) 索引做一次范围扫描，不统计总数，
+            // totalPages 和 totalRecords 为根据是否还有下一页推算的已知下界
+            Slice<MealRecord> timelinePage = feedTimelineService.findTimelinePage(user,
+                    PageRequest.of(page - 1, limit, Sort.by(Sort.Direction.DESC, "recordCreatedAt")));
+            long knownRecords = (long) (page - 1) * limit + timelinePage.getNumberOfElements()
+                    + (timelinePage.hasNext() ? 1 : 0);
+            return new FeedResponse(feedHydrationService.hydrate(timelinePage.getContent(), user), page,
+                    timelinePage.hasNext() ? page + 1 : page, knownRecords, timelinePage.hasNext());
+        }
 
-        switch (user.getRole()) {
-            case ELDER:
-                // 修改后的老人用户查询逻辑：
-                // 1. 获取关联的其他老人ID列表
-                // 2. 查询自己的所有记录 + 其他老人的FAMILY可见记录 + 自己所有子女的FAMILY可见记录
-                List<String> relatedElderIds = getRelatedElderIds(user.getId());
-                List<String> relatedChildIds = getRelatedChildIds(user.getId());
+        if (user.getRole() != UserRole.ELDER && user.getRole() != UserRole.CHILD) {
+            log.warn("未知的用户角色: {}", user.getRole());
+            return new FeedResponse(Collections.emptyList(), page, 0, 0, false);
+        }
 
-                if (relatedElderIds.isEmpty() && relatedChildIds.isEmpty()) {
-                    // 如果没有关联的老人和子女，只显示自己的记录
-                    recordPage = mealRecordRepository.findByUserIdOrderByCreatedAtDesc(user.getId(), pageable);
-                    totalRecords = mealRecordRepository.countByUserId(user.getId());
-                } else {
-                    log.info("用户 {} 通过家庭关系找到 {} 个关联老人和 {} 个子女",
-                            user.getPhone(), relatedElderIds.size(), relatedChildIds.size());
+        // 按配置的读取方式查询：自己的所有记录 + 家庭成员的FAMILY可见记录
+        return getFeedReadStrategy().loadPage(user, getFeedScope(user), page, limit);
+    }
 
-                    // 使用组合查询：查询自己的所有记录 + 其他老人的FAMILY可见记录 + 子女的FAMILY可见记录
-                    recordPage = mealRecordRepository.findOwnAndFamilyVisibleRecordsWithChildren(
-                            user.getId(), relatedElderIds, relatedChildIds, pageable);
-                    totalRecords = mealRecordRepository.countOwnAndFamilyVisibleRecordsWithChildren(
-                            user.getId(), relatedElderIds, relatedChildIds);
-                }
-                break;
+    /**
+     * 流式读取用户分享墙的一页记录（页码模式，直接查询膳食记录集合）
+     * 游标每次读取一小批记录，按批查询点赞、评论和发布者后逐条交给调用方，内存占用与每页条数无关。
+     * 返回的Stream持有Mongo游标，调用方必须关闭。
+     */
+    public Stream<MealRecordResponse> streamFeedPage(User user, int page, int limit) {
+        if (user.getRole() != UserRole.ELDER && user.getRole() != UserRole.CHILD) {
+            log.warn("未知的用户角色: {}", user.getRole());
+            return Stream.empty();
+        }
+        Stream<MealRecord> records = mealRecordRepository.streamFeedPage(getFeedScope(user),
+                (long) (page - 1) * limit, limit);
+        return StreamingApiResponse.batched(records, FEED_STREAM_HYDRATE_BATCH_SIZE)
+                .flatMap(batch -> feedHydrationService.hydrate(batch, user).stream());
+    }
 
-            case CHILD:
-                // 子女用户：查询自己的所有记录 + 绑定的老人发布的FAMILY可见记录
-                List<FamilyLink> familyLinks = familyLinkRepository.findByChildId(user.getId());
-                if (!familyLinks.isEmpty()) {
-                    List<String> parentIds = familyLinks.stream()
-                            .map(FamilyLink::getParentId)
-                            .collect(Collectors.toList());
-                    // 使用组合查询：查询自己的所有记录 + 绑定老人的FAMILY可见记录
-                    recordPage = mealRecordRepository.findOwnAndFamilyVisibleRecords(
-                            user.getId(), parentIds, pageable);
-                    totalRecords = mealRecordRepository.countOwnAndFamilyVisibleRecords(
-                            user.getId(), parentIds);
-                } else {
-                    // 没有绑定的老人，只显示自己的记录
-                    recordPage = mealRecordRepository.findByUserIdOrderByCreatedAtDesc(user.getId(), pageable);
-                    totalRecords = mealRecordRepository.countByUserId(user.getId());
-                }
-                break;
+    /**
+     * 统计用户分享墙的记录总数（流式分页使用）
+     */
+    public long countFeedRecords(User user) {
+        if (user.getRole() != UserRole.ELDER && user.getRole() != UserRole.CHILD) {
+            return 0;
+        }
+        return mealRecordRepository.countFeed(getFeedScope(user));
+    }
 
-            default:
+    /**
+     * 获取配置的分页读取策略
+     */
+    private FeedReadStrategy getFeedReadStrategy() {
+        FeedConfig.FeedProperties.ReadStrategy type = feedProperties.getReadStrategy();
+        return feedReadStrategies.stream()
+                .filter(strategy -> strategy.getType() == type)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("未找到分享墙读取策略: " + type));
+    }
+
+    /**
+     * 获取用户的分享墙时间线（游标模式）
+     * 按 (createdAt, _id) 键集分页，多取一条判断是否还有下一页，不执行count查询
+     *
+     * @param cursor 上一页返回的 nextCursor，空字符串表示第一页
+     */
+    public FeedResponse getFeedForUserByCursor(User user, String cursor, int limit) {
+        log.info("获取用户 {} 的分享墙时间线（游标模式），每页数量: {}", user.getPhone(), limit);
+
+        FeedCursor position = FeedCursor.decode(cursor);
+        int pageSize = Math.max(1, Math.min(limit, MAX_CURSOR_PAGE_SIZE));
+
+        boolean counterOwner = MongoQueryCounter.start();
+        try {
+            if (user.getRole() != UserRole.ELDER && user.getRole() != UserRole.CHILD) {
                 log.warn("未知的用户角色: {}", user.getRole());
-                return new FeedResponse(Collections.emptyList(), page, 0, 0, false);
+                return FeedResponse.ofCursor(Collections.emptyList(), null, false);
+            }
+
+            List<MealRecord> records;
+            boolean hasMore;
+            FeedCursor next = null;
+
+            if (feedProperties.getTimeline().isReadEnabled()) {
+                List<FeedTimelineEntry> entries = feedTimelineService.findTimelineSlice(user, position,
+                        pageSize + 1);
+                hasMore = entries.size() > pageSize;
+                List<FeedTimelineEntry> pageEntries = hasMore ? entries.subList(0, pageSize) : entries;
+                records = feedTimelineService.loadRecords(pageEntries);
+                if (hasMore) {
+                    FeedTimelineEntry last = pageEntries.get(pageEntries.size() - 1);
+                    next = new FeedCursor(last.getRecordCreatedAt(), last.getRecordId());
+                }
+            } else {
+                List<MealRecord> slice = mealRecordRepository.findFeedSlice(getFeedScope(user), position,
+                        pageSize + 1);
+                hasMore = slice.size() > pageSize;
+                records = hasMore ? slice.subList(0, pageSize) : slice;
+                if (hasMore) {
+                    MealRecord last = records.get(records.size() - 1);
+                    next = new FeedCursor(last.getCreatedAt(), last.getId());
+                }
+            }
+
+            FeedResponse feed = FeedResponse.ofCursor(feedHydrationService.hydrate(records, user),
+                    next != null ? next.encode() : null, hasMore);
+            feed.setQueryCount(MongoQueryCounter.current());
+            log.info("用户 {} 的分享墙（游标模式）加载完成，{} 条记录，Mongo查询 {} 次",
+                    user.getPhone(), records.size(), feed.getQueryCount());
+            return feed;
+        } finally {
+            MongoQueryCounter.stop(counterOwner);
         }
+    }
 
-        // 转换为响应DTO
-        List<MealRecordResponse> records = recordPage.getContent().stream()
-                .map(record -> convertToResponse(record, user))
-                .collect(Collectors.toList());
+    /**
+     * 获取用户分享墙自上次同步以来的变化：新增或更新的记录和不再可见的记录ID
+     *
+     * @param since 上次返回的同步令牌，为空表示还没有同步过
+     */
+    public FeedChangesResponse getFeedChanges(User user, String since) {
+        log.info("获取用户 {} 的分享墙增量变化", user.getPhone());
+
+        boolean counterOwner = MongoQueryCounter.start();
+        try {
+            if (user.getRole() != UserRole.ELDER && user.getRole() != UserRole.CHILD) {
+                log.warn("未知的用户角色: {}", user.getRole());
+                return FeedChangesResponse.builder().resyncRequired(true).build();
+            }
+
+            FeedChangesResponse changes = feedChangeService.getChanges(user, getFeedScope(user), since);
+            changes.setQueryCount(MongoQueryCounter.current());
+            log.info("用户 {} 的分享墙增量变化: {} 条记录，{} 条移除，全量刷新: {}，Mongo查询 {} 次",
+                    user.getPhone(), changes.getRecords().size(), changes.getRemovedRecordIds().size(),
+                    changes.isResyncRequired(), changes.getQueryCount());
+            return changes;
+        } finally {
+            MongoQueryCounter.stop(counterOwner);
+        }
+    }
 
-        // 计算分页信息
-        int totalPages = recordPage.getTotalPages();
-        boolean hasMore = recordPage.hasNext(); // 使用Spring Data的hasNext()方法，更准确
+    /**
+     * 获取用户分享墙中FAMILY可见记录的发布者ID列表
+     * 老人：关联老人 + 子女；子女：绑定的老人
+     */
+    private List<String> getFamilyPublisherIds(User user) {
+        if (user.getRole() == UserRole.ELDER) {
+            List<String> publisherIds = new ArrayList<>(getRelatedElderIds(user.getId()));
+            publisherIds.addAll(getRelatedChildIds(user.getId()));
+            return publisherIds;
+        }
+        return familyGraphService.getParentIds(user.getId());
+    }
 
-        return new FeedResponse(records, page, totalPages, totalRecords, hasMore);
+    /**
+     * 用户分享墙的查询范围
+     * 开启家庭簇读取时带上用户所在的家庭簇ID，查询先按簇ID等值过滤
+     */
+    private FeedScope getFeedScope(User user) {
+        String clusterId = feedProperties.getCluster().isReadEnabled()
+                ? familyGraphService.getClusterId(user.getId())
+                : null;
+        return new FeedScope(user.getId(), getFamilyPublisherIds(user), clusterId);
     }
 
     /**
      * 切换点赞状态
+     * 先尝试删除点赞，没有可删除的再条件插入，根据实际发生的变化原子地增减点赞数
      */
-    @Transactional
     public void toggleLike(String recordId, User user) {
         log.info("用户 {} 切换记录 {} 的点赞状态", user.getPhone(), recordId);
 
@@ -299,41 +506,33 @@ public class MealRecordService {
         MealRecord record = mealRecordRepository.findById(recordId)
                 .orElseThrow(() -> new RuntimeException("膳食记录不存在"));
 
-        // 检查是否已经点赞
-        boolean isLiked = recordLikeRepository.existsByRecordIdAndUserId(recordId, user.getId());
-
-        if (isLiked) {
+        boolean liked;
+        if (recordLikeRepository.deleteIfPresent(recordId, user.getId())) {
             // 取消点赞
-            recordLikeRepository.findByRecordIdAndUserId(recordId, user.getId())
-                    .ifPresent(recordLikeRepository::delete);
-
-            // 更新点赞数
-            record.setLikesCount(Math.max(0, record.getLikesCount() - 1));
+            liked = false;
+            mealRecordRepository.incrementLikesCount(recordId, -1);
             log.info("用户 {} 取消点赞记录 {}", user.getPhone(), recordId);
             // 取消点赞不发送通知
-        } else {
+        } else if (recordLikeRepository.insertIfAbsent(recordId, user.getId())) {
             // 添加点赞
-            RecordLike like = RecordLike.builder()
-                    .recordId(recordId)
-                    .userId(user.getId())
-                    .build();
-            recordLikeRepository.save(like);
-
-            // 更新点赞数
-            record.setLikesCount(record.getLikesCount() + 1);
+            liked = true;
+            mealRecordRepository.incrementLikesCount(recordId, 1);
             log.info("用户 {} 点赞记录 {}", user.getPhone(), recordId);
 
             // 检查是否需要发送点赞通知
             sendLikeNotificationIfNeeded(record, user);
+        } else {
+            // 并发请求已经完成了同样的切换
+            log.info("用户 {} 对记录 {} 的点赞状态未发生变化", user.getPhone(), recordId);
+            return;
         }
 
-        mealRecordRepository.save(record);
+        domainEventBus.publish(new RecordLikeToggledEvent(record, user.getId(), liked));
     }
 
     /**
      * 添加评论
      */
-    @Transactional
     public RecordComment addComment(String recordId, User user, String text) {
         log.info("用户 {} 评论记录 {}", user.getPhone(), recordId);
 
@@ -341,25 +540,25 @@ public class MealRecordService {
         MealRecord record = mealRecordRepository.findById(recordId)
                 .orElseThrow(() -> new RuntimeException("膳食记录不存在"));
 
-        // 获取用户资料
-        ProfileDTO profile = profileService.getProfileByUserId(user.getId());
-        String username = (profile != null && profile.getName() != null) ? profile.getName() : user.getPhone();
-        String userAvatar = (profile != null) ? profile.getAvatarUrl() : null;
+        // 获取用户资料快照
+        PublisherSnapshot snapshot = publisherSnapshotService.snapshotOf(user);
+        String username = snapshot.getUsername();
 
         // 创建评论
         RecordComment comment = RecordComment.builder()
                 .recordId(recordId)
                 .userId(user.getId())
                 .username(username)
-                .userAvatar(userAvatar)
+                .userAvatar(snapshot.getAvatar())
+                .userSnapshotVersion(snapshot.getVersion())
                 .text(text)
                 .build();
 
         RecordComment savedComment = recordCommentRepository.save(comment);
 
         // 更新评论数
-        record.setCommentsCount(record.getCommentsCount() + 1);
-        mealRecordRepository.save(record);
+        mealRecordRepository.incrementCommentsCount(recordId, 1);
+        domainEventBus.publish(new RecordCommentAddedEvent(record, savedComment));
 
         // 检查是否需要发送评论通知
         sendCommentNotificationIfNeeded(record, user, username);
@@ -375,63 +574,35 @@ public class MealRecordService {
         List<RecordComment> comments = recordCommentRepository.findByRecordIdOrderByCreatedAtAsc(recordId);
 
         return comments.stream()
-                .map(comment -> MealRecordResponse.CommentInfo.builder()
-                        .id(comment.getId())
-                        .userId(comment.getUserId())
-                        .username(comment.getUsername())
-                        .userAvatar(comment.getUserAvatar())
-                        .text(comment.getText())
-                        .createdAt(comment.getCreatedAt())
-                        .build())
+                .map(FeedHydrationService::toCommentInfo)
                 .collect(Collectors.toList());
     }
 
     /**
-     * 转换MealRecord为MealRecordResponse
-     */
-    private MealRecordResponse convertToResponse(MealRecord record, User currentUser) {
-        // 获取发布者信息
-        User publisher = userService.findById(record.getUserId())
-                .orElse(null);
-
-        MealRecordResponse.UserInfo userInfo = null;
-        if (publisher != null) {
-            // 获取发布者资料
-            ProfileDTO profile = profileService.getProfileByUserId(publisher.getId());
-            String username = (profile != null && profile.getName() != null) ? profile.getName() : publisher.getPhone();
-            String avatar = (profile != null) ? profile.getAvatarUrl() : null;
-
-            userInfo = MealRecordResponse.UserInfo.builder()
-                    .userId(publisher.getId())
-                    .username(username)
-                    .avatar(avatar)
-                    .nickname(publisher.getPhone()) // 仍然使用手机号作为昵称，暂时没用
-                    .build();
-        }
-
-        // 查询当前用户是否点赞
-        boolean likedByCurrentUser = recordLikeRepository.existsByRecordIdAndUserId(
-                record.getId(), currentUser.getId());
-
-        // 查询评论列表
-        List<MealRecordResponse.CommentInfo> comments = getComments(record.getId());
-
-        return MealRecordResponse.builder()
-                .id(record.getId())
-                .userId(record.getUserId())
-                .imageUrls(record.getImageUrls())
-                .caption(record.getCaption())
-                .visibility(record.getVisibility())
-                .likesCount(record.getLikesCount())
-                .commentsCount(record.getCommentsCount())
-                .createdAt(record.getCreatedAt())
-                .updatedAt(record.getUpdatedAt())
-                .shareWithNutritionist(record.getShareWithNutritionist())
-                .nutritionistComment(record.getNutritionistComment())
-                .nutritionistCommentAt(record.getNutritionistCommentAt())
-                .userInfo(userInfo)
-                .likedByCurrentUser(likedByCurrentUser)
-                .comments(comments)
+     * 游标分页获取指定记录的评论，按创建时间升序
+     *
+     * @param cursor 上一页返回的 nextCursor，空字符串表示第一页
+     */
+    public CommentPageResponse getCommentsByCursor(String recordId, String cursor, int limit) {
+        FeedCursor position = FeedCursor.decode(cursor);
+        int pageSize = Math.max(1, Math.min(limit, MAX_COMMENT_PAGE_SIZE));
+
+        List<RecordComment> slice = recordCommentRepository.findCommentSlice(recordId, position, pageSize + 1);
+        boolean hasMore = slice.size() > pageSize;
+        List<RecordComment> comments = hasMore ? slice.subList(0, pageSize) : slice;
+
+        String nextCursor = null;
+        if (hasMore) {
+            RecordComment last = comments.get(comments.size() - 1);
+            nextCursor = new FeedCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return CommentPageResponse.builder()
+                .comments(comments.stream()
+                        .map(FeedHydrationService::toCommentInfo)
+                        .collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
                 .build();
     }
 
@@ -451,9 +622,15 @@ public class MealRecordService {
             throw new RuntimeException("无权限修改此膳食记录");
         }
 
-        // 更新可见性
-        record.setVisibility(request.getVisibility());
-        MealRecord updatedRecord = mealRecordRepository.save(record);
+        // 只更新可见性字段，不回写读取时的计数和发布者快照
+        RecordVisibility previousVisibility = record.getVisibility();
+        MealRecord updatedRecord = mealRecordRepository.updateVisibility(recordId, request.getVisibility());
+        if (updatedRecord == null) {
+            throw new RuntimeException("膳食记录不存在");
+        }
+
+        // 增量同步日志、家庭成员的时间线、缓存和实时推送由事件监听器修正
+        domainEventBus.publish(new RecordVisibilityChangedEvent(updatedRecord, previousVisibility));
 
         log.info("膳食记录 {} 的可见性已更新为 {}", recordId, request.getVisibility());
         return updatedRecord;
@@ -463,14 +640,46 @@ public class MealRecordService {
      * 生成营养师评论（公开方法，供Controller调用）
      */
     public void generateNutritionistComment(String recordId, String userId) {
-        // 异步执行，避免阻塞用户操作
-        new Thread(() -> {
-            try {
-                nutritionistCommentService.generateNutritionistComment(recordId, userId);
-            } catch (Exception e) {
-                log.error("异步生成营养师评论失败: {}", e.getMessage(), e);
-            }
-        }).start();
+        // 写入Outbox异步执行，避免阻塞用户操作
+        outboxEventRepository.save(OutboxEvent.create(OutboxEvent.EventType.NUTRITIONIST_COMMENT, recordId, userId));
+    }
+
+    /**
+     * 批量获取膳食记录的点赞状态和点赞/评论数（详情页和通知跳转使用）
+     * 一次 $in 查询点赞、一次覆盖索引的投影查询计数；不存在或当前用户不可见的记录不返回
+     */
+    public List<RecordInteractionResponse> getRecordInteractions(User user, List<String> recordIds) {
+        List<String> distinctIds = recordIds.stream().distinct().collect(Collectors.toList());
+        if (distinctIds.size() > MAX_INTERACTION_BATCH_SIZE) {
+            throw new RuntimeException("一次最多查询" + MAX_INTERACTION_BATCH_SIZE + "条记录");
+        }
+
+        Set<String> familyPublisherIds = new HashSet<>(getFamilyPublisherIds(user));
+        List<MealRecord> visible = mealRecordRepository.findCounters(distinctIds).stream()
+                .filter(record -> record.getUserId().equals(user.getId())
+                        || (record.getVisibility() == RecordVisibility.FAMILY
+                                && familyPublisherIds.contains(record.getUserId())))
+                .collect(Collectors.toList());
+        if (visible.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<String> likedIds = recordLikeRepository.findLikedRecordIds(user.getId(),
+                visible.stream().map(MealRecord::getId).collect(Collectors.toList()));
+        Map<String, MealRecord> recordsById = visible.stream()
+                .collect(Collectors.toMap(MealRecord::getId, record -> record));
+
+        // 按请求顺序返回
+        return distinctIds.stream()
+                .map(recordsById::get)
+                .filter(Objects::nonNull)
+                .map(record -> RecordInteractionResponse.builder()
+                        .recordId(record.getId())
+                        .likedByCurrentUser(likedIds.contains(record.getId()))
+                        .likesCount(record.getLikesCount())
+                        .commentsCount(record.getCommentsCount())
+                        .build())
+                .collect(Collectors.toList());
     }
 
     /**
@@ -482,35 +691,72 @@ public class MealRecordService {
     }
 
     /**
-     * 发送膳食记录通知给子女用户
+     * 标记记录已触发浇水（由 OutboxWorker 在浇水前调用），同一条记录只有第一次调用返回true；
+     * 记录已删除时返回false
      */
-    private void sendMealRecordNotificationToChildren(User elderUser, MealRecord mealRecord) {
-        try {
-            // 获取老人的所有子女链接
-            List<FamilyLink> childrenLinks = familyService.getChildrenLinks(elderUser.getId());
+    public boolean markTreeWatered(String recordId) {
+        return mealRecordRepository.markTreeWatered(recordId, LocalDateTime.now());
+    }
 
-            if (childrenLinks.isEmpty()) {
-                log.info("老人用户 {} 没有关联的子女用户，跳过推送", elderUser.getPhone());
-                return;
-            }
+    /**
+     * 生成记录中直传图片的多尺寸版本并逐张写回记录（由 OutboxWorker 调用，失败时抛出异常以便重试）
+     * 已生成的图片不会重复生成；记录已删除时跳过
+     */
+    public void generateDirectUploadVariants(String recordId) {
+        MealRecord record = mealRecordRepository.findById(recordId).orElse(null);
+        if (record == null || record.getImageVariants() == null) {
+            log.info("膳食记录 {} 不存在或没有图片，跳过生成多尺寸版本", recordId);
+            return;
+        }
 
-            // 获取子女用户ID列表
-            List<String> childUserIds = childrenLinks.stream()
-                    .map(FamilyLink::getChildId)
-                    .collect(Collectors.toList());
+        MealRecord updatedRecord = null;
+        List<ImageVariants> imageVariants = record.getImageVariants();
+        for (int i = 0; i < imageVariants.size(); i++) {
+            ImageVariants current = imageVariants.get(i);
+            if (!ossService.needsDirectUploadVariants(current)) {
+                continue;
+            }
+            ImageVariants generated = ossService.generateDirectUploadVariants(current.getOriginal());
+            MealRecord result = mealRecordRepository.setImageVariants(recordId, i, current.getOriginal(), generated);
+            if (result != null) {
+                updatedRecord = result;
+            }
+        }
 
-            // 获取老人的姓名（用于推送内容）
-            String elderName = getElderDisplayName(elderUser);
+        // 分享墙缓存和增量同步由事件监听器修正
+        if (updatedRecord != null) {
+            domainEventBus.publish(new RecordImagesUpdatedEvent(updatedRecord));
+        }
+    }
 
-            // 发送推送通知
-            jPushService.sendMealRecordNotification(elderName, mealRecord.getId(), childUserIds);
+    /**
+     * 发送膳食记录通知给子女用户（由 OutboxWorker 调用，失败时抛出异常以便重试）
+     */
+    public void sendMealRecordNotificationToChildren(String recordId) {
+        MealRecord mealRecord = getMealRecordById(recordId);
+        if (mealRecord.getVisibility() != RecordVisibility.FAMILY) {
+            log.info("膳食记录 {} 已不是家庭可见，跳过推送", recordId);
+            return;
+        }
+        User elderUser = userService.findById(mealRecord.getUserId())
+                .orElseThrow(() -> new RuntimeException("用户不存在"));
 
-            log.info("成功发送膳食记录推送通知，老人: {}, 子女数量: {}",
-                    elderUser.getPhone(), childUserIds.size());
+        // 获取老人的所有子女用户ID
+        List<String> childUserIds = familyGraphService.getChildIds(elderUser.getId());
 
-        } catch (Exception e) {
-            log.error("发送膳食记录推送通知失败: {}", e.getMessage(), e);
+        if (childUserIds.isEmpty()) {
+            log.info("老人用户 {} 没有关联的子女用户，跳过推送", elderUser.getPhone());
+            return;
         }
+
+        // 获取老人的姓名（用于推送内容）
+        String elderName = getElderDisplayName(elderUser);
+
+        // 发送推送通知
+        jPushService.sendMealRecordNotification(elderName, mealRecord.getId(), childUserIds);
+
+        log.info("成功发送膳食记录推送通知，老人: {}, 子女数量: {}",
+                elderUser.getPhone(), childUserIds.size());
     }
 
     /**
@@ -548,13 +794,8 @@ public class MealRecordService {
             }
 
             // 异步发送评论通知
-            new Thread(() -> {
-                try {
-                    jPushService.sendCommentNotification(commenterName, record.getId(), record.getUserId());
-                } catch (Exception e) {
-                    log.error("发送评论推送通知失败: {}", e.getMessage(), e);
-                }
-            }).start();
+            backgroundTaskService.submitPush("评论通知 " + record.getId(),
+                    () -> jPushService.sendCommentNotification(commenterName, record.getId(), record.getUserId()));
 
         } catch (Exception e) {
             log.error("检查评论通知失败: {}", e.getMessage(), e);
@@ -572,31 +813,32 @@ public class MealRecordService {
                 return;
             }
 
-            // 检查是否已经发送过点赞通知
-            boolean alreadyNotified = likeNotificationHistoryRepository
-                    .existsByRecordIdAndLikerId(record.getId(), liker.getId());
+            // 检查是否已经发送过点赞通知（过滤器判断一定没有通知过时不查询数据库）
+            boolean alreadyNotified = likeNotificationFilterService
+                    .hasNotified(record.getUserId(), record.getId(), liker.getId());
 
             if (alreadyNotified) {
                 log.info("用户 {} 对记录 {} 的点赞通知已发送过，跳过", liker.getPhone(), record.getId());
                 return;
             }
 
-            // 获取点赞者的显示名称
-            String likerName = getLikerDisplayName(liker);
-
-            // 记录通知历史
+            // 记录通知历史，唯一索引冲突说明已经通知过（并发点赞或过滤器尚未包含其他实例的写入）
             LikeNotificationHistory history = LikeNotificationHistory.create(
                     record.getId(), liker.getId(), record.getUserId());
-            likeNotificationHistoryRepository.save(history);
+            try {
+                likeNotificationHistoryRepository.insert(history);
+            } catch (DuplicateKeyException e) {
+                log.info("用户 {} 对记录 {} 的点赞通知已发送过，跳过", liker.getPhone(), record.getId());
+                return;
+            }
+            likeNotificationFilterService.recordNotified(record.getUserId(), record.getId(), liker.getId());
+
+            // 获取点赞者的显示名称
+            String likerName = getLikerDisplayName(liker);
 
             // 异步发送点赞通知
-            new Thread(() -> {
-                try {
-                    jPushService.sendLikeNotification(likerName, record.getId(), record.getUserId());
-                } catch (Exception e) {
-                    log.error("发送点赞推送通知失败: {}", e.getMessage(), e);
-                }
-            }).start();
+            backgroundTaskService.submitPush("点赞通知 " + record.getId(),
+                    () -> jPushService.sendLikeNotification(likerName, record.getId(), record.getUserId()));
 
         } catch (Exception e) {
             log.error("检查点赞通知失败: {}", e.getMessage(), e);
@@ -630,48 +872,13 @@ public class MealRecordService {
      * 获取老人用户通过家庭关系关联的其他老人ID列表
      */
     private List<String> getRelatedElderIds(String elderId) {
-        // 查询该老人的所有子女
-        List<FamilyLink> childrenLinks = familyService.getChildrenLinks(elderId);
-        if (childrenLinks.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        // 获取所有子女ID
-        List<String> childIds = childrenLinks.stream()
-                .map(FamilyLink::getChildId)
-                .distinct()
-                .collect(Collectors.toList());
-
-        // 通过子女查询所有关联的老人
-        List<String> familyParentIds = new ArrayList<>();
-        for (String childId : childIds) {
-            List<FamilyLink> parentLinks = familyService.getParentsLinks(childId);
-            parentLinks.stream()
-                    .map(FamilyLink::getParentId)
-                    .filter(id -> !id.equals(elderId)) // 排除自己
-                    .forEach(familyParentIds::add);
-        }
-
-        // 去重
-        return familyParentIds.stream()
-                .distinct()
-                .collect(Collectors.toList());
+        return familyGraphService.getRelatedElderIds(elderId);
     }
 
     /**
      * 获取老人用户的所有子女ID列表
      */
     private List<String> getRelatedChildIds(String elderId) {
-        // 查询该老人的所有子女
-        List<FamilyLink> childrenLinks = familyService.getChildrenLinks(elderId);
-        if (childrenLinks.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        // 获取所有子女ID并去重
-        return childrenLinks.stream()
-                .map(FamilyLink::getChildId)
-                .distinct()
-                .collect(Collectors.toList());
+        return familyGraphService.getChildIds(elderId);
     }
-}
\ No newline at end of file
+}
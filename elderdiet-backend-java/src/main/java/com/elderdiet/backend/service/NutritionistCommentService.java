@@ -3,8 +3,11 @@ package com.elderdiet.backend.service;
 import com.elderdiet.backend.config.AiConfig;
 import com.elderdiet.backend.dto.AiApiRequest;
 import com.elderdiet.backend.dto.AiApiResponse;
+import com.elderdiet.backend.entity.ImageVariants;
 import com.elderdiet.backend.entity.MealRecord;
 import com.elderdiet.backend.dto.ProfileDTO;
+import com.elderdiet.backend.event.DomainEventBus;
+import com.elderdiet.backend.event.NutritionistCommentAddedEvent;
 import com.elderdiet.backend.repository.MealRecordRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -32,9 +35,10 @@ public class NutritionistCommentService {
     private final ProfileService profileService;
     private final RestTemplate restTemplate;
     private final AiConfig.AiProperties aiProperties;
+    private final DomainEventBus domainEventBus;
 
     /**
-     * 为膳食记录生成营养师评论
+     * 为膳食记录生成营养师评论（已有评论时直接返回，重复执行是安全的）
      */
     public void generateNutritionistComment(String recordId, String userId) {
         try {
@@ -60,16 +64,22 @@ public class NutritionistCommentService {
             // 调用AI API生成评论
             String comment = callAiApiWithMultimodal(systemPrompt, userMessageContent);
 
-            // 保存营养师评论
+            // 只写入评论字段：AI调用期间点赞数、评论数、发布者快照等可能已被修改，不能整文档回写
+            LocalDateTime commentAt = LocalDateTime.now();
+            if (!mealRecordRepository.setNutritionistComment(recordId, comment, commentAt)) {
+                log.info("膳食记录 {} 已被删除或已有营养师评论，丢弃本次生成的评论", recordId);
+                return;
+            }
             record.setNutritionistComment(comment);
-            record.setNutritionistCommentAt(LocalDateTime.now());
-            mealRecordRepository.save(record);
+            record.setNutritionistCommentAt(commentAt);
+            domainEventBus.publish(new NutritionistCommentAddedEvent(record));
 
             log.info("营养师评论生成成功，记录ID: {}", recordId);
 
         } catch (Exception e) {
             log.error("生成营养师评论失败，记录ID: {}, 错误: {}", recordId, e.getMessage(), e);
-            // 不抛出异常，避免影响膳食记录的正常创建
+            // 抛出异常，由 OutboxWorker 按退避策略重试
+            throw new RuntimeException("生成营养师评论失败: " + e.getMessage(), e);
         }
     }
 
@@ -130,9 +140,13 @@ public class NutritionistCommentService {
                 .text(textPrompt.toString())
                 .build());
 
-        // 添加图片（如果有）
+        // 添加图片（如果有），有多尺寸版本时使用分享墙展示图，减少AI识图的下载和处理量
         if (record.getImageUrls() != null && !record.getImageUrls().isEmpty()) {
-            for (String imageUrl : record.getImageUrls()) {
+            List<ImageVariants> variants = record.getImageVariants();
+            for (int i = 0; i < record.getImageUrls().size(); i++) {
+                String imageUrl = variants != null && i < variants.size() && variants.get(i) != null
+                        ? variants.get(i).getFeed()
+                        : record.getImageUrls().get(i);
                 contentItems.add(AiApiRequest.ContentItem.builder()
                         .type("image_url")
                         .imageUrl(AiApiRequest.ImageUrl.builder()
@@ -1,47 +1,151 @@
 package com.elderdiet.backend.service;
 
+import com.aliyun.oss.HttpMethod;
 import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.DeleteObjectsRequest;
+import com.aliyun.oss.model.GeneratePresignedUrlRequest;
+import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.model.ObjectMetadata;
 import com.aliyun.oss.model.PutObjectRequest;
-import com.aliyun.oss.model.PutObjectResult;
 import com.elderdiet.backend.config.OssConfig;
-import lombok.RequiredArgsConstructor;
+import com.elderdiet.backend.dto.PresignedUploadResponse;
+import com.elderdiet.backend.entity.ImageVariants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.IIOImage;
-import javax.imageio.ImageIO;
-import javax.imageio.ImageWriteParam;
-import javax.imageio.ImageWriter;
-import javax.imageio.stream.ImageOutputStream;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 阿里云OSS服务类
+ * 上传的图片除压缩后的原图外，还在同一目录下保存分享墙展示图（xxx_feed.jpg）和缩略图（xxx_thumbnail.jpg），
+ * 删除原图时一并删除这两个版本。相同内容的图片按SHA-256去重（见 UploadIndexService），
+ * 删除时只能释放自己持有的引用，没有其他引用才删除对象；不在去重索引中的图片按对象路径中的上传者判断归属。
+ * 客户端也可以申请预签名URL直接上传到OSS（图片数据不经过应用服务器），直传的图片先只使用原图URL，
+ * 多尺寸版本由 Outbox 事件在图片处理线程池中生成，生成后再写回膳食记录。
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class OssService {
 
     private final OSS ossClient;
     private final OssConfig.OssProperties ossProperties;
+    private final ImageProcessingService imageProcessingService;
+    private final ImageWorkerPool imageWorkerPool;
+    private final UploadIndexService uploadIndexService;
+    private final Timer putTimer;
+    private final Counter directVariantsFailedCounter;
+
+    private static final String FEED_SUFFIX = "_feed";
+    private static final String THUMBNAIL_SUFFIX = "_thumbnail";
+    private static final String DIRECT_UPLOAD_DIR = "direct/";
+    private static final String USER_UPLOAD_DIR = "users/";
+
+    public OssService(OSS ossClient, OssConfig.OssProperties ossProperties,
+            ImageProcessingService imageProcessingService, ImageWorkerPool imageWorkerPool,
+            UploadIndexService uploadIndexService, MeterRegistry meterRegistry) {
+        this.ossClient = ossClient;
+        this.ossProperties = ossProperties;
+        this.imageProcessingService = imageProcessingService;
+        this.imageWorkerPool = imageWorkerPool;
+        this.uploadIndexService = uploadIndexService;
+        this.putTimer = ImageProcessingService.stageTimer("put", meterRegistry);
+        this.directVariantsFailedCounter = Counter.builder("image.direct.variants.failed")
+                .description("直传图片生成多尺寸版本失败的次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 并行上传多张图片（跳过空文件），按传入顺序返回各图片的多尺寸版本
+     * 在图片处理线程池中执行，等待全部完成的时间有上限；任一图片失败时删除本批已上传的图片。
+     * 失败后仍在上传中的任务不会被中断，完成时发现本批已中止则删除自己上传的图片（并释放去重引用）
+     */
+    public List<ImageVariants> uploadFiles(List<MultipartFile> files, String userId) {
+        List<MultipartFile> nonEmpty = files.stream()
+                .filter(file -> file != null && !file.isEmpty())
+                .toList();
+        if (nonEmpty.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (nonEmpty.size() == 1) {
+            return new ArrayList<>(List.of(uploadImage(nonEmpty.get(0), userId)));
+        }
 
-    // 图片压缩质量 (0.0-1.0)
-    private static final float IMAGE_QUALITY = 0.7f;
+        // 已上传、尚未被清理的图片；从队列中移除某个URL的一方负责删除它，保证每张图片只删除一次
+        Queue<String> uploaded = new ConcurrentLinkedQueue<>();
+        AtomicBoolean aborted = new AtomicBoolean(false);
+        List<Callable<ImageVariants>> tasks = new ArrayList<>();
+        for (MultipartFile file : nonEmpty) {
+            tasks.add(() -> {
+                if (aborted.get()) {
+                    throw new RuntimeException("批量上传已中止");
+                }
+                ImageVariants variants = uploadImage(file, userId);
+                uploaded.add(variants.getOriginal());
+                if (aborted.get() && uploaded.remove(variants.getOriginal())) {
+                    // 调用方已放弃本批上传，清理已经结束，自己删除
+                    deleteFilesQuietly(List.of(variants.getOriginal()), userId);
+                }
+                return variants;
+            });
+        }
+        try {
+            return imageWorkerPool.invokeAll(tasks, ossProperties.getImage().getUploadTimeoutMs());
+        } catch (RuntimeException e) {
+            aborted.set(true);
+            List<String> toDelete = new ArrayList<>();
+            for (String url = uploaded.poll(); url != null; url = uploaded.poll()) {
+                toDelete.add(url);
+            }
+            log.error("批量上传图片失败，清理已上传的 {} 张图片: {}", toDelete.size(), e.getMessage());
+            deleteFilesQuietly(toDelete, userId);
+            throw e;
+        }
+    }
+
+    /**
+     * 清理已上传的图片（后续步骤失败时调用），删除失败只记录日志
+     */
+    public void deleteFilesQuietly(List<String> fileUrls, String userId) {
+        for (String url : fileUrls) {
+            try {
+                deleteFile(url, userId);
+            } catch (Exception deleteError) {
+                log.warn("清理图片失败: {}", url);
+            }
+        }
+    }
+
+    /**
+     * 上传文件到OSS，返回压缩后原图的URL
+     */
+    public String uploadFile(MultipartFile file, String userId) {
+        return uploadImage(file, userId).getOriginal();
+    }
 
     /**
-     * 上传文件到OSS
+     * 上传图片到OSS，返回原图、分享墙展示图和缩略图的URL
+     * 原图不超过某个版本的尺寸、或图片无法压缩时，该版本直接使用原图URL；
+     * 相同内容的图片已上传过时跳过压缩和上传，直接返回已有的URL（为该用户计一次引用）
      */
-    public String uploadFile(MultipartFile file) {
+    public ImageVariants uploadImage(MultipartFile file, String userId) {
         try {
             // 验证文件
             if (file == null || file.isEmpty()) {
@@ -54,28 +158,28 @@ public class OssService {
                 throw new RuntimeException("只支持图片格式（JPG、PNG、GIF、WEBP）");
             }
 
-            // 生成唯一文件名
-            String fileName = generateFileName(file.getOriginalFilename());
-
-            // 构建完整的对象键
-            String objectKey = ossProperties.getUploadPath() + fileName;
-
-            // 压缩图片
-            InputStream compressedImageStream = compressImage(file);
-
-            // 上传压缩后的文件
-            PutObjectRequest putObjectRequest = new PutObjectRequest(
-                    ossProperties.getBucketName(),
-                    objectKey,
-                    compressedImageStream);
-
-            PutObjectResult result = ossClient.putObject(putObjectRequest);
+            if (!ossProperties.getImage().isDedupEnabled()) {
+                return storeImage(file, contentType, userId);
+            }
 
-            // 构建文件访问URL
-            String fileUrl = ossProperties.getBaseUrl() + "/" + objectKey;
+            // 按内容哈希查找已上传的相同图片
+            String hash;
+            try (InputStream source = file.getInputStream()) {
+                hash = UploadIndexService.sha256(source);
+            }
+            ImageVariants existing = uploadIndexService.acquire(hash, userId);
+            if (existing != null) {
+                return existing;
+            }
 
-            log.info("压缩图片上传成功: {}", fileUrl);
-            return fileUrl;
+            ImageVariants stored = storeImage(file, contentType, userId);
+            ImageVariants registered = uploadIndexService.register(hash, userId, stored, file.getSize(),
+                    contentType);
+            if (registered != stored) {
+                // 相同内容被并发上传且对方先登记，删除本次上传的对象
+                deleteObjects(stored.getOriginal());
+            }
+            return registered;
 
         } catch (IOException e) {
             log.error("文件上传失败: {}", e.getMessage());
@@ -84,54 +188,181 @@ public class OssService {
     }
 
     /**
-     * 压缩图片
-     * 
-     * @param file 原图片
-     * @return 压缩后的图片输入流
-     * @throws IOException IO异常
+     * 压缩并上传各尺寸版本（对象键位于上传者的目录下）
      */
-    private InputStream compressImage(MultipartFile file) throws IOException {
-        // 读取原图片
-        BufferedImage originalImage = ImageIO.read(file.getInputStream());
+    private ImageVariants storeImage(MultipartFile file, String contentType, String userId) throws IOException {
+        // 生成唯一文件名
+        String fileName = generateFileName(file.getOriginalFilename());
 
-        // 如果文件不是图片格式，直接返回原文件流
-        if (originalImage == null) {
-            return file.getInputStream();
+        // 构建完整的对象键
+        String objectKey = ossProperties.getUploadPath() + USER_UPLOAD_DIR + userId + "/" + fileName;
+
+        // 一次解码生成各尺寸版本并上传：压缩结果在池化缓冲区中，无法压缩时上传原文件
+        ImageProcessingService.CompressedVariants compressed;
+        try (InputStream source = file.getInputStream()) {
+            compressed = imageProcessingService.compressVariants(source, getImageFormatName(contentType));
+        }
+        if (compressed == null) {
+            try (InputStream original = file.getInputStream()) {
+                putObject(objectKey, original, file.getSize(), contentType);
+            }
+            String fileUrl = toUrl(objectKey);
+            log.info("图片上传成功（未压缩）: {}", fileUrl);
+            return ImageVariants.single(fileUrl);
+        }
+
+        try (compressed) {
+            String originalUrl = putImage(objectKey, compressed.getOriginal(), contentType);
+            String feedUrl = compressed.getFeed() != null
+                    ? putImage(variantKey(objectKey, FEED_SUFFIX), compressed.getFeed(), contentType)
+                    : originalUrl;
+            String thumbnailUrl = compressed.getThumbnail() != null
+                    ? putImage(variantKey(objectKey, THUMBNAIL_SUFFIX), compressed.getThumbnail(), contentType)
+                    : feedUrl;
+
+            log.info("压缩图片上传成功: {}", originalUrl);
+            return new ImageVariants(thumbnailUrl, feedUrl, originalUrl);
+        }
+    }
+
+    /**
+     * 申请直传URL：客户端用 PUT 直接上传到OSS，对象键位于该用户的直传目录下
+     *
+     * @param contentType 图片类型，上传时必须使用相同的 Content-Type
+     */
+    public PresignedUploadResponse presignUpload(String userId, String contentType) {
+        OssConfig.OssProperties.DirectUpload config = ossProperties.getDirectUpload();
+        if (!config.isEnabled()) {
+            throw new RuntimeException("暂不支持直传图片，请使用上传接口");
+        }
+        if (!isValidImageType(contentType)) {
+            throw new RuntimeException("只支持图片格式（JPG、PNG、GIF、WEBP）");
         }
 
-        // 获取图片格式
-        String formatName = getImageFormatName(file.getContentType());
+        // 扩展名按图片类型生成，不使用客户端提供的文件名
+        String objectKey = directUploadDir(userId) + generateFileName("." + getImageFormatName(contentType));
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(config.getExpirySeconds());
+
+        GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(ossProperties.getBucketName(),
+                objectKey, HttpMethod.PUT);
+        request.setExpiration(Date.from(expiresAt.atZone(ZoneId.systemDefault()).toInstant()));
+        request.setContentType(contentType);
+
+        return PresignedUploadResponse.builder()
+                .uploadUrl(ossClient.generatePresignedUrl(request).toString())
+                .objectKey(objectKey)
+                .contentType(contentType)
+                .expiresAt(expiresAt)
+                .build();
+    }
 
-        // 输出流
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    /**
+     * 完成直传：校验对象已上传、类型和大小符合要求，返回所有版本都是原图URL的图片
+     * 多尺寸版本需要在图片关联到膳食记录后通过 generateDirectUploadVariants 生成，生成前客户端使用原图
+     */
+    public ImageVariants completeDirectUpload(String userId, String objectKey) {
+        if (objectKey == null || !objectKey.startsWith(directUploadDir(userId)) || objectKey.contains("..")) {
+            throw new RuntimeException("无效的上传对象");
+        }
 
-        // 使用ImageWriter进行压缩
-        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
-        if (!writers.hasNext()) {
-            // 如果没有合适的writer，返回原文件流
-            return file.getInputStream();
+        ObjectMetadata metadata;
+        try {
+            metadata = ossClient.getObjectMetadata(ossProperties.getBucketName(), objectKey);
+        } catch (OSSException e) {
+            if (OSSErrorCode.NO_SUCH_KEY.equals(e.getErrorCode())) {
+                throw new RuntimeException("图片尚未上传完成");
+            }
+            throw new RuntimeException("图片上传校验失败: " + e.getMessage());
         }
 
-        ImageWriter writer = writers.next();
-        ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream);
-        writer.setOutput(imageOutputStream);
+        String contentType = metadata.getContentType();
+        long maxBytes = ossProperties.getDirectUpload().getMaxBytes();
+        if (!isValidImageType(contentType) || metadata.getContentLength() > maxBytes) {
+            ossClient.deleteObject(ossProperties.getBucketName(), objectKey);
+            throw new RuntimeException(isValidImageType(contentType)
+                    ? "图片不能超过 " + maxBytes / (1024 * 1024) + "MB"
+                    : "只支持图片格式（JPG、PNG、GIF、WEBP）");
+        }
 
-        ImageWriteParam param = writer.getDefaultWriteParam();
+        String originalUrl = toUrl(objectKey);
+        log.info("直传图片上传完成: {}，大小 {} 字节", originalUrl, metadata.getContentLength());
+        return ImageVariants.single(originalUrl);
+    }
+
+    /**
+     * 是否是尚未生成多尺寸版本的直传图片
+     */
+    public boolean needsDirectUploadVariants(ImageVariants variants) {
+        String original = variants != null ? variants.getOriginal() : null;
+        return original != null
+                && original.startsWith(toUrl(ossProperties.getUploadPath() + DIRECT_UPLOAD_DIR))
+                && original.equals(variants.getFeed());
+    }
 
-        // 对JPEG格式的图片进行压缩
-        if (param.canWriteCompressed() && "jpg".equals(formatName)) {
-            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
-            param.setCompressionQuality(IMAGE_QUALITY);
+    /**
+     * 从OSS读取直传的原图生成展示图和缩略图并上传（重复执行会覆盖同名对象）
+     * 原图不超过某个版本的尺寸或无法解码时，该版本使用原图URL；读取或上传失败时抛出异常以便重试
+     */
+    public ImageVariants generateDirectUploadVariants(String originalUrl) {
+        String objectKey = originalUrl.substring(ossProperties.getBaseUrl().length() + 1);
+        try (OSSObject object = ossClient.getObject(ossProperties.getBucketName(), objectKey);
+                InputStream source = object.getObjectContent()) {
+            String contentType = object.getObjectMetadata().getContentType();
+            try (ImageProcessingService.CompressedVariants compressed = imageProcessingService.compressVariants(
+                    source, getImageFormatName(contentType), false)) {
+                if (compressed == null) {
+                    log.warn("直传图片无法解码，所有版本使用原图: {}", originalUrl);
+                    return ImageVariants.single(originalUrl);
+                }
+                String feedUrl = compressed.getFeed() != null
+                        ? putImage(variantKey(objectKey, FEED_SUFFIX), compressed.getFeed(), contentType)
+                        : originalUrl;
+                String thumbnailUrl = compressed.getThumbnail() != null
+                        ? putImage(variantKey(objectKey, THUMBNAIL_SUFFIX), compressed.getThumbnail(), contentType)
+                        : feedUrl;
+                log.info("直传图片多尺寸版本生成完成: {}", originalUrl);
+                return new ImageVariants(thumbnailUrl, feedUrl, originalUrl);
+            }
+        } catch (IOException | RuntimeException e) {
+            directVariantsFailedCounter.increment();
+            log.error("直传图片多尺寸版本生成失败: {}，{}", originalUrl, e.getMessage());
+            throw new RuntimeException("生成图片多尺寸版本失败: " + e.getMessage());
         }
+    }
 
-        writer.write(null, new IIOImage(originalImage, null, null), param);
+    private String directUploadDir(String userId) {
+        return ossProperties.getUploadPath() + DIRECT_UPLOAD_DIR + userId + "/";
+    }
+
+    private String putImage(String objectKey, ImageProcessingService.CompressedImage image, String contentType) {
+        putObject(objectKey, image.getInputStream(), image.getSize(), contentType);
+        return toUrl(objectKey);
+    }
 
-        // 关闭资源
-        writer.dispose();
-        imageOutputStream.close();
+    /**
+     * 上传对象，指定长度后SDK直接按流读取，不会再缓存一份数据
+     */
+    private void putObject(String objectKey, InputStream content, long contentLength, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(contentLength);
+        metadata.setContentType(contentType);
+        putTimer.record(() -> ossClient.putObject(
+                new PutObjectRequest(ossProperties.getBucketName(), objectKey, content, metadata)));
+    }
 
-        // 返回压缩后的输入流
-        return new ByteArrayInputStream(outputStream.toByteArray());
+    private String toUrl(String objectKey) {
+        return ossProperties.getBaseUrl() + "/" + objectKey;
+    }
+
+    /**
+     * 图片版本的对象键：在扩展名前加后缀（xxx.jpg -> xxx_feed.jpg）
+     */
+    static String variantKey(String objectKey, String suffix) {
+        int dot = objectKey.lastIndexOf('.');
+        if (dot <= objectKey.lastIndexOf('/')) {
+            return objectKey + suffix;
+        }
+        return objectKey.substring(0, dot) + suffix + objectKey.substring(dot);
     }
 
     /**
@@ -192,20 +423,32 @@ public class OssService {
     }
 
     /**
-     * 删除文件
+     * 删除用户上传的文件（相同内容的图片还有其他引用时只释放该用户的引用，不删除对象）
+     * 去重索引中的图片要求该用户持有引用；不在索引中的图片要求对象位于该用户的上传目录或直传目录下
      */
-    public void deleteFile(String fileUrl) {
+    public void deleteFile(String fileUrl, String userId) {
         try {
             if (fileUrl == null || !fileUrl.startsWith(ossProperties.getBaseUrl())) {
                 log.warn("无效的文件URL: {}", fileUrl);
                 return;
             }
 
-            // 从URL中提取对象键
-            String objectKey = fileUrl.substring(ossProperties.getBaseUrl().length() + 1);
+            UploadIndexService.ReleaseResult released = ossProperties.getImage().isDedupEnabled()
+                    ? uploadIndexService.release(fileUrl, userId)
+                    : UploadIndexService.ReleaseResult.NOT_INDEXED;
+            if (released == UploadIndexService.ReleaseResult.KEEP) {
+                return;
+            }
+            if (released == UploadIndexService.ReleaseResult.NOT_INDEXED) {
+                String objectKey = fileUrl.substring(ossProperties.getBaseUrl().length() + 1);
+                boolean owned = objectKey.startsWith(ossProperties.getUploadPath() + USER_UPLOAD_DIR + userId + "/")
+                        || objectKey.startsWith(directUploadDir(userId));
+                if (!owned || objectKey.contains("..")) {
+                    throw new RuntimeException("无权删除此图片");
+                }
+            }
 
-            // 删除文件
-            ossClient.deleteObject(ossProperties.getBucketName(), objectKey);
+            deleteObjects(fileUrl);
 
             log.info("文件删除成功: {}", fileUrl);
 
@@ -214,4 +457,18 @@ public class OssService {
             throw new RuntimeException("文件删除失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 删除原图及其多尺寸版本（早期上传的图片没有这些版本，删除不存在的对象不会报错）
+     */
+    private void deleteObjects(String fileUrl) {
+        // 从URL中提取对象键
+        String objectKey = fileUrl.substring(ossProperties.getBaseUrl().length() + 1);
+
+        DeleteObjectsRequest request = new DeleteObjectsRequest(ossProperties.getBucketName())
+                .withKeys(List.of(objectKey, variantKey(objectKey, FEED_SUFFIX),
+                        variantKey(objectKey, THUMBNAIL_SUFFIX)))
+                .withQuiet(true);
+        ossClient.deleteObjects(request);
+    }
 }
\ No newline at end of file
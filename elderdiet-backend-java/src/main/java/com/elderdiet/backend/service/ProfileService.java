@@ -1,10 +1,15 @@
 package com.elderdiet.backend.service;
 
+import com.elderdiet.backend.entity.OutboxEvent;
 import com.elderdiet.backend.entity.Profile;
 import com.elderdiet.backend.entity.ChronicCondition;
+import com.elderdiet.backend.entity.ImageVariants;
 import com.elderdiet.backend.dto.ProfileDTO;
 import com.elderdiet.backend.dto.ChronicConditionOptionDTO;
 import com.elderdiet.backend.entity.UserRole;
+import com.elderdiet.backend.event.DomainEventBus;
+import com.elderdiet.backend.event.ProfileUpdatedEvent;
+import com.elderdiet.backend.repository.OutboxEventRepository;
 import com.elderdiet.backend.repository.ProfileRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,9 +17,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -26,6 +35,8 @@ import java.util.stream.Collectors;
 public class ProfileService {
 
     private final ProfileRepository profileRepository;
+    private final DomainEventBus domainEventBus;
+    private final OutboxEventRepository outboxEventRepository;
 
     /**
      * 根据用户ID获取健康档案
@@ -44,6 +55,18 @@ public class ProfileService {
         return convertToDTO(profile);
     }
 
+    /**
+     * 根据用户ID列表批量获取健康档案（一次$in查询），返回 userId -> ProfileDTO 映射
+     * 没有档案的用户不会出现在结果中
+     */
+    public Map<String, ProfileDTO> getProfilesByUserIds(Collection<String> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return profileRepository.findByUserIdIn(userIds).stream()
+                .collect(Collectors.toMap(Profile::getUserId, this::convertToDTO, (a, b) -> a));
+    }
+
     /**
      * 创建健康档案
      */
@@ -75,12 +98,23 @@ public class ProfileService {
         Profile existingProfile = profileRepository.findByUserId(userId)
                 .orElseThrow(() -> new RuntimeException("健康档案不存在"));
 
+        String oldName = existingProfile.getName();
+        String oldAvatarUrl = existingProfile.getAvatarUrl();
+
         // 更新字段
         updateProfileFields(existingProfile, profileDTO);
 
         Profile updatedProfile = profileRepository.save(existingProfile);
         log.info("健康档案更新成功, userId: {}, profileId: {}", userId, updatedProfile.getId());
 
+        // 姓名会显示在家庭成员的分享墙上
+        boolean publisherInfoChanged = !Objects.equals(oldName, updatedProfile.getName())
+                || !Objects.equals(oldAvatarUrl, updatedProfile.getAvatarUrl());
+        domainEventBus.publish(new ProfileUpdatedEvent(userId, publisherInfoChanged));
+        if (publisherInfoChanged) {
+            schedulePublisherSnapshotUpdate(userId);
+        }
+
         return convertToDTO(updatedProfile);
     }
 
@@ -111,6 +145,13 @@ public class ProfileService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 姓名或头像变化后，通过Outbox异步改写该用户记录和评论中的发布者快照
+     */
+    private void schedulePublisherSnapshotUpdate(String userId) {
+        outboxEventRepository.save(OutboxEvent.create(OutboxEvent.EventType.PUBLISHER_SNAPSHOT, null, userId));
+    }
+
     /**
      * 将Entity转换为DTO
      */
@@ -132,6 +173,7 @@ public class ProfileService {
                                 : new ArrayList<>())
                 .notes(profile.getNotes() != null ? profile.getNotes() : "")
                 .avatarUrl(profile.getAvatarUrl())
+                .avatarVariants(profile.getAvatarVariants())
                 .treeStage(profile.getTreeStage())
                 .wateringProgress(profile.getWateringProgress())
                 .completedTrees(profile.getCompletedTrees())
@@ -182,6 +224,9 @@ public class ProfileService {
         profile.setNotes(dto.getNotes() != null ? dto.getNotes() : "");
         // 头像URL字段可以通过普通更新或专门的头像上传接口更新
         if (dto.getAvatarUrl() != null) {
+            if (!Objects.equals(dto.getAvatarUrl(), profile.getAvatarUrl())) {
+                profile.setAvatarVariants(null); // 直接指定的头像URL没有多尺寸版本
+            }
             profile.setAvatarUrl(dto.getAvatarUrl());
         }
         // 注意：小树相关字段（treeStage, wateringProgress, completedTrees等）
@@ -280,7 +325,7 @@ public class ProfileService {
     }
 
     /**
-     * 内部方法：获取用户档案，绕过权限检查（供FamilyService使用）
+     * 内部方法：获取用户档案，绕过权限检查（供其他服务使用）
      */
     public ProfileDTO getProfileByUserIdInternal(String userId) {
         log.info("内部调用：获取用户健康档案, userId: {}", userId);
@@ -301,16 +346,35 @@ public class ProfileService {
      */
     @Transactional
     public ProfileDTO updateUserAvatar(String userId, String avatarUrl) {
+        return updateUserAvatar(userId, avatarUrl, null);
+    }
+
+    /**
+     * 更新用户头像（上传接口生成的多尺寸版本）
+     */
+    @Transactional
+    public ProfileDTO updateUserAvatar(String userId, ImageVariants avatar) {
+        return updateUserAvatar(userId, avatar.getOriginal(), avatar);
+    }
+
+    private ProfileDTO updateUserAvatar(String userId, String avatarUrl, ImageVariants avatarVariants) {
         log.info("更新用户头像, userId: {}, avatarUrl: {}", userId, avatarUrl);
 
         Profile profile = profileRepository.findByUserId(userId)
                 .orElseThrow(() -> new RuntimeException("健康档案不存在"));
 
+        boolean changed = !Objects.equals(profile.getAvatarUrl(), avatarUrl);
         profile.setAvatarUrl(avatarUrl);
+        profile.setAvatarVariants(avatarVariants);
 
         Profile updatedProfile = profileRepository.save(profile);
         log.info("头像更新成功, userId: {}", userId);
 
+        domainEventBus.publish(new ProfileUpdatedEvent(userId, changed));
+        if (changed) {
+            schedulePublisherSnapshotUpdate(userId);
+        }
+
         return convertToDTO(updatedProfile);
     }
 
@@ -0,0 +1,92 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.dto.ProfileDTO;
+import com.elderdiet.backend.entity.PublisherSnapshot;
+import com.elderdiet.backend.entity.User;
+import com.elderdiet.backend.repository.MealRecordRepository;
+import com.elderdiet.backend.repository.RecordCommentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 发布者信息快照服务
+ * 膳食记录和评论在写入时保存发布者的显示名称和头像，分享墙读取时不再查询用户和档案。
+ * 档案姓名或头像变化后通过 Outbox 异步调用 propagate，把新快照批量写回该用户的记录和评论。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PublisherSnapshotService {
+
+    private final UserService userService;
+    private final ProfileService profileService;
+    private final MealRecordRepository mealRecordRepository;
+    private final RecordCommentRepository recordCommentRepository;
+    private final FeedCacheService feedCacheService;
+
+    /**
+     * 根据用户当前的档案生成快照（优先使用档案姓名，否则使用手机号）
+     */
+    public PublisherSnapshot snapshotOf(User user) {
+        ProfileDTO profile = profileService.getProfilesByUserIds(Collections.singletonList(user.getId()))
+                .get(user.getId());
+        return snapshotOf(user, profile);
+    }
+
+    /**
+     * 根据用户和档案生成快照，版本号取档案的更新时间
+     */
+    public static PublisherSnapshot snapshotOf(User user, ProfileDTO profile) {
+        String username = (profile != null && profile.getName() != null) ? profile.getName() : user.getPhone();
+        long version = (profile != null && profile.getUpdatedAt() != null)
+                ? profile.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : 0L;
+        return PublisherSnapshot.builder()
+                .username(username)
+                .avatar(profile != null ? profile.getAvatarUrl() : null)
+                .nickname(user.getPhone())
+                .version(version)
+                .build();
+    }
+
+    /**
+     * 把用户最新的快照写回其所有记录和评论，并使相关分享墙缓存失效
+     */
+    public void propagate(String userId) {
+        User user = userService.findById(userId).orElse(null);
+        if (user == null) {
+            log.info("用户 {} 已不存在，跳过发布者快照更新", userId);
+            return;
+        }
+
+        PublisherSnapshot snapshot = snapshotOf(user);
+        long records = mealRecordRepository.updatePublisherSnapshot(userId, snapshot);
+        long comments = recordCommentRepository.updateUserSnapshot(userId, snapshot);
+        if (records > 0 || comments > 0) {
+            feedCacheService.invalidatePublisher(userId);
+        }
+        log.info("用户 {} 的发布者快照已更新，记录: {}，评论: {}", userId, records, comments);
+    }
+
+    /**
+     * 为还没有快照的历史记录补写快照
+     *
+     * @return 处理的用户数
+     */
+    public int backfillMissing() {
+        List<String> userIds = mealRecordRepository.findUserIdsWithoutPublisherSnapshot();
+        for (String userId : userIds) {
+            try {
+                propagate(userId);
+            } catch (Exception e) {
+                log.error("用户 {} 的发布者快照回填失败: {}", userId, e.getMessage(), e);
+            }
+        }
+        return userIds.size();
+    }
+}
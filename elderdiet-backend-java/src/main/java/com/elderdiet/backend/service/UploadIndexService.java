@@ -0,0 +1,151 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.entity.ImageVariants;
+import com.elderdiet.backend.entity.UploadedImage;
+import com.elderdiet.backend.repository.UploadedImageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * 上传图片去重服务
+ * 按原文件内容的SHA-256查找已上传的图片：老人重复分享同一张照片、网络不好时客户端重试上传，
+ * 都直接复用已有对象，不再重复压缩和上传。每次上传为上传者计一次引用，用户只能释放自己持有的引用，
+ * 只有引用全部释放才删除OSS对象。
+ * 命中率见 image.upload.dedup 指标。
+ */
+@Slf4j
+@Service
+public class UploadIndexService {
+
+    private static final int HASH_BUFFER_SIZE = 8192;
+
+    private final UploadedImageRepository uploadedImageRepository;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public UploadIndexService(UploadedImageRepository uploadedImageRepository, MeterRegistry meterRegistry) {
+        this.uploadedImageRepository = uploadedImageRepository;
+        this.hitCounter = dedupCounter("hit", meterRegistry);
+        this.missCounter = dedupCounter("miss", meterRegistry);
+    }
+
+    private static Counter dedupCounter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("image.upload.dedup")
+                .description("按内容哈希查找已上传图片的结果")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 流式计算SHA-256（按块读取，不把整个文件读入内存）
+     *
+     * @param source 原文件数据（由调用方关闭）
+     * @return 十六进制哈希值
+     */
+    public static String sha256(InputStream source) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("不支持SHA-256", e);
+        }
+        byte[] buffer = new byte[HASH_BUFFER_SIZE];
+        int read;
+        while ((read = source.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 释放引用的结果
+     */
+    public enum ReleaseResult {
+        DELETE, // 没有其他引用，可以删除OSS中的对象
+        KEEP, // 仍有其他引用，保留对象
+        NOT_INDEXED // 不在索引中（早期图片、直传图片或未开启去重时上传），由调用方按对象路径判断归属
+    }
+
+    /**
+     * 用户引用已上传的相同内容的图片
+     *
+     * @return 已有图片的各尺寸版本，没有上传过时返回null
+     */
+    public ImageVariants acquire(String hash, String userId) {
+        UploadedImage existing = uploadedImageRepository.acquire(hash, userId);
+        if (existing == null) {
+            missCounter.increment();
+            return null;
+        }
+        hitCounter.increment();
+        log.info("图片内容已上传过，复用: {}，引用次数 {}", existing.getVariants().getOriginal(), existing.getRefCount());
+        return existing.getVariants();
+    }
+
+    /**
+     * 登记用户新上传的图片（引用次数为1）
+     * 相同内容被并发上传、其他请求先登记时改为引用已登记的图片
+     *
+     * @return 应使用的各尺寸版本；与传入的不是同一个对象时，调用方需要删除自己刚上传的对象
+     */
+    public ImageVariants register(String hash, String userId, ImageVariants variants, long size,
+            String contentType) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            uploadedImageRepository.insert(UploadedImage.builder()
+                    .id(hash)
+                    .variants(variants)
+                    .refCount(1)
+                    .references(Map.of(userId, 1))
+                    .size(size)
+                    .contentType(contentType)
+                    .createdAt(now)
+                    .lastReferencedAt(now)
+                    .build());
+            return variants;
+        } catch (DuplicateKeyException e) {
+            UploadedImage existing = uploadedImageRepository.acquire(hash, userId);
+            if (existing == null) {
+                // 已登记的图片正在被删除，本次上传的对象不登记，也就不会被去重复用
+                log.warn("相同内容的图片正在删除，本次上传不登记: {}", variants.getOriginal());
+                return variants;
+            }
+            log.info("相同内容的图片已被并发上传，改为引用: {}", existing.getVariants().getOriginal());
+            return existing.getVariants();
+        }
+    }
+
+    /**
+     * 释放用户持有的一次引用
+     *
+     * @param originalUrl 原图URL
+     * @throws RuntimeException 图片在索引中但该用户没有持有引用
+     */
+    public ReleaseResult release(String originalUrl, String userId) {
+        UploadedImage released = uploadedImageRepository.releaseByOriginalUrl(originalUrl, userId);
+        if (released == null) {
+            if (uploadedImageRepository.existsByVariantsOriginal(originalUrl)) {
+                throw new RuntimeException("无权删除此图片");
+            }
+            return ReleaseResult.NOT_INDEXED;
+        }
+        if (released.getRefCount() > 0) {
+            log.info("图片仍有 {} 个引用，保留: {}", released.getRefCount(), originalUrl);
+            return ReleaseResult.KEEP;
+        }
+        return uploadedImageRepository.removeIfUnreferenced(released.getId())
+                ? ReleaseResult.DELETE
+                : ReleaseResult.KEEP;
+    }
+}
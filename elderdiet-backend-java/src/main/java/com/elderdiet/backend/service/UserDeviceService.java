@@ -5,6 +5,8 @@ import com.elderdiet.backend.dto.PushSettingsRequest;
 import com.elderdiet.backend.dto.UserDeviceResponse;
 import com.elderdiet.backend.entity.User;
 import com.elderdiet.backend.entity.UserDevice;
+import com.elderdiet.backend.event.DeviceRegisteredEvent;
+import com.elderdiet.backend.event.DomainEventBus;
 import com.elderdiet.backend.repository.UserDeviceRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,6 +29,7 @@ import java.util.ArrayList;
 public class UserDeviceService {
 
     private final UserDeviceRepository userDeviceRepository;
+    private final DomainEventBus domainEventBus;
 
     /**
      * 注册或更新用户设备
@@ -86,6 +89,8 @@ public class UserDeviceService {
 
         UserDevice savedDevice = userDeviceRepository.save(device);
         log.info("设备注册成功: {}", savedDevice.getId());
+        domainEventBus.publish(new DeviceRegisteredEvent(user.getId(), savedDevice.getId(),
+                savedDevice.getPlatform()));
 
         // 第四步：记录用户当前的设备统计
         logUserDeviceStatistics(user.getId());
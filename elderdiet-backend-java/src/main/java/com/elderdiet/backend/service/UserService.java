@@ -2,6 +2,8 @@ package com.elderdiet.backend.service;
 
 import com.elderdiet.backend.entity.User;
 import com.elderdiet.backend.entity.UserRole;
+import com.elderdiet.backend.event.DomainEventBus;
+import com.elderdiet.backend.event.UserRoleChangedEvent;
 import com.elderdiet.backend.repository.UserRepository;
 import com.elderdiet.backend.repository.FamilyLinkRepository;
 import com.elderdiet.backend.security.JwtAuthenticationToken;
@@ -15,7 +17,12 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 用户服务类
@@ -27,6 +34,7 @@ public class UserService implements UserDetailsService {
 
     private final UserRepository userRepository;
     private final FamilyLinkRepository familyLinkRepository;
+    private final DomainEventBus domainEventBus;
 
     /**
      * Spring Security 用户详情加载
@@ -51,6 +59,17 @@ public class UserService implements UserDetailsService {
         return userRepository.findById(id);
     }
 
+    /**
+     * 根据ID列表批量查找用户（一次$in查询），返回 userId -> User 映射
+     */
+    public Map<String, User> findByIds(Collection<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity(), (a, b) -> a));
+    }
+
     /**
      * 检查手机号是否已存在
      */
@@ -173,6 +192,9 @@ public class UserService implements UserDetailsService {
         user.setRole(newRole);
         User updatedUser = userRepository.save(user);
 
+        // 分享墙内容取决于当前角色
+        domainEventBus.publish(new UserRoleChangedEvent(user.getId(), oldRole, newRole));
+
         log.info("用户 {} 成功切换角色: {} -> {}，保留所有家庭关系数据",
                 user.getPhone(), oldRole, newRole);
 
@@ -0,0 +1,48 @@
+package com.elderdiet.backend.task;
+
+import com.elderdiet.backend.config.FeedConfig;
+import com.elderdiet.backend.service.FamilyClusterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * 家庭簇校准任务
+ * 启动时为历史记录写入家庭簇ID，之后定期全量校准，修正多实例部署时家庭关系图短暂不一致导致的偏差。
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FamilyClusterReconcileTask {
+
+    private final FamilyClusterService familyClusterService;
+    private final FeedConfig.FeedProperties feedProperties;
+
+    /**
+     * 应用启动完成后，按配置执行一次校准
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (feedProperties.getCluster().isReconcileOnStartup()) {
+            reconcile();
+        }
+    }
+
+    /**
+     * 每小时全量校准一次
+     */
+    @Scheduled(fixedDelayString = "${feed.cluster.reconcile-interval-ms:3600000}",
+            initialDelayString = "${feed.cluster.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        log.info("开始执行家庭簇校准任务...");
+        try {
+            long modified = familyClusterService.reconcileAll();
+            log.info("家庭簇校准任务执行完毕，改写 {} 条记录", modified);
+        } catch (Exception e) {
+            log.error("家庭簇校准任务执行失败: {}", e.getMessage(), e);
+        }
+    }
+}
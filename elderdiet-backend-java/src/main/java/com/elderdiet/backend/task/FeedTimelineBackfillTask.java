@@ -0,0 +1,41 @@
+package com.elderdiet.backend.task;
+
+import com.elderdiet.backend.config.FeedConfig;
+import com.elderdiet.backend.service.FeedTimelineService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * 分享墙时间线回填任务
+ * 根据现有的 meal_records 和 family_links 重建所有用户的时间线，
+ * 用于首次开启时间线读取，或修复写扩散失败导致的时间线缺失。
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeedTimelineBackfillTask {
+
+    private final FeedTimelineService feedTimelineService;
+    private final FeedConfig.FeedProperties feedProperties;
+
+    /**
+     * 应用启动完成后，按配置执行一次回填
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!feedProperties.getTimeline().isBackfillOnStartup()) {
+            return;
+        }
+
+        log.info("开始执行分享墙时间线回填任务...");
+        try {
+            int rebuilt = feedTimelineService.rebuildAllTimelines();
+            log.info("分享墙时间线回填任务执行完毕，重建 {} 个用户", rebuilt);
+        } catch (Exception e) {
+            log.error("分享墙时间线回填任务执行失败: {}", e.getMessage(), e);
+        }
+    }
+}
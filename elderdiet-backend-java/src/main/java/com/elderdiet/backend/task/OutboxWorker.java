@@ -0,0 +1,216 @@
+package com.elderdiet.backend.task;
+
+import com.elderdiet.backend.config.AsyncConfig;
+import com.elderdiet.backend.config.OutboxConfig;
+import com.elderdiet.backend.entity.OutboxEvent;
+import com.elderdiet.backend.entity.User;
+import com.elderdiet.backend.repository.OutboxEventRepository;
+import com.elderdiet.backend.service.BackgroundTaskService;
+import com.elderdiet.backend.service.GamificationService;
+import com.elderdiet.backend.service.ImageWorkerPool;
+import com.elderdiet.backend.service.MealRecordService;
+import com.elderdiet.backend.service.NutritionistCommentService;
+import com.elderdiet.backend.service.PublisherSnapshotService;
+import com.elderdiet.backend.service.UserService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outbox 事件执行任务
+ * 定时领取到期的事件（带租约），浇水和快照改写直接执行（浇水先在记录上做条件标记，租约过期被重新领取时不会重复浇水），推送交给推送线程池，
+ * 营养师评论按小批量交给AI评论线程池，直传图片的多尺寸版本交给图片处理线程池。失败的事件按指数退避重试，超过最大次数后标记为失败。
+ */
+@Slf4j
+@Service
+public class OutboxWorker {
+
+    private static final Set<OutboxEvent.EventType> INLINE_TYPES = EnumSet.of(
+            OutboxEvent.EventType.WATER_TREE, OutboxEvent.EventType.PUBLISHER_SNAPSHOT);
+    private static final Set<OutboxEvent.EventType> PUSH_TYPES = EnumSet.of(OutboxEvent.EventType.FAMILY_PUSH);
+    private static final Set<OutboxEvent.EventType> AI_TYPES = EnumSet.of(
+            OutboxEvent.EventType.NUTRITIONIST_COMMENT);
+    private static final Set<OutboxEvent.EventType> IMAGE_TYPES = EnumSet.of(OutboxEvent.EventType.IMAGE_VARIANTS);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxConfig.OutboxProperties outboxProperties;
+    private final AsyncConfig.AsyncProperties asyncProperties;
+    private final BackgroundTaskService backgroundTaskService;
+    private final ImageWorkerPool imageWorkerPool;
+    private final GamificationService gamificationService;
+    private final MealRecordService mealRecordService;
+    private final NutritionistCommentService nutritionistCommentService;
+    private final PublisherSnapshotService publisherSnapshotService;
+    private final UserService userService;
+    private final MeterRegistry meterRegistry;
+
+    // 租约持有者标识：进程名 + 随机后缀，区分同一主机上的多个实例
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "-"
+            + UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicInteger aiBatchesInFlight = new AtomicInteger();
+
+    public OutboxWorker(OutboxEventRepository outboxEventRepository, OutboxConfig.OutboxProperties outboxProperties,
+            AsyncConfig.AsyncProperties asyncProperties, BackgroundTaskService backgroundTaskService,
+            ImageWorkerPool imageWorkerPool, GamificationService gamificationService, MealRecordService mealRecordService,
+            NutritionistCommentService nutritionistCommentService,
+            PublisherSnapshotService publisherSnapshotService, UserService userService, MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxProperties = outboxProperties;
+        this.asyncProperties = asyncProperties;
+        this.backgroundTaskService = backgroundTaskService;
+        this.imageWorkerPool = imageWorkerPool;
+        this.gamificationService = gamificationService;
+        this.mealRecordService = mealRecordService;
+        this.nutritionistCommentService = nutritionistCommentService;
+        this.publisherSnapshotService = publisherSnapshotService;
+        this.userService = userService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 每2秒拉取一次到期的事件
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:2000}")
+    public void poll() {
+        if (!outboxProperties.isWorkerEnabled()) {
+            return;
+        }
+        try {
+            dispatchInline();
+            dispatchPushes();
+            dispatchAiComments();
+            dispatchImageVariants();
+        } catch (Exception e) {
+            log.error("拉取Outbox事件失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 浇水和快照改写只涉及数据库更新，直接在调度线程执行
+     */
+    private void dispatchInline() {
+        claim(INLINE_TYPES, outboxProperties.getBatchSize()).forEach(this::execute);
+    }
+
+    private void dispatchPushes() {
+        for (OutboxEvent event : claim(PUSH_TYPES, outboxProperties.getBatchSize())) {
+            if (!backgroundTaskService.submitPush("outbox推送 " + event.getRecordId(), () -> execute(event))) {
+                outboxEventRepository.release(event.getId(), owner);
+            }
+        }
+    }
+
+    /**
+     * AI评论耗时较长，同时执行的批次数不超过AI线程池的最大线程数，避免领取后在队列里等到租约过期
+     */
+    private void dispatchAiComments() {
+        if (aiBatchesInFlight.get() >= asyncProperties.getAiComment().getMaxSize()) {
+            return;
+        }
+        List<OutboxEvent> batch = claim(AI_TYPES, outboxProperties.getAiBatchSize());
+        if (batch.isEmpty()) {
+            return;
+        }
+        aiBatchesInFlight.incrementAndGet();
+        boolean accepted = backgroundTaskService.submitAiComment("outbox营养师评论 x" + batch.size(), () -> {
+            try {
+                batch.forEach(this::execute);
+            } finally {
+                aiBatchesInFlight.decrementAndGet();
+            }
+        });
+        if (!accepted) {
+            aiBatchesInFlight.decrementAndGet();
+            batch.forEach(event -> outboxEventRepository.release(event.getId(), owner));
+        }
+    }
+
+    /**
+     * 图片解码和缩放占用CPU，交给图片处理线程池；队列已满时释放租约，下次拉取时再领取
+     */
+    private void dispatchImageVariants() {
+        for (OutboxEvent event : claim(IMAGE_TYPES, outboxProperties.getBatchSize())) {
+            if (!imageWorkerPool.submit("outbox图片多尺寸版本 " + event.getRecordId(), () -> execute(event))) {
+                outboxEventRepository.release(event.getId(), owner);
+            }
+        }
+    }
+
+    private List<OutboxEvent> claim(Set<OutboxEvent.EventType> types, int limit) {
+        LocalDateTime leaseExpiresAt = LocalDateTime.now().plusSeconds(outboxProperties.getLeaseSeconds());
+        return outboxEventRepository.claim(types, owner, leaseExpiresAt, limit);
+    }
+
+    /**
+     * 执行单个事件并记录结果
+     */
+    void execute(OutboxEvent event) {
+        try {
+            switch (event.getType()) {
+                case WATER_TREE -> {
+                    User user = userService.findById(event.getUserId())
+                            .orElseThrow(() -> new RuntimeException("用户不存在"));
+                    if (mealRecordService.markTreeWatered(event.getRecordId())) {
+                        gamificationService.waterTree(user);
+                    } else {
+                        log.info("膳食记录 {} 已浇过水或已删除，跳过浇水", event.getRecordId());
+                    }
+                }
+                case FAMILY_PUSH -> mealRecordService.sendMealRecordNotificationToChildren(event.getRecordId());
+                case NUTRITIONIST_COMMENT -> nutritionistCommentService.generateNutritionistComment(
+                        event.getRecordId(), event.getUserId());
+                case PUBLISHER_SNAPSHOT -> publisherSnapshotService.propagate(event.getUserId());
+                case IMAGE_VARIANTS -> mealRecordService.generateDirectUploadVariants(event.getRecordId());
+            }
+            if (!outboxEventRepository.markDone(event.getId(), owner)) {
+                log.warn("Outbox事件 {} 的租约已过期，完成状态未写入", event.getId());
+            }
+            counter(event, "done").increment();
+        } catch (Exception e) {
+            handleFailure(event, e);
+        }
+    }
+
+    private void handleFailure(OutboxEvent event, Exception e) {
+        int attempts = event.getAttempts() != null ? event.getAttempts() : 1;
+        if (attempts >= outboxProperties.getMaxAttempts()) {
+            outboxEventRepository.markFailed(event.getId(), owner, e.getMessage());
+            counter(event, "failed").increment();
+            log.error("Outbox事件 {} ({}) 已执行 {} 次仍失败，不再重试: {}",
+                    event.getId(), event.getType(), attempts, e.getMessage());
+            return;
+        }
+        LocalDateTime nextAttemptAt = LocalDateTime.now().plusSeconds(backoffSeconds(attempts));
+        outboxEventRepository.markRetry(event.getId(), owner, nextAttemptAt, e.getMessage());
+        counter(event, "retry").increment();
+        log.warn("Outbox事件 {} ({}) 第 {} 次执行失败，{} 后重试: {}",
+                event.getId(), event.getType(), attempts, nextAttemptAt, e.getMessage());
+    }
+
+    /**
+     * 指数退避：initialBackoff * 2^(attempts-1)，不超过上限
+     */
+    long backoffSeconds(int attempts) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 20);
+        long delay = (long) outboxProperties.getInitialBackoffSeconds() << shift;
+        return Math.min(delay, outboxProperties.getMaxBackoffSeconds());
+    }
+
+    private Counter counter(OutboxEvent event, String result) {
+        return Counter.builder("outbox.events")
+                .description("Outbox事件执行结果")
+                .tag("type", event.getType().name().toLowerCase())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,40 @@
+package com.elderdiet.backend.task;
+
+import com.elderdiet.backend.config.FeedConfig;
+import com.elderdiet.backend.service.PublisherSnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * 发布者快照回填任务
+ * 为引入快照之前创建的膳食记录补写发布者快照，之后分享墙读取不再需要查询用户和档案。
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PublisherSnapshotBackfillTask {
+
+    private final PublisherSnapshotService publisherSnapshotService;
+    private final FeedConfig.FeedProperties feedProperties;
+
+    /**
+     * 应用启动完成后，按配置执行一次回填
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!feedProperties.isPublisherSnapshotBackfillOnStartup()) {
+            return;
+        }
+
+        log.info("开始执行发布者快照回填任务...");
+        try {
+            int users = publisherSnapshotService.backfillMissing();
+            log.info("发布者快照回填任务执行完毕，处理 {} 个用户", users);
+        } catch (Exception e) {
+            log.error("发布者快照回填任务执行失败: {}", e.getMessage(), e);
+        }
+    }
+}
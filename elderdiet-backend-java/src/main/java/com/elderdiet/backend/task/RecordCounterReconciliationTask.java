@@ -0,0 +1,43 @@
+package com.elderdiet.backend.task;
+
+import com.elderdiet.backend.repository.MealRecordRepository;
+import com.elderdiet.backend.repository.RecordCommentRepository;
+import com.elderdiet.backend.repository.RecordLikeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * 膳食记录计数校准任务
+ * 点赞数和评论数通过 $inc 增量维护，每天按 record_likes 和 record_comments 的实际数量校准一次，
+ * 修正部分失败（例如点赞已写入但计数更新失败）导致的偏差。
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RecordCounterReconciliationTask {
+
+    private final MealRecordRepository mealRecordRepository;
+    private final RecordLikeRepository recordLikeRepository;
+    private final RecordCommentRepository recordCommentRepository;
+
+    /**
+     * 每天凌晨3点半执行计数校准
+     */
+    @Scheduled(cron = "0 30 3 * * ?", zone = "Asia/Shanghai")
+    public void reconcileCounters() {
+        log.info("开始执行膳食记录计数校准任务...");
+        try {
+            Map<String, Integer> likeCounts = recordLikeRepository.countGroupByRecordId();
+            Map<String, Integer> commentCounts = recordCommentRepository.countGroupByRecordId();
+
+            int fixed = mealRecordRepository.reconcileCounters(likeCounts, commentCounts);
+            log.info("膳食记录计数校准任务执行完毕，修正 {} 条记录", fixed);
+        } catch (Exception e) {
+            log.error("膳食记录计数校准任务执行失败: {}", e.getMessage(), e);
+        }
+    }
+}
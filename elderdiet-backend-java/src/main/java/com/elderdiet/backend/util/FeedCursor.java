@@ -0,0 +1,55 @@
+package com.elderdiet.backend.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+
+/**
+ * 分享墙和评论的分页游标
+ * 以 (createdAt, id) 作为键集分页的位置，对客户端编码为不透明的Base64字符串。
+ */
+@Getter
+@AllArgsConstructor
+public class FeedCursor {
+
+    private final LocalDateTime createdAt;
+    private final String id;
+
+    /**
+     * 编码为不透明的游标字符串
+     */
+    public String encode() {
+        long epochMillis = createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        String raw = epochMillis + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标字符串，空字符串表示第一页（返回null）
+     */
+    public static FeedCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            long epochMillis = Long.parseLong(raw.substring(0, separator));
+            String id = raw.substring(separator + 1);
+            if (!ObjectId.isValid(id)) {
+                throw new IllegalArgumentException("invalid id");
+            }
+            LocalDateTime createdAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis),
+                    ZoneId.systemDefault());
+            return new FeedCursor(createdAt, id);
+        } catch (Exception e) {
+            throw new RuntimeException("无效的分页游标");
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.elderdiet.backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+
+/**
+ * 分享墙增量同步令牌
+ * 记录上次同步的时间点，对客户端编码为不透明的Base64字符串。
+ */
+public final class FeedSyncToken {
+
+    private static final String VERSION = "s1";
+
+    private FeedSyncToken() {
+    }
+
+    /**
+     * 编码为不透明的同步令牌
+     */
+    public static String encode(LocalDateTime syncedAt) {
+        long epochMillis = syncedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        String raw = VERSION + ":" + epochMillis;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析同步令牌，空字符串表示还没有同步过（返回null）
+     */
+    public static LocalDateTime decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!raw.startsWith(VERSION + ":")) {
+                throw new IllegalArgumentException("unknown version");
+            }
+            long epochMillis = Long.parseLong(raw.substring(VERSION.length() + 1));
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+        } catch (Exception e) {
+            throw new RuntimeException("无效的同步令牌");
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.elderdiet.backend.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 图片编码缓冲区池
+ * 压缩后的图片直接编码到池化的缓冲区，上传时以缓冲区内部数组构造输入流，不再复制字节。
+ * 用完的缓冲区放回池中复用，池满或缓冲区扩容超过上限时丢弃，避免长期占用大块内存。
+ */
+public class ImageBufferPool {
+
+    private final BlockingQueue<Buffer> idle;
+    private final int initialBytes;
+    private final int maxRetainedBytes;
+
+    public ImageBufferPool(int poolSize, int initialBytes, int maxRetainedBytes) {
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+        this.initialBytes = initialBytes;
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    /**
+     * 取出一个空的缓冲区，池中没有时新建，用完必须调用 release
+     */
+    public Buffer acquire() {
+        Buffer buffer = idle.poll();
+        if (buffer == null) {
+            return new Buffer(initialBytes);
+        }
+        buffer.released = false;
+        return buffer;
+    }
+
+    /**
+     * 池中空闲的缓冲区数量
+     */
+    public int idleCount() {
+        return idle.size();
+    }
+
+    /**
+     * 可复用的字节缓冲区
+     */
+    public class Buffer extends ByteArrayOutputStream {
+
+        private boolean released;
+
+        private Buffer(int initialBytes) {
+            super(initialBytes);
+        }
+
+        /**
+         * 以内部数组构造输入流（不复制），缓冲区释放前有效
+         */
+        public InputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+
+        /**
+         * 当前内部数组的容量（字节）
+         */
+        public int capacity() {
+            return buf.length;
+        }
+
+        /**
+         * 放回池中，重复调用无效
+         */
+        public void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            reset();
+            if (buf.length <= maxRetainedBytes) {
+                idle.offer(this);
+            }
+        }
+    }
+}
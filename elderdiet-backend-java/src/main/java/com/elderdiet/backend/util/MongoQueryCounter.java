@@ -0,0 +1,57 @@
+package com.elderdiet.backend.util;
+
+/**
+ * Mongo往返次数计数器
+ * 基于ThreadLocal，统计当前线程在 start() 与 stop() 之间发出的Mongo命令数，
+ * 用于在分享墙等接口的响应中报告每次请求的查询次数。
+ * 同步驱动在调用线程上执行命令，因此计数结果即为该请求的真实往返次数。
+ */
+public final class MongoQueryCounter {
+
+    private static final ThreadLocal<int[]> COUNTER = new ThreadLocal<>();
+
+    private MongoQueryCounter() {
+    }
+
+    /**
+     * 开始统计（嵌套调用时沿用外层计数）
+     */
+    public static boolean start() {
+        if (COUNTER.get() != null) {
+            return false;
+        }
+        COUNTER.set(new int[1]);
+        return true;
+    }
+
+    /**
+     * 记录一次Mongo命令（由命令监听器调用）
+     */
+    public static void increment() {
+        int[] counter = COUNTER.get();
+        if (counter != null) {
+            counter[0]++;
+        }
+    }
+
+    /**
+     * 当前累计的命令数
+     */
+    public static int current() {
+        int[] counter = COUNTER.get();
+        return counter != null ? counter[0] : 0;
+    }
+
+    /**
+     * 结束统计并返回累计的命令数
+     *
+     * @param owner start() 的返回值，只有最外层的调用者才会真正清除计数
+     */
+    public static int stop(boolean owner) {
+        int count = current();
+        if (owner) {
+            COUNTER.remove();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,139 @@
+package com.elderdiet.backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 可扩展布隆过滤器（Scalable Bloom Filter）
+ * 由一组容量逐级翻倍的布隆过滤器组成，当前一级写满后新建下一级，每一级的误判率按比例收紧，
+ * 总误判率不超过构造时指定的值。mightContain 返回 false 时元素一定不存在；返回 true 时可能误判。
+ * 线程安全。
+ */
+public class ScalableBloomFilter {
+
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+    private static final long MAX_STAGE_CAPACITY = 1 << 24;
+
+    private final int initialCapacity;
+    private final double falsePositiveRate;
+    private final List<Stage> stages = new ArrayList<>();
+    private int size;
+
+    /**
+     * @param initialCapacity   第一级的容量
+     * @param falsePositiveRate 总误判率上限
+     */
+    public ScalableBloomFilter(int initialCapacity, double falsePositiveRate) {
+        if (initialCapacity <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("invalid bloom filter parameters");
+        }
+        this.initialCapacity = initialCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * 添加元素
+     */
+    public synchronized void add(String key) {
+        long hash = hash(key);
+        if (stages.isEmpty() || stages.get(stages.size() - 1).isFull()) {
+            int level = stages.size();
+            long capacity = (long) initialCapacity * (long) Math.pow(GROWTH_FACTOR, level);
+            // 各级误判率构成等比数列 p(1-r), p(1-r)r, ...，总和不超过 p
+            double stageRate = falsePositiveRate * (1 - TIGHTENING_RATIO) * Math.pow(TIGHTENING_RATIO, level);
+            stages.add(new Stage((int) Math.min(capacity, MAX_STAGE_CAPACITY), stageRate));
+        }
+        stages.get(stages.size() - 1).add(hash);
+        size++;
+    }
+
+    /**
+     * 判断元素是否可能存在
+     */
+    public synchronized boolean mightContain(String key) {
+        long hash = hash(key);
+        for (Stage stage : stages) {
+            if (stage.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 已添加的元素个数
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 占用的位数（所有级别合计）
+     */
+    public synchronized long bitCount() {
+        return stages.stream().mapToLong(stage -> stage.numBits).sum();
+    }
+
+    /**
+     * 64位FNV-1a哈希，再经过 MurmurHash3 的 fmix64 打散
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 单级布隆过滤器，用两个32位哈希组合出 numHashes 个位置（Kirsch-Mitzenmacher）
+     */
+    private static class Stage {
+        private final long[] bits;
+        private final int numBits;
+        private final int numHashes;
+        private final int capacity;
+        private int count;
+
+        Stage(int capacity, double falsePositiveRate) {
+            double ln2 = Math.log(2);
+            this.capacity = capacity;
+            this.numBits = (int) Math.max(64, Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2)));
+            this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacity * ln2));
+            this.bits = new long[(numBits + 63) / 64];
+        }
+
+        boolean isFull() {
+            return count >= capacity;
+        }
+
+        void add(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < numHashes; i++) {
+                int index = Math.floorMod(h1 + i * h2, numBits);
+                bits[index >>> 6] |= 1L << index;
+            }
+            count++;
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < numHashes; i++) {
+                int index = Math.floorMod(h1 + i * h2, numBits);
+                if ((bits[index >>> 6] & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.elderdiet.backend.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 流式JSON响应
+ * 与 ApiResponse 输出相同的信封结构（success、message、data、timestamp），
+ * data 部分由调用方通过 JsonGenerator 边读边写，不在内存中构建完整的列表。
+ * 响应头发送后无法再改为错误响应，中途出错时只记录日志并中断输出，客户端会收到不完整的JSON。
+ */
+@Slf4j
+public final class StreamingApiResponse {
+
+    // 与 ApiResponse.timestamp 的 @JsonFormat 保持一致
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+
+    private StreamingApiResponse() {
+    }
+
+    /**
+     * 写入 data 字段的值
+     */
+    @FunctionalInterface
+    public interface DataWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * 成功响应，data 由 dataWriter 写入
+     */
+    public static StreamingResponseBody success(ObjectMapper objectMapper, String message, DataWriter dataWriter) {
+        return outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // 出错时不自动补全括号，避免客户端把被截断的列表当作完整结果
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+                generator.writeStartObject();
+                generator.writeBooleanField("success", true);
+                generator.writeStringField("message", message);
+                generator.writeFieldName("data");
+                dataWriter.write(generator);
+                generator.writeStringField("timestamp", LocalDateTime.now().format(TIMESTAMP_FORMAT));
+                generator.writeEndObject();
+            } catch (IOException | RuntimeException e) {
+                log.error("流式输出响应失败: {}", e.getMessage(), e);
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * 成功响应，data 为数组，元素来自 items（输出完成后关闭）
+     */
+    public static <T> StreamingResponseBody success(ObjectMapper objectMapper, String message,
+            Supplier<Stream<T>> items) {
+        return success(objectMapper, message, generator -> writeArray(generator, items));
+    }
+
+    /**
+     * 把 items 逐个写为JSON数组（输出完成后关闭Stream，释放Mongo游标）
+     */
+    public static <T> void writeArray(JsonGenerator generator, Supplier<Stream<T>> items) throws IOException {
+        generator.writeStartArray();
+        try (Stream<T> stream = items.get()) {
+            stream.forEach(item -> {
+                try {
+                    generator.writeObject(item);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * 把 Stream 按 batchSize 分组，便于按批补充关联数据；关闭返回的 Stream 时关闭源 Stream
+     */
+    public static <T> Stream<List<T>> batched(Stream<T> source, int batchSize) {
+        Iterator<T> iterator = source.iterator();
+        Iterator<List<T>> batches = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public List<T> next() {
+                List<T> batch = new ArrayList<>(batchSize);
+                while (batch.size() < batchSize && iterator.hasNext()) {
+                    batch.add(iterator.next());
+                }
+                return batch;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED), false)
+                .onClose(source::close);
+    }
+}
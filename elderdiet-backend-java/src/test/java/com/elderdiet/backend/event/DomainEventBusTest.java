@@ -0,0 +1,116 @@
+package com.elderdiet.backend.event;
+
+import com.elderdiet.backend.entity.MealRecord;
+import com.elderdiet.backend.service.BackgroundTaskService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 领域事件总线测试类
+ */
+public class DomainEventBusTest {
+
+    @Mock
+    private BackgroundTaskService backgroundTaskService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DomainEventBus domainEventBus;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        domainEventBus = new DomainEventBus(backgroundTaskService, meterRegistry);
+    }
+
+    /**
+     * 测试同步监听器按订阅顺序执行，订阅接口类型可以收到所有实现该接口的事件
+     */
+    @Test
+    void testPublish_ShouldDeliverToMatchingSyncListenersInOrder() {
+        List<String> calls = new ArrayList<>();
+        domainEventBus.subscribe(MealRecordCreatedEvent.class, "first", event -> calls.add("first"));
+        domainEventBus.subscribe(MealRecordEvent.class, "all-records", event -> calls.add("all-records"));
+        domainEventBus.subscribe(FamilyLinkChangedEvent.class, "family", event -> calls.add("family"));
+
+        domainEventBus.publish(new MealRecordCreatedEvent(MealRecord.builder().id("record-1").build()));
+        domainEventBus.publish(new NutritionistCommentAddedEvent(MealRecord.builder().id("record-1").build()));
+
+        assertEquals(Arrays.asList("first", "all-records", "all-records"), calls);
+        assertEquals(1L, meterRegistry.get("domain.events.listener.latency")
+                .tag("listener", "first").tag("mode", "sync").timer().count());
+        assertEquals(2L, meterRegistry.get("domain.events.listener.latency")
+                .tag("listener", "all-records").timer().count());
+        assertEquals(1.0, meterRegistry.get("domain.events.published")
+                .tag("event", "MealRecordCreatedEvent").counter().count());
+        verifyNoInteractions(backgroundTaskService);
+    }
+
+    /**
+     * 测试同一事件类型的发布计数器只注册一次，多次发布累加到同一个计数器
+     */
+    @Test
+    void testPublish_ShouldReusePublishedCounter() {
+        domainEventBus.publish(new ProfileUpdatedEvent("user-1", false));
+        domainEventBus.publish(new ProfileUpdatedEvent("user-2", true));
+
+        assertEquals(1, meterRegistry.find("domain.events.published").tag("event", "ProfileUpdatedEvent")
+                .counters().size());
+        assertEquals(2.0, meterRegistry.get("domain.events.published")
+                .tag("event", "ProfileUpdatedEvent").counter().count());
+    }
+
+    /**
+     * 测试监听器失败时不影响发布方和后续监听器，并记录失败次数
+     */
+    @Test
+    void testPublish_ShouldIsolateListenerFailures() {
+        List<String> calls = new ArrayList<>();
+        domainEventBus.subscribe(ProfileUpdatedEvent.class, "broken", event -> {
+            throw new IllegalStateException("boom");
+        });
+        domainEventBus.subscribe(ProfileUpdatedEvent.class, "cache", event -> calls.add(event.getUserId()));
+
+        assertDoesNotThrow(() -> domainEventBus.publish(new ProfileUpdatedEvent("user-1", true)));
+
+        assertEquals(List.of("user-1"), calls);
+        assertEquals(1.0, meterRegistry.get("domain.events.listener.errors")
+                .tag("listener", "broken").tag("reason", "failed").counter().count());
+    }
+
+    /**
+     * 测试异步监听器提交到线程池执行，队列满时丢弃并计数
+     */
+    @Test
+    void testPublish_ShouldSubmitAsyncListenersAndCountRejections() {
+        List<String> calls = new ArrayList<>();
+        domainEventBus.subscribeAsync(FamilyLinkChangedEvent.class, "cluster",
+                event -> calls.add(event.getParentId()));
+        when(backgroundTaskService.submitDomainEvent(eq("cluster:FamilyLinkChangedEvent"), any()))
+                .thenAnswer(invocation -> {
+                    invocation.<Runnable>getArgument(1).run();
+                    return true;
+                })
+                .thenReturn(false);
+
+        domainEventBus.publish(new FamilyLinkChangedEvent("elder-1", "child-1", true));
+        domainEventBus.publish(new FamilyLinkChangedEvent("elder-2", "child-1", true));
+
+        assertEquals(List.of("elder-1"), calls);
+        assertEquals(1L, meterRegistry.get("domain.events.listener.latency")
+                .tag("listener", "cluster").tag("mode", "async").timer().count());
+        assertEquals(1.0, meterRegistry.get("domain.events.listener.errors")
+                .tag("listener", "cluster").tag("reason", "rejected").counter().count());
+    }
+}
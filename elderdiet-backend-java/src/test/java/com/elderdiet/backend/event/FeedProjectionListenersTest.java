@@ -0,0 +1,90 @@
+package com.elderdiet.backend.event;
+
+import com.elderdiet.backend.entity.UserRole;
+import com.elderdiet.backend.service.BackgroundTaskService;
+import com.elderdiet.backend.service.FamilyClusterService;
+import com.elderdiet.backend.service.FeedCacheService;
+import com.elderdiet.backend.service.FeedChangeService;
+import com.elderdiet.backend.service.FeedEventBroadcaster;
+import com.elderdiet.backend.service.FeedTimelineService;
+import com.elderdiet.backend.service.LikedRecordCacheService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 分享墙派生数据监听器测试类
+ */
+public class FeedProjectionListenersTest {
+
+    @Mock
+    private BackgroundTaskService backgroundTaskService;
+
+    @Mock
+    private FeedChangeService feedChangeService;
+
+    @Mock
+    private FeedTimelineService feedTimelineService;
+
+    @Mock
+    private FeedCacheService feedCacheService;
+
+    @Mock
+    private LikedRecordCacheService likedRecordCacheService;
+
+    @Mock
+    private FeedEventBroadcaster feedEventBroadcaster;
+
+    @Mock
+    private FamilyClusterService familyClusterService;
+
+    private DomainEventBus domainEventBus;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        domainEventBus = new DomainEventBus(backgroundTaskService, new SimpleMeterRegistry());
+        new FeedProjectionListeners(domainEventBus, feedChangeService, feedTimelineService, feedCacheService,
+                likedRecordCacheService, feedEventBroadcaster, familyClusterService).subscribe();
+    }
+
+    /**
+     * 测试切换角色后要求该用户全量刷新增量同步，并使其分享墙缓存失效
+     */
+    @Test
+    void testUserRoleChanged_ShouldRequireResyncAndInvalidateCache() {
+        domainEventBus.publish(new UserRoleChangedEvent("user-1", UserRole.CHILD, UserRole.ELDER));
+
+        verify(feedChangeService).requireResync(List.of("user-1"));
+        verify(feedCacheService).invalidateUsers(List.of("user-1"));
+        verifyNoInteractions(feedTimelineService, familyClusterService);
+    }
+
+    /**
+     * 测试用户注销后按事件中注销前的家庭成员更新增量同步、时间线、家庭簇和缓存，不再读取已更新的关系图
+     */
+    @Test
+    void testUserRemoved_ShouldUpdateProjectionsInOrder() {
+        Set<String> formerFamilyIds = Set.of("child-1");
+        Set<String> formerFamilyMemberIds = Set.of("child-1", "elder-2");
+
+        domainEventBus.publish(new UserRemovedEvent("elder-1", formerFamilyIds, formerFamilyMemberIds));
+
+        InOrder inOrder = inOrder(feedChangeService, feedTimelineService, familyClusterService, feedCacheService);
+        inOrder.verify(feedChangeService).requireResync(formerFamilyMemberIds);
+        inOrder.verify(feedTimelineService).onUserDeleted("elder-1", formerFamilyIds);
+        inOrder.verify(familyClusterService).restampClustersOf(formerFamilyIds);
+        inOrder.verify(feedCacheService).invalidateUsers(argThat(userIds ->
+                Set.copyOf(userIds).equals(Set.of("elder-1", "child-1", "elder-2"))));
+        verify(feedCacheService, never()).invalidatePublisher(anyString());
+    }
+}
@@ -0,0 +1,40 @@
+package com.elderdiet.backend.repository;
+
+import com.elderdiet.backend.entity.RecordVisibility;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分享墙查询范围测试类
+ */
+public class FeedScopeTest {
+
+    /**
+     * 测试家庭簇过滤只作用于家庭成员的记录，自己的记录只按 userId 查询
+     */
+    @Test
+    void testToCriteria_ShouldKeepOwnRecordsOutOfClusterFilter() {
+        Document criteria = new FeedScope("me", List.of("mom", "dad"), "cluster-1").toCriteria().getCriteriaObject();
+
+        List<Document> branches = criteria.getList("$or", Document.class);
+        assertEquals(new Document("userId", "me"), branches.get(0));
+        assertEquals("cluster-1", branches.get(1).get("familyClusterId"));
+        assertEquals(new Document("$in", List.of("mom", "dad")), branches.get(1).get("userId"));
+        assertEquals(RecordVisibility.FAMILY, branches.get(1).get("visibility"));
+        assertFalse(criteria.containsKey("familyClusterId"));
+    }
+
+    /**
+     * 测试没有家庭成员时只查询自己的记录
+     */
+    @Test
+    void testToCriteria_WithoutFamily_ShouldQueryOwnRecordsOnly() {
+        assertEquals(new Document("userId", "me"),
+                new FeedScope("me", List.of(), "cluster-1").toCriteria().getCriteriaObject());
+        assertEquals(new Document("userId", "me"), FeedScope.of("me", List.of()).toCriteria().getCriteriaObject());
+    }
+}
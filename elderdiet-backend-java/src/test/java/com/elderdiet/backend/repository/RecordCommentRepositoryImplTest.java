@@ -0,0 +1,67 @@
+package com.elderdiet.backend.repository;
+
+import com.elderdiet.backend.entity.RecordComment;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 膳食记录评论仓库自定义查询测试类
+ */
+public class RecordCommentRepositoryImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private RecordCommentRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        repository = new RecordCommentRepositoryImpl(mongoTemplate);
+    }
+
+    /**
+     * 测试最新评论聚合：三个排序字段同向（可反向扫描索引），分组时每条记录只保留 perRecord 条
+     */
+    @Test
+    void testFindLatestByRecordIds_ShouldSortByIndexAndKeepFirstNPerRecord() {
+        ArgumentCaptor<Aggregation> captor = ArgumentCaptor.forClass(Aggregation.class);
+        when(mongoTemplate.aggregate(captor.capture(), eq(RecordComment.class), eq(RecordComment.class)))
+                .thenReturn(new AggregationResults<>(Collections.emptyList(), new Document()));
+
+        repository.findLatestByRecordIds(List.of("r1", "r2"), 3);
+
+        List<Document> pipeline = captor.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(new Document("recordId", -1).append("createdAt", -1).append("_id", -1),
+                pipeline.get(1).get("$sort"));
+        Document group = pipeline.get(2).get("$group", Document.class);
+        assertEquals("$recordId", group.get("_id"));
+        assertEquals(new Document("$firstN", new Document("n", 3).append("input", "$$ROOT")),
+                group.get("comments"));
+        assertEquals(new Document("newRoot", "$comments"), pipeline.get(4).get("$replaceRoot"));
+    }
+
+    /**
+     * 测试没有记录或不需要评论时不查询
+     */
+    @Test
+    void testFindLatestByRecordIds_ShouldSkipEmptyInput() {
+        assertTrue(repository.findLatestByRecordIds(Collections.emptyList(), 3).isEmpty());
+        assertTrue(repository.findLatestByRecordIds(List.of("r1"), 0).isEmpty());
+        verifyNoInteractions(mongoTemplate);
+    }
+}
@@ -0,0 +1,83 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.AsyncConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 后台任务执行服务测试类
+ */
+public class BackgroundTaskServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BackgroundTaskService backgroundTaskService;
+
+    @BeforeEach
+    void setUp() {
+        AsyncConfig.AsyncProperties asyncProperties = new AsyncConfig.AsyncProperties();
+        asyncProperties.setPush(new AsyncConfig.AsyncProperties.Pool(1, 1, 1));
+        meterRegistry = new SimpleMeterRegistry();
+        backgroundTaskService = new BackgroundTaskService(asyncProperties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        backgroundTaskService.shutdown();
+    }
+
+    /**
+     * 测试线程和队列都占满时拒绝新任务并计数
+     */
+    @Test
+    void testSubmitPush_ShouldRejectWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(2);
+
+        assertTrue(backgroundTaskService.submitPush("running", () -> {
+            started.countDown();
+            awaitQuietly(release);
+            finished.countDown();
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(backgroundTaskService.submitPush("queued", finished::countDown));
+        assertFalse(backgroundTaskService.submitPush("rejected", finished::countDown));
+
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.get("background.tasks")
+                .tag("pool", "push").tag("result", "rejected").counter().count());
+    }
+
+    /**
+     * 测试任务抛出异常时记录失败次数，线程池继续可用
+     */
+    @Test
+    void testSubmitPush_ShouldCountFailures() throws InterruptedException {
+        CountDownLatch finished = new CountDownLatch(1);
+
+        backgroundTaskService.submitPush("failing", () -> {
+            throw new RuntimeException("推送失败");
+        });
+        backgroundTaskService.submitPush("next", finished::countDown);
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.get("background.tasks")
+                .tag("pool", "push").tag("result", "failed").counter().count());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.entity.FamilyLink;
+import com.elderdiet.backend.repository.FamilyLinkRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 家庭关系图服务测试类
+ */
+public class FamilyGraphServiceTest {
+
+    @Mock
+    private FamilyLinkRepository familyLinkRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private FamilyGraphService familyGraphService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+
+        // 爷爷、奶奶 -> 儿子；奶奶 -> 女儿；外婆 -> 女儿
+        when(familyLinkRepository.findAll()).thenReturn(Arrays.asList(
+                link("grandpa", "son"),
+                link("grandma", "son"),
+                link("grandma", "daughter"),
+                link("nana", "daughter")));
+
+        familyGraphService = new FamilyGraphService(familyLinkRepository, meterRegistry);
+        familyGraphService.init();
+    }
+
+    /**
+     * 测试启动加载后的邻接关系和预先计算的关联老人
+     */
+    @Test
+    void testInit_ShouldLoadAdjacencyAndRelatedElders() {
+        assertEquals(Arrays.asList("son", "daughter"), familyGraphService.getChildIds("grandma"));
+        assertEquals(Arrays.asList("grandpa", "grandma"), familyGraphService.getParentIds("son"));
+        assertEquals(List.of("grandma"), familyGraphService.getRelatedElderIds("grandpa"));
+        assertEquals(Arrays.asList("grandpa", "nana"), familyGraphService.getRelatedElderIds("grandma"));
+        assertTrue(familyGraphService.getChildIds("stranger").isEmpty());
+
+        assertEquals(1.0, meterRegistry.get("family.graph.rebuilds").counter().count());
+        assertEquals(4.0, meterRegistry.get("family.graph.links").gauge().value());
+        assertEquals(0.0, meterRegistry.get("family.graph.lazy.loads").counter().count());
+        verify(familyLinkRepository, times(1)).findAll();
+    }
+
+    /**
+     * 测试增量添加和删除链接后关联老人同步更新
+     */
+    @Test
+    void testLinkChanges_ShouldUpdateRelatedEldersIncrementally() {
+        familyGraphService.onLinkAdded("nana", "son");
+        assertEquals(Arrays.asList("grandpa", "grandma"), familyGraphService.getRelatedElderIds("nana"));
+        assertEquals(Arrays.asList("grandma", "nana"), familyGraphService.getRelatedElderIds("grandpa"));
+
+        familyGraphService.onLinkRemoved("grandma", "daughter");
+        assertEquals(List.of("son"), familyGraphService.getChildIds("grandma"));
+        assertEquals(List.of("nana"), familyGraphService.getParentIds("daughter"));
+        assertEquals(Arrays.asList("grandpa", "nana"), familyGraphService.getRelatedElderIds("grandma"));
+
+        // 增量更新不触发全量重建
+        verify(familyLinkRepository, times(1)).findAll();
+    }
+
+    /**
+     * 测试用户注销后移除其所有链接
+     */
+    @Test
+    void testOnUserRemoved_ShouldDropAllLinks() {
+        familyGraphService.onUserRemoved("grandma");
+
+        assertTrue(familyGraphService.getChildIds("grandma").isEmpty());
+        assertEquals(List.of("grandpa"), familyGraphService.getParentIds("son"));
+        assertTrue(familyGraphService.getRelatedElderIds("grandpa").isEmpty());
+        assertTrue(familyGraphService.getRelatedElderIds("nana").isEmpty());
+        assertEquals(2.0, meterRegistry.get("family.graph.links").gauge().value());
+    }
+
+    /**
+     * 测试家庭簇随链接增删合并和分裂，簇ID取簇内最小的用户ID
+     */
+    @Test
+    void testClusters_ShouldMergeAndSplit() {
+        assertEquals("daughter", familyGraphService.getClusterId("grandpa"));
+        assertEquals("daughter", familyGraphService.getClusterId("nana"));
+        assertEquals(Set.of("grandpa", "grandma", "son", "daughter", "nana"),
+                familyGraphService.getClusterMemberIds("son"));
+        assertEquals("stranger", familyGraphService.getClusterId("stranger"));
+        assertEquals(Set.of("stranger"), familyGraphService.getClusterMemberIds("stranger"));
+
+        familyGraphService.onLinkRemoved("grandma", "daughter");
+        assertEquals("grandma", familyGraphService.getClusterId("son"));
+        assertEquals("daughter", familyGraphService.getClusterId("nana"));
+        assertEquals(Set.of("daughter", "nana"), familyGraphService.getClusterMemberIds("daughter"));
+
+        familyGraphService.onLinkAdded("nana", "son");
+        assertEquals("daughter", familyGraphService.getClusterId("grandpa"));
+
+        familyGraphService.onUserRemoved("nana");
+        assertEquals("grandma", familyGraphService.getClusterId("son"));
+        assertEquals("daughter", familyGraphService.getClusterId("daughter"));
+        assertEquals("nana", familyGraphService.getClusterId("nana"));
+    }
+
+    /**
+     * 测试全量重建读取链接期间发生的增量更新不会被重建结果覆盖
+     */
+    @Test
+    void testRebuild_ShouldReplayChangesMadeWhileLoading() {
+        when(familyLinkRepository.findAll()).thenAnswer(invocation -> {
+            // 读取的是旧快照，期间外婆与儿子建立关系、爷爷与儿子解除关系
+            familyGraphService.onLinkAdded("nana", "son");
+            familyGraphService.onLinkRemoved("grandpa", "son");
+            return Arrays.asList(
+                    link("grandpa", "son"),
+                    link("grandma", "son"),
+                    link("grandma", "daughter"),
+                    link("nana", "daughter"));
+        });
+
+        familyGraphService.rebuild();
+
+        assertEquals(Arrays.asList("grandma", "nana"), familyGraphService.getParentIds("son"));
+        assertTrue(familyGraphService.getChildIds("grandpa").isEmpty());
+        assertEquals("grandpa", familyGraphService.getClusterId("grandpa"));
+        assertEquals(List.of("grandma"), familyGraphService.getRelatedElderIds("nana"));
+        assertEquals(4.0, meterRegistry.get("family.graph.links").gauge().value());
+    }
+
+    private static FamilyLink link(String parentId, String childId) {
+        return FamilyLink.builder().parentId(parentId).childId(childId).build();
+    }
+}
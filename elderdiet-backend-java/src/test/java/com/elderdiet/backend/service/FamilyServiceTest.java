@@ -0,0 +1,100 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.dto.FamilyMemberDTO;
+import com.elderdiet.backend.dto.ProfileDTO;
+import com.elderdiet.backend.entity.User;
+import com.elderdiet.backend.entity.UserRole;
+import com.elderdiet.backend.event.DomainEventBus;
+import com.elderdiet.backend.repository.FamilyLinkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 家庭服务测试类
+ */
+public class FamilyServiceTest {
+
+    @Mock
+    private FamilyLinkRepository familyLinkRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private ProfileService profileService;
+
+    @Mock
+    private FamilyGraphService familyGraphService;
+
+    @Mock
+    private DomainEventBus domainEventBus;
+
+    private FamilyService familyService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        familyService = new FamilyService(familyLinkRepository, userService, profileService, familyGraphService,
+                domainEventBus);
+    }
+
+    /**
+     * 测试老人的家庭成员（子女 + 关联老人）只用一次用户查询和一次档案查询，顺序和关系类型不变
+     */
+    @Test
+    void testGetFamilyMembers_ShouldBatchUserAndProfileLookups() {
+        User elder = user("elder", UserRole.ELDER);
+        when(familyGraphService.getChildIds("elder")).thenReturn(Arrays.asList("son", "daughter", "deleted"));
+        when(familyGraphService.getRelatedElderIds("elder")).thenReturn(List.of("nana"));
+        when(userService.findByIds(Arrays.asList("son", "daughter", "deleted", "nana"))).thenReturn(Map.of(
+                "son", user("son", UserRole.CHILD),
+                "daughter", user("daughter", UserRole.CHILD),
+                "nana", user("nana", UserRole.ELDER)));
+        when(profileService.getProfilesByUserIds(Set.of("son", "daughter", "nana"))).thenReturn(Map.of(
+                "son", ProfileDTO.builder().name("儿子").age(40).build(),
+                "nana", ProfileDTO.builder().name("外婆").build()));
+
+        List<FamilyMemberDTO> members = familyService.getFamilyMembers(elder);
+
+        assertEquals(Arrays.asList("son", "daughter", "nana"),
+                members.stream().map(FamilyMemberDTO::getUserId).toList());
+        assertEquals(Arrays.asList("child", "child", "related_elder"),
+                members.stream().map(FamilyMemberDTO::getRelationshipType).toList());
+        assertEquals("儿子", members.get(0).getName());
+        assertEquals(40, members.get(0).getAge());
+        assertEquals("", members.get(1).getName());
+        assertEquals("ELDER", members.get(2).getRole());
+
+        verify(userService, times(1)).findByIds(anyCollection());
+        verify(profileService, times(1)).getProfilesByUserIds(anyCollection());
+        verify(userService, never()).findById(anyString());
+        verify(profileService, never()).getProfileByUserIdInternal(anyString());
+    }
+
+    /**
+     * 测试没有家庭成员时不查询用户和档案
+     */
+    @Test
+    void testGetFamilyMembers_ShouldSkipLookupsWithoutMembers() {
+        User child = user("child", UserRole.CHILD);
+        when(familyGraphService.getParentIds("child")).thenReturn(List.of());
+
+        assertTrue(familyService.getFamilyMembers(child).isEmpty());
+        verifyNoInteractions(userService, profileService);
+    }
+
+    private static User user(String id, UserRole role) {
+        return User.builder().id(id).phone("phone-" + id).role(role).build();
+    }
+}
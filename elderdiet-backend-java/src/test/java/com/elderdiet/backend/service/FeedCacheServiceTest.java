@@ -0,0 +1,135 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.FeedConfig;
+import com.elderdiet.backend.dto.MealRecordResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 分享墙响应缓存服务测试类
+ */
+public class FeedCacheServiceTest {
+
+    @Mock
+    private FamilyGraphService familyGraphService;
+
+    private FeedConfig.FeedProperties feedProperties;
+    private FeedCacheService feedCacheService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        feedProperties = new FeedConfig.FeedProperties();
+        feedProperties.getCache().setMaxEntries(2);
+        feedCacheService = new FeedCacheService(familyGraphService, feedProperties, new SimpleMeterRegistry());
+
+        when(familyGraphService.getFamilyMemberIds("elder-id")).thenReturn(Set.of("child-id"));
+    }
+
+    /**
+     * 测试发布者的记录变化后，其子女的缓存失效
+     */
+    @Test
+    void testInvalidatePublisher_ShouldInvalidateFamilyPages() {
+        String pageKey = FeedCacheService.pageKey(1, 10);
+        long version = feedCacheService.getVersion("child-id");
+        MealRecordService.FeedResponse feed = page();
+        feedCacheService.put("child-id", pageKey, version, feed);
+
+        assertSame(feed, feedCacheService.get("child-id", pageKey, version));
+
+        feedCacheService.invalidatePublisher("elder-id");
+
+        long newVersion = feedCacheService.getVersion("child-id");
+        assertNotEquals(version, newVersion);
+        assertNull(feedCacheService.get("child-id", pageKey, newVersion));
+    }
+
+    /**
+     * 测试ETag由分页内容生成：不同实例对相同内容给出相同的ETag，记录更新或计数变化后ETag改变
+     */
+    @Test
+    void testBuildETag_ShouldDependOnPageContent() {
+        String pageKey = FeedCacheService.pageKey(1, 10);
+        LocalDateTime updatedAt = LocalDateTime.of(2026, 10, 17, 12, 0);
+        String etag = feedCacheService.buildETag("child-id", pageKey, page(record("r1", updatedAt, 1)));
+
+        FeedCacheService otherInstance = new FeedCacheService(familyGraphService, feedProperties,
+                new SimpleMeterRegistry());
+        otherInstance.invalidateUsers(List.of("child-id"));
+        assertEquals(etag, otherInstance.buildETag("child-id", pageKey, page(record("r1", updatedAt, 1))));
+        assertTrue(feedCacheService.isNotModified(etag, etag));
+        assertTrue(feedCacheService.isNotModified("W/" + etag + ", \"other\"", etag));
+
+        assertNotEquals(etag, feedCacheService.buildETag("child-id", pageKey,
+                page(record("r1", updatedAt.plusSeconds(1), 1))));
+        assertNotEquals(etag, feedCacheService.buildETag("child-id", pageKey, page(record("r1", updatedAt, 2))));
+        assertNotEquals(etag, feedCacheService.buildETag("child-id", FeedCacheService.pageKey(2, 10),
+                page(record("r1", updatedAt, 1))));
+    }
+
+    /**
+     * 测试缓存的分页超过有效期后视为未命中
+     */
+    @Test
+    void testGet_ShouldExpireAfterTtl() {
+        long version = feedCacheService.getVersion("user-id");
+        feedCacheService.put("user-id", "p:1:10", version, page());
+        assertNotNull(feedCacheService.get("user-id", "p:1:10", version));
+
+        feedProperties.getCache().setTtlSeconds(0);
+        assertNull(feedCacheService.get("user-id", "p:1:10", version));
+    }
+
+    /**
+     * 测试版本号记录有上限：被淘汰用户的版本号不会回退，失效前缓存的分页不会重新命中
+     */
+    @Test
+    void testInvalidateUsers_ShouldBoundVersionsWithoutReusingOldPages() {
+        long version = feedCacheService.getVersion("user-a");
+        feedCacheService.put("user-a", "p:1:10", version, page());
+
+        feedCacheService.invalidateUsers(List.of("user-a"));
+        long invalidated = feedCacheService.getVersion("user-a");
+        feedCacheService.invalidateUsers(List.of("user-b", "user-c"));
+
+        assertTrue(feedCacheService.getVersion("user-a") >= invalidated);
+        assertNull(feedCacheService.get("user-a", "p:1:10", feedCacheService.getVersion("user-a")));
+    }
+
+    /**
+     * 测试缓存超过容量时淘汰最久未访问的分页
+     */
+    @Test
+    void testPut_ShouldEvictLeastRecentlyUsedPage() {
+        long version = feedCacheService.getVersion("user-id");
+        MealRecordService.FeedResponse feed = page();
+
+        feedCacheService.put("user-id", "p:1:10", version, feed);
+        feedCacheService.put("user-id", "p:2:10", version, feed);
+        feedCacheService.get("user-id", "p:1:10", version);
+        feedCacheService.put("user-id", "p:3:10", version, feed);
+
+        assertNotNull(feedCacheService.get("user-id", "p:1:10", version));
+        assertNull(feedCacheService.get("user-id", "p:2:10", version));
+        assertNotNull(feedCacheService.get("user-id", "p:3:10", version));
+    }
+
+    private static MealRecordService.FeedResponse page(MealRecordResponse... records) {
+        return new MealRecordService.FeedResponse(List.of(records), 1, 1, records.length, false);
+    }
+
+    private static MealRecordResponse record(String id, LocalDateTime updatedAt, int likesCount) {
+        return MealRecordResponse.builder().id(id).updatedAt(updatedAt).likesCount(likesCount).build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.dto.FeedChangesResponse;
+import com.elderdiet.backend.dto.MealRecordResponse;
+import com.elderdiet.backend.entity.FeedChangeLogEntry;
+import com.elderdiet.backend.entity.MealRecord;
+import com.elderdiet.backend.entity.User;
+import com.elderdiet.backend.entity.UserRole;
+import com.elderdiet.backend.repository.FeedChangeLogRepository;
+import com.elderdiet.backend.repository.FeedScope;
+import com.elderdiet.backend.repository.MealRecordRepository;
+import com.elderdiet.backend.util.FeedSyncToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 分享墙增量同步服务测试类
+ */
+public class FeedChangeServiceTest {
+
+    @Mock
+    private FeedChangeLogRepository feedChangeLogRepository;
+
+    @Mock
+    private MealRecordRepository mealRecordRepository;
+
+    @Mock
+    private FeedHydrationService feedHydrationService;
+
+    @Mock
+    private FamilyGraphService familyGraphService;
+
+    private FeedChangeService feedChangeService;
+    private User viewer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        feedChangeService = new FeedChangeService(feedChangeLogRepository, mealRecordRepository,
+                feedHydrationService, familyGraphService);
+        viewer = User.builder().id("child-id").phone("13800000001").role(UserRole.CHILD).build();
+    }
+
+    /**
+     * 测试返回变化的记录和移除的记录ID，先隐藏后又公开的记录不作为移除返回
+     */
+    @Test
+    void testGetChanges_ShouldReturnChangedAndRemovedRecords() {
+        LocalDateTime since = LocalDateTime.now().minusMinutes(10);
+        FeedScope scope = FeedScope.of("child-id", Collections.singletonList("elder-id"));
+        MealRecord changed = MealRecord.builder().id("record-1").userId("elder-id").build();
+        when(mealRecordRepository.findFeedChanges(eq(scope), any(), anyInt()))
+                .thenReturn(Collections.singletonList(changed));
+        when(feedChangeLogRepository.findByOwnerIdAndOccurredAtAfter(eq("child-id"), any()))
+                .thenReturn(Arrays.asList(removed("record-1"), removed("record-2"), removed("record-2")));
+        MealRecordResponse response = MealRecordResponse.builder().id("record-1").build();
+        when(feedHydrationService.hydrate(Collections.singletonList(changed), viewer))
+                .thenReturn(Collections.singletonList(response));
+
+        FeedChangesResponse changes = feedChangeService.getChanges(viewer, scope,
+                FeedSyncToken.encode(since));
+
+        assertFalse(changes.isResyncRequired());
+        assertEquals(Collections.singletonList(response), changes.getRecords());
+        assertEquals(Collections.singletonList("record-2"), changes.getRemovedRecordIds());
+        assertTrue(FeedSyncToken.decode(changes.getSyncToken()).isAfter(since));
+    }
+
+    /**
+     * 测试没有令牌、令牌过期或家庭关系变化时要求全量刷新
+     */
+    @Test
+    void testGetChanges_ShouldRequireResync() {
+        FeedScope scope = FeedScope.of("child-id", Collections.singletonList("elder-id"));
+
+        assertTrue(feedChangeService.getChanges(viewer, scope, null).isResyncRequired());
+        assertTrue(feedChangeService.getChanges(viewer, scope,
+                FeedSyncToken.encode(LocalDateTime.now().minusDays(8))).isResyncRequired());
+
+        when(feedChangeLogRepository.findByOwnerIdAndOccurredAtAfter(eq("child-id"), any()))
+                .thenReturn(Collections.singletonList(FeedChangeLogEntry.builder().ownerId("child-id")
+                        .type(FeedChangeLogEntry.Type.RESYNC).occurredAt(LocalDateTime.now()).build()));
+        FeedChangesResponse changes = feedChangeService.getChanges(viewer, scope,
+                FeedSyncToken.encode(LocalDateTime.now().minusMinutes(1)));
+
+        assertTrue(changes.isResyncRequired());
+        assertNotNull(changes.getSyncToken());
+        verify(mealRecordRepository, never()).findFeedChanges(any(), any(), anyInt());
+    }
+
+    /**
+     * 测试无效令牌抛出异常
+     */
+    @Test
+    void testGetChanges_ShouldRejectInvalidToken() {
+        assertThrows(RuntimeException.class,
+                () -> feedChangeService.getChanges(viewer, FeedScope.of("child-id", Collections.emptyList()),
+                        "not-a-token"));
+    }
+
+    private static FeedChangeLogEntry removed(String recordId) {
+        return FeedChangeLogEntry.builder()
+                .ownerId("child-id")
+                .type(FeedChangeLogEntry.Type.REMOVED)
+                .recordId(recordId)
+                .occurredAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.FeedConfig;
+import com.elderdiet.backend.dto.FeedEvent;
+import com.elderdiet.backend.entity.MealRecord;
+import com.elderdiet.backend.entity.RecordVisibility;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 分享墙实时事件广播服务测试类
+ */
+public class FeedEventBroadcasterTest {
+
+    @Mock
+    private FamilyGraphService familyGraphService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private FeedEventBroadcaster feedEventBroadcaster;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        feedEventBroadcaster = new FeedEventBroadcaster(familyGraphService, new FeedConfig.FeedProperties(),
+                meterRegistry);
+
+        when(familyGraphService.getFamilyMemberIds("elder-id")).thenReturn(Set.of("child-id"));
+    }
+
+    /**
+     * 测试家庭成员只收到FAMILY可见记录的事件，断开后连接被移除
+     */
+    @Test
+    void testPublishForRecord_ShouldRespectVisibility() {
+        List<ServerSentEvent<FeedEvent>> received = new CopyOnWriteArrayList<>();
+        Disposable subscription = feedEventBroadcaster.subscribe("child-id").subscribe(received::add);
+
+        feedEventBroadcaster.publishForRecord(record("record-1", RecordVisibility.PRIVATE),
+                FeedEvent.builder().type(FeedEvent.Type.RECORD_CREATED).recordId("record-1").build());
+        feedEventBroadcaster.publishForRecord(record("record-2", RecordVisibility.FAMILY),
+                FeedEvent.builder().type(FeedEvent.Type.RECORD_CREATED).recordId("record-2").build());
+
+        // 第一条是连接建立时的注释
+        assertEquals(2, received.size());
+        assertEquals("connected", received.get(0).comment());
+        assertEquals("record_created", received.get(1).event());
+        assertEquals("record-2", received.get(1).data().getRecordId());
+        assertNotNull(received.get(1).data().getOccurredAt());
+
+        subscription.dispose();
+        assertEquals(0.0, meterRegistry.get("feed.events.connections").gauge().value());
+    }
+
+    private static MealRecord record(String id, RecordVisibility visibility) {
+        return MealRecord.builder().id(id).userId("elder-id").visibility(visibility).build();
+    }
+}
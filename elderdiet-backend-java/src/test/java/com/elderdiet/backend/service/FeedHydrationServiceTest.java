@@ -0,0 +1,157 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.FeedConfig;
+import com.elderdiet.backend.dto.MealRecordResponse;
+import com.elderdiet.backend.dto.ProfileDTO;
+import com.elderdiet.backend.entity.MealRecord;
+import com.elderdiet.backend.entity.PublisherSnapshot;
+import com.elderdiet.backend.entity.RecordComment;
+import com.elderdiet.backend.entity.RecordVisibility;
+import com.elderdiet.backend.entity.User;
+import com.elderdiet.backend.entity.UserRole;
+import com.elderdiet.backend.repository.RecordCommentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 分享墙批量加载服务测试类
+ */
+public class FeedHydrationServiceTest {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private ProfileService profileService;
+
+    @Mock
+    private LikedRecordCacheService likedRecordCacheService;
+
+    @Mock
+    private RecordCommentRepository recordCommentRepository;
+
+    private FeedHydrationService feedHydrationService;
+
+    private User viewer;
+    private User elder;
+    private MealRecord elderRecord;
+    private MealRecord viewerRecord;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        feedHydrationService = new FeedHydrationService(userService, profileService,
+                likedRecordCacheService, recordCommentRepository, new FeedConfig.FeedProperties());
+
+        viewer = User.builder().id("child-id").phone("13800138001").role(UserRole.CHILD).build();
+        elder = User.builder().id("elder-id").phone("13800138000").role(UserRole.ELDER).build();
+
+        elderRecord = MealRecord.builder()
+                .id("record-1")
+                .userId("elder-id")
+                .visibility(RecordVisibility.FAMILY)
+                .likesCount(1)
+                .commentsCount(2)
+                .createdAt(LocalDateTime.now())
+                .build();
+        viewerRecord = MealRecord.builder()
+                .id("record-2")
+                .userId("child-id")
+                .visibility(RecordVisibility.PRIVATE)
+                .createdAt(LocalDateTime.now().minusHours(1))
+                .build();
+    }
+
+    /**
+     * 测试一页记录只发出每个集合一次批量查询，且评论预览按创建时间升序展示
+     */
+    @Test
+    void testHydrate_ShouldBatchLookupsAndKeepOrder() {
+        ProfileDTO elderProfile = ProfileDTO.builder().userId("elder-id").name("大树0000").avatarUrl("avatar.jpg")
+                .build();
+        RecordComment first = RecordComment.builder().id("c1").recordId("record-1").userId("child-id")
+                .username("小树0001").text("第一条").build();
+        RecordComment second = RecordComment.builder().id("c2").recordId("record-1").userId("elder-id")
+                .username("大树0000").text("第二条").build();
+
+        when(userService.findByIds(anyCollection())).thenReturn(Map.of("elder-id", elder, "child-id", viewer));
+        when(profileService.getProfilesByUserIds(anyCollection())).thenReturn(Map.of("elder-id", elderProfile));
+        when(likedRecordCacheService.findLikedAmong(eq("child-id"), anyCollection()))
+                .thenReturn(Set.of("record-1"));
+        // 评论预览按创建时间倒序返回
+        when(recordCommentRepository.findLatestByRecordIds(anyCollection(), eq(3)))
+                .thenReturn(Arrays.asList(second, first));
+
+        List<MealRecordResponse> responses = feedHydrationService.hydrate(
+                Arrays.asList(elderRecord, viewerRecord), viewer);
+
+        assertEquals(2, responses.size());
+
+        MealRecordResponse elderResponse = responses.get(0);
+        assertEquals("record-1", elderResponse.getId());
+        assertEquals("大树0000", elderResponse.getUserInfo().getUsername());
+        assertEquals("avatar.jpg", elderResponse.getUserInfo().getAvatar());
+        assertEquals("13800138000", elderResponse.getUserInfo().getNickname());
+        assertTrue(elderResponse.isLikedByCurrentUser());
+        assertEquals(Arrays.asList("c1", "c2"),
+                elderResponse.getComments().stream().map(MealRecordResponse.CommentInfo::getId).toList());
+
+        // 没有档案时回退为手机号，没有评论时为空列表
+        MealRecordResponse viewerResponse = responses.get(1);
+        assertEquals("13800138001", viewerResponse.getUserInfo().getUsername());
+        assertNull(viewerResponse.getUserInfo().getAvatar());
+        assertFalse(viewerResponse.isLikedByCurrentUser());
+        assertTrue(viewerResponse.getComments().isEmpty());
+
+        verify(userService, times(1)).findByIds(anyCollection());
+        verify(profileService, times(1)).getProfilesByUserIds(anyCollection());
+        verify(likedRecordCacheService, times(1)).findLikedAmong(any(), anyCollection());
+        verify(recordCommentRepository, times(1)).findLatestByRecordIds(anyCollection(), anyInt());
+    }
+
+    /**
+     * 测试记录带有发布者快照时不查询用户和档案
+     */
+    @Test
+    void testHydrate_WithPublisherSnapshot_ShouldSkipProfileLookups() {
+        elderRecord.setPublisher(PublisherSnapshot.builder()
+                .username("大树0000").avatar("avatar.jpg").nickname("13800138000").version(1L).build());
+        when(recordCommentRepository.findLatestByRecordIds(anyCollection(), eq(3)))
+                .thenReturn(Collections.emptyList());
+
+        List<MealRecordResponse> responses = feedHydrationService.hydrate(
+                Collections.singletonList(elderRecord), viewer);
+
+        assertEquals("大树0000", responses.get(0).getUserInfo().getUsername());
+        assertEquals("avatar.jpg", responses.get(0).getUserInfo().getAvatar());
+        assertEquals("elder-id", responses.get(0).getUserInfo().getUserId());
+        verifyNoInteractions(userService, profileService);
+    }
+
+    /**
+     * 测试空页面不发出任何查询
+     */
+    @Test
+    void testHydrate_EmptyPage_ShouldNotQuery() {
+        List<MealRecordResponse> responses = feedHydrationService.hydrate(Collections.emptyList(), viewer);
+
+        assertTrue(responses.isEmpty());
+        verifyNoInteractions(userService, profileService, likedRecordCacheService, recordCommentRepository);
+    }
+}
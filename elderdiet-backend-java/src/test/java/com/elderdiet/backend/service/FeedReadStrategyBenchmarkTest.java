@@ -0,0 +1,212 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.FeedConfig;
+import com.elderdiet.backend.config.MongoConfig;
+import com.elderdiet.backend.dto.MealRecordResponse;
+import com.elderdiet.backend.entity.MealRecord;
+import com.elderdiet.backend.entity.PublisherSnapshot;
+import com.elderdiet.backend.entity.RecordComment;
+import com.elderdiet.backend.entity.RecordLike;
+import com.elderdiet.backend.entity.RecordVisibility;
+import com.elderdiet.backend.entity.User;
+import com.elderdiet.backend.entity.UserRole;
+import com.elderdiet.backend.repository.FeedScope;
+import com.elderdiet.backend.util.MongoQueryCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分享墙读取策略对比测试
+ * 在真实MongoDB中为一个家庭（1位老人、2位子女）写入不同数量的记录，
+ * 比较分步批量查询和单次聚合查询的结果一致性、Mongo往返次数和耗时。
+ * 需要Docker，运行方式：mvn test -Dtest=FeedReadStrategyBenchmarkTest -Dbenchmark=true
+ */
+@Slf4j
+@DataMongoTest
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Import({ MongoConfig.class, FeedConfig.FeedProperties.class, FeedHydrationService.class,
+        LikedRecordCacheService.class, HydratingFeedReadStrategy.class, AggregationFeedReadStrategy.class,
+        FeedReadStrategyBenchmarkTest.MetricsConfig.class })
+public class FeedReadStrategyBenchmarkTest {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 20;
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer("mongo:6.0");
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", MONGO::getReplicaSetUrl);
+    }
+
+    @TestConfiguration
+    static class MetricsConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    // 记录都带有发布者快照，两种策略都不会查询用户和档案
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private ProfileService profileService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private HydratingFeedReadStrategy hydratingStrategy;
+
+    @Autowired
+    private AggregationFeedReadStrategy aggregationStrategy;
+
+    /**
+     * 对比两种策略在不同记录规模下的首页和末页
+     */
+    @ParameterizedTest
+    @ValueSource(ints = { 30, 100, 500 })
+    void compareStrategies(int recordsPerFamily) {
+        mongoTemplate.remove(new Query(), MealRecord.class);
+        mongoTemplate.remove(new Query(), RecordLike.class);
+        mongoTemplate.remove(new Query(), RecordComment.class);
+
+        User elder = User.builder().id(new ObjectId().toHexString()).phone("13800000000").role(UserRole.ELDER)
+                .build();
+        User child = User.builder().id(new ObjectId().toHexString()).phone("13800000001").role(UserRole.CHILD)
+                .build();
+        User otherChild = User.builder().id(new ObjectId().toHexString()).phone("13800000002")
+                .role(UserRole.CHILD).build();
+        seedFamily(Arrays.asList(elder, child, otherChild), recordsPerFamily);
+
+        FeedScope scope = FeedScope.of(elder.getId(), Arrays.asList(child.getId(), otherChild.getId()));
+        int lastPage = (recordsPerFamily + PAGE_SIZE - 1) / PAGE_SIZE;
+
+        for (int page : new int[] { 1, lastPage }) {
+            MealRecordService.FeedResponse expected = hydratingStrategy.loadPage(elder, scope, page, PAGE_SIZE);
+            MealRecordService.FeedResponse actual = aggregationStrategy.loadPage(elder, scope, page, PAGE_SIZE);
+            assertSameFeed(expected, actual);
+
+            Measurement hydrate = measure(() -> hydratingStrategy.loadPage(elder, scope, page, PAGE_SIZE));
+            Measurement aggregation = measure(() -> aggregationStrategy.loadPage(elder, scope, page, PAGE_SIZE));
+            log.info("records={} page={} | hydrate: {} ms, {} queries | aggregation: {} ms, {} queries",
+                    recordsPerFamily, page, String.format("%.2f", hydrate.avgMillis), hydrate.queries,
+                    String.format("%.2f", aggregation.avgMillis), aggregation.queries);
+
+            assertEquals(1, aggregation.queries);
+        }
+    }
+
+    private void seedFamily(List<User> members, int recordCount) {
+        LocalDateTime start = LocalDateTime.now().minusDays(30);
+        List<MealRecord> records = new ArrayList<>();
+        for (int i = 0; i < recordCount; i++) {
+            User publisher = members.get(i % members.size());
+            // 预先指定ID，避免审计回调把新实体的 createdAt 覆盖为当前时间
+            records.add(MealRecord.builder()
+                    .id(new ObjectId().toHexString())
+                    .userId(publisher.getId())
+                    .publisher(PublisherSnapshot.builder().username("用户" + publisher.getPhone().substring(7))
+                            .nickname(publisher.getPhone()).version(1L).build())
+                    .visibility(i % 5 == 0 ? RecordVisibility.PRIVATE : RecordVisibility.FAMILY)
+                    .caption("第" + i + "条")
+                    .createdAt(start.plusMinutes(i * 10L))
+                    .build());
+        }
+        List<MealRecord> saved = new ArrayList<>(mongoTemplate.insertAll(records));
+
+        List<RecordLike> likes = new ArrayList<>();
+        List<RecordComment> comments = new ArrayList<>();
+        for (int i = 0; i < saved.size(); i++) {
+            MealRecord record = saved.get(i);
+            for (User member : members) {
+                if ((i + member.getPhone().hashCode()) % 3 == 0) {
+                    likes.add(RecordLike.builder().recordId(record.getId()).userId(member.getId())
+                            .createdAt(record.getCreatedAt()).build());
+                }
+            }
+            for (int c = 0; c < i % 6; c++) {
+                User author = members.get(c % members.size());
+                comments.add(RecordComment.builder().id(new ObjectId().toHexString()).recordId(record.getId())
+                        .userId(author.getId()).username(author.getPhone()).text("评论" + c)
+                        .createdAt(record.getCreatedAt().plusMinutes(c + 1L)).build());
+            }
+        }
+        mongoTemplate.insertAll(likes);
+        mongoTemplate.insertAll(comments);
+    }
+
+    private static Measurement measure(Runnable load) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            load.run();
+        }
+        boolean counterOwner = MongoQueryCounter.start();
+        long startNanos = System.nanoTime();
+        try {
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                load.run();
+            }
+            double avgMillis = (System.nanoTime() - startNanos) / 1_000_000.0 / MEASURED_ROUNDS;
+            return new Measurement(avgMillis, MongoQueryCounter.current() / MEASURED_ROUNDS);
+        } finally {
+            MongoQueryCounter.stop(counterOwner);
+        }
+    }
+
+    private static void assertSameFeed(MealRecordService.FeedResponse expected,
+            MealRecordService.FeedResponse actual) {
+        assertEquals(expected.getTotalRecords(), actual.getTotalRecords());
+        assertEquals(expected.getTotalPages(), actual.getTotalPages());
+        assertEquals(expected.isHasMore(), actual.isHasMore());
+        assertEquals(summarize(expected.getRecords()), summarize(actual.getRecords()));
+    }
+
+    private static List<String> summarize(List<MealRecordResponse> records) {
+        return records.stream()
+                .map(r -> r.getId() + "|" + r.isLikedByCurrentUser() + "|" + r.getUserInfo().getUsername() + "|"
+                        + r.getComments().stream().map(MealRecordResponse.CommentInfo::getId)
+                                .collect(Collectors.joining(",")))
+                .collect(Collectors.toList());
+    }
+
+    private static class Measurement {
+        private final double avgMillis;
+        private final int queries;
+
+        Measurement(double avgMillis, int queries) {
+            this.avgMillis = avgMillis;
+            this.queries = queries;
+        }
+    }
+}
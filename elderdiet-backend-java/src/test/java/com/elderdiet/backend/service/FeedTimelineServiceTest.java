@@ -0,0 +1,174 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.FeedConfig;
+import com.elderdiet.backend.entity.FeedTimelineEntry;
+import com.elderdiet.backend.entity.FeedTimelineEntry.Relation;
+import com.elderdiet.backend.entity.MealRecord;
+import com.elderdiet.backend.entity.User;
+import com.elderdiet.backend.entity.UserRole;
+import com.elderdiet.backend.repository.FeedScope;
+import com.elderdiet.backend.repository.FeedTimelineRepository;
+import com.elderdiet.backend.repository.MealRecordRepository;
+import com.elderdiet.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 分享墙时间线服务测试类
+ */
+public class FeedTimelineServiceTest {
+
+    @Mock
+    private FeedTimelineRepository feedTimelineRepository;
+
+    @Mock
+    private MealRecordRepository mealRecordRepository;
+
+    @Mock
+    private FamilyGraphService familyGraphService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private FeedConfig.FeedProperties feedProperties;
+    private FeedTimelineService feedTimelineService;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        feedProperties = new FeedConfig.FeedProperties();
+        feedTimelineService = new FeedTimelineService(feedTimelineRepository, mealRecordRepository,
+                familyGraphService, userRepository, feedProperties);
+        now = LocalDateTime.now();
+        when(familyGraphService.getChildIds("elder")).thenReturn(List.of("son"));
+    }
+
+    /**
+     * 测试重建时间线只写差异：删除非家庭成员和不再可见的条目、修正关系、写入缺少的条目，
+     * 保留查询之后才写入的条目，不清空整个时间线
+     */
+    @Test
+    void testRebuildTimeline_ShouldApplyDiffOnly() {
+        MealRecord own = record("own", "elder", now.minusHours(1));
+        MealRecord sons = record("sons", "son", now.minusHours(2));
+        MealRecord missing = record("missing", "elder", now.minusHours(3));
+        when(mealRecordRepository.findFeedSlice(any(FeedScope.class), isNull(), eq(500)))
+                .thenReturn(Arrays.asList(own, sons, missing));
+
+        FeedTimelineEntry ownEntry = entry("own", "elder", now.minusHours(1), Relation.SELF);
+        FeedTimelineEntry wrongRelation = entry("sons", "son", now.minusHours(2), Relation.PARENT);
+        FeedTimelineEntry hidden = entry("hidden", "son", now.minusHours(4), Relation.CHILD);
+        FeedTimelineEntry concurrent = entry("new", "son", now.plusSeconds(5), Relation.CHILD);
+        concurrent.setCreatedAt(now.plusSeconds(5));
+        when(feedTimelineRepository.findByOwnerId("elder"))
+                .thenReturn(Arrays.asList(ownEntry, wrongRelation, hidden, concurrent));
+
+        feedTimelineService.rebuildTimeline("elder");
+
+        verify(feedTimelineRepository).deleteByOwnerIdAndPublisherIdNotIn("elder", Set.of("elder", "son"));
+        verify(feedTimelineRepository).deleteAll(List.of(hidden));
+        verify(feedTimelineRepository).saveAll(List.of(wrongRelation));
+        assertEquals(List.of(Relation.CHILD), wrongRelation.getRelations());
+        verify(feedTimelineRepository).saveAll(argThat((Iterable<FeedTimelineEntry> entries) ->
+                entries.iterator().next().getRecordId().equals("missing")));
+        verify(feedTimelineRepository, never()).deleteByOwnerId(anyString());
+    }
+
+    /**
+     * 测试查询记录之后、读取时间线之前写扩散进来的条目不会被删除：记录本身早于查询，
+     * 但条目的写入时间晚于查询
+     */
+    @Test
+    void testRebuildTimeline_ShouldKeepEntryFannedOutAfterQuery() {
+        MealRecord own = record("own", "elder", now.minusHours(1));
+        when(mealRecordRepository.findFeedSlice(any(FeedScope.class), isNull(), eq(500)))
+                .thenReturn(List.of(own));
+
+        FeedTimelineEntry ownEntry = entry("own", "elder", now.minusHours(1), Relation.SELF);
+        FeedTimelineEntry fannedOut = entry("late", "son", now.minusMinutes(30), Relation.CHILD);
+        FeedTimelineEntry hidden = entry("hidden", "son", now.minusMinutes(40), Relation.CHILD);
+        when(feedTimelineRepository.findByOwnerId("elder")).thenAnswer(invocation -> {
+            fannedOut.setCreatedAt(LocalDateTime.now());
+            hidden.setCreatedAt(now.minusMinutes(40));
+            return Arrays.asList(ownEntry, fannedOut, hidden);
+        });
+
+        feedTimelineService.rebuildTimeline("elder");
+
+        verify(feedTimelineRepository).deleteAll(List.of(hidden));
+    }
+
+    /**
+     * 测试窗口已满时只核对窗口内的条目，更早的条目不读取也不删除
+     */
+    @Test
+    void testRebuildTimeline_ShouldOnlyReconcileRecentWindow() {
+        feedProperties.getTimeline().setRebuildWindowSize(2);
+        MealRecord newer = record("newer", "elder", now.minusHours(1));
+        MealRecord older = record("older", "son", now.minusHours(2));
+        when(mealRecordRepository.findFeedSlice(any(FeedScope.class), isNull(), eq(2)))
+                .thenReturn(Arrays.asList(newer, older));
+        when(feedTimelineRepository.findByOwnerIdAndRecordCreatedAtGreaterThanEqual("elder", now.minusHours(2)))
+                .thenReturn(new ArrayList<>());
+
+        feedTimelineService.rebuildTimeline("elder");
+
+        verify(feedTimelineRepository, never()).findByOwnerId(anyString());
+        verify(feedTimelineRepository).deleteAll(List.of());
+    }
+
+    /**
+     * 测试分页读取时间线：按条目顺序返回记录，跳过已删除的记录，用 Slice 判断是否有下一页
+     */
+    @Test
+    void testFindTimelinePage_ShouldKeepOrderWithoutCount() {
+        User elder = User.builder().id("elder").role(UserRole.ELDER).build();
+        Pageable pageable = PageRequest.of(0, 3);
+        List<FeedTimelineEntry> entries = Arrays.asList(
+                entry("b", "son", now, Relation.CHILD),
+                entry("deleted", "son", now.minusMinutes(1), Relation.CHILD),
+                entry("a", "elder", now.minusMinutes(2), Relation.SELF));
+        when(feedTimelineRepository.findByOwnerIdAndRelationsIn(eq("elder"), anyCollection(), eq(pageable)))
+                .thenReturn(new SliceImpl<>(entries, pageable, true));
+        when(mealRecordRepository.findAllById(Arrays.asList("b", "deleted", "a")))
+                .thenReturn(Arrays.asList(record("a", "elder", now), record("b", "son", now)));
+
+        Slice<MealRecord> page = feedTimelineService.findTimelinePage(elder, pageable);
+
+        assertEquals(Arrays.asList("b", "a"), page.getContent().stream().map(MealRecord::getId).toList());
+        assertTrue(page.hasNext());
+    }
+
+    private static MealRecord record(String id, String userId, LocalDateTime createdAt) {
+        return MealRecord.builder().id(id).userId(userId).createdAt(createdAt).build();
+    }
+
+    private static FeedTimelineEntry entry(String recordId, String publisherId, LocalDateTime recordCreatedAt,
+            Relation relation) {
+        return FeedTimelineEntry.builder()
+                .id("entry-" + recordId)
+                .ownerId("elder")
+                .recordId(recordId)
+                .publisherId(publisherId)
+                .relations(new ArrayList<>(List.of(relation)))
+                .recordCreatedAt(recordCreatedAt)
+                .build();
+    }
+}
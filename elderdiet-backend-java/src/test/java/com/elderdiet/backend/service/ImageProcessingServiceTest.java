@@ -0,0 +1,123 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.OssConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 图片压缩服务测试类
+ */
+public class ImageProcessingServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ImageProcessingService imageProcessingService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        OssConfig.OssProperties ossProperties = new OssConfig.OssProperties();
+        ossProperties.getImage().setMaxDimension(1000);
+        ossProperties.getImage().setFeedDimension(500);
+        imageProcessingService = new ImageProcessingService(ossProperties, meterRegistry);
+    }
+
+    /**
+     * 测试大图按采样解码，解码内存不超过目标尺寸对应的上限，缓冲区用完后归还
+     */
+    @Test
+    void testCompress_ShouldDecodeSubsampledIntoPooledBuffer() throws IOException {
+        byte[] photo = jpeg(4032, 3024);
+
+        try (ImageProcessingService.CompressedImage compressed =
+                imageProcessingService.compress(new ByteArrayInputStream(photo), "jpg")) {
+            assertNotNull(compressed);
+            assertEquals(807, compressed.getWidth());
+            assertEquals(605, compressed.getHeight());
+
+            BufferedImage uploaded = ImageIO.read(compressed.getInputStream());
+            assertEquals(807, uploaded.getWidth());
+            assertEquals(compressed.getSize(), compressed.getInputStream().readAllBytes().length);
+        }
+
+        assertTrue(meterRegistry.get("image.decode.bytes").summary().max() <= 1000L * 1000 * 4);
+        assertEquals(1.0, meterRegistry.get("image.buffer.pool.idle").gauge().value());
+    }
+
+    /**
+     * 测试无法识别的数据或没有编码器的格式返回null，由调用方上传原文件
+     */
+    @Test
+    void testCompress_ShouldPassThroughUnsupportedInput() throws IOException {
+        assertNull(imageProcessingService.compress(
+                new ByteArrayInputStream("not an image".getBytes(StandardCharsets.UTF_8)), "jpg"));
+        assertNull(imageProcessingService.compress(new ByteArrayInputStream(jpeg(10, 10)), "unknown"));
+        assertEquals(2.0, meterRegistry.get("image.compress.passthrough").counter().count());
+    }
+
+    /**
+     * 测试一次解码生成展示图和缩略图，小图不生成超过自身尺寸的版本，所有缓冲区都归还
+     */
+    @Test
+    void testCompressVariants_ShouldResizeFromSingleDecode() throws IOException {
+        try (ImageProcessingService.CompressedVariants variants =
+                imageProcessingService.compressVariants(new ByteArrayInputStream(jpeg(4032, 3024)), "jpg")) {
+            assertNotNull(variants);
+            assertEquals(807, variants.getOriginal().getWidth());
+            assertEquals(500, variants.getFeed().getWidth());
+            assertEquals(375, variants.getFeed().getHeight());
+            assertEquals(240, variants.getThumbnail().getWidth());
+            assertEquals(180, variants.getThumbnail().getHeight());
+            assertEquals(240, ImageIO.read(variants.getThumbnail().getInputStream()).getWidth());
+        }
+
+        try (ImageProcessingService.CompressedVariants variants =
+                imageProcessingService.compressVariants(new ByteArrayInputStream(jpeg(200, 150)), "jpg")) {
+            assertEquals(200, variants.getOriginal().getWidth());
+            assertNull(variants.getFeed());
+            assertNull(variants.getThumbnail());
+        }
+
+        assertEquals(2, meterRegistry.get("image.stage.duration").tag("stage", "decode").timer().count());
+        assertEquals(3.0, meterRegistry.get("image.buffer.pool.idle").gauge().value());
+    }
+
+    /**
+     * 测试缩放：保持宽高比，不超过目标尺寸时不缩放
+     */
+    @Test
+    void testResize() {
+        BufferedImage image = new BufferedImage(1600, 900, BufferedImage.TYPE_INT_RGB);
+
+        BufferedImage resized = imageProcessingService.resize(image, 400);
+        assertEquals(400, resized.getWidth());
+        assertEquals(225, resized.getHeight());
+        assertNull(imageProcessingService.resize(image, 1600));
+    }
+
+    /**
+     * 测试采样步长：采样后最长边不超过目标尺寸
+     */
+    @Test
+    void testSubsamplingStep() {
+        assertEquals(1, ImageProcessingService.subsamplingStep(800, 600, 1000));
+        assertEquals(2, ImageProcessingService.subsamplingStep(2000, 1500, 1000));
+        assertEquals(3, ImageProcessingService.subsamplingStep(3000, 2001, 1000));
+        assertEquals(5, ImageProcessingService.subsamplingStep(3024, 4032, 1000));
+    }
+
+    private static byte[] jpeg(int width, int height) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpg", output);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,115 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.AsyncConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 图片处理线程池测试类
+ */
+public class ImageWorkerPoolTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ImageWorkerPool imageWorkerPool;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        AsyncConfig.AsyncProperties asyncProperties = new AsyncConfig.AsyncProperties();
+        asyncProperties.setImage(new AsyncConfig.AsyncProperties.Pool(1, 1, 1));
+        imageWorkerPool = new ImageWorkerPool(asyncProperties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageWorkerPool.shutdown();
+    }
+
+    /**
+     * 测试队列满时任务在调用线程执行，结果仍按提交顺序返回
+     */
+    @Test
+    void testInvokeAll_ShouldRunRejectedTasksInlineAndKeepOrder() {
+        CountDownLatch release = new CountDownLatch(1);
+        String caller = Thread.currentThread().getName();
+        List<Callable<String>> tasks = Arrays.asList(
+                () -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return "first";
+                },
+                () -> "second",
+                () -> {
+                    // 线程和队列都已占满，在调用线程中执行
+                    assertEquals(caller, Thread.currentThread().getName());
+                    release.countDown();
+                    return "third";
+                });
+
+        assertEquals(Arrays.asList("first", "second", "third"), imageWorkerPool.invokeAll(tasks, 5000));
+        assertEquals(1.0, meterRegistry.get("image.worker.rejected").counter().count());
+    }
+
+    /**
+     * 测试超过截止时间时取消任务并抛出异常
+     */
+    @Test
+    void testInvokeAll_ShouldFailAfterDeadline() {
+        List<Callable<String>> tasks = List.of(() -> {
+            Thread.sleep(5000);
+            return "slow";
+        });
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> imageWorkerPool.invokeAll(tasks, 50));
+        assertEquals("图片处理超时，请稍后重试", e.getMessage());
+    }
+
+    /**
+     * 测试任务失败时抛出原异常
+     */
+    @Test
+    void testInvokeAll_ShouldPropagateTaskFailure() {
+        List<Callable<String>> tasks = List.of(() -> {
+            throw new RuntimeException("上传失败");
+        });
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> imageWorkerPool.invokeAll(tasks, 1000));
+        assertEquals("上传失败", e.getMessage());
+    }
+
+    /**
+     * 测试不等待结果的任务：异常不外抛，队列满时返回false而不在调用线程执行
+     */
+    @Test
+    void testSubmit_ShouldRejectWhenQueueFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+
+        assertTrue(imageWorkerPool.submit("blocking", () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        }));
+        assertTrue(imageWorkerPool.submit("failing", () -> {
+            done.countDown();
+            throw new RuntimeException("生成失败");
+        }));
+        assertFalse(imageWorkerPool.submit("rejected", () -> fail("队列已满的任务不应执行")));
+        assertEquals(1.0, meterRegistry.get("image.worker.rejected").counter().count());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+}
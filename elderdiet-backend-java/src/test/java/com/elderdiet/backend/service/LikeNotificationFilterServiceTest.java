@@ -0,0 +1,78 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.entity.LikeNotificationHistory;
+import com.elderdiet.backend.repository.LikeNotificationHistoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 点赞通知去重过滤器服务测试类
+ */
+public class LikeNotificationFilterServiceTest {
+
+    @Mock
+    private LikeNotificationHistoryRepository likeNotificationHistoryRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LikeNotificationFilterService filterService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        filterService = new LikeNotificationFilterService(likeNotificationHistoryRepository, meterRegistry);
+        when(likeNotificationHistoryRepository.streamAllKeys()).thenReturn(Stream.of(
+                LikeNotificationHistory.create("record-1", "child-id", "elder-id")));
+        filterService.rebuild();
+    }
+
+    /**
+     * 测试过滤器判断一定没有通知过时不查询数据库
+     */
+    @Test
+    void testHasNotified_ShouldSkipQueryForNewLike() {
+        assertFalse(filterService.hasNotified("elder-id", "record-2", "child-id"));
+        assertFalse(filterService.hasNotified("other-elder-id", "record-3", "child-id"));
+
+        verify(likeNotificationHistoryRepository, never()).existsByRecordIdAndLikerId(any(), any());
+    }
+
+    /**
+     * 测试过滤器命中时以数据库为准，并统计误判率
+     */
+    @Test
+    void testHasNotified_ShouldConfirmWithDatabase() {
+        when(likeNotificationHistoryRepository.existsByRecordIdAndLikerId("record-1", "child-id"))
+                .thenReturn(true, false);
+
+        assertTrue(filterService.hasNotified("elder-id", "record-1", "child-id"));
+        // 通知历史被删除后过滤器仍命中，数据库确认不存在，记为一次误判
+        assertFalse(filterService.hasNotified("elder-id", "record-1", "child-id"));
+        assertFalse(filterService.hasNotified("elder-id", "record-2", "child-id"));
+
+        assertEquals(0.5, filterService.getObservedFalsePositiveRate(), 1e-9);
+        assertEquals(1.0, meterRegistry.get("like.notification.filter.checks")
+                .tag("result", "false_positive").counter().count());
+    }
+
+    /**
+     * 测试新写入的通知历史立即加入过滤器
+     */
+    @Test
+    void testRecordNotified_ShouldAddToFilter() {
+        filterService.recordNotified("elder-id", "record-2", "child-id");
+        when(likeNotificationHistoryRepository.existsByRecordIdAndLikerId("record-2", "child-id")).thenReturn(true);
+
+        assertTrue(filterService.hasNotified("elder-id", "record-2", "child-id"));
+        verify(likeNotificationHistoryRepository).existsByRecordIdAndLikerId("record-2", "child-id");
+    }
+}
@@ -0,0 +1,93 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.FeedConfig;
+import com.elderdiet.backend.entity.RecordLike;
+import com.elderdiet.backend.repository.RecordLikeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 用户点赞记录缓存服务测试类
+ */
+public class LikedRecordCacheServiceTest {
+
+    @Mock
+    private RecordLikeRepository recordLikeRepository;
+
+    private FeedConfig.FeedProperties feedProperties;
+    private LikedRecordCacheService likedRecordCacheService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        feedProperties = new FeedConfig.FeedProperties();
+        feedProperties.setLikedCacheMaxUsers(1);
+        likedRecordCacheService = new LikedRecordCacheService(recordLikeRepository, feedProperties,
+                new SimpleMeterRegistry());
+
+        when(recordLikeRepository.findRecordIdsByUserId("user-1"))
+                .thenReturn(List.of(RecordLike.builder().recordId("record-1").build()));
+        when(recordLikeRepository.findRecordIdsByUserId("user-2"))
+                .thenReturn(List.of());
+    }
+
+    /**
+     * 测试首次加载只查询一次，之后由点赞切换增量维护
+     */
+    @Test
+    void testFindLikedAmong_ShouldLoadOnceAndApplyToggles() {
+        List<String> page = Arrays.asList("record-1", "record-2");
+
+        assertEquals(Set.of("record-1"), likedRecordCacheService.findLikedAmong("user-1", page));
+
+        likedRecordCacheService.onLikeChanged("user-1", "record-2", true);
+        likedRecordCacheService.onLikeChanged("user-1", "record-1", false);
+
+        assertEquals(Set.of("record-2"), likedRecordCacheService.findLikedAmong("user-1", page));
+        verify(recordLikeRepository, times(1)).findRecordIdsByUserId("user-1");
+        verify(recordLikeRepository, never()).findByUserIdAndRecordIdIn(any(), any());
+    }
+
+    /**
+     * 测试超过用户数上限时淘汰最久未访问的用户，再次访问时重新加载
+     */
+    @Test
+    void testFindLikedAmong_ShouldEvictLeastRecentlyUsedUser() {
+        List<String> page = List.of("record-1");
+
+        likedRecordCacheService.findLikedAmong("user-1", page);
+        likedRecordCacheService.findLikedAmong("user-2", page);
+        likedRecordCacheService.findLikedAmong("user-1", page);
+
+        verify(recordLikeRepository, times(2)).findRecordIdsByUserId("user-1");
+        verify(recordLikeRepository, times(1)).findRecordIdsByUserId("user-2");
+    }
+
+    /**
+     * 测试集合超过有效期后重新加载，看到其他实例上写入的点赞
+     */
+    @Test
+    void testFindLikedAmong_ShouldReloadAfterTtl() {
+        List<String> page = Arrays.asList("record-1", "record-2");
+        assertEquals(Set.of("record-1"), likedRecordCacheService.findLikedAmong("user-1", page));
+
+        when(recordLikeRepository.findRecordIdsByUserId("user-1")).thenReturn(List.of(
+                RecordLike.builder().recordId("record-1").build(),
+                RecordLike.builder().recordId("record-2").build()));
+        assertEquals(Set.of("record-1"), likedRecordCacheService.findLikedAmong("user-1", page));
+
+        feedProperties.setLikedCacheTtlMinutes(0);
+        assertEquals(Set.of("record-1", "record-2"), likedRecordCacheService.findLikedAmong("user-1", page));
+        verify(recordLikeRepository, times(2)).findRecordIdsByUserId("user-1");
+    }
+}
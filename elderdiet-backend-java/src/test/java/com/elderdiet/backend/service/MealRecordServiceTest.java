@@ -0,0 +1,189 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.config.FeedConfig;
+import com.elderdiet.backend.dto.RecordInteractionResponse;
+import com.elderdiet.backend.entity.MealRecord;
+import com.elderdiet.backend.entity.RecordVisibility;
+import com.elderdiet.backend.entity.User;
+import com.elderdiet.backend.entity.UserRole;
+import com.elderdiet.backend.event.DomainEventBus;
+import com.elderdiet.backend.repository.LikeNotificationHistoryRepository;
+import com.elderdiet.backend.repository.MealRecordRepository;
+import com.elderdiet.backend.repository.OutboxEventRepository;
+import com.elderdiet.backend.repository.RecordCommentRepository;
+import com.elderdiet.backend.repository.RecordLikeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 膳食记录服务测试类（批量获取点赞状态和计数）
+ */
+public class MealRecordServiceTest {
+
+    @Mock
+    private MealRecordRepository mealRecordRepository;
+
+    @Mock
+    private OssService ossService;
+
+    @Mock
+    private FamilyGraphService familyGraphService;
+
+    @Mock
+    private ProfileService profileService;
+
+    @Mock
+    private RecordLikeRepository recordLikeRepository;
+
+    @Mock
+    private RecordCommentRepository recordCommentRepository;
+
+    @Mock
+    private JPushService jPushService;
+
+    @Mock
+    private LikeNotificationHistoryRepository likeNotificationHistoryRepository;
+
+    @Mock
+    private LikeNotificationFilterService likeNotificationFilterService;
+
+    @Mock
+    private FeedHydrationService feedHydrationService;
+
+    @Mock
+    private FeedTimelineService feedTimelineService;
+
+    @Mock
+    private BackgroundTaskService backgroundTaskService;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private PublisherSnapshotService publisherSnapshotService;
+
+    @Mock
+    private FeedChangeService feedChangeService;
+
+    @Mock
+    private DomainEventBus domainEventBus;
+
+    private MealRecordService mealRecordService;
+    private User child;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        mealRecordService = new MealRecordService(mealRecordRepository, ossService, familyGraphService,
+                profileService, recordLikeRepository, recordCommentRepository, jPushService,
+                likeNotificationHistoryRepository, likeNotificationFilterService, feedHydrationService,
+                feedTimelineService, new FeedConfig.FeedProperties(), backgroundTaskService, outboxEventRepository,
+                userService, publisherSnapshotService, Collections.emptyList(), feedChangeService, domainEventBus);
+
+        child = User.builder().id("child-id").phone("13800138001").role(UserRole.CHILD).build();
+        when(familyGraphService.getParentIds("child-id")).thenReturn(List.of("elder-id"));
+    }
+
+    /**
+     * 测试只返回自己的记录和家庭成员的FAMILY可见记录，按请求顺序输出，重复的ID只查询和返回一次
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetRecordInteractions_ShouldFilterByVisibilityAndKeepRequestOrder() {
+        // 查询结果的顺序与请求不同，不存在的记录不返回
+        when(mealRecordRepository.findCounters(anyCollection())).thenReturn(Arrays.asList(
+                counters("family-record", "elder-id", RecordVisibility.FAMILY, 3, 1),
+                counters("stranger-record", "stranger-id", RecordVisibility.FAMILY, 9, 9),
+                counters("private-record", "elder-id", RecordVisibility.PRIVATE, 5, 5),
+                counters("own-record", "child-id", RecordVisibility.PRIVATE, 2, 4)));
+        when(recordLikeRepository.findLikedRecordIds(eq("child-id"), anyCollection()))
+                .thenReturn(Set.of("family-record"));
+
+        List<RecordInteractionResponse> responses = mealRecordService.getRecordInteractions(child, List.of(
+                "own-record", "family-record", "private-record", "stranger-record", "missing-record",
+                "family-record", "own-record"));
+
+        assertEquals(List.of("own-record", "family-record"),
+                responses.stream().map(RecordInteractionResponse::getRecordId).collect(Collectors.toList()));
+        assertFalse(responses.get(0).isLikedByCurrentUser());
+        assertEquals(2, responses.get(0).getLikesCount());
+        assertEquals(4, responses.get(0).getCommentsCount());
+        assertTrue(responses.get(1).isLikedByCurrentUser());
+        assertEquals(3, responses.get(1).getLikesCount());
+        assertEquals(1, responses.get(1).getCommentsCount());
+
+        ArgumentCaptor<Collection<String>> counterIds = ArgumentCaptor.forClass(Collection.class);
+        verify(mealRecordRepository).findCounters(counterIds.capture());
+        assertEquals(List.of("own-record", "family-record", "private-record", "stranger-record", "missing-record"),
+                new ArrayList<>(counterIds.getValue()));
+
+        // 只查询可见记录的点赞状态
+        ArgumentCaptor<Collection<String>> likedIds = ArgumentCaptor.forClass(Collection.class);
+        verify(recordLikeRepository).findLikedRecordIds(eq("child-id"), likedIds.capture());
+        assertEquals(Set.of("own-record", "family-record"), new HashSet<>(likedIds.getValue()));
+    }
+
+    /**
+     * 测试没有可见记录时不查询点赞状态
+     */
+    @Test
+    void testGetRecordInteractions_WithoutVisibleRecords_ShouldSkipLikeQuery() {
+        when(mealRecordRepository.findCounters(anyCollection())).thenReturn(List.of(
+                counters("private-record", "elder-id", RecordVisibility.PRIVATE, 1, 1)));
+
+        assertTrue(mealRecordService.getRecordInteractions(child, List.of("private-record")).isEmpty());
+        verify(recordLikeRepository, never()).findLikedRecordIds(any(), any());
+    }
+
+    /**
+     * 测试一次最多查询100条不同的记录，重复的ID不计入上限
+     */
+    @Test
+    void testGetRecordInteractions_ShouldCapDistinctIds() {
+        List<String> hundred = IntStream.range(0, 100).mapToObj(i -> "record-" + i).collect(Collectors.toList());
+        List<String> withDuplicates = new ArrayList<>(hundred);
+        withDuplicates.addAll(hundred.subList(0, 50));
+        when(mealRecordRepository.findCounters(anyCollection())).thenReturn(Collections.emptyList());
+
+        assertTrue(mealRecordService.getRecordInteractions(child, withDuplicates).isEmpty());
+        verify(mealRecordRepository).findCounters(hundred);
+
+        List<String> tooMany = new ArrayList<>(hundred);
+        tooMany.add("record-100");
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> mealRecordService.getRecordInteractions(child, tooMany));
+        assertEquals("一次最多查询100条记录", e.getMessage());
+        verify(mealRecordRepository, times(1)).findCounters(anyCollection());
+    }
+
+    private static MealRecord counters(String id, String userId, RecordVisibility visibility, int likes,
+            int comments) {
+        return MealRecord.builder()
+                .id(id)
+                .userId(userId)
+                .visibility(visibility)
+                .likesCount(likes)
+                .commentsCount(comments)
+                .build();
+    }
+}
@@ -0,0 +1,224 @@
+package com.elderdiet.backend.service;
+
+import com.aliyun.oss.HttpMethod;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.model.DeleteObjectsRequest;
+import com.aliyun.oss.model.GeneratePresignedUrlRequest;
+import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PutObjectRequest;
+import com.elderdiet.backend.config.OssConfig;
+import com.elderdiet.backend.dto.PresignedUploadResponse;
+import com.elderdiet.backend.entity.ImageVariants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 阿里云OSS服务测试类（批量上传和直传图片）
+ */
+public class OssServiceTest {
+
+    private static final String BASE_URL = "https://bucket.oss-cn-hangzhou.aliyuncs.com";
+    private static final String DIRECT_KEY = "images/direct/user-1/20261017120000_abc.jpg";
+
+    @Mock
+    private OSS ossClient;
+
+    @Mock
+    private ImageWorkerPool imageWorkerPool;
+
+    @Mock
+    private UploadIndexService uploadIndexService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OssConfig.OssProperties ossProperties;
+    private OssService ossService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        ossProperties = new OssConfig.OssProperties();
+        ossProperties.setBucketName("bucket");
+        ossProperties.setBaseUrl(BASE_URL);
+        ossProperties.setUploadPath("images/");
+        ossProperties.getImage().setFeedDimension(500);
+        ossService = new OssService(ossClient, ossProperties,
+                new ImageProcessingService(ossProperties, meterRegistry), imageWorkerPool, uploadIndexService,
+                meterRegistry);
+    }
+
+    /**
+     * 测试批量上传失败后仍在上传中的任务：完成时发现本批已中止，删除自己上传的图片，每张图片只删除一次
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUploadFiles_ShouldDeleteUploadsFinishingAfterAbort() throws Exception {
+        ossProperties.getImage().setDedupEnabled(false);
+        List<Callable<ImageVariants>> submitted = new ArrayList<>();
+        when(imageWorkerPool.invokeAll(anyList(), anyLong())).thenAnswer(invocation -> {
+            submitted.addAll(invocation.getArgument(0));
+            submitted.get(0).call();
+            throw new RuntimeException("图片处理超时，请稍后重试");
+        });
+        List<MultipartFile> files = List.of(
+                new MockMultipartFile("images", "a.jpg", "image/jpeg", jpeg(100, 100)),
+                new MockMultipartFile("images", "b.jpg", "image/jpeg", jpeg(100, 100)));
+
+        assertThrows(RuntimeException.class, () -> ossService.uploadFiles(files, "user-1"));
+        verify(ossClient, times(1)).deleteObjects(any(DeleteObjectsRequest.class));
+
+        // 第二张图片在调用方放弃后才上传完成
+        submitted.get(1).call();
+
+        ArgumentCaptor<DeleteObjectsRequest> captor = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(ossClient, times(2)).deleteObjects(captor.capture());
+        ArgumentCaptor<PutObjectRequest> puts = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(ossClient, times(2)).putObject(puts.capture());
+        assertEquals(puts.getAllValues().stream().map(PutObjectRequest::getKey).toList(),
+                captor.getAllValues().stream().map(request -> request.getKeys().get(0)).toList());
+    }
+
+    /**
+     * 测试不在去重索引中的图片只能由对象路径中的上传者删除
+     */
+    @Test
+    void testDeleteFile_ShouldRequireOwnershipOfUnindexedImage() {
+        String otherUsersImage = BASE_URL + "/images/users/user-2/20261017120000_abc.jpg";
+        when(uploadIndexService.release(anyString(), anyString()))
+                .thenReturn(UploadIndexService.ReleaseResult.NOT_INDEXED);
+
+        assertThrows(RuntimeException.class, () -> ossService.deleteFile(otherUsersImage, "user-1"));
+        verify(ossClient, never()).deleteObjects(any(DeleteObjectsRequest.class));
+
+        ossService.deleteFile(otherUsersImage, "user-2");
+        ossService.deleteFile(BASE_URL + "/" + DIRECT_KEY, "user-1");
+        verify(ossClient, times(2)).deleteObjects(any(DeleteObjectsRequest.class));
+    }
+
+    /**
+     * 测试直传URL：PUT 方法、对象键在该用户的直传目录下且扩展名按图片类型生成，不支持的类型直接拒绝
+     */
+    @Test
+    void testPresignUpload_ShouldSignPutUnderUserDirectory() throws Exception {
+        when(ossClient.generatePresignedUrl(any(GeneratePresignedUrlRequest.class)))
+                .thenReturn(new URL(BASE_URL + "/signed"));
+
+        PresignedUploadResponse response = ossService.presignUpload("user-1", "image/png");
+
+        ArgumentCaptor<GeneratePresignedUrlRequest> captor = ArgumentCaptor.forClass(GeneratePresignedUrlRequest.class);
+        verify(ossClient).generatePresignedUrl(captor.capture());
+        assertEquals(HttpMethod.PUT, captor.getValue().getMethod());
+        assertEquals("image/png", captor.getValue().getContentType());
+        assertEquals(response.getObjectKey(), captor.getValue().getKey());
+        assertTrue(response.getObjectKey().startsWith("images/direct/user-1/"));
+        assertTrue(response.getObjectKey().endsWith(".png"));
+        assertEquals(BASE_URL + "/signed", response.getUploadUrl());
+
+        assertThrows(RuntimeException.class, () -> ossService.presignUpload("user-1", "text/html"));
+        verify(ossClient, times(1)).generatePresignedUrl(any(GeneratePresignedUrlRequest.class));
+    }
+
+    /**
+     * 测试完成直传：多尺寸版本生成前所有版本都使用原图URL，不提交异步任务
+     */
+    @Test
+    void testCompleteDirectUpload_ShouldReturnOriginalUntilVariantsExist() {
+        when(ossClient.getObjectMetadata("bucket", DIRECT_KEY)).thenReturn(metadata("image/jpeg", 1024));
+
+        ImageVariants variants = ossService.completeDirectUpload("user-1", DIRECT_KEY);
+
+        assertEquals(ImageVariants.single(BASE_URL + "/" + DIRECT_KEY), variants);
+        assertTrue(ossService.needsDirectUploadVariants(variants));
+        verify(imageWorkerPool, never()).submit(anyString(), any());
+        verify(ossClient, never()).putObject(any(PutObjectRequest.class));
+    }
+
+    /**
+     * 测试完成直传：拒绝其他用户目录下的对象，超过大小上限的对象被删除
+     */
+    @Test
+    void testCompleteDirectUpload_ShouldRejectForeignKeyAndDeleteOversized() {
+        assertThrows(RuntimeException.class,
+                () -> ossService.completeDirectUpload("user-2", DIRECT_KEY));
+        verify(ossClient, never()).getObjectMetadata(anyString(), anyString());
+
+        when(ossClient.getObjectMetadata("bucket", DIRECT_KEY))
+                .thenReturn(metadata("image/jpeg", 11L * 1024 * 1024));
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> ossService.completeDirectUpload("user-1", DIRECT_KEY));
+        assertEquals("图片不能超过 10MB", error.getMessage());
+        verify(ossClient).deleteObject("bucket", DIRECT_KEY);
+    }
+
+    /**
+     * 测试生成直传图片的多尺寸版本：从OSS读取原图，上传展示图和缩略图后返回它们的URL
+     */
+    @Test
+    void testGenerateDirectUploadVariants_ShouldUploadResizedVersions() throws IOException {
+        OSSObject object = new OSSObject();
+        object.setObjectContent(new ByteArrayInputStream(jpeg(1200, 800)));
+        object.setObjectMetadata(metadata("image/jpeg", 0));
+        when(ossClient.getObject("bucket", DIRECT_KEY)).thenReturn(object);
+
+        String originalUrl = BASE_URL + "/" + DIRECT_KEY;
+        ImageVariants variants = ossService.generateDirectUploadVariants(originalUrl);
+
+        assertEquals(originalUrl, variants.getOriginal());
+        assertEquals(BASE_URL + "/images/direct/user-1/20261017120000_abc_feed.jpg", variants.getFeed());
+        assertEquals(BASE_URL + "/images/direct/user-1/20261017120000_abc_thumbnail.jpg", variants.getThumbnail());
+        assertFalse(ossService.needsDirectUploadVariants(variants));
+
+        ArgumentCaptor<PutObjectRequest> captor = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(ossClient, times(2)).putObject(captor.capture());
+        assertEquals(List.of("images/direct/user-1/20261017120000_abc_feed.jpg",
+                "images/direct/user-1/20261017120000_abc_thumbnail.jpg"),
+                captor.getAllValues().stream().map(PutObjectRequest::getKey).toList());
+    }
+
+    /**
+     * 测试读取原图失败时抛出异常（由Outbox重试）并计数
+     */
+    @Test
+    void testGenerateDirectUploadVariants_ShouldThrowForRetry() {
+        when(ossClient.getObject("bucket", DIRECT_KEY)).thenThrow(new RuntimeException("连接超时"));
+
+        assertThrows(RuntimeException.class,
+                () -> ossService.generateDirectUploadVariants(BASE_URL + "/" + DIRECT_KEY));
+        assertEquals(1.0, meterRegistry.get("image.direct.variants.failed").counter().count());
+        verify(ossClient, never()).putObject(any(PutObjectRequest.class));
+    }
+
+    private static ObjectMetadata metadata(String contentType, long contentLength) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(contentType);
+        metadata.setContentLength(contentLength);
+        return metadata;
+    }
+
+    private static byte[] jpeg(int width, int height) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpg", output);
+        return output.toByteArray();
+    }
+}
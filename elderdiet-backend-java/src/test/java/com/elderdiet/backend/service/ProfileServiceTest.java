@@ -2,6 +2,8 @@ package com.elderdiet.backend.service;
 
 import com.elderdiet.backend.dto.ProfileDTO;
 import com.elderdiet.backend.entity.Profile;
+import com.elderdiet.backend.event.DomainEventBus;
+import com.elderdiet.backend.repository.OutboxEventRepository;
 import com.elderdiet.backend.repository.ProfileRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
@@ -26,6 +28,12 @@ public class ProfileServiceTest {
     @Mock
     private ProfileRepository profileRepository;
 
+    @Mock
+    private DomainEventBus domainEventBus;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
     private ProfileService profileService;
 
     private Profile existingProfile;
@@ -34,7 +42,7 @@ public class ProfileServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        profileService = new ProfileService(profileRepository);
+        profileService = new ProfileService(profileRepository, domainEventBus, outboxEventRepository);
 
         // 创建现有的档案（有小树进度）
         existingProfile = Profile.builder()
@@ -0,0 +1,119 @@
+package com.elderdiet.backend.service;
+
+import com.elderdiet.backend.entity.ImageVariants;
+import com.elderdiet.backend.entity.UploadedImage;
+import com.elderdiet.backend.repository.UploadedImageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 上传图片去重服务测试类
+ */
+public class UploadIndexServiceTest {
+
+    @Mock
+    private UploadedImageRepository uploadedImageRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UploadIndexService uploadIndexService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        uploadIndexService = new UploadIndexService(uploadedImageRepository, meterRegistry);
+    }
+
+    /**
+     * 测试流式计算的哈希与标准SHA-256一致
+     */
+    @Test
+    void testSha256() throws IOException {
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                UploadIndexService.sha256(new ByteArrayInputStream("abc".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * 测试命中已上传的图片时返回已有URL，未命中时返回null，并分别计数
+     */
+    @Test
+    void testAcquire_ShouldReturnExistingVariants() {
+        ImageVariants variants = ImageVariants.single("https://oss/a.jpg");
+        when(uploadedImageRepository.acquire("hash", "user-1")).thenReturn(indexed("hash", variants, 2));
+
+        assertSame(variants, uploadIndexService.acquire("hash", "user-1"));
+        assertNull(uploadIndexService.acquire("other", "user-1"));
+        assertEquals(1.0, meterRegistry.get("image.upload.dedup").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("image.upload.dedup").tag("result", "miss").counter().count());
+    }
+
+    /**
+     * 测试并发上传相同内容时，后登记的一方改为引用先登记的图片
+     */
+    @Test
+    void testRegister_ShouldReferenceConcurrentUpload() {
+        ImageVariants mine = ImageVariants.single("https://oss/mine.jpg");
+        ImageVariants theirs = ImageVariants.single("https://oss/theirs.jpg");
+        when(uploadedImageRepository.insert(any(UploadedImage.class)))
+                .thenReturn(null)
+                .thenThrow(new DuplicateKeyException("duplicate"));
+        when(uploadedImageRepository.acquire("hash", "user-2")).thenReturn(indexed("hash", theirs, 2));
+
+        assertSame(mine, uploadIndexService.register("hash", "user-1", mine, 100, "image/jpeg"));
+        assertSame(theirs, uploadIndexService.register("hash", "user-2", mine, 100, "image/jpeg"));
+        verify(uploadedImageRepository).insert(argThat((UploadedImage image) ->
+                image.getReferences().equals(Map.of("user-1", 1))));
+    }
+
+    /**
+     * 测试释放引用：仍有引用时保留对象，最后一个引用释放后删除索引，不在索引中的图片交给调用方判断
+     */
+    @Test
+    void testRelease_ShouldDeleteOnlyWhenUnreferenced() {
+        ImageVariants variants = ImageVariants.single("https://oss/a.jpg");
+        when(uploadedImageRepository.releaseByOriginalUrl("https://oss/a.jpg", "user-1"))
+                .thenReturn(indexed("hash", variants, 1))
+                .thenReturn(indexed("hash", variants, 0));
+        when(uploadedImageRepository.removeIfUnreferenced("hash")).thenReturn(true);
+
+        assertEquals(UploadIndexService.ReleaseResult.KEEP, uploadIndexService.release("https://oss/a.jpg", "user-1"));
+        verify(uploadedImageRepository, never()).removeIfUnreferenced(anyString());
+        assertEquals(UploadIndexService.ReleaseResult.DELETE,
+                uploadIndexService.release("https://oss/a.jpg", "user-1"));
+        verify(uploadedImageRepository).removeIfUnreferenced("hash");
+
+        assertEquals(UploadIndexService.ReleaseResult.NOT_INDEXED,
+                uploadIndexService.release("https://oss/legacy.jpg", "user-1"));
+    }
+
+    /**
+     * 测试没有持有引用的用户不能释放其他用户上传的图片
+     */
+    @Test
+    void testRelease_ShouldRejectUserWithoutReference() {
+        when(uploadedImageRepository.releaseByOriginalUrl("https://oss/a.jpg", "stranger")).thenReturn(null);
+        when(uploadedImageRepository.existsByVariantsOriginal("https://oss/a.jpg")).thenReturn(true);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> uploadIndexService.release("https://oss/a.jpg", "stranger"));
+        assertEquals("无权删除此图片", e.getMessage());
+        verify(uploadedImageRepository, never()).removeIfUnreferenced(anyString());
+    }
+
+    private static UploadedImage indexed(String hash, ImageVariants variants, int refCount) {
+        return UploadedImage.builder().id(hash).variants(variants).refCount(refCount).build();
+    }
+}
@@ -0,0 +1,156 @@
+package com.elderdiet.backend.task;
+
+import com.elderdiet.backend.config.AsyncConfig;
+import com.elderdiet.backend.config.OutboxConfig;
+import com.elderdiet.backend.entity.OutboxEvent;
+import com.elderdiet.backend.entity.User;
+import com.elderdiet.backend.repository.OutboxEventRepository;
+import com.elderdiet.backend.service.BackgroundTaskService;
+import com.elderdiet.backend.service.GamificationService;
+import com.elderdiet.backend.service.ImageWorkerPool;
+import com.elderdiet.backend.service.MealRecordService;
+import com.elderdiet.backend.service.NutritionistCommentService;
+import com.elderdiet.backend.service.PublisherSnapshotService;
+import com.elderdiet.backend.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Outbox 事件执行任务测试类
+ */
+public class OutboxWorkerTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private BackgroundTaskService backgroundTaskService;
+
+    @Mock
+    private ImageWorkerPool imageWorkerPool;
+
+    @Mock
+    private GamificationService gamificationService;
+
+    @Mock
+    private MealRecordService mealRecordService;
+
+    @Mock
+    private NutritionistCommentService nutritionistCommentService;
+
+    @Mock
+    private PublisherSnapshotService publisherSnapshotService;
+
+    @Mock
+    private UserService userService;
+
+    private OutboxConfig.OutboxProperties outboxProperties;
+    private OutboxWorker outboxWorker;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        outboxProperties = new OutboxConfig.OutboxProperties();
+        outboxWorker = new OutboxWorker(outboxEventRepository, outboxProperties, new AsyncConfig.AsyncProperties(),
+                backgroundTaskService, imageWorkerPool, gamificationService, mealRecordService, nutritionistCommentService,
+                publisherSnapshotService, userService, new SimpleMeterRegistry());
+    }
+
+    /**
+     * 测试执行成功后标记完成
+     */
+    @Test
+    void testExecute_ShouldMarkDoneOnSuccess() {
+        OutboxEvent event = claimed(OutboxEvent.EventType.FAMILY_PUSH, 1);
+        when(outboxEventRepository.markDone(eq("event-id"), anyString())).thenReturn(true);
+
+        outboxWorker.execute(event);
+
+        verify(mealRecordService).sendMealRecordNotificationToChildren("record-id");
+        verify(outboxEventRepository).markDone(eq("event-id"), anyString());
+        verify(outboxEventRepository, never()).markRetry(any(), any(), any(), any());
+    }
+
+    /**
+     * 测试浇水事件租约过期后被重新领取时不会重复浇水
+     */
+    @Test
+    void testExecute_ShouldWaterTreeOncePerRecord() {
+        User user = User.builder().id("user-id").build();
+        when(userService.findById("user-id")).thenReturn(Optional.of(user));
+        when(mealRecordService.markTreeWatered("record-id")).thenReturn(true, false);
+
+        outboxWorker.execute(claimed(OutboxEvent.EventType.WATER_TREE, 1));
+        outboxWorker.execute(claimed(OutboxEvent.EventType.WATER_TREE, 2));
+
+        verify(gamificationService, times(1)).waterTree(user);
+        verify(outboxEventRepository, times(2)).markDone(eq("event-id"), anyString());
+        verify(outboxEventRepository, never()).markRetry(any(), any(), any(), any());
+    }
+
+    /**
+     * 测试直传图片的多尺寸版本交给图片处理线程池，队列已满时释放租约
+     */
+    @Test
+    void testPoll_ShouldSubmitImageVariantsToImagePool() {
+        OutboxEvent event = claimed(OutboxEvent.EventType.IMAGE_VARIANTS, 1);
+        when(outboxEventRepository.claim(eq(EnumSet.of(OutboxEvent.EventType.IMAGE_VARIANTS)), anyString(), any(),
+                anyInt())).thenReturn(List.of(event));
+        when(imageWorkerPool.submit(anyString(), any())).thenReturn(false);
+
+        outboxWorker.poll();
+
+        verify(outboxEventRepository).release(eq("event-id"), anyString());
+        verify(mealRecordService, never()).generateDirectUploadVariants(any());
+
+        outboxWorker.execute(event);
+        verify(mealRecordService).generateDirectUploadVariants("record-id");
+    }
+
+    /**
+     * 测试执行失败时按指数退避安排重试，超过最大次数后标记失败
+     */
+    @Test
+    void testExecute_ShouldBackOffThenFail() {
+        doThrow(new RuntimeException("AI API 返回空响应"))
+                .when(nutritionistCommentService).generateNutritionistComment("record-id", "user-id");
+
+        LocalDateTime before = LocalDateTime.now();
+        outboxWorker.execute(claimed(OutboxEvent.EventType.NUTRITIONIST_COMMENT, 3));
+        verify(outboxEventRepository).markRetry(eq("event-id"), anyString(),
+                argThat(next -> !next.isBefore(before.plusSeconds(20))), eq("AI API 返回空响应"));
+
+        outboxWorker.execute(claimed(OutboxEvent.EventType.NUTRITIONIST_COMMENT, outboxProperties.getMaxAttempts()));
+        verify(outboxEventRepository).markFailed(eq("event-id"), anyString(), eq("AI API 返回空响应"));
+    }
+
+    /**
+     * 测试退避时间不超过上限
+     */
+    @Test
+    void testBackoffSeconds_ShouldBeCapped() {
+        assertEquals(5, outboxWorker.backoffSeconds(1));
+        assertEquals(40, outboxWorker.backoffSeconds(4));
+        assertEquals(outboxProperties.getMaxBackoffSeconds(), outboxWorker.backoffSeconds(30));
+    }
+
+    private static OutboxEvent claimed(OutboxEvent.EventType type, int attempts) {
+        OutboxEvent event = OutboxEvent.create(type, "record-id", "user-id");
+        event.setId("event-id");
+        event.setStatus(OutboxEvent.Status.PROCESSING);
+        event.setAttempts(attempts);
+        return event;
+    }
+}
@@ -0,0 +1,36 @@
+package com.elderdiet.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分享墙分页游标测试类
+ */
+public class FeedCursorTest {
+
+    @Test
+    void testEncodeDecode_ShouldRoundTrip() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 7, 1, 12, 30, 15, 123_000_000);
+        FeedCursor cursor = new FeedCursor(createdAt, "64b7f0c2e4b0a1a2b3c4d5e6");
+
+        FeedCursor decoded = FeedCursor.decode(cursor.encode());
+
+        assertEquals(createdAt, decoded.getCreatedAt());
+        assertEquals("64b7f0c2e4b0a1a2b3c4d5e6", decoded.getId());
+    }
+
+    @Test
+    void testDecode_EmptyCursor_ShouldMeanFirstPage() {
+        assertNull(FeedCursor.decode(""));
+        assertNull(FeedCursor.decode(null));
+    }
+
+    @Test
+    void testDecode_InvalidCursor_ShouldThrow() {
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> FeedCursor.decode("not-a-cursor"));
+        assertEquals("无效的分页游标", exception.getMessage());
+    }
+}
@@ -0,0 +1,54 @@
+package com.elderdiet.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 可扩展布隆过滤器测试类
+ */
+public class ScalableBloomFilterTest {
+
+    /**
+     * 测试超过初始容量后继续扩展，已添加的元素不会漏判
+     */
+    @Test
+    void testAdd_ShouldGrowWithoutFalseNegatives() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(16, 0.01);
+        long initialBits = 0;
+
+        for (int i = 0; i < 5000; i++) {
+            filter.add("record-" + i + ":liker");
+            if (i == 0) {
+                initialBits = filter.bitCount();
+            }
+        }
+
+        assertEquals(5000, filter.size());
+        assertTrue(filter.bitCount() > initialBits);
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(filter.mightContain("record-" + i + ":liker"));
+        }
+    }
+
+    /**
+     * 测试扩展后的实际误判率不超过设定值
+     */
+    @Test
+    void testMightContain_ShouldStayWithinFalsePositiveRate() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(32, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.add("present-" + i);
+        }
+
+        int falsePositives = 0;
+        int probes = 100000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("absent-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue((double) falsePositives / probes < 0.015, "误判率过高: " + falsePositives);
+    }
+}
@@ -0,0 +1,93 @@
+package com.elderdiet.backend.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 流式JSON响应测试类
+ */
+public class StreamingApiResponseTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+
+    /**
+     * 测试输出与 ApiResponse 相同的信封结构，并在输出完成后关闭数据源
+     */
+    @Test
+    void testSuccess_ShouldWriteEnvelopeAndCloseSource() throws IOException {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        StreamingApiResponse.success(objectMapper, "获取成功",
+                () -> Stream.of(new Item("第一条"), new Item("第二条")).onClose(() -> closed.set(true)))
+                .writeTo(output);
+
+        JsonNode json = objectMapper.readTree(output.toString(StandardCharsets.UTF_8));
+        assertTrue(json.get("success").asBoolean());
+        assertEquals("获取成功", json.get("message").asText());
+        assertEquals(2, json.get("data").size());
+        assertEquals("第二条", json.get("data").get(1).get("item_name").asText());
+        assertNotNull(json.get("timestamp"));
+        assertTrue(closed.get());
+    }
+
+    /**
+     * 测试数据源出错时不补全JSON，客户端不会把截断的列表当作完整结果
+     */
+    @Test
+    void testSuccess_ShouldLeaveJsonIncompleteOnFailure() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertThrows(RuntimeException.class, () -> StreamingApiResponse.success(objectMapper, "获取成功",
+                () -> Stream.of(1, 2).map(i -> {
+                    if (i == 2) {
+                        throw new RuntimeException("游标中断");
+                    }
+                    return new Item("第" + i + "条");
+                })).writeTo(output));
+
+        assertThrows(IOException.class, () -> objectMapper.readTree(output.toString(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 测试按批分组并在关闭时关闭源Stream
+     */
+    @Test
+    void testBatched_ShouldGroupAndPropagateClose() {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        List<List<Integer>> batches;
+        try (Stream<List<Integer>> stream = StreamingApiResponse.batched(
+                Stream.of(1, 2, 3, 4, 5).onClose(() -> closed.set(true)), 2)) {
+            batches = stream.collect(Collectors.toList());
+        }
+
+        assertEquals(Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, 4), Arrays.asList(5)), batches);
+        assertTrue(closed.get());
+    }
+
+    public static class Item {
+        private final String itemName;
+
+        Item(String itemName) {
+            this.itemName = itemName;
+        }
+
+        public String getItemName() {
+            return itemName;
+        }
+    }
+}